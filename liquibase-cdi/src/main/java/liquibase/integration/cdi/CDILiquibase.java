@@ -25,6 +25,8 @@ import javax.inject.Inject;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -131,9 +133,19 @@ public class CDILiquibase implements Extension {
     private void performUpdate() throws LiquibaseException {
         Connection c = null;
         Liquibase liquibase = null;
+        List<Database> workerDatabases = new ArrayList<>();
         try {
             c = dataSource.getConnection();
             liquibase = createLiquibase(c);
+            if ((config.getThreads() > 1) && (config.getSchemaLevels() != null)) {
+                Scope.getCurrentScope().getLog(getClass()).info("Migrating the schemes of each level on up to "
+                        + config.getThreads() + " connections");
+                for (int i = 0; i < config.getThreads(); i++) {
+                    workerDatabases.add(createDatabase(dataSource.getConnection()));
+                }
+                liquibase.setUpdateWorkerDatabases(workerDatabases);
+                liquibase.setUpdateChangeSetGroups(config.getSchemaLevels());
+            }
             liquibase.update(new Contexts(config.getContexts()), new LabelExpression(config.getLabels()));
             updateSuccessful = true;
         } catch (SQLException e) {
@@ -142,6 +154,13 @@ public class CDILiquibase implements Extension {
             updateSuccessful = false;
             throw ex;
         } finally {
+            for (Database workerDatabase : workerDatabases) {
+                try {
+                    workerDatabase.close();
+                } catch (DatabaseException e) {
+                    Scope.getCurrentScope().getLog(getClass()).warning("Cannot close connection: " + e.getMessage(), e);
+                }
+            }
             if ((liquibase != null) && (liquibase.getDatabase() != null)) {
                 liquibase.getDatabase().close();
             } else if (c != null) {
@@ -16,6 +16,8 @@ public class CDILiquibaseConfig {
     private boolean dropFirst;
     private String defaultSchema;
     private boolean shouldRun = true;
+    private int threads = 1;
+    private SchemaLevels schemaLevels;
 
     public String getContexts() {
         return contexts;
@@ -72,4 +74,27 @@ public class CDILiquibaseConfig {
     public void setShouldRun(boolean shouldRun) {
         this.shouldRun = shouldRun;
     }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets how many schemes of the same level are migrated at the same time, each on its own connection, when
+     * {@link #getSchemaLevels() scheme levels} are known. Defaults to 1, which migrates everything on one connection.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Returns the levels of the schemes the changelog was built from, set by {@link SchemesCDIConfigBuilder}.
+     */
+    public SchemaLevels getSchemaLevels() {
+        return schemaLevels;
+    }
+
+    public void setSchemaLevels(SchemaLevels schemaLevels) {
+        this.schemaLevels = schemaLevels;
+    }
 }
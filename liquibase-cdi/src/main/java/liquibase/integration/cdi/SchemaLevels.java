@@ -0,0 +1,58 @@
+package liquibase.integration.cdi;
+
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.ChangeSetGroups;
+import liquibase.changelog.DatabaseChangeLog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Groups the change sets of the changelog built by {@link SchemesCDIConfigBuilder} by the
+ * {@link liquibase.integration.cdi.annotations.LiquibaseSchema} they come from, on the level computed by
+ * {@link SchemesTreeBuilder#buildLevels(String, java.util.Collection)}. Used by {@link CDILiquibase} to migrate the
+ * schemes of a level at the same time when {@link CDILiquibaseConfig#getThreads()} is more than one.
+ */
+public class SchemaLevels implements ChangeSetGroups {
+
+    private final Map<String, String> schemaByChangeLog = new HashMap<>();
+    private final Map<String, Integer> levelBySchema = new HashMap<>();
+
+    /**
+     * Adds a changelog file of the given scheme.
+     */
+    public void addChangeLog(String schema, int level, String changeLogPath) {
+        schemaByChangeLog.put(normalize(changeLogPath), schema);
+        levelBySchema.put(schema, level);
+    }
+
+    /**
+     * Returns the scheme of the change set's changelog, or of the changelog including it.
+     */
+    @Override
+    public String getGroup(ChangeSet changeSet) {
+        for (DatabaseChangeLog changeLog = changeSet.getChangeLog(); changeLog != null; changeLog = changeLog.getParentChangeLog()) {
+            String schema = schemaByChangeLog.get(normalize(changeLog.getPhysicalFilePath()));
+            if (schema != null) {
+                return schema;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int getLevel(String group) {
+        return levelBySchema.get(group);
+    }
+
+    private static String normalize(String path) {
+        if (path == null) {
+            return null;
+        }
+        path = path.replace('\\', '/');
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return path;
+    }
+}
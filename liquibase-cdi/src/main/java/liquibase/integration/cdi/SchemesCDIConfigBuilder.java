@@ -128,15 +128,21 @@ public class SchemesCDIConfigBuilder {
 
         List<LiquibaseSchema> treeList = treeBuilder.build(id, liquibaseSchemaList);
 
-        List<String[]> resourceList = new ArrayList<>();
-        for (LiquibaseSchema liquibaseSchema : treeList) {
-            resourceList.add(liquibaseSchema.resource());
+        Map<String, Integer> levels = new HashMap<>();
+        List<List<LiquibaseSchema>> levelList = treeBuilder.toLevels(treeList);
+        for (int level = 0; level < levelList.size(); level++) {
+            for (LiquibaseSchema liquibaseSchema : levelList.get(level)) {
+                levels.put(liquibaseSchema.name(), level);
+            }
         }
 
+        SchemaLevels schemaLevels = new SchemaLevels();
         List<String> schemaPaths = new ArrayList<>();
-        for (String[] resources : resourceList) {
-            for (String resource : resources) {
-                schemaPaths.add(copyToFile(id, liquibaseDir.getAbsolutePath(), resource));
+        for (LiquibaseSchema liquibaseSchema : treeList) {
+            for (String resource : liquibaseSchema.resource()) {
+                String schemaPath = copyToFile(id, liquibaseDir.getAbsolutePath(), resource);
+                schemaPaths.add(schemaPath);
+                schemaLevels.addChangeLog(liquibaseSchema.name(), levels.get(liquibaseSchema.name()), schemaPath);
             }
         }
 
@@ -161,6 +167,7 @@ public class SchemesCDIConfigBuilder {
 
         CDILiquibaseConfig config = new CDILiquibaseConfig();
         config.setChangeLog(TEMPLATE_NAME);
+        config.setSchemaLevels(schemaLevels);
         return config;
     }
 
@@ -10,7 +10,9 @@ import javax.enterprise.context.ApplicationScoped;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Nikita Lipatov (https://github.com/islonik), antoermo (https://github.com/dikeert)
@@ -182,4 +184,37 @@ public class SchemesTreeBuilder {
 
         return root.toList();
     }
+
+    /**
+     * Builds the schemes sorted according dependencies, grouped into levels: the first level holds the schemes that do
+     * not depend on any other, every next level the schemes depending on a scheme of the level before. Schemes of the
+     * same level do not depend on each other.
+     *
+     * @param schemes All found Liquibase Schema annotations in 'war' or 'ear' type file.
+     * @return levels of schemes, each in the order of {@link #build(String, Collection)}
+     */
+    public List<List<LiquibaseSchema>> buildLevels(final String id, Collection<LiquibaseSchema> schemes) {
+        return toLevels(build(id, schemes));
+    }
+
+    /**
+     * Groups schemes sorted by {@link #build(String, Collection)} into levels, see {@link #buildLevels(String, Collection)}.
+     */
+    public List<List<LiquibaseSchema>> toLevels(List<LiquibaseSchema> sortedSchemes) {
+        Map<String, Integer> levelByName = new HashMap<>();
+        List<List<LiquibaseSchema>> levels = new ArrayList<>();
+        // a scheme is always sorted after the scheme it depends on, but not always after schemes of lower levels
+        for (LiquibaseSchema liquibaseSchema : sortedSchemes) {
+            int level = 0;
+            if (!liquibaseSchema.depends().trim().isEmpty()) {
+                level = levelByName.get(liquibaseSchema.depends()) + 1;
+            }
+            levelByName.put(liquibaseSchema.name(), level);
+            while (levels.size() <= level) {
+                levels.add(new ArrayList<LiquibaseSchema>());
+            }
+            levels.get(level).add(liquibaseSchema);
+        }
+        return levels;
+    }
 }
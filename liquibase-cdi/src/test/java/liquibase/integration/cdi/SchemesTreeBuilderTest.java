@@ -110,6 +110,29 @@ public class SchemesTreeBuilderTest {
         Assert.assertEquals(7, resolved.size());
     }
 
+    @Test
+    public void testLevels() throws Exception {
+        Collection<LiquibaseSchema> schemes = new ArrayList<LiquibaseSchema>() {{
+            addAll(getNonDependent());
+            addAll(getDependent());
+        }};
+
+        List<List<LiquibaseSchema>> levels = new SchemesTreeBuilder().buildLevels(UUID.randomUUID().toString(), schemes);
+
+        assertEquals(9, levels.size());
+        assertEquals(8, levels.get(0).size());
+        for (LiquibaseSchema liquibaseSchema : levels.get(0)) {
+            assertTrue(Strings.isNullOrEmpty(liquibaseSchema.depends()));
+        }
+        String previous = "I";
+        for (List<LiquibaseSchema> level : levels.subList(1, levels.size())) {
+            assertEquals(1, level.size());
+            assertEquals(previous, level.get(0).depends());
+            previous = level.get(0).name();
+        }
+        assertEquals("B", previous);
+    }
+
     private Collection<LiquibaseSchema> getWithAbsentDependency() {
         return list2Coll(Arrays.asList("A", "B", "C", "D", "E", "G", "H", "I"));
     }
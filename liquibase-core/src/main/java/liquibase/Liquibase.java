@@ -76,6 +76,8 @@ public class Liquibase implements AutoCloseable {
     private ChangeLogParameters changeLogParameters;
     private ChangeExecListener changeExecListener;
     private ChangeLogSyncListener changeLogSyncListener;
+    private List<Database> updateWorkerDatabases = new ArrayList<>();
+    private ChangeSetGroups updateChangeSetGroups;
 
     /**
      * Creates a Liquibase instance for a given DatabaseConnection. The Database instance used will be found with {@link DatabaseFactory#findCorrectDatabaseImplementation(liquibase.database.DatabaseConnection)}
@@ -110,6 +112,10 @@ public class Liquibase implements AutoCloseable {
         this.database = database;
     }
 
+    /**
+     * Creates a Liquibase instance for an already parsed changelog. A changelog that is applied to several databases,
+     * possibly at the same time by separate instances, should be {@link DatabaseChangeLog#freeze() frozen} first.
+     */
     public Liquibase(DatabaseChangeLog changeLog, ResourceAccessor resourceAccessor, Database database) {
         this.databaseChangeLog = changeLog;
 
@@ -203,7 +209,14 @@ public class Liquibase implements AutoCloseable {
 
                     ChangeLogIterator changeLogIterator = getStandardChangelogIterator(contexts, labelExpression, changeLog);
 
-                    changeLogIterator.run(createUpdateVisitor(), new RuntimeEnvironment(database, contexts, labelExpression));
+                    RuntimeEnvironment env = new RuntimeEnvironment(database, contexts, labelExpression);
+                    if (updateWorkerDatabases.isEmpty()
+                            || (Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database) instanceof LoggingExecutor)) {
+                        changeLogIterator.run(createUpdateVisitor(), env);
+                    } else {
+                        new ParallelUpdateRunner(changeLogIterator, updateWorkerDatabases, updateChangeSetGroups)
+                                .run(createUpdateVisitor(), env);
+                    }
                 } finally {
                     database.setObjectQuotingStrategy(ObjectQuotingStrategy.LEGACY);
                     try {
@@ -557,8 +570,10 @@ public class Liquibase implements AutoCloseable {
 
                     changeLog.validate(database, contexts, labelExpression);
 
-                    ChangeLogIterator logIterator = new ChangeLogIterator(database.getRanChangeSetList(), changeLog,
-                            new AlreadyRanChangeSetFilter(database.getRanChangeSetList()),
+                    List<RanChangeSet> ranChangeSetList = database.getRanChangeSetList();
+                    RanChangeSetIndex ranChangeSetIndex = new RanChangeSetIndex(ranChangeSetList);
+                    ChangeLogIterator logIterator = new ChangeLogIterator(ranChangeSetList, changeLog,
+                            new AlreadyRanChangeSetFilter(ranChangeSetIndex),
                             new ContextChangeSetFilter(contexts),
                             new LabelChangeSetFilter(labelExpression),
                             new DbmsChangeSetFilter(database),
@@ -728,9 +743,10 @@ public class Liquibase implements AutoCloseable {
                     changeLog.validate(database, contexts, labelExpression);
 
                     List<RanChangeSet> ranChangeSetList = database.getRanChangeSetList();
+                    RanChangeSetIndex ranChangeSetIndex = new RanChangeSetIndex(ranChangeSetList);
                     ChangeLogIterator logIterator = new ChangeLogIterator(ranChangeSetList, changeLog,
-                            new AfterTagChangeSetFilter(tagToRollBackTo, ranChangeSetList),
-                            new AlreadyRanChangeSetFilter(ranChangeSetList),
+                            new AfterTagChangeSetFilter(tagToRollBackTo, ranChangeSetIndex),
+                            new AlreadyRanChangeSetFilter(ranChangeSetIndex),
                             new ContextChangeSetFilter(contexts),
                             new LabelChangeSetFilter(labelExpression),
                             new IgnoreChangeSetFilter(),
@@ -827,9 +843,10 @@ public class Liquibase implements AutoCloseable {
                     changeLog.validate(database, contexts, labelExpression);
 
                     List<RanChangeSet> ranChangeSetList = database.getRanChangeSetList();
+                    RanChangeSetIndex ranChangeSetIndex = new RanChangeSetIndex(ranChangeSetList);
                     ChangeLogIterator logIterator = new ChangeLogIterator(ranChangeSetList, changeLog,
-                            new ExecutedAfterChangeSetFilter(dateToRollBackTo, ranChangeSetList),
-                            new AlreadyRanChangeSetFilter(ranChangeSetList),
+                            new ExecutedAfterChangeSetFilter(dateToRollBackTo, ranChangeSetIndex),
+                            new AlreadyRanChangeSetFilter(ranChangeSetIndex),
                             new ContextChangeSetFilter(contexts),
                             new LabelChangeSetFilter(labelExpression),
                             new IgnoreChangeSetFilter(),
@@ -1097,17 +1114,19 @@ public class Liquibase implements AutoCloseable {
 
                     changeLog.validate(database, contexts, labelExpression);
 
+                    List<RanChangeSet> ranChangeSetList = database.getRanChangeSetList();
+                    RanChangeSetIndex ranChangeSetIndex = new RanChangeSetIndex(ranChangeSetList);
                     ChangeLogIterator logIterator;
                     if ((count == null) && (tag == null)) {
                         logIterator = new ChangeLogIterator(changeLog,
-                                new NotRanChangeSetFilter(database.getRanChangeSetList()),
+                                new NotRanChangeSetFilter(ranChangeSetIndex),
                                 new ContextChangeSetFilter(contexts),
                                 new LabelChangeSetFilter(labelExpression),
                                 new IgnoreChangeSetFilter(),
                                 new DbmsChangeSetFilter(database));
                     } else if (count != null) {
                         ChangeLogIterator forwardIterator = new ChangeLogIterator(changeLog,
-                                new NotRanChangeSetFilter(database.getRanChangeSetList()),
+                                new NotRanChangeSetFilter(ranChangeSetIndex),
                                 new ContextChangeSetFilter(contexts),
                                 new LabelChangeSetFilter(labelExpression),
                                 new DbmsChangeSetFilter(database),
@@ -1117,7 +1136,7 @@ public class Liquibase implements AutoCloseable {
                         forwardIterator.run(listVisitor, new RuntimeEnvironment(database, contexts, labelExpression));
 
                         logIterator = new ChangeLogIterator(changeLog,
-                                new NotRanChangeSetFilter(database.getRanChangeSetList()),
+                                new NotRanChangeSetFilter(ranChangeSetIndex),
                                 new ContextChangeSetFilter(contexts),
                                 new LabelChangeSetFilter(labelExpression),
                                 new DbmsChangeSetFilter(database),
@@ -1131,9 +1150,8 @@ public class Liquibase implements AutoCloseable {
                                     }
                                 });
                     } else {
-                        List<RanChangeSet> ranChangeSetList = database.getRanChangeSetList();
                         ChangeLogIterator forwardIterator = new ChangeLogIterator(changeLog,
-                                new NotRanChangeSetFilter(ranChangeSetList),
+                                new NotRanChangeSetFilter(ranChangeSetIndex),
                                 new ContextChangeSetFilter(contexts),
                                 new LabelChangeSetFilter(labelExpression),
                                 new DbmsChangeSetFilter(database),
@@ -1143,7 +1161,7 @@ public class Liquibase implements AutoCloseable {
                         forwardIterator.run(listVisitor, new RuntimeEnvironment(database, contexts, labelExpression));
 
                         logIterator = new ChangeLogIterator(changeLog,
-                                new NotRanChangeSetFilter(ranChangeSetList),
+                                new NotRanChangeSetFilter(ranChangeSetIndex),
                                 new ContextChangeSetFilter(contexts),
                                 new LabelChangeSetFilter(labelExpression),
                                 new DbmsChangeSetFilter(database),
@@ -1177,10 +1195,21 @@ public class Liquibase implements AutoCloseable {
         });
     }
 
+    /**
+     * Resets the lock, history and executor state of the databases this instance uses. The state of other databases is
+     * left alone, since other Liquibase instances may be using them on other threads.
+     */
     protected void resetServices() {
-        LockServiceFactory.getInstance().resetAll();
-        ChangeLogHistoryServiceFactory.getInstance().resetAll();
-        Scope.getCurrentScope().getSingleton(ExecutorService.class).reset();
+        resetServices(database);
+        for (Database workerDatabase : updateWorkerDatabases) {
+            resetServices(workerDatabase);
+        }
+    }
+
+    private void resetServices(Database database) {
+        LockServiceFactory.getInstance().resetLockService(database);
+        ChangeLogHistoryServiceFactory.getInstance().resetChangeLogService(database);
+        Scope.getCurrentScope().getSingleton(ExecutorService.class).clearExecutors(database);
     }
 
     /**
@@ -1717,6 +1746,31 @@ public class Liquibase implements AutoCloseable {
         this.changeLogSyncListener = changeLogSyncListener;
     }
 
+    public List<Database> getUpdateWorkerDatabases() {
+        return updateWorkerDatabases;
+    }
+
+    /**
+     * Sets extra connections to the same database that {@link #update(Contexts, LabelExpression, boolean)} may use to
+     * run independent change sets at the same time, see {@link ParallelUpdateRunner}. Empty by default, which runs
+     * change sets one after the other. The caller stays responsible for closing them.
+     */
+    public void setUpdateWorkerDatabases(List<Database> updateWorkerDatabases) {
+        this.updateWorkerDatabases = (updateWorkerDatabases == null) ? new ArrayList<Database>() : updateWorkerDatabases;
+    }
+
+    public ChangeSetGroups getUpdateChangeSetGroups() {
+        return updateChangeSetGroups;
+    }
+
+    /**
+     * Declares an order for the change sets when {@link #setUpdateWorkerDatabases(List) worker databases} are set, in
+     * addition to the one found from the objects each change set affects. Null by default.
+     */
+    public void setUpdateChangeSetGroups(ChangeSetGroups updateChangeSetGroups) {
+        this.updateChangeSetGroups = updateChangeSetGroups;
+    }
+
     @SafeVarargs
     public final void generateChangeLog(CatalogAndSchema catalogAndSchema, DiffToChangeLog changeLogWriter,
                                         PrintStream outputStream, Class<? extends DatabaseObject>... snapshotTypes)
@@ -1785,6 +1839,9 @@ public class Liquibase implements AutoCloseable {
         Map<String, Object> scopeObjects = new HashMap<>();
         scopeObjects.put(Scope.Attr.database.name(), getDatabase());
         scopeObjects.put(Scope.Attr.resourceAccessor.name(), getResourceAccessor());
+        if (ChangeLogRunState.getCurrent() == null) {
+            scopeObjects.put(Scope.Attr.changeLogRunState.name(), new ChangeLogRunState());
+        }
 
         try {
             Scope.child(scopeObjects, scopedRunner);
@@ -17,11 +17,13 @@ import liquibase.servicelocator.ServiceLocator;
 import liquibase.servicelocator.StandardServiceLocator;
 import liquibase.ui.ConsoleUIService;
 import liquibase.ui.UIService;
+import liquibase.util.ObjectUtil;
 import liquibase.util.SmartMap;
 
 import java.lang.reflect.Constructor;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This scope object is used to hold configuration and other parameters within a call without needing complex method signatures.
@@ -50,15 +52,28 @@ public class Scope {
         fileEncoding,
         databaseChangeLog,
         changeSet,
+        changeLogRunState,
     }
 
     private static ScopeManager scopeManager;
 
     private Scope parent;
-    private SmartMap values = new SmartMap();
+    private SmartMap values;
+
+    /**
+     * Scopes created with a single value keep it here instead of in {@link #values}, which is then null.
+     */
+    private String valueKey;
+    private Object value;
 
     private LiquibaseListener listener;
 
+    /**
+     * The singletons of a root scope, kept apart from {@link #values} so threads running at the same time can look
+     * them up and create them safely. Null in child scopes.
+     */
+    private Map<String, SingletonObject> singletons;
+
     public static Scope getCurrentScope() {
         if (scopeManager == null) {
             scopeManager = new SingletonScopeManager();
@@ -84,6 +99,11 @@ public class Scope {
         return scopeManager.getCurrentScope();
     }
 
+    public static ScopeManager getScopeManager() {
+        getCurrentScope();
+        return scopeManager;
+    }
+
     public static void setScopeManager(ScopeManager scopeManager)  {
         Scope currentScope = getCurrentScope();
         if (currentScope == null) {
@@ -108,6 +128,8 @@ public class Scope {
      * Defaults serviceLocator to {@link StandardServiceLocator}
      */
     private Scope() {
+        singletons = new ConcurrentHashMap<>();
+        values = new SmartMap();
         values.put(Attr.logService.name(), new JavaLogService());
         values.put(Attr.resourceAccessor.name(), new ClassLoaderResourceAccessor());
         values.put(Attr.serviceLocator.name(), new StandardServiceLocator());
@@ -116,6 +138,10 @@ public class Scope {
 
     protected Scope(Scope parent, Map<String, Object> scopeValues) {
         this.parent = parent;
+        if (parent == null) {
+            this.singletons = new ConcurrentHashMap<>();
+        }
+        this.values = new SmartMap();
         if (scopeValues != null) {
             for (Map.Entry<String, Object> entry : scopeValues.entrySet()) {
                 values.put(entry.getKey(), entry.getValue());
@@ -123,6 +149,12 @@ public class Scope {
         }
     }
 
+    private Scope(Scope parent, String valueKey, Object value) {
+        this.parent = parent;
+        this.valueKey = valueKey;
+        this.value = value;
+    }
+
     /**
      * Returns the parent scope to this scope. Returns null if this is a root scope.
      */
@@ -177,16 +209,35 @@ public class Scope {
      * Creates a new scope that is a child of this scope.
      */
     public static void child(String newValueKey, Object newValue, ScopedRunner runner) throws Exception {
-        Map<String, Object> scopeValues = new HashMap<String, Object>();
-        scopeValues.put(newValueKey, newValue);
-
-        child(scopeValues, runner);
+        //called for every change set, so avoid the maps a scope normally holds its values in
+        Scope originalScope = getCurrentScope();
+        try {
+            scopeManager.setCurrentScope(new Scope(originalScope, newValueKey, newValue));
+            runner.run();
+        } finally {
+            scopeManager.setCurrentScope(originalScope);
+        }
     }
 
     public static void child(Enum newValueKey, Object newValue, ScopedRunner runner) throws Exception {
         child(newValueKey.name(), newValue, runner);
     }
 
+    /**
+     * Runs the given code with the given scope as the current scope, then returns to the current scope. Used to run
+     * work handed to another thread in the scope of the thread that started it, which requires a {@link ScopeManager}
+     * that tracks scopes per thread such as {@link ThreadLocalScopeManager}.
+     */
+    public static <T> T runIn(Scope scope, ScopedRunnerWithReturn<T> runner) throws Exception {
+        Scope originalScope = getCurrentScope();
+        try {
+            scopeManager.setCurrentScope(scope);
+            return runner.run();
+        } finally {
+            scopeManager.setCurrentScope(originalScope);
+        }
+    }
+
     /**
      * Return true if the given key is defined.
      */
@@ -216,7 +267,12 @@ public class Scope {
      * Returns null if key is not defined in this or any parent scopes.
      */
     public <T> T get(String key, Class<T> type) {
-        T value = values.get(key, type);
+        T value;
+        if (values == null) {
+            value = key.equals(valueKey) ? (T) ObjectUtil.convert(this.value, type) : null;
+        } else {
+            value = values.get(key, type);
+        }
         if (value == null && parent != null) {
             value = parent.get(key, type);
         }
@@ -253,25 +309,33 @@ public class Scope {
         }
 
         String key = type.getName();
-        T singleton = get(key, type);
+        SingletonObject singleton = singletons.get(key);
         if (singleton == null) {
-            try {
-                try {
-                    Constructor<T> constructor = type.getDeclaredConstructor(Scope.class);
-                    constructor.setAccessible(true);
-                    singleton = constructor.newInstance(this);
-                } catch (NoSuchMethodException e) { //try without scope
-                    Constructor<T> constructor = type.getDeclaredConstructor();
-                    constructor.setAccessible(true);
-                    singleton = constructor.newInstance();
+            synchronized (singletons) {
+                singleton = singletons.get(key);
+                if (singleton == null) {
+                    singleton = createSingleton(type);
+                    singletons.put(key, singleton);
                 }
-            } catch (Exception e) {
-                throw new UnexpectedLiquibaseException(e);
             }
+        }
+        return (T) singleton;
+    }
 
-            values.put(key, singleton);
+    private <T extends SingletonObject> T createSingleton(Class<T> type) {
+        try {
+            try {
+                Constructor<T> constructor = type.getDeclaredConstructor(Scope.class);
+                constructor.setAccessible(true);
+                return constructor.newInstance(this);
+            } catch (NoSuchMethodException e) { //try without scope
+                Constructor<T> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return constructor.newInstance();
+            }
+        } catch (Exception e) {
+            throw new UnexpectedLiquibaseException(e);
         }
-        return singleton;
     }
 
     public Logger getLog(Class clazz) {
@@ -0,0 +1,90 @@
+package liquibase;
+
+/**
+ * A {@link ScopeManager} that tracks the current scope separately for each thread, so Liquibase can run on several
+ * threads at once. Threads that have not entered a scope of their own see the root scope. Work handed to another
+ * thread should be run with {@link Scope#runIn(Scope, Scope.ScopedRunnerWithReturn)} to see the scope of the thread
+ * that started it.
+ * <p>
+ * Applications running Liquibase on several threads themselves should call {@link #install()} once at startup rather
+ * than {@link Scope#setScopeManager(ScopeManager)}: it replaces the default {@link SingletonScopeManager} and then
+ * leaves this manager in place, so threads are never switched from one manager to another while they are inside a scope.
+ * Liquibase code that starts threads of its own calls {@link #acquire()} and {@link #release()} around that work
+ * instead, so the JVM-wide scope manager is only replaced while such work is running.
+ */
+public class ThreadLocalScopeManager extends ScopeManager {
+
+    private static int users;
+    private static ScopeManager replacedManager;
+
+    private volatile Scope rootScope;
+    private final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+
+    /**
+     * Installs a ThreadLocalScopeManager unless one is in use already. Does nothing if another manager than the
+     * {@link SingletonScopeManager} is in use, which is expected to track scopes per thread itself.
+     */
+    public static synchronized void install() {
+        if (Scope.getScopeManager() instanceof SingletonScopeManager) {
+            Scope.setScopeManager(new ThreadLocalScopeManager());
+        }
+        //installed for good, so releasing it must not put the previous manager back
+        replacedManager = null;
+    }
+
+    /**
+     * Installs a ThreadLocalScopeManager for work that runs on several threads, unless a manager other than the
+     * {@link SingletonScopeManager} is in use already. Every call must be matched by a call to {@link #release()} in a
+     * finally block. Calls may overlap, for example when tenants updated in parallel run their change sets in parallel
+     * too: the manager is only replaced by the first call and restored by the last release.
+     */
+    public static synchronized void acquire() {
+        if ((users++ == 0) && (Scope.getScopeManager() instanceof SingletonScopeManager)) {
+            replacedManager = Scope.getScopeManager();
+            Scope.setScopeManager(new ThreadLocalScopeManager());
+        }
+    }
+
+    /**
+     * Restores the scope manager replaced by {@link #acquire()} once the last work that acquired it is done. Must be
+     * called from the scope {@link #acquire()} was called from, which becomes the current scope of the restored manager.
+     */
+    public static synchronized void release() {
+        if (users == 0) {
+            throw new IllegalStateException("ThreadLocalScopeManager.release() called without acquire()");
+        }
+        if ((--users == 0) && (replacedManager != null)) {
+            Scope.setScopeManager(replacedManager);
+            replacedManager = null;
+        }
+    }
+
+    @Override
+    public Scope getCurrentScope() {
+        Scope scope = currentScope.get();
+        if (scope == null) {
+            return rootScope;
+        }
+        return scope;
+    }
+
+    @Override
+    protected void setCurrentScope(Scope scope) {
+        if (scope == rootScope) {
+            //don't keep pooled threads holding on to a scope once they are back at the root
+            currentScope.remove();
+        } else {
+            currentScope.set(scope);
+        }
+    }
+
+    @Override
+    protected Scope init(Scope scope) throws Exception {
+        Scope root = scope;
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        this.rootScope = root;
+        return scope;
+    }
+}
@@ -2,6 +2,7 @@ package liquibase.change;
 
 import liquibase.Scope;
 import liquibase.changelog.ChangeSet;
+import liquibase.changelog.GeneratedSqlCache;
 import liquibase.database.Database;
 import liquibase.exception.*;
 import liquibase.parser.core.ParsedNode;
@@ -18,6 +19,7 @@ import liquibase.util.beans.PropertyUtils;
 
 import java.beans.IntrospectionException;
 import java.beans.PropertyDescriptor;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
@@ -30,6 +32,7 @@ import java.util.*;
  * By default, this base class relies on annotations such as {@link DatabaseChange} and {@link DatabaseChangeProperty}
  * and delegating logic to the {@link liquibase.sqlgenerator.SqlGenerator} objects created to do the actual change work.
  * Place the @DatabaseChangeProperty annotations on the read "get" methods to control property metadata.
+ * During a run, the statements the default implementations delegate to come from the {@link GeneratedSqlCache}.
  */
 public abstract class AbstractChange extends AbstractPlugin implements Change {
 
@@ -314,10 +317,10 @@ public abstract class AbstractChange extends AbstractPlugin implements Change {
      */
     @Override
     public boolean generateRollbackStatementsVolatile(Database database) {
-        if (generateStatementsVolatile(database)) {
+        if (GeneratedSqlCache.generateStatementsVolatile(this, database)) {
             return true;
         }
-        SqlStatement[] statements = generateStatements(database);
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(this, database);
         if (statements == null) {
             return false;
         }
@@ -338,10 +341,10 @@ public abstract class AbstractChange extends AbstractPlugin implements Change {
      */
     @Override
     public boolean supports(Database database) {
-        if (generateStatementsVolatile(database)) {
+        if (GeneratedSqlCache.generateStatementsVolatile(this, database)) {
             return true;
         }
-        SqlStatement[] statements = generateStatements(database);
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(this, database);
         if (statements == null) {
             return true;
         }
@@ -365,11 +368,11 @@ public abstract class AbstractChange extends AbstractPlugin implements Change {
     @Override
     public Warnings warn(Database database) {
         Warnings warnings = new Warnings();
-        if (generateStatementsVolatile(database)) {
+        if (GeneratedSqlCache.generateStatementsVolatile(this, database)) {
             return warnings;
         }
 
-        SqlStatement[] statements = generateStatements(database);
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(this, database);
         if (statements == null) {
             return warnings;
         }
@@ -415,12 +418,12 @@ public abstract class AbstractChange extends AbstractPlugin implements Change {
         }
 
         // Record warnings if statements are unsupported on database
-        if (!generateStatementsVolatile(database)) {
+        if (!GeneratedSqlCache.generateStatementsVolatile(this, database)) {
             String unsupportedWarning = Scope.getCurrentScope().getSingleton(ChangeFactory.class).getChangeMetaData(this).getName()
                     + " is not supported on " + database.getShortName();
             boolean sawUnsupportedError = false;
 
-            SqlStatement[] statements = generateStatements(database);
+            SqlStatement[] statements = GeneratedSqlCache.generateStatements(this, database);
             if (statements != null) {
                 for (SqlStatement statement : statements) {
                     boolean supported = SqlGeneratorFactory.getInstance().supports(statement, database);
@@ -465,7 +468,13 @@ public abstract class AbstractChange extends AbstractPlugin implements Change {
      */
     @Override
     public CheckSum generateCheckSum() {
-        return CheckSum.compute(new StringChangeLogSerializer().serialize(this, false));
+        CheckSumWriter writer = new CheckSumWriter();
+        try {
+            new StringChangeLogSerializer().serialize(this, writer);
+        } catch (IOException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+        return writer.getCheckSum();
     }
 
     /*
@@ -535,11 +544,11 @@ public abstract class AbstractChange extends AbstractPlugin implements Change {
      */
     @Override
     public Set<DatabaseObject> getAffectedDatabaseObjects(Database database) {
-        if (this.generateStatementsVolatile(database)) {
+        if (GeneratedSqlCache.generateStatementsVolatile(this, database)) {
             return new HashSet<>();
         }
         Set<DatabaseObject> affectedObjects = new HashSet<>();
-        SqlStatement[] statements = generateStatements(database);
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(this, database);
 
         if (statements != null) {
             for (SqlStatement statement : statements) {
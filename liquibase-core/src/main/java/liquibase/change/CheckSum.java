@@ -1,12 +1,9 @@
 package liquibase.change;
 
 import liquibase.util.MD5Util;
-import liquibase.util.StringUtil;
 
-import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.text.Normalizer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,7 +30,7 @@ public final class CheckSum {
      * @param checksum Generated checksum (format depends on version)
      * @param version  The version of the Liquibase checksum generator used
      */
-    private CheckSum(String checksum, int version) {
+    CheckSum(String checksum, int version) {
         this.storedCheckSum = checksum;
         this.version = version;
     }
@@ -68,13 +65,10 @@ public final class CheckSum {
      * Compute a storedCheckSum of the given string.
      */
     public static CheckSum compute(String valueToChecksum) {
-        return new CheckSum(MD5Util.computeMD5(
-                //remove "Unknown" unicode char 65533
-                Normalizer.normalize(
-                    StringUtil.standardizeLineEndings(valueToChecksum)
-                            .replace("\uFFFD", "")
-                        , Normalizer.Form.NFC)
-        ), getCurrentVersion());
+        //normalizes line endings, removes "Unknown" unicode char 65533 and applies NFC normalization while digesting
+        CheckSumWriter writer = new CheckSumWriter();
+        writer.write(valueToChecksum);
+        return writer.getCheckSum();
     }
 
     /**
@@ -101,6 +95,34 @@ public final class CheckSum {
                         return read;
                     }
                 }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read;
+                    int kept;
+                    do {
+                        read = stream.read(b, off, len);
+                        if (read <= 0) {
+                            return read;
+                        }
+
+                        //converts \r\n and \r to \n in place
+                        kept = 0;
+                        for (int i = off; i < (off + read); i++) {
+                            byte current = b[i];
+                            if (current == '\r') {
+                                isPrevR = true;
+                                b[off + kept++] = '\n';
+                            } else if ((current == '\n') && isPrevR) {
+                                isPrevR = false;
+                            } else {
+                                isPrevR = false;
+                                b[off + kept++] = current;
+                            }
+                        }
+                    } while (kept == 0);
+                    return kept;
+                }
             };
         }
 
@@ -0,0 +1,196 @@
+package liquibase.change;
+
+import liquibase.Scope;
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.util.MD5Util;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.security.MessageDigest;
+import java.text.Normalizer;
+
+/**
+ * Computes a {@link CheckSum} of the text written to it without keeping the whole text in memory.
+ * The text is normalized the same way {@link CheckSum#compute(String)} normalizes its argument (standardized line endings,
+ * "Unknown" unicode char 65533 removed, NFC normalization) and encoded with the configured output encoding chunk by
+ * chunk, so the result is identical to computing the checksum of the complete string.
+ * <p>
+ * Instances are not thread-safe and can only compute a single checksum.
+ */
+public class CheckSumWriter extends Writer {
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final int LOGGED_LENGTH = 500;
+
+    private final StringBuilder pending = new StringBuilder();
+    private final StringBuilder logged = new StringBuilder();
+    private final CharsetEncoder encoder;
+    private final ByteBuffer encoded;
+    private MessageDigest digest;
+    private boolean previousWasCarriageReturn;
+    private CheckSum checkSum;
+
+    public CheckSumWriter() {
+        String encoding = LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getOutputEncoding();
+        //same replacement behavior as String.getBytes()
+        this.encoder = Charset.forName(encoding).newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.encoded = ByteBuffer.allocate((int) (CHUNK_SIZE * encoder.maxBytesPerChar()) + 16);
+        this.digest = MD5Util.getDigest();
+    }
+
+    @Override
+    public void write(int c) {
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        for (int i = off; i < (off + len); i++) {
+            writeChar(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str) {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        for (int i = off; i < (off + len); i++) {
+            writeChar(str.charAt(i));
+        }
+    }
+
+    private void writeChar(char c) {
+        if (checkSum != null) {
+            throw new IllegalStateException("Checksum already computed");
+        }
+        if (logged.length() <= LOGGED_LENGTH) {
+            logged.append(c);
+        }
+
+        if (c == '\r') {
+            previousWasCarriageReturn = true;
+            pending.append('\n');
+        } else if ((c == '\n') && previousWasCarriageReturn) {
+            previousWasCarriageReturn = false;
+        } else {
+            previousWasCarriageReturn = false;
+            if (c != '\uFFFD') {
+                pending.append(c);
+            }
+        }
+
+        if (pending.length() >= CHUNK_SIZE) {
+            int boundary = findBoundary();
+            if (boundary > 0) {
+                String chunk = pending.substring(0, boundary);
+                pending.delete(0, boundary);
+                digest(chunk, false);
+            }
+        }
+    }
+
+    /**
+     * Returns the last position the pending text can be split at without changing its NFC normalization, or 0 if there is none.
+     */
+    private int findBoundary() {
+        for (int i = pending.length() - 1; i > 0; i--) {
+            if (isNormalizationBoundary(pending.charAt(i))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Characters below the combining diacritical marks and CJK ideographs never combine with the characters before them
+     * and block any later character from combining with them, so the text before and after can be normalized separately.
+     */
+    private static boolean isNormalizationBoundary(char c) {
+        return (c < '\u0300') || ((c >= '\u3400') && (c <= '\u9FFF'));
+    }
+
+    private static boolean isNormalized(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= '\u0300') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void digest(String text, boolean endOfInput) {
+        if (!isNormalized(text)) {
+            text = Normalizer.normalize(text, Normalizer.Form.NFC);
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(chars, encoded, endOfInput);
+            if (result.isOverflow()) {
+                updateDigest();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                throw new UnexpectedLiquibaseException("Cannot encode checksum input: " + result);
+            }
+        }
+        if (chars.hasRemaining()) {
+            //a trailing high surrogate waits for the next chunk
+            pending.insert(0, chars);
+        }
+        if (endOfInput) {
+            while (encoder.flush(encoded).isOverflow()) {
+                updateDigest();
+            }
+        }
+        updateDigest();
+    }
+
+    private void updateDigest() {
+        encoded.flip();
+        digest.update(encoded);
+        encoded.clear();
+    }
+
+    @Override
+    public void flush() {
+        //normalization needs to see the following characters, so nothing is digested early
+    }
+
+    @Override
+    public void close() {
+        getCheckSum();
+    }
+
+    /**
+     * Digests the remaining text and returns the checksum. Nothing can be written afterwards.
+     */
+    public CheckSum getCheckSum() {
+        if (checkSum == null) {
+            digest(pending.toString(), true);
+            pending.setLength(0);
+            String md5 = MD5Util.toHexString(digest.digest());
+            MD5Util.releaseDigest(digest);
+            digest = null;
+
+            String inputToLog = logged.toString();
+            if (inputToLog.length() > LOGGED_LENGTH) {
+                inputToLog = inputToLog.substring(0, LOGGED_LENGTH) + "... [truncated in log]";
+            }
+            Scope.getCurrentScope().getLog(CheckSumWriter.class).fine("Computed checksum for " + inputToLog + " as " + md5);
+            checkSum = new CheckSum(md5, CheckSum.getCurrentVersion());
+        }
+        return checkSum;
+    }
+}
@@ -0,0 +1,282 @@
+package liquibase.changelog;
+
+import liquibase.ContextExpression;
+import liquibase.Labels;
+import liquibase.Scope;
+import liquibase.change.CheckSum;
+import liquibase.util.MD5Util;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Local file copy of the rows read from a DATABASECHANGELOG table, used by {@link StandardChangeLogHistoryService} to
+ * avoid re-reading the full history on every start.
+ * <p>
+ * A cache file is identified by the connection URL, catalog, schema and table name. It is only trusted while the
+ * {@link Summary} of its rows matches the {@link Summary} of the table, which is computed from a narrow query of the
+ * columns Liquibase updates in place. If the table only has rows with a higher ORDEREXECUTED in addition, just those
+ * rows are read and merged in. Any other difference reads the whole table.
+ */
+public class ChangeLogHistoryCache {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+    private final String key;
+
+    public ChangeLogHistoryCache(File directory, String url, String catalogName, String schemaName, String tableName) {
+        //only the hash is stored so connection URLs do not end up on disk
+        this.key = MD5Util.computeMD5(url + ":" + catalogName + ":" + schemaName + ":" + tableName);
+        this.file = new File(directory, key + ".history");
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the cached rows, or null if there is no usable cache file.
+     */
+    public List<RanChangeSet> read() {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if ((in.readInt() != FORMAT_VERSION) || !key.equals(in.readUTF())) {
+                return null;
+            }
+            int size = in.readInt();
+            List<RanChangeSet> ranChangeSets = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                ranChangeSets.add(readRanChangeSet(in));
+            }
+            return ranChangeSets;
+        } catch (IOException | RuntimeException e) {
+            Scope.getCurrentScope().getLog(getClass()).info("Ignoring unreadable history cache " + file.getAbsolutePath() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the cache file with the given rows. Failures are logged and otherwise ignored since the cache is only an optimization.
+     */
+    public void write(List<RanChangeSet> ranChangeSets) {
+        File directory = file.getParentFile();
+        if (!directory.exists() && !directory.mkdirs()) {
+            Scope.getCurrentScope().getLog(getClass()).info("Cannot create history cache directory " + directory.getAbsolutePath());
+            return;
+        }
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(key);
+                out.writeInt(ranChangeSets.size());
+                for (RanChangeSet ranChangeSet : ranChangeSets) {
+                    writeRanChangeSet(ranChangeSet, out);
+                }
+            }
+            //replace in one step so concurrent readers never see a partial file
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Scope.getCurrentScope().getLog(getClass()).info("Cannot write history cache " + file.getAbsolutePath() + ": " + e.getMessage());
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    public void clear() {
+        if (file.exists() && !file.delete()) {
+            Scope.getCurrentScope().getLog(getClass()).info("Cannot delete history cache " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Returns the cached rows with the given newer rows merged in. A newer row for a change set that is already cached
+     * (e.g. a re-ran change set) replaces the cached row.
+     */
+    public static List<RanChangeSet> merge(List<RanChangeSet> cached, List<RanChangeSet> newer) {
+        List<RanChangeSet> merged = new ArrayList<>(cached.size() + newer.size());
+        Set<String> newerKeys = new HashSet<>();
+        for (RanChangeSet ranChangeSet : newer) {
+            newerKeys.add(createKey(ranChangeSet));
+        }
+        for (RanChangeSet ranChangeSet : cached) {
+            if (!newerKeys.contains(createKey(ranChangeSet))) {
+                merged.add(ranChangeSet);
+            }
+        }
+        merged.addAll(newer);
+        return merged;
+    }
+
+    private static String createKey(RanChangeSet ranChangeSet) {
+        return ranChangeSet.getStoredChangeLog() + "::" + ranChangeSet.getId() + "::" + ranChangeSet.getAuthor();
+    }
+
+    private void writeRanChangeSet(RanChangeSet ranChangeSet, DataOutputStream out) throws IOException {
+        writeString(ranChangeSet.getChangeLog(), out);
+        writeString(ranChangeSet.getStoredChangeLog(), out);
+        writeString(ranChangeSet.getId(), out);
+        writeString(ranChangeSet.getAuthor(), out);
+        writeString((ranChangeSet.getLastCheckSum() == null) ? null : ranChangeSet.getLastCheckSum().toString(), out);
+        out.writeLong((ranChangeSet.getDateExecuted() == null) ? Long.MIN_VALUE : ranChangeSet.getDateExecuted().getTime());
+        writeString(ranChangeSet.getTag(), out);
+        writeString((ranChangeSet.getExecType() == null) ? null : ranChangeSet.getExecType().name(), out);
+        writeString(ranChangeSet.getDescription(), out);
+        writeString(ranChangeSet.getComments(), out);
+        ContextExpression contexts = ranChangeSet.getContextExpression();
+        writeString(((contexts == null) || contexts.isEmpty()) ? null : contexts.toString(), out);
+        Labels labels = ranChangeSet.getLabels();
+        writeString(((labels == null) || labels.isEmpty()) ? null : labels.toString(), out);
+        writeString(ranChangeSet.getDeploymentId(), out);
+        out.writeBoolean(ranChangeSet.getOrderExecuted() != null);
+        if (ranChangeSet.getOrderExecuted() != null) {
+            out.writeInt(ranChangeSet.getOrderExecuted());
+        }
+    }
+
+    private RanChangeSet readRanChangeSet(DataInputStream in) throws IOException {
+        String changeLog = readString(in);
+        String storedChangeLog = readString(in);
+        String id = readString(in);
+        String author = readString(in);
+        CheckSum checkSum = CheckSum.parse(readString(in));
+        long dateExecuted = in.readLong();
+        String tag = readString(in);
+        String execType = readString(in);
+        String description = readString(in);
+        String comments = readString(in);
+        String contexts = readString(in);
+        String labels = readString(in);
+        String deploymentId = readString(in);
+
+        RanChangeSet ranChangeSet = new RanChangeSet(changeLog, id, author, checkSum,
+                (dateExecuted == Long.MIN_VALUE) ? null : new Date(dateExecuted), tag,
+                (execType == null) ? null : ChangeSet.ExecType.valueOf(execType), description, comments,
+                new ContextExpression(contexts), new Labels(labels), deploymentId, storedChangeLog);
+        if (in.readBoolean()) {
+            ranChangeSet.setOrderExecuted(in.readInt());
+        }
+        return ranChangeSet;
+    }
+
+    private void writeString(String value, DataOutputStream out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        if (in.readBoolean()) {
+            return in.readUTF();
+        }
+        return null;
+    }
+
+    /**
+     * Fingerprint of a history table: row count, highest positive ORDEREXECUTED, the number of rows with a checksum and
+     * with a tag, and a digest of the ORDEREXECUTED, MD5SUM, TAG and EXECTYPE of every row. Appending, removing or
+     * re-running change sets and updating checksums, tags or exec types in place all change it. The digest does not
+     * depend on the order rows are added in.
+     */
+    public static class Summary {
+        private long rowCount;
+        private long maxOrderExecuted;
+        private long checkSumCount;
+        private long tagCount;
+        private long digest;
+
+        public static Summary of(List<RanChangeSet> ranChangeSets) {
+            Summary summary = new Summary();
+            for (RanChangeSet ranChangeSet : ranChangeSets) {
+                summary.add(ranChangeSet.getOrderExecuted(),
+                        (ranChangeSet.getLastCheckSum() == null) ? null : ranChangeSet.getLastCheckSum().toString(),
+                        ranChangeSet.getTag(),
+                        (ranChangeSet.getExecType() == null) ? null : ranChangeSet.getExecType().name());
+            }
+            return summary;
+        }
+
+        /**
+         * Adds a row. The checksum must be in the {@link CheckSum#toString()} format.
+         */
+        public void add(Integer orderExecuted, String checkSum, String tag, String execType) {
+            rowCount++;
+            if ((orderExecuted != null) && (orderExecuted > maxOrderExecuted)) {
+                maxOrderExecuted = orderExecuted;
+            }
+            if (checkSum != null) {
+                checkSumCount++;
+            }
+            if (tag != null) {
+                tagCount++;
+            }
+
+            long hash = (orderExecuted == null) ? -1 : orderExecuted;
+            hash = hash(hash, checkSum);
+            hash = hash(hash, tag);
+            hash = hash(hash, execType);
+            digest += mix(hash);
+        }
+
+        private static long hash(long hash, String value) {
+            if (value == null) {
+                return (31 * hash) - 1;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                hash = (31 * hash) + value.charAt(i);
+            }
+            return (31 * hash) + value.length();
+        }
+
+        /**
+         * Spreads the bits of a row hash so the sum over all rows does not cancel out similar rows.
+         */
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+
+        public long getMaxOrderExecuted() {
+            return maxOrderExecuted;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if ((o == null) || (getClass() != o.getClass())) {
+                return false;
+            }
+            Summary that = (Summary) o;
+            return (rowCount == that.rowCount)
+                    && (maxOrderExecuted == that.maxOrderExecuted)
+                    && (checkSumCount == that.checkSumCount)
+                    && (tagCount == that.tagCount)
+                    && (digest == that.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (digest ^ (digest >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return rowCount + " rows, max orderExecuted " + maxOrderExecuted + ", " + checkSumCount + " checksums, "
+                    + tagCount + " tags, digest " + Long.toHexString(digest);
+        }
+    }
+}
@@ -42,6 +42,38 @@ public interface ChangeLogHistoryService extends PrioritizedService {
 
     void setExecType(ChangeSet changeSet, ChangeSet.ExecType execType) throws DatabaseException;
 
+    /**
+     * Writes and commits any history changes that have been buffered by {@link #setExecType(ChangeSet, ChangeSet.ExecType)}.
+     * Implementations that write each change immediately do not need to override this.
+     */
+    default void flush() throws DatabaseException {
+    }
+
+    /**
+     * Writes and commits buffered history changes if they have been buffered for long enough. Called before each change
+     * set runs, so rows are not held back by a long running change set once they are due. Implementations that write
+     * each change immediately do not need to override this.
+     */
+    default void flushIfDue() throws DatabaseException {
+    }
+
+    /**
+     * Called before the given change set runs on executionDatabase. Returns true if the change set should leave its
+     * transaction open: its history row is then buffered by {@link #setExecType(ChangeSet, ChangeSet.ExecType)} and
+     * committed together with the change set at the next flush point. Implementations that write each change
+     * immediately do not need to override this.
+     */
+    default boolean deferCommit(ChangeSet changeSet, Database executionDatabase) throws DatabaseException {
+        return false;
+    }
+
+    /**
+     * Forgets the buffered history changes of change sets whose deferred commit was rolled back, so they run again.
+     * Implementations that write each change immediately do not need to override this.
+     */
+    default void discardUncommitted() {
+    }
+
     void removeFromHistory(ChangeSet changeSet) throws DatabaseException;
 
     int getNextSequenceValue() throws LiquibaseException;
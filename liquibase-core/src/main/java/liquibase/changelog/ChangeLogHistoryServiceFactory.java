@@ -7,20 +7,28 @@ import liquibase.servicelocator.ServiceLocator;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ChangeLogHistoryServiceFactory {
 
-    private static ChangeLogHistoryServiceFactory instance;
+    private static volatile ChangeLogHistoryServiceFactory instance;
 
-    private List<ChangeLogHistoryService> registry = new ArrayList<>();
+    private List<ChangeLogHistoryService> registry = new CopyOnWriteArrayList<>();
 
     private Map<Database, ChangeLogHistoryService> services = new ConcurrentHashMap<>();
 
-    public static synchronized ChangeLogHistoryServiceFactory getInstance() {
-        if (instance == null) {
-            instance = new ChangeLogHistoryServiceFactory();
+    public static ChangeLogHistoryServiceFactory getInstance() {
+        ChangeLogHistoryServiceFactory factory = instance;
+        if (factory == null) {
+            synchronized (ChangeLogHistoryServiceFactory.class) {
+                factory = instance;
+                if (factory == null) {
+                    factory = new ChangeLogHistoryServiceFactory();
+                    instance = factory;
+                }
+            }
         }
-        return instance;
+        return factory;
     }
 
     /**
@@ -51,45 +59,62 @@ public class ChangeLogHistoryServiceFactory {
     }
 
     public ChangeLogHistoryService getChangeLogService(Database database) {
-            if (services.containsKey(database)) {
-                return services.get(database);
-            }
-            SortedSet<ChangeLogHistoryService> foundServices = new TreeSet<>(new Comparator<ChangeLogHistoryService>() {
-                @Override
-                public int compare(ChangeLogHistoryService o1, ChangeLogHistoryService o2) {
-                    return -1 * Integer.valueOf(o1.getPriority()).compareTo(o2.getPriority());
-                }
-            });
+        ChangeLogHistoryService service = services.get(database);
+        if (service == null) {
+            //threads asking for the service of the same database at the same time must get the same one
+            service = services.computeIfAbsent(database, this::createChangeLogService);
+        }
+        return service;
+    }
 
-            for (ChangeLogHistoryService service : registry) {
-                if (service.supports(database)) {
-                    foundServices.add(service);
-                }
+    private ChangeLogHistoryService createChangeLogService(Database database) {
+        SortedSet<ChangeLogHistoryService> foundServices = new TreeSet<>(new Comparator<ChangeLogHistoryService>() {
+            @Override
+            public int compare(ChangeLogHistoryService o1, ChangeLogHistoryService o2) {
+                return -1 * Integer.valueOf(o1.getPriority()).compareTo(o2.getPriority());
             }
+        });
 
-            if (foundServices.isEmpty()) {
-                throw new UnexpectedLiquibaseException("Cannot find ChangeLogHistoryService for " +
-                    database.getShortName());
+        for (ChangeLogHistoryService service : registry) {
+            if (service.supports(database)) {
+                foundServices.add(service);
             }
+        }
 
-            try {
-                ChangeLogHistoryService exampleService = foundServices.iterator().next();
-                Class<? extends ChangeLogHistoryService> aClass = exampleService.getClass();
-                ChangeLogHistoryService service;
-                try {
-                    aClass.getConstructor();
-                    service = aClass.getConstructor().newInstance();
-                    service.setDatabase(database);
-                } catch (NoSuchMethodException e) {
-                    // must have been manually added to the registry and so already configured.
-                    service = exampleService;
-                }
+        if (foundServices.isEmpty()) {
+            throw new UnexpectedLiquibaseException("Cannot find ChangeLogHistoryService for " +
+                database.getShortName());
+        }
 
-                services.put(database, service);
-                return service;
-            } catch (Exception e) {
-                throw new UnexpectedLiquibaseException(e);
+        try {
+            ChangeLogHistoryService exampleService = foundServices.iterator().next();
+            Class<? extends ChangeLogHistoryService> aClass = exampleService.getClass();
+            ChangeLogHistoryService service;
+            try {
+                aClass.getConstructor();
+                service = aClass.getConstructor().newInstance();
+                service.setDatabase(database);
+            } catch (NoSuchMethodException e) {
+                // must have been manually added to the registry and so already configured.
+                service = exampleService;
             }
+
+            return service;
+        } catch (Exception e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+    }
+
+    /**
+     * Forgets the history service of the given database, so the next {@link #getChangeLogService(Database)} creates a
+     * new one. A service that was registered for the database, like the one of an offline connection, is reset and
+     * unregistered. Unlike {@link #resetAll()}, the services of other databases are left alone.
+     */
+    public void resetChangeLogService(Database database) {
+        ChangeLogHistoryService service = services.remove(database);
+        if ((service != null) && registry.remove(service)) {
+            service.reset();
+        }
     }
 
     public synchronized void resetAll() {
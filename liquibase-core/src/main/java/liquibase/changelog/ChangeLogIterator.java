@@ -4,16 +4,19 @@ import liquibase.ContextExpression;
 import liquibase.Labels;
 import liquibase.RuntimeEnvironment;
 import liquibase.Scope;
+import liquibase.change.CheckSum;
 import liquibase.changelog.filter.ChangeSetFilter;
 import liquibase.changelog.filter.ChangeSetFilterResult;
 import liquibase.changelog.visitor.ChangeSetVisitor;
 import liquibase.changelog.visitor.SkippedChangeSetVisitor;
+import liquibase.exception.DatabaseException;
 import liquibase.exception.LiquibaseException;
 import liquibase.exception.UnexpectedLiquibaseException;
 import liquibase.exception.ValidationErrors;
 import liquibase.executor.Executor;
 import liquibase.executor.ExecutorService;
 import liquibase.logging.Logger;
+import liquibase.util.ObjectUtil;
 import liquibase.util.StringUtil;
 
 import java.util.*;
@@ -26,7 +29,8 @@ public class ChangeLogIterator {
     private List<ChangeSetFilter> changeSetFilters;
     private static ResourceBundle coreBundle = getBundle("liquibase/i18n/liquibase-core");
     protected static final String MSG_COULD_NOT_FIND_EXECUTOR = coreBundle.getString("no.executor.found");
-    private Set<String> seenChangeSets = new HashSet<>();
+    private Set<Object> seenChangeSets = new HashSet<>();
+    private final boolean stringKeys = ObjectUtil.overridesMethod(getClass(), ChangeLogIterator.class, "createKey", ChangeSet.class);
 
     public ChangeLogIterator(DatabaseChangeLog databaseChangeLog, ChangeSetFilter... changeSetFilters) {
         this.databaseChangeLog = databaseChangeLog;
@@ -38,7 +42,10 @@ public class ChangeLogIterator {
         for (RanChangeSet ranChangeSet : changeSetList) {
             ChangeSet changeSet = changeLog.getChangeSet(ranChangeSet);
             if (changeSet != null) {
-                changeSet.setFilePath(DatabaseChangeLog.normalizePath(ranChangeSet.getChangeLog()));
+                if (!changeSet.isFrozen()) {
+                    //a frozen change set keeps its path, the stored one is still used to update the history
+                    changeSet.setFilePath(DatabaseChangeLog.normalizePath(ranChangeSet.getChangeLog()));
+                }
                 changeSets.add(changeSet);
             }
         }
@@ -59,21 +66,34 @@ public class ChangeLogIterator {
 
     public void run(ChangeSetVisitor visitor, RuntimeEnvironment env) throws LiquibaseException {
         Logger log = Scope.getCurrentScope().getLog(getClass());
-        databaseChangeLog.setRuntimeEnvironment(env);
+        Map<String, Object> scopeValues = new HashMap<>();
+        scopeValues.put(Scope.Attr.databaseChangeLog.name(), databaseChangeLog);
+        if (ChangeLogRunState.getCurrent() == null) {
+            scopeValues.put(Scope.Attr.changeLogRunState.name(), new ChangeLogRunState());
+        }
         try {
-            Scope.child(Scope.Attr.databaseChangeLog, databaseChangeLog, new Scope.ScopedRunner() {
+            Scope.child(scopeValues, new Scope.ScopedRunner() {
                 @Override
                 public void run() throws Exception {
+                    databaseChangeLog.setRuntimeEnvironment(env);
+                    try {
+                        visitChangeSets();
+                    } finally {
+                        databaseChangeLog.setRuntimeEnvironment(null);
+                    }
+                }
 
+                private void visitChangeSets() throws Exception {
                     List<ChangeSet> changeSetList = new ArrayList<>(databaseChangeLog.getChangeSets());
                     if (visitor.getDirection().equals(ChangeSetVisitor.Direction.REVERSE)) {
                         Collections.reverse(changeSetList);
                     }
 
+                    ChangeSetRunner changeSetRunner = new ChangeSetRunner(visitor, env);
                     for (ChangeSet changeSet : changeSetList) {
                         boolean shouldVisit = true;
                         Set<ChangeSetFilterResult> reasonsAccepted = new HashSet<>();
-                        Set<ChangeSetFilterResult> reasonsDenied = new HashSet<>();
+                        Set<ChangeSetFilterResult> reasonsDenied = null;
                         if (changeSetFilters != null) {
                             for (ChangeSetFilter filter : changeSetFilters) {
                                 ChangeSetFilterResult acceptsResult = filter.accepts(changeSet);
@@ -81,41 +101,52 @@ public class ChangeLogIterator {
                                     reasonsAccepted.add(acceptsResult);
                                 } else {
                                     shouldVisit = false;
+                                    reasonsDenied = new HashSet<>();
                                     reasonsDenied.add(acceptsResult);
                                     break;
                                 }
                             }
                         }
 
-                        boolean finalShouldVisit = shouldVisit;
-                        Scope.child(Scope.Attr.changeSet, changeSet, new Scope.ScopedRunner() {
-                            @Override
-                            public void run() throws Exception {
-                                if (finalShouldVisit && !alreadySaw(changeSet)) {
-                        //
-                        // Go validate any change sets with an Executor
-                        //
-                        validateChangeSetExecutor(changeSet, env);
-                                    visitor.visit(changeSet, databaseChangeLog, env.getTargetDatabase(), reasonsAccepted);
-                                    markSeen(changeSet);
-                                } else {
-                                    if (visitor instanceof SkippedChangeSetVisitor) {
-                                        ((SkippedChangeSetVisitor) visitor).skipped(changeSet, databaseChangeLog, env.getTargetDatabase(), reasonsDenied);
-                                    }
-                                }
-                            }
-                        });
+                        changeSetRunner.changeSet = changeSet;
+                        changeSetRunner.shouldVisit = shouldVisit;
+                        changeSetRunner.reasonsAccepted = reasonsAccepted;
+                        changeSetRunner.reasonsDenied = reasonsDenied;
+                        Scope.child(Scope.Attr.changeSet, changeSet, changeSetRunner);
                     }
                 }
             });
+            flushChangeLogHistory(env);
         } catch (Exception e) {
+            try {
+                flushChangeLogHistory(env);
+            } catch (Exception flushException) {
+                log.severe("Error writing buffered change log history", flushException);
+            }
             throw new LiquibaseException(e);
         } finally {
-            databaseChangeLog.setRuntimeEnvironment(null);
+            CheckSumCache checkSumCache = CheckSumCache.getInstance();
+            if (checkSumCache != null) {
+                checkSumCache.flush();
+            }
         }
     }
 
 
+    DatabaseChangeLog getDatabaseChangeLog() {
+        return databaseChangeLog;
+    }
+
+    /**
+     * Writes any history rows buffered during the run so they are committed before the caller releases the changelog lock.
+     */
+    protected void flushChangeLogHistory(RuntimeEnvironment env) throws DatabaseException {
+        if ((env == null) || (env.getTargetDatabase() == null)) {
+            return;
+        }
+        ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(env.getTargetDatabase()).flush();
+    }
+
     //
     // Make sure that any change set which has a runWith=<executor> setting
     // has a valid Executor, and that the changes in the change set
@@ -141,6 +172,10 @@ public class ChangeLogIterator {
         // if needed
         //
         executor.modifyChangeSet(changeSet);
+        GeneratedSqlCache generatedSqlCache = GeneratedSqlCache.getCurrent();
+        if (generatedSqlCache != null) {
+            generatedSqlCache.forget(changeSet.getChanges());
+        }
 
         ValidationErrors errors = executor.validate(changeSet);
         if (errors.hasErrors()) {
@@ -151,14 +186,14 @@ public class ChangeLogIterator {
     }
 
     protected void markSeen(ChangeSet changeSet) {
-        if (changeSet.key == null) {
-            changeSet.key = createKey(changeSet);
-        }
-
-        seenChangeSets.add(changeSet.key);
+        seenChangeSets.add(getSeenKey(changeSet));
 
     }
 
+    /**
+     * @deprecated only used when overridden, {@link #createChangeSetKey(ChangeSet)} is used otherwise.
+     */
+    @Deprecated
     protected String createKey(ChangeSet changeSet) {
         Labels labels = changeSet.getLabels();
         ContextExpression contexts = changeSet.getContexts();
@@ -169,14 +204,129 @@ public class ChangeLogIterator {
                 + ":" + StringUtil.join(changeSet.getDbmsSet(), ",");
     }
 
+    protected ChangeSetKey createChangeSetKey(ChangeSet changeSet) {
+        return new ChangeSetKey(changeSet);
+    }
+
     protected boolean alreadySaw(ChangeSet changeSet) {
-        if (changeSet.key == null) {
-            changeSet.key = createKey(changeSet);
+        return seenChangeSets.contains(getSeenKey(changeSet));
+    }
+
+    /**
+     * Returns the key of the change set, created once and kept on the change set. Subclasses overriding
+     * {@link #createKey(ChangeSet)} keep getting the string key they create.
+     */
+    private Object getSeenKey(ChangeSet changeSet) {
+        if (stringKeys) {
+            if (changeSet.key == null) {
+                changeSet.key = createKey(changeSet);
+            }
+            return changeSet.key;
         }
-        return seenChangeSets.contains(changeSet.key);
+        ChangeSetKey key = changeSet.getChangeSetKey();
+        if (key == null) {
+            key = createChangeSetKey(changeSet);
+            changeSet.setChangeSetKey(key);
+        }
+        return key;
     }
 
     public List<ChangeSetFilter> getChangeSetFilters() {
         return Collections.unmodifiableList(changeSetFilters);
     }
+
+    /**
+     * Visits one change set within its scope. A single instance is reused for every change set of a run.
+     */
+    private class ChangeSetRunner implements Scope.ScopedRunner {
+        private final ChangeSetVisitor visitor;
+        private final RuntimeEnvironment env;
+        private ChangeSet changeSet;
+        private boolean shouldVisit;
+        private Set<ChangeSetFilterResult> reasonsAccepted;
+        private Set<ChangeSetFilterResult> reasonsDenied;
+
+        private ChangeSetRunner(ChangeSetVisitor visitor, RuntimeEnvironment env) {
+            this.visitor = visitor;
+            this.env = env;
+        }
+
+        @Override
+        public void run() throws Exception {
+            if (shouldVisit && !alreadySaw(changeSet)) {
+                //
+                // Go validate any change sets with an Executor
+                //
+                validateChangeSetExecutor(changeSet, env);
+                visitor.visit(changeSet, databaseChangeLog, env.getTargetDatabase(), reasonsAccepted);
+                markSeen(changeSet);
+            } else {
+                if (visitor instanceof SkippedChangeSetVisitor) {
+                    ((SkippedChangeSetVisitor) visitor).skipped(changeSet, databaseChangeLog, env.getTargetDatabase(),
+                            (reasonsDenied == null) ? new HashSet<ChangeSetFilterResult>() : reasonsDenied);
+                }
+            }
+        }
+    }
+
+    /**
+     * Identifies a change set for {@link #alreadySaw(ChangeSet)}: its path, id, author, labels, contexts, dbms and
+     * checksum. The checksum is only computed when two keys match on everything else, which is rare.
+     */
+    protected static class ChangeSetKey {
+        private final ChangeSet changeSet;
+        private final String filePath;
+        private final String id;
+        private final String author;
+        private final String labels;
+        private final String contexts;
+        private final Set<String> dbms;
+        private final int hashCode;
+        private CheckSum checkSum;
+
+        protected ChangeSetKey(ChangeSet changeSet) {
+            Labels labels = changeSet.getLabels();
+            ContextExpression contexts = changeSet.getContexts();
+
+            this.changeSet = changeSet;
+            this.filePath = changeSet.getFilePath();
+            this.id = changeSet.getId();
+            this.author = changeSet.getAuthor();
+            this.labels = (labels == null) ? null : labels.toString();
+            this.contexts = (contexts == null) ? null : contexts.toString();
+            this.dbms = (changeSet.getDbmsSet() == null) ? null : new HashSet<>(changeSet.getDbmsSet());
+            this.hashCode = Objects.hash(filePath, id, author, this.labels, this.contexts, dbms);
+        }
+
+        private synchronized CheckSum getCheckSum() {
+            if (checkSum == null) {
+                checkSum = changeSet.generateCheckSum();
+            }
+            return checkSum;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if ((o == null) || (getClass() != o.getClass())) {
+                return false;
+            }
+            ChangeSetKey that = (ChangeSetKey) o;
+            return (hashCode == that.hashCode)
+                    && Objects.equals(filePath, that.filePath)
+                    && Objects.equals(id, that.id)
+                    && Objects.equals(author, that.author)
+                    && Objects.equals(labels, that.labels)
+                    && Objects.equals(contexts, that.contexts)
+                    && Objects.equals(dbms, that.dbms)
+                    && Objects.equals(getCheckSum(), that.getCheckSum());
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
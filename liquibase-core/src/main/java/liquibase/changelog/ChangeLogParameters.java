@@ -12,12 +12,15 @@ import liquibase.parser.ChangeLogParserCofiguration;
 import liquibase.util.StringUtil;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class ChangeLogParameters {
 
     private List<ChangeLogParameter> changeLogParameters = new ArrayList<>();
+    /** The parameters by lower-cased key, in the order they were added. */
+    private Map<String, List<ChangeLogParameter>> parametersByKey = new ConcurrentHashMap<>();
     private ExpressionExpander expressionExpander;
     private Database currentDatabase;
     private Contexts currentContexts;
@@ -36,7 +39,7 @@ public class ChangeLogParameters {
     	externalParameters.putAll((Properties) System.getProperties().clone());
         
     	for (Map.Entry entry : externalParameters.entrySet()) {
-            changeLogParameters.add(new ChangeLogParameter(entry.getKey().toString(), entry.getValue()));
+            add(new ChangeLogParameter(entry.getKey().toString(), entry.getValue()));
         }
 
         if (database != null) {
@@ -105,7 +108,7 @@ public class ChangeLogParameters {
         ChangeLogParameter param = findParameter(paramter, null);
         if (param == null) {
             // okay add it
-            changeLogParameters.add(new ChangeLogParameter(paramter, value));
+            add(new ChangeLogParameter(paramter, value));
         }
     }
 
@@ -125,16 +128,29 @@ public class ChangeLogParameters {
             ChangeLogParameter param = findParameter(key, null);
             if (param == null) {
                 // okay add it
-                changeLogParameters.add(new ChangeLogParameter(key, value, contexts, labels, databases, globalParam,
-                    changeLog));
+                add(new ChangeLogParameter(key, value, contexts, labels, databases, globalParam, changeLog));
             }
         } else {
             //this is a non-global param, just add it
-            changeLogParameters.add(new ChangeLogParameter(key, value, contexts, labels, databases, globalParam,
-                changeLog));
+            add(new ChangeLogParameter(key, value, contexts, labels, databases, globalParam, changeLog));
         }
     }
 
+    private void add(ChangeLogParameter parameter) {
+        changeLogParameters.add(parameter);
+        String indexKey = indexKey(parameter.getKey());
+        List<ChangeLogParameter> parameters = parametersByKey.get(indexKey);
+        if (parameters == null) {
+            parameters = new ArrayList<>(1);
+            parametersByKey.put(indexKey, parameters);
+        }
+        parameters.add(parameter);
+    }
+
+    private static String indexKey(String key) {
+        return key.toLowerCase(Locale.US);
+    }
+
     /**
      * Return the value of a parameter
      *
@@ -148,43 +164,37 @@ public class ChangeLogParameters {
     }
 
     private ChangeLogParameter findParameter(String key, DatabaseChangeLog changeLog) {
-        ChangeLogParameter result = null;
+        if (key == null) {
+            return null;
+        }
+        List<ChangeLogParameter> candidates = parametersByKey.get(indexKey(key));
+        if (candidates == null) {
+            return null;
+        }
 
-        List<ChangeLogParameter> found = new ArrayList<>();
-        for (ChangeLogParameter param : changeLogParameters) {
-            if (param.getKey().equalsIgnoreCase(key) && param.isValid()) {
-                found.add(param);
+        // look for the first valid global parameter
+        for (ChangeLogParameter changeLogParameter : candidates) {
+            if (changeLogParameter.isGlobal() && changeLogParameter.getKey().equalsIgnoreCase(key)
+                    && changeLogParameter.isValid()) {
+                return changeLogParameter;
             }
         }
 
-        // if any parameters were found, determine which parameter value to use
-        // (even if only one was found, we can not assume it should be used)
-        if (found.size() > 0) {
-            // look for the first global parameter
-            for (ChangeLogParameter changeLogParameter : found) {
-                if (changeLogParameter.isGlobal()) {
-                    result = changeLogParameter;
-                    break;
+        // if none of the parameters are global (all of them are local) and
+        // the parameter is searched in the context of a changeSet (otherwise implicitly a global parameter is wanted)
+        // look for the first parameter belonging to the current changeLog or the closest ancestor of the changeLog
+        DatabaseChangeLog changeLogOrParent = changeLog;
+        while (changeLogOrParent != null) {
+            for (ChangeLogParameter changeLogParameter : candidates) {
+                if (!changeLogParameter.isGlobal() && changeLogOrParent.equals(changeLogParameter.getChangeLog())
+                        && changeLogParameter.getKey().equalsIgnoreCase(key) && changeLogParameter.isValid()) {
+                    return changeLogParameter;
                 }
             }
-
-            // if none of the found parameters are global (all of them are local) and
-            // the parameter is searched in the context of a changeSet (otherwise implicitly a global parameter is wanted)
-            if (result == null && changeLog != null) {
-                // look for the first parameter belonging to the current changeLog or the closest ancestor of the changeLog
-                DatabaseChangeLog changeLogOrParent = changeLog;
-                do {
-                    for (ChangeLogParameter changeLogParameter : found) {
-                        if (changeLogParameter.getChangeLog().equals(changeLogOrParent)) {
-                            result = changeLogParameter;
-                            break;
-                        }
-                    }
-                } while (result == null && (changeLogOrParent = changeLogOrParent.getParentChangeLog()) != null);
-            }
+            changeLogOrParent = changeLogOrParent.getParentChangeLog();
         }
 
-        return result;
+        return null;
     }
 
     public boolean hasValue(String key, DatabaseChangeLog changeLog) {
@@ -204,9 +214,13 @@ public class ChangeLogParameters {
     }
 
     protected static class ExpressionExpander {
+        private static final Pattern EXPRESSION_PATTERN = Pattern.compile("(\\$\\{[^\\}]+\\})");
+        private static final Pattern ESCAPED_EXPRESSION_PATTERN = Pattern.compile("\\$\\{:(.+?)}");
+        private static final int MAX_CACHED_TEMPLATES = 10000;
+
         private boolean enableEscaping;
         private ChangeLogParameters changeLogParameters;
-        private static final Pattern EXPRESSION_PATTERN = Pattern.compile("(\\$\\{[^\\}]+\\})");
+        private final Map<String, Template> templates = new ConcurrentHashMap<>();
 
         public ExpressionExpander(ChangeLogParameters changeLogParameters) {
             this.changeLogParameters = changeLogParameters;
@@ -215,29 +229,123 @@ public class ChangeLogParameters {
         }
 
         public String expandExpressions(String text, DatabaseChangeLog changeLog) {
-            if (text == null) {
-                return null;
+            if ((text == null) || !text.contains("${")) {
+                return text;
+            }
+
+            Template template = templates.get(text);
+            if (template == null) {
+                template = Template.compile(text);
+                if (templates.size() >= MAX_CACHED_TEMPLATES) {
+                    templates.clear();
+                }
+                templates.put(text, template);
+            }
+
+            String expanded = template.expand(this, changeLog);
+            if (expanded == null) {
+                expanded = expandEachMatch(text, changeLog);
+            }
+
+            // replace all escaped expressions with its literal
+            if (enableEscaping && expanded.contains("${:")) {
+                expanded = ESCAPED_EXPRESSION_PATTERN.matcher(expanded).replaceAll("\\$\\{$1}");
             }
+
+            return expanded;
+        }
+
+        private Object lookup(String key, DatabaseChangeLog changeLog) {
+            return (enableEscaping && key.startsWith(":")) ? null : changeLogParameters.getValue(key, changeLog);
+        }
+
+        /**
+         * Replaces every occurrence of each expression in turn, so values containing expressions found later in the
+         * text are expanded too. Only used where that gives a different result than expanding a {@link Template}.
+         */
+        private String expandEachMatch(String text, DatabaseChangeLog changeLog) {
             Matcher matcher = EXPRESSION_PATTERN.matcher(text);
             String originalText = text;
             while (matcher.find()) {
                 String expressionString = originalText.substring(matcher.start(), matcher.end());
-                String valueTolookup = expressionString.replaceFirst("\\$\\{", "").replaceFirst("\\}$", "");
-
-                Object value = (enableEscaping && valueTolookup.startsWith(":")) ? null : changeLogParameters
-                    .getValue(valueTolookup, changeLog);
-
+                Object value = lookup(expressionString.substring(2, expressionString.length() - 1), changeLog);
                 if (value != null) {
                     text = text.replace(expressionString, value.toString());
                 }
             }
+            return text;
+        }
 
-            // replace all escaped expressions with its literal
-            if (enableEscaping) {
-                text = text.replaceAll("\\$\\{:(.+?)}", "\\$\\{$1}");
+        /**
+         * A text split into literal segments and the <code>${...}</code> expressions between them, so it is only
+         * scanned once however often it is expanded.
+         */
+        private static class Template {
+            private final String[] literals;
+            private final String[] keys;
+            private final boolean nested;
+
+            private Template(List<String> literals, List<String> keys, boolean nested) {
+                this.literals = literals.toArray(new String[literals.size()]);
+                this.keys = keys.toArray(new String[keys.size()]);
+                this.nested = nested;
             }
 
-            return text;
+            /**
+             * Finds the same expressions as {@link #EXPRESSION_PATTERN}: "${", at least one character other than "}",
+             * then "}".
+             */
+            private static Template compile(String text) {
+                List<String> literals = new ArrayList<>();
+                List<String> keys = new ArrayList<>();
+                boolean nested = false;
+                int literalStart = 0;
+                int start = text.indexOf("${");
+                while (start >= 0) {
+                    int end = text.indexOf('}', start + 2);
+                    if (end < 0) {
+                        break;
+                    }
+                    if (end == (start + 2)) {
+                        start = text.indexOf("${", start + 1);
+                        continue;
+                    }
+                    String key = text.substring(start + 2, end);
+                    nested |= key.contains("${");
+                    literals.add(text.substring(literalStart, start));
+                    keys.add(key);
+                    literalStart = end + 1;
+                    start = text.indexOf("${", literalStart);
+                }
+                literals.add(text.substring(literalStart));
+                return new Template(literals, keys, nested);
+            }
+
+            /**
+             * Returns null if the result could differ from {@link ExpressionExpander#expandEachMatch}: when an
+             * expression contains another one or a value contains an expression.
+             */
+            private String expand(ExpressionExpander expander, DatabaseChangeLog changeLog) {
+                if (nested) {
+                    return null;
+                }
+                StringBuilder result = new StringBuilder();
+                for (int i = 0; i < keys.length; i++) {
+                    result.append(literals[i]);
+                    Object value = expander.lookup(keys[i], changeLog);
+                    if (value == null) {
+                        result.append("${").append(keys[i]).append("}");
+                    } else {
+                        String valueString = value.toString();
+                        if (valueString.contains("${")) {
+                            return null;
+                        }
+                        result.append(valueString);
+                    }
+                }
+                result.append(literals[keys.length]);
+                return result.toString();
+            }
         }
     }
 
@@ -0,0 +1,186 @@
+package liquibase.changelog;
+
+import liquibase.Scope;
+import liquibase.ThreadLocalScopeManager;
+import liquibase.change.ChangeFactory;
+import liquibase.exception.LiquibaseException;
+import liquibase.parser.ChangeLogParser;
+import liquibase.parser.ChangeLogParserFactory;
+import liquibase.parser.core.ParsedNode;
+import liquibase.parser.core.xml.AbstractChangeLogParser;
+import liquibase.precondition.PreconditionFactory;
+import liquibase.resource.ResourceAccessor;
+import liquibase.sql.visitor.SqlVisitorFactory;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and parses included changelog files into {@link ParsedNode} trees on a thread pool ahead of the
+ * {@link DatabaseChangeLog} that includes them.
+ * <p>
+ * Only the file parsing is done ahead of time. The parsed trees are still loaded by {@link DatabaseChangeLog#include}
+ * one at a time in changelog order, so change set order and changelog parameter scoping are the same as without
+ * prefetching. Includes with a file name containing a changelog parameter are not prefetched since the parameter
+ * value is only known once the preceding nodes have been loaded. A prefetched tree is used at most once; if parsing
+ * ahead of time fails, the file is parsed again when it is included so errors are reported at the usual point.
+ * <p>
+ * Files are parsed in the scope they were scheduled from, so parsers see the same resource accessor and other scope
+ * values as on the thread loading the changelog. A {@link ThreadLocalScopeManager} is used until {@link #close()} so
+ * the pool threads can enter that scope.
+ */
+public class ChangeLogPrefetcher {
+
+    private static final ThreadLocal<ChangeLogPrefetcher> CURRENT = new ThreadLocal<>();
+
+    private final ForkJoinPool pool;
+    private final ResourceAccessor resourceAccessor;
+    private final ChangeLogParameters changeLogParameters;
+    private final Set<String> scheduledPaths = new HashSet<>();
+    private final Map<String, Prefetched> prefetched = new ConcurrentHashMap<>();
+
+    public ChangeLogPrefetcher(int threads, ResourceAccessor resourceAccessor, ChangeLogParameters changeLogParameters) {
+        this.pool = new ForkJoinPool(threads);
+        this.resourceAccessor = resourceAccessor;
+        this.changeLogParameters = changeLogParameters;
+
+        //the parsers look up these lazily created singletons, create them on this thread instead of racing for them
+        Scope.getCurrentScope().getSingleton(ChangeFactory.class);
+        PreconditionFactory.getInstance();
+        SqlVisitorFactory.getInstance();
+        ChangeLogParserFactory.getInstance();
+        ThreadLocalScopeManager.acquire();
+    }
+
+    /**
+     * Returns the prefetcher used by the changelog being loaded on this thread, or null if there is none.
+     */
+    public static ChangeLogPrefetcher getCurrent() {
+        return CURRENT.get();
+    }
+
+    static void setCurrent(ChangeLogPrefetcher prefetcher) {
+        if (prefetcher == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(prefetcher);
+        }
+    }
+
+    /**
+     * Schedules the files included by the "include" children of the given changelog node.
+     */
+    public void prefetchIncludes(ParsedNode changeLogNode, String physicalFilePath) {
+        if (changeLogNode.getChildren() == null) {
+            return;
+        }
+        for (ParsedNode child : changeLogNode.getChildren()) {
+            if (!"include".equals(child.getName())) {
+                continue;
+            }
+            try {
+                String path = child.getChildValue(null, "file", String.class);
+                if ((path == null) || path.contains("${")) {
+                    continue;
+                }
+                String fileName = DatabaseChangeLog.resolveIncludePath(path.replace('\\', '/'),
+                        child.getChildValue(null, "relativeToChangelogFile", false), physicalFilePath);
+                if (fileName != null) {
+                    prefetch(fileName);
+                }
+            } catch (Exception e) {
+                //it will be reported when the include is loaded
+                Scope.getCurrentScope().getLog(getClass()).fine("Not prefetching include in " + physicalFilePath + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Schedules parsing of the given file, unless it was already scheduled or no node-based parser supports it.
+     */
+    public void prefetch(String fileName) {
+        ChangeLogParser parser;
+        try {
+            parser = ChangeLogParserFactory.getInstance().getParser(fileName, resourceAccessor);
+        } catch (LiquibaseException e) {
+            return;
+        }
+        if (!(parser instanceof AbstractChangeLogParser)) {
+            return;
+        }
+        synchronized (scheduledPaths) {
+            if (!scheduledPaths.add(fileName)) {
+                return;
+            }
+        }
+        final AbstractChangeLogParser nodeParser = (AbstractChangeLogParser) parser;
+        final Scope scope = Scope.getCurrentScope();
+        ForkJoinTask<ParsedNode> task = ForkJoinTask.adapt(() -> Scope.runIn(scope, () -> {
+            ParsedNode parsedNode = nodeParser.parseNode(fileName, changeLogParameters, resourceAccessor);
+            if (parsedNode != null) {
+                prefetchIncludes(parsedNode, DatabaseChangeLog.normalizePath(fileName));
+            }
+            return parsedNode;
+        }));
+        //registered before it runs so take() never misses a scheduled file
+        prefetched.put(fileName, new Prefetched(nodeParser, task));
+        pool.execute(task);
+    }
+
+    /**
+     * Returns the tree parsed ahead of time for the given file and parser, waiting for it if needed. Returns null if
+     * the file was not prefetched, has already been taken or could not be parsed.
+     */
+    public ParsedNode take(ChangeLogParser parser, String fileName, ResourceAccessor resourceAccessor) {
+        if (resourceAccessor != this.resourceAccessor) {
+            return null;
+        }
+        Prefetched entry = prefetched.remove(fileName);
+        if ((entry == null) || (entry.parser != parser)) {
+            return null;
+        }
+        try {
+            return entry.parsedNode.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Scope.getCurrentScope().getLog(getClass()).fine("Parsing " + fileName + " ahead of time failed, parsing it again: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stops the pool. Files that were scheduled but never included are discarded. Must be called from the scope the
+     * prefetcher was created in.
+     */
+    public void close() {
+        pool.shutdownNow();
+        prefetched.clear();
+        try {
+            //files being parsed still use the scope manager, let them finish before it is restored
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ThreadLocalScopeManager.release();
+        }
+    }
+
+    private static class Prefetched {
+        private final ChangeLogParser parser;
+        private final Future<ParsedNode> parsedNode;
+
+        private Prefetched(ChangeLogParser parser, Future<ParsedNode> parsedNode) {
+            this.parser = parser;
+            this.parsedNode = parsedNode;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package liquibase.changelog;
+
+import liquibase.RuntimeEnvironment;
+import liquibase.Scope;
+import liquibase.change.CheckSum;
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The state of one run of a changelog against a database that belongs to the run rather than to the changelog: the
+ * runtime environment, the checksums and file paths stored in the database for each change set and the
+ * {@link GeneratedSqlCache}.
+ * <p>
+ * Change sets of a {@link DatabaseChangeLog#freeze() frozen} changelog keep this state in the run state of the current
+ * {@link Scope} instead of in their own fields, so the changelog can be shared by runs against many databases at the
+ * same time. {@link liquibase.Liquibase} and {@link ChangeLogIterator} start a run state when there is none yet.
+ */
+public class ChangeLogRunState {
+
+    private final Map<ChangeSet, CheckSum> storedCheckSums = Collections.synchronizedMap(new IdentityHashMap<ChangeSet, CheckSum>());
+    private final Map<ChangeSet, String> storedFilePaths = Collections.synchronizedMap(new IdentityHashMap<ChangeSet, String>());
+    private final Set<ChangeSet> validationFailed = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<ChangeSet, Boolean>()));
+    private final GeneratedSqlCache generatedSqlCache = LiquibaseConfiguration.getInstance()
+            .getConfiguration(GlobalConfiguration.class).getCacheGeneratedSql() ? new GeneratedSqlCache() : null;
+    private volatile RuntimeEnvironment runtimeEnvironment;
+
+    /**
+     * Returns the run state of the current scope, or null if there is none.
+     */
+    public static ChangeLogRunState getCurrent() {
+        return Scope.getCurrentScope().get(Scope.Attr.changeLogRunState, ChangeLogRunState.class);
+    }
+
+    public RuntimeEnvironment getRuntimeEnvironment() {
+        return runtimeEnvironment;
+    }
+
+    public void setRuntimeEnvironment(RuntimeEnvironment runtimeEnvironment) {
+        this.runtimeEnvironment = runtimeEnvironment;
+    }
+
+    public CheckSum getStoredCheckSum(ChangeSet changeSet) {
+        return storedCheckSums.get(changeSet);
+    }
+
+    public void setStoredCheckSum(ChangeSet changeSet, CheckSum storedCheckSum) {
+        storedCheckSums.put(changeSet, storedCheckSum);
+    }
+
+    /**
+     * Returns the file path stored in the database for the change set, or null if it is the change set's own path.
+     */
+    public String getStoredFilePath(ChangeSet changeSet) {
+        return storedFilePaths.get(changeSet);
+    }
+
+    public void setStoredFilePath(ChangeSet changeSet, String storedFilePath) {
+        storedFilePaths.put(changeSet, storedFilePath);
+    }
+
+    public boolean isValidationFailed(ChangeSet changeSet) {
+        return validationFailed.contains(changeSet);
+    }
+
+    public void setValidationFailed(ChangeSet changeSet, boolean failed) {
+        if (failed) {
+            validationFailed.add(changeSet);
+        } else {
+            validationFailed.remove(changeSet);
+        }
+    }
+
+    /**
+     * Returns the statements and SQL generated during this run, or null if caching them is disabled.
+     */
+    public GeneratedSqlCache getGeneratedSqlCache() {
+        return generatedSqlCache;
+    }
+}
@@ -5,9 +5,13 @@ import liquibase.LabelExpression;
 import liquibase.Labels;
 import liquibase.Scope;
 import liquibase.change.*;
+import liquibase.change.core.AbstractModifyDataChange;
 import liquibase.change.core.EmptyChange;
+import liquibase.change.core.InsertDataChange;
 import liquibase.change.core.RawSQLChange;
 import liquibase.changelog.visitor.ChangeExecListener;
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
 import liquibase.database.Database;
 import liquibase.database.DatabaseList;
 import liquibase.database.ObjectQuotingStrategy;
@@ -15,7 +19,9 @@ import liquibase.exception.*;
 import liquibase.executor.Executor;
 import liquibase.executor.ExecutorService;
 import liquibase.executor.LoggingExecutor;
+import liquibase.executor.jvm.JdbcExecutor;
 import liquibase.logging.Logger;
+import liquibase.parser.ChangeLogParserCofiguration;
 import liquibase.parser.core.ParsedNode;
 import liquibase.parser.core.ParsedNodeException;
 import liquibase.precondition.Conditional;
@@ -82,8 +88,15 @@ public class ChangeSet implements Conditional, ChangeLogChild {
         }
     }
 
+    /**
+     * @deprecated only set when a {@link ChangeLogIterator} subclass overrides
+     * {@link ChangeLogIterator#createKey(ChangeSet)}. The iterator otherwise uses {@link #getChangeSetKey()}.
+     */
+    @Deprecated
     protected String key;
 
+    private volatile ChangeLogIterator.ChangeSetKey changeSetKey;
+
     private ChangeLogParameters changeLogParameters;
 
     /**
@@ -206,6 +219,23 @@ public class ChangeSet implements Conditional, ChangeLogChild {
 
     private Map<String, Object> attributes = new HashMap<>();
 
+    /**
+     * Change and rollback nodes not loaded yet, see {@link ChangeLogParserCofiguration#getLazyChangeSetLoading()}
+     */
+    private volatile List<ParsedNode> deferredNodes;
+    private ResourceAccessor deferredResourceAccessor;
+    private boolean loadingDeferredNodes;
+
+    /**
+     * Set by {@link DatabaseChangeLog#freeze()}
+     */
+    private volatile boolean frozen;
+
+    /**
+     * The exceptions thrown by {@link Change#finishInitialization()} when the change set was frozen.
+     */
+    private Map<Change, SetupException> setupExceptions;
+
     public boolean shouldAlwaysRun() {
         return alwaysRun;
     }
@@ -260,13 +290,29 @@ public class ChangeSet implements Conditional, ChangeLogChild {
     }
 
     public String getStoredFilePath() {
+        String storedFilePath = this.storedFilePath;
+        if (frozen) {
+            ChangeLogRunState runState = ChangeLogRunState.getCurrent();
+            storedFilePath = (runState == null) ? null : runState.getStoredFilePath(this);
+        }
         if (storedFilePath == null) {
             return getFilePath();
         }
         return storedFilePath;
     }
 
+    /**
+     * Sets the file path stored in the database. If the change set is {@link #isFrozen() frozen} the path is kept in the
+     * current {@link ChangeLogRunState}, and ignored if there is none.
+     */
     public void setStoredFilePath(String storedFilePath) {
+        if (frozen) {
+            ChangeLogRunState runState = ChangeLogRunState.getCurrent();
+            if (runState != null) {
+                runState.setStoredFilePath(this, storedFilePath);
+            }
+            return;
+        }
         this.storedFilePath = storedFilePath;
     }
 
@@ -275,25 +321,44 @@ public class ChangeSet implements Conditional, ChangeLogChild {
     }
 
     public void clearCheckSum() {
+        if (frozen) {
+            //the changes cannot be modified any more, so neither can the checksum
+            return;
+        }
         this.checkSum = null;
+        GeneratedSqlCache generatedSqlCache = GeneratedSqlCache.getCurrent();
+        if ((generatedSqlCache != null) && (deferredNodes == null)) {
+            generatedSqlCache.forget(changes);
+        }
     }
 
     public CheckSum generateCheckSum() {
         if (checkSum == null) {
-            StringBuilder stringToMD5 = new StringBuilder();
-            for (Change change : getChanges()) {
-                stringToMD5.append(change.generateCheckSum()).append(":");
+            CheckSumCache checkSumCache = CheckSumCache.getInstance();
+            if (checkSumCache == null) {
+                checkSum = computeCheckSum();
+            } else {
+                checkSum = checkSumCache.getCheckSum(this);
             }
+        }
 
-            for (SqlVisitor visitor : this.getSqlVisitors()) {
-                stringToMD5.append(visitor.generateCheckSum()).append(";");
-            }
+        return checkSum;
+    }
 
+    /**
+     * Computes the checksum from the changes and sql visitors, bypassing any {@link CheckSumCache}.
+     */
+    CheckSum computeCheckSum() {
+        StringBuilder stringToMD5 = new StringBuilder();
+        for (Change change : getChanges()) {
+            stringToMD5.append(change.generateCheckSum()).append(":");
+        }
 
-            checkSum = CheckSum.compute(stringToMD5.toString());
+        for (SqlVisitor visitor : this.getSqlVisitors()) {
+            stringToMD5.append(visitor.generateCheckSum()).append(";");
         }
 
-        return checkSum;
+        return CheckSum.compute(stringToMD5.toString());
     }
 
     @Override
@@ -344,8 +409,76 @@ public class ChangeSet implements Conditional, ChangeLogChild {
         String onValidationFailString = node.getChildValue(null, "onValidationFail", "HALT");
         this.setOnValidationFail(ValidationFailOption.valueOf(onValidationFailString));
 
-        for (ParsedNode child : node.getChildren()) {
-            handleChildNode(child, resourceAccessor);
+        if (isLazyLoadable(node)) {
+            List<ParsedNode> deferred = new ArrayList<>();
+            ChangeFactory changeFactory = Scope.getCurrentScope().getSingleton(ChangeFactory.class);
+            for (ParsedNode child : node.getChildren()) {
+                String name = child.getName();
+                if ("changes".equals(name) || "rollback".equals(name) || (!"validCheckSum".equals(name)
+                        && !"validCheckSums".equals(name) && !"modifySql".equals(name) && !"preConditions".equals(name)
+                        && (changeFactory.create(name) != null))) {
+                    deferred.add(child);
+                } else {
+                    handleChildNode(child, resourceAccessor);
+                }
+            }
+            if (!deferred.isEmpty()) {
+                this.deferredResourceAccessor = resourceAccessor;
+                this.deferredNodes = deferred;
+            }
+        } else {
+            for (ParsedNode child : node.getChildren()) {
+                handleChildNode(child, resourceAccessor);
+            }
+        }
+    }
+
+    /**
+     * Rollbacks referring to another change set are resolved against the change sets loaded so far, so they are never
+     * deferred. Subclasses may handle nodes differently and are not deferred either.
+     */
+    private boolean isLazyLoadable(ParsedNode node) throws ParsedNodeException {
+        if ((getClass() != ChangeSet.class)
+                || !LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration.class).getLazyChangeSetLoading()) {
+            return false;
+        }
+        for (ParsedNode rollbackNode : node.getChildren(null, "rollback")) {
+            if (rollbackNode.getChildValue(null, "changeSetId", String.class) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the changes and rollback changes of this change set have not been built yet because of
+     * {@link ChangeLogParserCofiguration#getLazyChangeSetLoading()}. They are built the first time they are accessed.
+     */
+    public boolean hasDeferredChanges() {
+        return deferredNodes != null;
+    }
+
+    private void loadDeferredNodes() {
+        if (deferredNodes == null) {
+            return;
+        }
+        synchronized (this) {
+            List<ParsedNode> nodes = deferredNodes;
+            if ((nodes == null) || loadingDeferredNodes) {
+                return;
+            }
+            loadingDeferredNodes = true;
+            try {
+                for (ParsedNode node : nodes) {
+                    handleChildNode(node, deferredResourceAccessor);
+                }
+            } catch (ParsedNodeException e) {
+                throw new UnexpectedLiquibaseException("Cannot load changes of " + toString(false) + ": " + e.getMessage(), e);
+            } finally {
+                loadingDeferredNodes = false;
+                deferredResourceAccessor = null;
+                deferredNodes = null;
+            }
         }
     }
 
@@ -512,9 +645,19 @@ public class ChangeSet implements Conditional, ChangeLogChild {
      */
     public ExecType execute(DatabaseChangeLog databaseChangeLog, ChangeExecListener listener, Database database)
             throws MigrationFailedException {
+        return execute(databaseChangeLog, listener, database, true);
+    }
+
+    /**
+     * Executes the change set like {@link #execute(DatabaseChangeLog, ChangeExecListener, Database)}, but leaves the
+     * transaction of a change set run in a transaction open if commit is false, so it can be committed together with
+     * its history row. On failure the transaction is rolled back as usual.
+     */
+    public ExecType execute(DatabaseChangeLog databaseChangeLog, ChangeExecListener listener, Database database,
+                            boolean commit) throws MigrationFailedException {
         Logger log = Scope.getCurrentScope().getLog(getClass());
 
-        if (validationFailed) {
+        if (isValidationFailed()) {
             return ExecType.MARK_RAN;
         }
 
@@ -525,6 +668,7 @@ public class ChangeSet implements Conditional, ChangeLogChild {
         boolean skipChange = false;
 
         Executor originalExecutor = setupCustomExecutorIfNecessary(database);
+        JdbcExecutor pipelinedExecutor = null;
         try {
             Executor executor = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
             // set object quoting strategy
@@ -609,40 +753,63 @@ public class ChangeSet implements Conditional, ChangeLogChild {
 
                 database.rollback();
             } finally {
-                database.rollback();
+                //a deferred commit leaves earlier change sets in the open transaction, only undo what preconditions did
+                if (commit || (preconditions != null)) {
+                    database.rollback();
+                }
             }
 
             if (!skipChange) {
-                for (Change change : changes) {
+                for (Change change : getChanges()) {
                     try {
-                        change.finishInitialization();
+                        finishInitialization(change);
                     } catch (SetupException se) {
                         throw new MigrationFailedException(this, se);
                     }
                 }
 
                 log.fine("Reading ChangeSet: " + toString());
+                if ((executor instanceof JdbcExecutor) && LiquibaseConfiguration.getInstance()
+                        .getConfiguration(GlobalConfiguration.class).getPipelineChangeSetStatements()) {
+                    pipelinedExecutor = (JdbcExecutor) executor;
+                    pipelinedExecutor.startPipeline();
+                }
+                //changes whose statements are still in the pipeline are reported as ran once it is flushed
+                List<Change> ranChanges = new ArrayList<>();
                 for (Change change : getChanges()) {
                     if ((!(change instanceof DbmsTargetedChange)) || DatabaseList.definitionMatches(((DbmsTargetedChange) change).getDbms(), database, true)) {
+                        if (pipelinedExecutor != null) {
+                            //other changes may use the connection directly while generating or executing their statements
+                            if (!((change instanceof InsertDataChange) || (change instanceof AbstractModifyDataChange))) {
+                                pipelinedExecutor.flushPipeline();
+                                fireRan(ranChanges, listener, database);
+                            }
+                            pipelinedExecutor.setPipelinedChange(change);
+                        }
                         if (listener != null) {
                             listener.willRun(change, this, changeLog, database);
                         }
-                        if (change.generateStatementsVolatile(database)) {
+                        if (GeneratedSqlCache.generateStatementsVolatile(change, database)) {
                             executor.comment("WARNING The following SQL may change each run and therefore is possibly incorrect and/or invalid:");
                         }
 
 
                         database.executeStatements(change, databaseChangeLog, sqlVisitors);
                         log.info(change.getConfirmationMessage());
-                        if (listener != null) {
-                            listener.ran(change, this, changeLog, database);
+                        ranChanges.add(change);
+                        if ((pipelinedExecutor == null) || !pipelinedExecutor.hasPipelinedStatements()) {
+                            fireRan(ranChanges, listener, database);
                         }
                     } else {
                         log.fine("Change " + change.getSerializedObjectName() + " not included for database " + database.getShortName());
                     }
                 }
+                if (pipelinedExecutor != null) {
+                    pipelinedExecutor.flushPipeline();
+                    fireRan(ranChanges, listener, database);
+                }
 
-                if (runInTransaction) {
+                if (runInTransaction && commit) {
                     database.commit();
                 }
                 log.info("ChangeSet " + toString(false) + " ran successfully in " + (new Date().getTime() - startTime + "ms"));
@@ -671,6 +838,10 @@ public class ChangeSet implements Conditional, ChangeLogChild {
                 }
             }
         } finally {
+            if (pipelinedExecutor != null) {
+                pipelinedExecutor.endPipeline();
+            }
+            closePreparedStatements(database);
             Scope.getCurrentScope().getSingleton(ExecutorService.class).setExecutor("jdbc", database, originalExecutor);
             // restore auto-commit to false if this ChangeSet was not run in a transaction,
             // but only if the database supports DDL in transactions
@@ -685,6 +856,25 @@ public class ChangeSet implements Conditional, ChangeLogChild {
         return execType;
     }
 
+    private void fireRan(List<Change> ranChanges, ChangeExecListener listener, Database database) {
+        if (listener != null) {
+            for (Change change : ranChanges) {
+                listener.ran(change, this, changeLog, database);
+            }
+        }
+        ranChanges.clear();
+    }
+
+    /**
+     * Closes the prepared statements the executor kept open for reuse while this change set ran.
+     */
+    private void closePreparedStatements(Database database) {
+        Executor executor = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+        if (executor instanceof JdbcExecutor) {
+            ((JdbcExecutor) executor).closePreparedStatements();
+        }
+    }
+
     //
     // Get the custom Executor ready if necessary
     // We do not do anything if we have a LoggingExecutor.
@@ -729,7 +919,7 @@ public class ChangeSet implements Conditional, ChangeLogChild {
 
             if (hasCustomRollbackChanges()) {
                 final List<SqlStatement> statements = new LinkedList<>();
-                for (Change change : rollback.getChanges()) {
+                for (Change change : getRollback().getChanges()) {
                     if (((change instanceof DbmsTargetedChange)) && !DatabaseList.definitionMatches(((DbmsTargetedChange) change).getDbms(), database, true)) {
                         continue;
                     }
@@ -773,6 +963,7 @@ public class ChangeSet implements Conditional, ChangeLogChild {
             }
             throw new RollbackFailedException(e);
         } finally {
+            closePreparedStatements(database);
             // restore auto-commit to false if this ChangeSet was not run in a transaction,
             // but only if the database supports DDL in transactions
             Scope.getCurrentScope().getSingleton(ExecutorService.class).setExecutor("jdbc", database, originalExecutor);
@@ -791,6 +982,7 @@ public class ChangeSet implements Conditional, ChangeLogChild {
      * Returns whether custom rollback steps are specified for this changeSet, or whether auto-generated ones should be used
      */
     protected boolean hasCustomRollbackChanges() {
+        loadDeferredNodes();
         return (rollback != null) && (rollback.getChanges() != null) && !rollback.getChanges().isEmpty();
     }
 
@@ -798,6 +990,7 @@ public class ChangeSet implements Conditional, ChangeLogChild {
      * Returns an unmodifiable list of changes.  To add one, use the addRefactoing method.
      */
     public List<Change> getChanges() {
+        loadDeferredNodes();
         return Collections.unmodifiableList(changes);
     }
 
@@ -805,6 +998,7 @@ public class ChangeSet implements Conditional, ChangeLogChild {
         if (change == null) {
             return;
         }
+        loadDeferredNodes();
         changes.add(change);
         change.setChangeSet(this);
     }
@@ -910,10 +1104,12 @@ public class ChangeSet implements Conditional, ChangeLogChild {
     }
 
     public RollbackContainer getRollback() {
+        loadDeferredNodes();
         return rollback;
     }
 
     public void addRollBackSQL(String sql) {
+        loadDeferredNodes();
         if (StringUtil.trimToNull(sql) == null) {
             if (rollback.getChanges().isEmpty()) {
                 rollback.getChanges().add(new EmptyChange());
@@ -930,12 +1126,14 @@ public class ChangeSet implements Conditional, ChangeLogChild {
         if (change == null) {
             return;
         }
+        loadDeferredNodes();
         rollback.getChanges().add(change);
         change.setChangeSet(this);
     }
 
 
     public boolean supportsRollback(Database database) {
+        loadDeferredNodes();
         if ((rollback != null) && (rollback.getChanges() != null) && !rollback.getChanges().isEmpty()) {
             return true;
         }
@@ -978,10 +1176,49 @@ public class ChangeSet implements Conditional, ChangeLogChild {
         this.onValidationFail = onValidationFail;
     }
 
+    /**
+     * Returns true if validation failed and the change set is to be marked as ran instead of being executed. For a
+     * {@link #isFrozen() frozen} change set this is kept in the current {@link ChangeLogRunState}.
+     */
+    public boolean isValidationFailed() {
+        if (frozen) {
+            ChangeLogRunState runState = ChangeLogRunState.getCurrent();
+            return (runState != null) && runState.isValidationFailed(this);
+        }
+        return validationFailed;
+    }
+
+    /**
+     * Sets if validation failed. If the change set is {@link #isFrozen() frozen} the flag is kept in the current
+     * {@link ChangeLogRunState}, and ignored if there is none.
+     */
     public void setValidationFailed(boolean validationFailed) {
+        if (frozen) {
+            ChangeLogRunState runState = ChangeLogRunState.getCurrent();
+            if (runState != null) {
+                runState.setValidationFailed(this, validationFailed);
+            }
+            return;
+        }
         this.validationFailed = validationFailed;
     }
 
+    /**
+     * Calls {@link Change#finishInitialization()} on one of the changes of this change set. For a {@link #isFrozen()
+     * frozen} change set that already happened in {@link #freeze()}, so concurrent runs do not modify the shared
+     * change, and only the exception thrown then is thrown again.
+     */
+    public void finishInitialization(Change change) throws SetupException {
+        if (frozen) {
+            SetupException setupException = setupExceptions.get(change);
+            if (setupException != null) {
+                throw setupException;
+            }
+            return;
+        }
+        change.finishInitialization();
+    }
+
     public void addValidCheckSum(String text) {
         validCheckSums.add(CheckSum.parse(text));
     }
@@ -1177,6 +1414,7 @@ public class ChangeSet implements Conditional, ChangeLogChild {
         }
 
         if ("rollback".equals(field)) {
+            loadDeferredNodes();
             if ((rollback != null) && (rollback.getChanges() != null) && !rollback.getChanges().isEmpty()) {
                 return rollback;
             } else {
@@ -1237,6 +1475,10 @@ public class ChangeSet implements Conditional, ChangeLogChild {
      * @return storedCheckSum if it was executed otherwise null
      */
     public CheckSum getStoredCheckSum() {
+        if (frozen) {
+            ChangeLogRunState runState = ChangeLogRunState.getCurrent();
+            return (runState == null) ? null : runState.getStoredCheckSum(this);
+        }
         return storedCheckSum;
     }
 
@@ -1246,6 +1488,57 @@ public class ChangeSet implements Conditional, ChangeLogChild {
      * @param storedCheckSum
      */
     public void setStoredCheckSum(CheckSum storedCheckSum) {
+        if (frozen) {
+            ChangeLogRunState runState = ChangeLogRunState.getCurrent();
+            if (runState != null) {
+                runState.setStoredCheckSum(this, storedCheckSum);
+            }
+            return;
+        }
         this.storedCheckSum = storedCheckSum;
     }
+
+    /**
+     * Returns the key {@link ChangeLogIterator} finds duplicate change sets with, or null if it has not been created yet.
+     */
+    ChangeLogIterator.ChangeSetKey getChangeSetKey() {
+        return changeSetKey;
+    }
+
+    void setChangeSetKey(ChangeLogIterator.ChangeSetKey changeSetKey) {
+        this.changeSetKey = changeSetKey;
+    }
+
+    /**
+     * Returns true if the change set belongs to a {@link DatabaseChangeLog#freeze() frozen} changelog.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Loads the deferred changes, finishes their initialization and computes the checksum and lookup key, so nothing is
+     * initialized lazily while the change set is shared by several runs, and keeps the stored checksum, file path and
+     * validation result in the {@link ChangeLogRunState} from now on.
+     */
+    void freeze() {
+        if (frozen) {
+            return;
+        }
+        loadDeferredNodes();
+        Map<Change, SetupException> setupExceptions = new IdentityHashMap<>();
+        for (Change change : getChanges()) {
+            try {
+                change.finishInitialization();
+            } catch (SetupException e) {
+                setupExceptions.put(change, e);
+            }
+        }
+        this.setupExceptions = setupExceptions;
+        generateCheckSum();
+        if (changeSetKey == null) {
+            changeSetKey = new ChangeLogIterator.ChangeSetKey(this);
+        }
+        frozen = true;
+    }
 }
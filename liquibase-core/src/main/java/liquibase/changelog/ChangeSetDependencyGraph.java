@@ -0,0 +1,515 @@
+package liquibase.changelog;
+
+import liquibase.Scope;
+import liquibase.change.Change;
+import liquibase.change.ChangeWithColumns;
+import liquibase.change.ColumnConfig;
+import liquibase.change.ConstraintsConfig;
+import liquibase.change.core.AbstractModifyDataChange;
+import liquibase.change.core.AddDefaultValueChange;
+import liquibase.change.core.AddForeignKeyConstraintChange;
+import liquibase.change.core.CreateViewChange;
+import liquibase.change.core.InsertDataChange;
+import liquibase.change.core.LoadDataChange;
+import liquibase.database.Database;
+import liquibase.snapshot.SnapshotControl;
+import liquibase.snapshot.SnapshotGeneratorFactory;
+import liquibase.statement.DatabaseFunction;
+import liquibase.statement.SequenceNextValueFunction;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Catalog;
+import liquibase.structure.core.ForeignKey;
+import liquibase.structure.core.Relation;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.Sequence;
+import liquibase.structure.core.Table;
+
+import java.util.*;
+
+/**
+ * Orders change sets for {@link ParallelUpdateRunner}. A change set depends on every earlier change set that affects
+ * one of the same tables or other database objects, as reported by
+ * {@link liquibase.sqlgenerator.SqlGeneratorFactory#getAffectedDatabaseObjects}. If {@link ChangeSetGroups} are given,
+ * the order they declare is added on top, so groups can only make change sets wait longer.
+ * <p>
+ * Change sets whose affected objects cannot be determined are barriers, which depend on every earlier change set and
+ * every later change set depends on. That covers raw SQL, custom changes, views, updates and deletes with a where
+ * clause, change sets with preconditions or a custom executor and any change that reports no affected objects.
+ * Objects are compared by name only, ignoring schema and case, so a default schema never hides a conflict.
+ * <p>
+ * A foreign key, whether added on its own or inline with a column, affects both its base and its referenced table.
+ * A column whose value or default value is the next value of a sequence depends on the change sets creating, changing
+ * or dropping that sequence, and the change sets changing or dropping it later depend on the column. Since a computed
+ * value may call any sequence, it is ordered the same way against every sequence.
+ * <p>
+ * Inserts, loads, updates and deletes are ordered per table, and additionally against rows written to tables linked to
+ * it by a foreign key, so rows are written in changelog order wherever a foreign key could reject them. The foreign
+ * keys created by the change sets and those in the default schema of the database are used. If the database cannot be
+ * read, rows are written in changelog order across all tables.
+ */
+class ChangeSetDependencyGraph {
+
+    private static final String RELATION = "relation:";
+    private static final String SEQUENCE = Sequence.class.getSimpleName() + ":";
+
+    /**
+     * Prefix of the tables rows are written to, replaced by the key of the tables linked to it by foreign keys.
+     */
+    private static final String DATA = "data:";
+
+    /**
+     * Prefix of the sequences whose values are used, or of {@link #ANY_SEQUENCE}.
+     */
+    private static final String SEQUENCE_USE = "sequence use:";
+    private static final String ANY_SEQUENCE = "*";
+
+    private final List<ChangeSet> changeSets;
+    private final boolean[] barriers;
+    private final List<Set<Integer>> dependencies;
+    private final List<List<Integer>> dependents;
+
+    ChangeSetDependencyGraph(List<ChangeSet> changeSets, Database database) {
+        this(changeSets, database, null);
+    }
+
+    /**
+     * @param groups adds the order of the given groups: a change set depends on the previous change set of its group,
+     *               and the first change set of a group on the last change set of every group on a lower level. Change
+     *               sets without a group are barriers. Null to use the affected objects only.
+     */
+    ChangeSetDependencyGraph(List<ChangeSet> changeSets, Database database, ChangeSetGroups groups) {
+        this(changeSets);
+
+        List<Set<String>> objectsByChangeSet = new ArrayList<>(changeSets.size());
+        List<Set<String>> foreignKeyTables = new ArrayList<>();
+        for (ChangeSet changeSet : changeSets) {
+            objectsByChangeSet.add(getAffectedObjectNames(changeSet, database, foreignKeyTables));
+        }
+        Map<String, String> dataKeys = getDataKeys(objectsByChangeSet, foreignKeyTables, database);
+
+        Integer lastBarrier = null;
+        List<Integer> sinceLastBarrier = new ArrayList<>();
+        Map<String, Integer> lastByObject = new HashMap<>();
+        Map<Integer, Set<String>> sequenceUses = new LinkedHashMap<>();
+        for (int i = 0; i < changeSets.size(); i++) {
+            Set<String> objects = objectsByChangeSet.get(i);
+
+            Set<Integer> dependencies = new HashSet<>();
+            if (lastBarrier != null) {
+                dependencies.add(lastBarrier);
+            }
+            if (objects == null) {
+                barriers[i] = true;
+                dependencies.addAll(sinceLastBarrier);
+                lastBarrier = i;
+                sinceLastBarrier.clear();
+                lastByObject.clear();
+                sequenceUses.clear();
+            } else {
+                for (String object : objects) {
+                    if (object.startsWith(SEQUENCE_USE)) {
+                        addSequenceUseDependencies(object.substring(SEQUENCE_USE.length()), lastByObject, dependencies);
+                        sequenceUses.computeIfAbsent(i, index -> new HashSet<>()).add(object.substring(SEQUENCE_USE.length()));
+                        continue;
+                    }
+                    if (object.startsWith(DATA)) {
+                        object = dataKeys.get(object);
+                    } else if (object.startsWith(SEQUENCE)) {
+                        //wait for the change sets using the sequence since it was last changed
+                        Integer lastChange = lastByObject.get(object);
+                        String sequenceName = object.substring(SEQUENCE.length());
+                        for (Map.Entry<Integer, Set<String>> use : sequenceUses.entrySet()) {
+                            if (((lastChange == null) || (use.getKey() > lastChange))
+                                    && (use.getValue().contains(ANY_SEQUENCE) || use.getValue().contains(sequenceName))) {
+                                dependencies.add(use.getKey());
+                            }
+                        }
+                    }
+                    Integer previous = lastByObject.put(object, i);
+                    if (previous != null) {
+                        dependencies.add(previous);
+                    }
+                }
+                sinceLastBarrier.add(i);
+            }
+
+            dependencies.remove(i);
+            addDependencies(i, dependencies);
+        }
+
+        if (groups != null) {
+            addGroupDependencies(groups);
+        }
+    }
+
+    private ChangeSetDependencyGraph(List<ChangeSet> changeSets) {
+        this.changeSets = changeSets;
+        this.barriers = new boolean[changeSets.size()];
+        this.dependencies = new ArrayList<>(changeSets.size());
+        this.dependents = new ArrayList<>(changeSets.size());
+        for (int i = 0; i < changeSets.size(); i++) {
+            dependencies.add(new HashSet<Integer>());
+            dependents.add(new ArrayList<Integer>());
+        }
+    }
+
+    private void addGroupDependencies(ChangeSetGroups groups) {
+        String[] groupNames = new String[changeSets.size()];
+        for (int i = 0; i < changeSets.size(); i++) {
+            groupNames[i] = groups.getGroup(changeSets.get(i));
+        }
+
+        int segmentStart = 0;
+        for (int i = 0; i <= changeSets.size(); i++) {
+            if ((i < changeSets.size()) && (groupNames[i] != null)) {
+                continue;
+            }
+            //change sets between two barriers
+            addGroupDependencies(segmentStart, i, groupNames, groups);
+            if (i < changeSets.size()) {
+                barriers[i] = true;
+                Set<Integer> dependencies = new HashSet<>();
+                for (int j = (segmentStart > 0) ? (segmentStart - 1) : 0; j < i; j++) {
+                    dependencies.add(j);
+                }
+                addDependencies(i, dependencies);
+            }
+            segmentStart = i + 1;
+        }
+    }
+
+    private void addGroupDependencies(int start, int end, String[] groupNames, ChangeSetGroups groups) {
+        Map<String, Integer> firstByGroup = new LinkedHashMap<>();
+        Map<String, Integer> lastByGroup = new HashMap<>();
+        for (int i = start; i < end; i++) {
+            String group = groupNames[i];
+            Set<Integer> dependencies = new HashSet<>();
+            if (start > 0) {
+                dependencies.add(start - 1);
+            }
+            Integer previous = lastByGroup.put(group, i);
+            if (previous == null) {
+                firstByGroup.put(group, i);
+            } else {
+                dependencies.add(previous);
+            }
+            addDependencies(i, dependencies);
+        }
+
+        for (Map.Entry<String, Integer> first : firstByGroup.entrySet()) {
+            int level = groups.getLevel(first.getKey());
+            for (Map.Entry<String, Integer> last : lastByGroup.entrySet()) {
+                if (groups.getLevel(last.getKey()) < level) {
+                    addDependencies(first.getValue(), Collections.singleton(last.getValue()));
+                }
+            }
+        }
+    }
+
+    private void addDependencies(int index, Collection<Integer> dependencies) {
+        for (Integer dependency : dependencies) {
+            if (this.dependencies.get(index).add(dependency)) {
+                dependents.get(dependency).add(index);
+            }
+        }
+    }
+
+    /**
+     * Adds the change sets that last created, changed or dropped the given sequence, or any sequence.
+     */
+    private void addSequenceUseDependencies(String sequenceName, Map<String, Integer> lastByObject, Set<Integer> dependencies) {
+        if (!sequenceName.equals(ANY_SEQUENCE)) {
+            Integer lastChange = lastByObject.get(SEQUENCE + sequenceName);
+            if (lastChange != null) {
+                dependencies.add(lastChange);
+            }
+            return;
+        }
+        for (Map.Entry<String, Integer> last : lastByObject.entrySet()) {
+            if (last.getKey().startsWith(SEQUENCE)) {
+                dependencies.add(last.getValue());
+            }
+        }
+    }
+
+    int size() {
+        return changeSets.size();
+    }
+
+    ChangeSet getChangeSet(int index) {
+        return changeSets.get(index);
+    }
+
+    /**
+     * Returns true if the change set must run on its own, after all earlier change sets and before all later ones.
+     */
+    boolean isBarrier(int index) {
+        return barriers[index];
+    }
+
+    /**
+     * Returns the number of change sets the given change set waits for.
+     */
+    int getDependencyCount(int index) {
+        return dependencies.get(index).size();
+    }
+
+    /**
+     * Returns the change sets waiting for the given change set.
+     */
+    List<Integer> getDependents(int index) {
+        return dependents.get(index);
+    }
+
+    /**
+     * Returns the lower-cased names of the tables, sequences and other objects the change set affects, or null if it
+     * must be a barrier. The tables linked by each foreign key the change set creates are added to foreignKeyTables.
+     */
+    private Set<String> getAffectedObjectNames(ChangeSet changeSet, Database database, List<Set<String>> foreignKeyTables) {
+        if ((changeSet.getRunWith() != null) || ((changeSet.getPreconditions() != null)
+                && !changeSet.getPreconditions().getNestedPreconditions().isEmpty())) {
+            return null;
+        }
+
+        Set<String> names = new HashSet<>();
+        try {
+            for (Change change : changeSet.getChanges()) {
+                if ((change instanceof CreateViewChange)
+                        || ((change instanceof AbstractModifyDataChange) && (((AbstractModifyDataChange) change).getWhere() != null))
+                        || GeneratedSqlCache.generateStatementsVolatile(change, database)) {
+                    return null;
+                }
+                Set<DatabaseObject> affectedObjects = change.getAffectedDatabaseObjects(database);
+                if ((affectedObjects == null) || affectedObjects.isEmpty()) {
+                    return null;
+                }
+                Set<String> changeNames = new HashSet<>();
+                for (DatabaseObject object : affectedObjects) {
+                    if ((object instanceof Schema) || (object instanceof Catalog) || isInRelation(object)) {
+                        continue;
+                    }
+                    if (object.getName() == null) {
+                        return null;
+                    }
+                    String type = (object instanceof Relation) ? RELATION : (object.getClass().getSimpleName() + ":");
+                    changeNames.add(type + object.getName().toLowerCase(Locale.US));
+                }
+                if (addForeignKeyTableNames(change, changeNames)) {
+                    Set<String> tables = new HashSet<>();
+                    for (String name : changeNames) {
+                        if (name.startsWith(RELATION)) {
+                            tables.add(name.substring(RELATION.length()));
+                        }
+                    }
+                    foreignKeyTables.add(tables);
+                }
+                addSequenceUses(change, changeNames);
+                if ((change instanceof InsertDataChange) || (change instanceof LoadDataChange)
+                        || (change instanceof AbstractModifyDataChange)) {
+                    String tableName = normalizeName(getDataTableName(change));
+                    if (tableName == null) {
+                        return null;
+                    }
+                    changeNames.add(DATA + tableName);
+                }
+                names.addAll(changeNames);
+            }
+        } catch (RuntimeException e) {
+            Scope.getCurrentScope().getLog(getClass()).fine("Cannot determine objects affected by " + changeSet + ", running it on its own: " + e.getMessage());
+            return null;
+        }
+        return names.isEmpty() ? null : names;
+    }
+
+    private static String getDataTableName(Change change) {
+        if (change instanceof InsertDataChange) {
+            return ((InsertDataChange) change).getTableName();
+        } else if (change instanceof LoadDataChange) {
+            return ((LoadDataChange) change).getTableName();
+        }
+        return ((AbstractModifyDataChange) change).getTableName();
+    }
+
+    /**
+     * Adds the tables of the foreign keys a change creates, which are not reported as affected objects: the columns of
+     * a {@link liquibase.structure.core.ForeignKey} are not attached to a table. Returns true if the change creates any.
+     */
+    private boolean addForeignKeyTableNames(Change change, Set<String> names) {
+        boolean found = false;
+        if (change instanceof AddForeignKeyConstraintChange) {
+            found = addRelationName(((AddForeignKeyConstraintChange) change).getBaseTableName(), names);
+            found |= addRelationName(((AddForeignKeyConstraintChange) change).getReferencedTableName(), names);
+        } else if (change instanceof ChangeWithColumns) {
+            for (Object column : ((ChangeWithColumns<?>) change).getColumns()) {
+                ConstraintsConfig constraints = (column instanceof ColumnConfig) ? ((ColumnConfig) column).getConstraints() : null;
+                if (constraints == null) {
+                    continue;
+                }
+                found |= addRelationName(constraints.getReferencedTableName(), names);
+                String references = constraints.getReferences();
+                if (references != null) {
+                    //table(column) or schema.table(column)
+                    String tableName = references.replaceFirst("\\(.*", "").trim();
+                    found |= addRelationName(tableName.substring(tableName.lastIndexOf('.') + 1), names);
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean addRelationName(String tableName, Set<String> names) {
+        tableName = normalizeName(tableName);
+        if (tableName == null) {
+            return false;
+        }
+        names.add(RELATION + tableName);
+        return true;
+    }
+
+    /**
+     * Adds the sequences whose next value a change uses as a column value or default value. Computed values are
+     * assumed to use any sequence.
+     */
+    private void addSequenceUses(Change change, Set<String> names) {
+        if (change instanceof AddDefaultValueChange) {
+            addSequenceUse(((AddDefaultValueChange) change).getDefaultValueSequenceNext(), names);
+            addSequenceUse(((AddDefaultValueChange) change).getDefaultValueComputed(), names);
+        } else if (change instanceof ChangeWithColumns) {
+            for (Object column : ((ChangeWithColumns<?>) change).getColumns()) {
+                if (column instanceof ColumnConfig) {
+                    addSequenceUse(((ColumnConfig) column).getDefaultValueSequenceNext(), names);
+                    addSequenceUse(((ColumnConfig) column).getDefaultValueComputed(), names);
+                    addSequenceUse(((ColumnConfig) column).getValueSequenceNext(), names);
+                    addSequenceUse(((ColumnConfig) column).getValueComputed(), names);
+                }
+            }
+        }
+    }
+
+    private void addSequenceUse(DatabaseFunction function, Set<String> names) {
+        if ((function == null) || (function.getValue() == null)) {
+            return;
+        }
+        String sequenceName = ANY_SEQUENCE;
+        if (function instanceof SequenceNextValueFunction) {
+            sequenceName = normalizeName(function.getValue().substring(function.getValue().lastIndexOf('.') + 1));
+            if (sequenceName == null) {
+                return;
+            }
+        }
+        names.add(SEQUENCE_USE + sequenceName);
+    }
+
+    /**
+     * Strips quotes and lower-cases the given object name, returns null if nothing is left.
+     */
+    private static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        name = name.replaceAll("[\"`\\[\\]]", "").trim();
+        return name.isEmpty() ? null : name.toLowerCase(Locale.US);
+    }
+
+    /**
+     * Returns the name each table rows are written to is ordered by: the same for all tables linked by foreign keys.
+     */
+    private Map<String, String> getDataKeys(List<Set<String>> objectsByChangeSet, List<Set<String>> foreignKeyTables,
+                                            Database database) {
+        Map<String, String> dataKeys = new HashMap<>();
+        for (Set<String> objects : objectsByChangeSet) {
+            if (objects != null) {
+                for (String object : objects) {
+                    if (object.startsWith(DATA)) {
+                        dataKeys.put(object, object);
+                    }
+                }
+            }
+        }
+        if (dataKeys.size() < 2) {
+            return dataKeys;
+        }
+
+        List<Set<String>> links = new ArrayList<>(foreignKeyTables);
+        try {
+            links.addAll(readForeignKeyTables(database));
+        } catch (Exception e) {
+            Scope.getCurrentScope().getLog(getClass()).fine("Cannot read the foreign keys of the database, writing rows in changelog order: " + e.getMessage());
+            for (Map.Entry<String, String> dataKey : dataKeys.entrySet()) {
+                dataKey.setValue(DATA);
+            }
+            return dataKeys;
+        }
+
+        //tables linked directly or through other tables share the key of the first one
+        Map<String, String> keyByTable = new HashMap<>();
+        for (Set<String> tables : links) {
+            if (tables.isEmpty()) {
+                continue;
+            }
+            Set<String> linked = new HashSet<>();
+            for (String table : tables) {
+                String key = keyByTable.get(table);
+                linked.add(table);
+                if (key != null) {
+                    for (Map.Entry<String, String> entry : keyByTable.entrySet()) {
+                        if (entry.getValue().equals(key)) {
+                            linked.add(entry.getKey());
+                        }
+                    }
+                }
+            }
+            String key = DATA + linked.iterator().next();
+            for (String table : linked) {
+                keyByTable.put(table, key);
+            }
+        }
+        for (Map.Entry<String, String> dataKey : dataKeys.entrySet()) {
+            String key = keyByTable.get(dataKey.getKey().substring(DATA.length()));
+            if (key != null) {
+                dataKey.setValue(key);
+            }
+        }
+        return dataKeys;
+    }
+
+    /**
+     * Returns the base and referenced table of every foreign key in the default schema of the database.
+     */
+    private List<Set<String>> readForeignKeyTables(Database database) throws Exception {
+        if (database.getConnection() == null) {
+            throw new IllegalStateException("No connection");
+        }
+        List<Set<String>> foreignKeyTables = new ArrayList<>();
+        for (ForeignKey foreignKey : SnapshotGeneratorFactory.getInstance().createSnapshot(database.getDefaultSchema(),
+                database, new SnapshotControl(database, false, Table.class, ForeignKey.class)).get(ForeignKey.class)) {
+            Set<String> tables = new HashSet<>();
+            for (Table table : Arrays.asList(foreignKey.getForeignKeyTable(), foreignKey.getPrimaryKeyTable())) {
+                String tableName = (table == null) ? null : normalizeName(table.getName());
+                if (tableName != null) {
+                    tables.add(tableName);
+                }
+            }
+            foreignKeyTables.add(tables);
+        }
+        return foreignKeyTables;
+    }
+
+    /**
+     * Columns, indexes and constraints are covered by their table, which is included in the affected objects.
+     */
+    private boolean isInRelation(DatabaseObject object) {
+        if (object instanceof Relation) {
+            return false;
+        }
+        DatabaseObject[] containingObjects = object.getContainingObjects();
+        if (containingObjects != null) {
+            for (DatabaseObject containingObject : containingObjects) {
+                if (containingObject instanceof Relation) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
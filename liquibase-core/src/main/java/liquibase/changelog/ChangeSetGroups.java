@@ -0,0 +1,21 @@
+package liquibase.changelog;
+
+/**
+ * Declares an order for the change sets of an update, for {@link ParallelUpdateRunner}. The change sets of a group run
+ * one after the other in changelog order. Groups on the same level may run at the same time, and a group only starts
+ * once every group on a lower level is done. This order is added to the one found from the objects each change set
+ * affects, so change sets in different groups still wait for each other if they affect the same objects.
+ */
+public interface ChangeSetGroups {
+
+    /**
+     * Returns the group the change set belongs to, or null if it must run on its own once everything before it in the
+     * changelog is done.
+     */
+    String getGroup(ChangeSet changeSet);
+
+    /**
+     * Returns the level of a group returned by {@link #getGroup(ChangeSet)}.
+     */
+    int getLevel(String group);
+}
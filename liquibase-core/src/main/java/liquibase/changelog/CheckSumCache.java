@@ -0,0 +1,408 @@
+package liquibase.changelog;
+
+import liquibase.Scope;
+import liquibase.SingletonObject;
+import liquibase.change.CheckSum;
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.listener.LiquibaseListener;
+import liquibase.resource.InputStreamList;
+import liquibase.resource.ResourceAccessor;
+import liquibase.util.MD5Util;
+import liquibase.util.StreamUtil;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@link ChangeSet#generateCheckSum()} results in {@link GlobalConfiguration#getChecksumCacheDirectory()} so
+ * change sets whose sources did not change are not serialized and hashed again on every run.
+ * <p>
+ * While a checksum is computed, every resource opened through the scope's {@link ResourceAccessor} (e.g. loadData and
+ * sqlFile files) is recorded together with the changelog file. A cached checksum is only used if all of those resources
+ * still have the same modification time and size, the checksum version is the same and the changelog parameters
+ * referenced by the changelog file still have the same values.
+ * Change sets whose resources cannot be stamped (not a file or jar entry) are never cached.
+ */
+public class CheckSumCache implements SingletonObject {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_NAME = "checksums.cache";
+    private static final Pattern PARAMETER_PATTERN = Pattern.compile("\\$\\{([^\\}]+)\\}");
+
+    //resources opened by the checksum being computed on the current thread
+    private static final ThreadLocal<List<Resource>> recordedResources = new ThreadLocal<>();
+
+    private File directory;
+    private Map<String, Entry> entries;
+    private boolean dirty;
+
+    //stamps and parameter names only need to be looked up once per run, see flush()
+    private final Map<String, String> stamps = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> parameterNames = new ConcurrentHashMap<>();
+
+    protected CheckSumCache() {
+    }
+
+    /**
+     * Returns the cache to use, or null if {@link GlobalConfiguration#CHECKSUM_CACHE_DIRECTORY} is not set.
+     */
+    public static CheckSumCache getInstance() {
+        String directory = LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getChecksumCacheDirectory();
+        if (directory == null) {
+            return null;
+        }
+        CheckSumCache cache = Scope.getCurrentScope().getSingleton(CheckSumCache.class);
+        cache.init(new File(directory));
+        return cache;
+    }
+
+    private synchronized void init(File directory) {
+        if (!directory.equals(this.directory)) {
+            this.directory = directory;
+            this.entries = null;
+            this.dirty = false;
+        }
+    }
+
+    /**
+     * Returns the cached checksum for the change set if its sources did not change, otherwise computes and caches it.
+     */
+    public CheckSum getCheckSum(ChangeSet changeSet) {
+        DatabaseChangeLog changeLog = changeSet.getChangeLog();
+        ResourceAccessor resourceAccessor = Scope.getCurrentScope().getResourceAccessor();
+        if ((changeLog == null) || (changeLog.getPhysicalFilePath() == null) || (resourceAccessor == null)) {
+            return changeSet.computeCheckSum();
+        }
+
+        String key = changeLog.getPhysicalFilePath() + "::" + changeSet.getFilePath() + "::" + changeSet.getId() + "::" + changeSet.getAuthor();
+        Entry entry = getEntries().get(key);
+        if ((entry != null) && isCurrent(entry, changeSet)) {
+            return CheckSum.parse(entry.checkSum);
+        }
+
+        List<Resource> resources = new ArrayList<>();
+        resources.add(new Resource(null, changeLog.getPhysicalFilePath(), null));
+        List<Resource> previousResources = recordedResources.get();
+        recordedResources.set(resources);
+        CheckSum checkSum;
+        try {
+            if (resourceAccessor instanceof RecordingResourceAccessor) {
+                checkSum = changeSet.computeCheckSum();
+            } else {
+                checkSum = runRecording((Scope.ScopedRunnerWithReturn<CheckSum>) changeSet::computeCheckSum);
+            }
+        } finally {
+            recordedResources.set(previousResources);
+        }
+
+        List<Resource> stampedResources = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            String stamp = getStamp(resource.relativeTo, resource.path);
+            if (stamp == null) {
+                return checkSum;
+            }
+            stampedResources.add(new Resource(resource.relativeTo, resource.path, stamp));
+        }
+        List<String> names = getParameterNames(changeLog.getPhysicalFilePath());
+        put(key, new Entry(checkSum.toString(), names, getParametersHash(changeSet, names), stampedResources));
+        return checkSum;
+    }
+
+    /**
+     * Runs the given code in a scope that records resources opened by each thread separately, so {@link #getCheckSum(ChangeSet)}
+     * can be called from several threads at once. Otherwise each checksum computed is run in its own child scope.
+     */
+    public <T> T runConcurrently(Scope.ScopedRunnerWithReturn<T> runner) {
+        if (Scope.getCurrentScope().getResourceAccessor() instanceof RecordingResourceAccessor) {
+            try {
+                return runner.run();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new UnexpectedLiquibaseException(e);
+            }
+        }
+        return runRecording(runner);
+    }
+
+    private <T> T runRecording(Scope.ScopedRunnerWithReturn<T> runner) {
+        try {
+            Map<String, Object> scopeValues = new HashMap<>();
+            scopeValues.put(Scope.Attr.resourceAccessor.name(), new RecordingResourceAccessor(Scope.getCurrentScope().getResourceAccessor()));
+            return Scope.child((LiquibaseListener) null, scopeValues, runner);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+    }
+
+    /**
+     * Writes new entries to disk and forgets the resource stamps looked up so far, so the next run checks them again.
+     * Write failures are logged and otherwise ignored since the cache is only an optimization.
+     */
+    public synchronized void flush() {
+        stamps.clear();
+        parameterNames.clear();
+        if (!dirty) {
+            return;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            Scope.getCurrentScope().getLog(getClass()).info("Cannot create checksum cache directory " + directory.getAbsolutePath());
+            return;
+        }
+        File file = new File(directory, FILE_NAME);
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile(FILE_NAME, ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().write(out);
+                }
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            Scope.getCurrentScope().getLog(getClass()).info("Cannot write checksum cache " + file.getAbsolutePath() + ": " + e.getMessage());
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private synchronized Map<String, Entry> getEntries() {
+        if (entries == null) {
+            entries = new ConcurrentHashMap<>(read(new File(directory, FILE_NAME)));
+        }
+        return entries;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        getEntries().put(key, entry);
+        dirty = true;
+    }
+
+    private Map<String, Entry> read(File file) {
+        Map<String, Entry> entries = new HashMap<>();
+        if (!file.exists()) {
+            return entries;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return entries;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                entries.put(in.readUTF(), Entry.read(in));
+            }
+        } catch (IOException | RuntimeException e) {
+            Scope.getCurrentScope().getLog(getClass()).info("Ignoring unreadable checksum cache " + file.getAbsolutePath() + ": " + e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+
+    private boolean isCurrent(Entry entry, ChangeSet changeSet) {
+        if (CheckSum.parse(entry.checkSum).getVersion() != CheckSum.getCurrentVersion()) {
+            return false;
+        }
+        for (Resource resource : entry.resources) {
+            if (!resource.stamp.equals(getStamp(resource.relativeTo, resource.path))) {
+                return false;
+            }
+        }
+        return entry.parametersHash.equals(getParametersHash(changeSet, entry.parameterNames));
+    }
+
+    /**
+     * Returns modification time and size of the given resource, or null if it cannot be found or is not a local file.
+     */
+    private String getStamp(String relativeTo, String path) {
+        String key = relativeTo + "::" + path;
+        String stamp = stamps.get(key);
+        if (stamp == null) {
+            stamp = "";
+            try (InputStreamList streams = Scope.getCurrentScope().getResourceAccessor().openStreams(relativeTo, path)) {
+                if (streams.size() == 1) {
+                    File file = toFile(streams.getURIs().get(0));
+                    if ((file != null) && file.exists()) {
+                        stamp = file.lastModified() + ":" + file.length();
+                    }
+                }
+            } catch (IOException e) {
+                Scope.getCurrentScope().getLog(getClass()).fine("Cannot check " + path + ": " + e.getMessage());
+            }
+            stamps.put(key, stamp);
+        }
+        return stamp.isEmpty() ? null : stamp;
+    }
+
+    private File toFile(URI uri) {
+        if ("file".equals(uri.getScheme())) {
+            return new File(uri);
+        }
+        if ("jar".equals(uri.getScheme())) {
+            //use the archive itself for entries in jar and zip files
+            String archive = uri.getRawSchemeSpecificPart();
+            int separator = archive.indexOf("!/");
+            if (separator > 0) {
+                archive = archive.substring(0, separator);
+            }
+            if (archive.startsWith("file:")) {
+                return new File(URI.create(archive));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the names of the ${...} parameters used in the given changelog file. Parameters are expanded while parsing,
+     * so their values are part of the checksum without showing up as resources.
+     */
+    private List<String> getParameterNames(String physicalFilePath) {
+        List<String> names = parameterNames.get(physicalFilePath);
+        if (names == null) {
+            SortedSet<String> found = new TreeSet<>();
+            try (InputStream stream = Scope.getCurrentScope().getResourceAccessor().openStream(null, physicalFilePath)) {
+                if (stream != null) {
+                    Matcher matcher = PARAMETER_PATTERN.matcher(StreamUtil.readStreamAsString(stream));
+                    while (matcher.find()) {
+                        found.add(matcher.group(1));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UnexpectedLiquibaseException(e);
+            }
+            names = new ArrayList<>(found);
+            parameterNames.put(physicalFilePath, names);
+        }
+        return names;
+    }
+
+    private String getParametersHash(ChangeSet changeSet, List<String> names) {
+        StringBuilder values = new StringBuilder();
+        ChangeLogParameters parameters = changeSet.getChangeLogParameters();
+        for (String name : names) {
+            values.append(name).append("=");
+            if (parameters != null) {
+                values.append(parameters.getValue(name, changeSet.getChangeLog()));
+            }
+            values.append("\n");
+        }
+        return MD5Util.computeMD5(values.toString());
+    }
+
+    private static class Entry {
+        private final String checkSum;
+        private final List<String> parameterNames;
+        private final String parametersHash;
+        private final List<Resource> resources;
+
+        private Entry(String checkSum, List<String> parameterNames, String parametersHash, List<Resource> resources) {
+            this.checkSum = checkSum;
+            this.parameterNames = parameterNames;
+            this.parametersHash = parametersHash;
+            this.resources = resources;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeUTF(checkSum);
+            out.writeUTF(parametersHash);
+            out.writeInt(parameterNames.size());
+            for (String name : parameterNames) {
+                out.writeUTF(name);
+            }
+            out.writeInt(resources.size());
+            for (Resource resource : resources) {
+                out.writeBoolean(resource.relativeTo != null);
+                if (resource.relativeTo != null) {
+                    out.writeUTF(resource.relativeTo);
+                }
+                out.writeUTF(resource.path);
+                out.writeUTF(resource.stamp);
+            }
+        }
+
+        private static Entry read(DataInputStream in) throws IOException {
+            String checkSum = in.readUTF();
+            String parametersHash = in.readUTF();
+            int parameterCount = in.readInt();
+            List<String> parameterNames = new ArrayList<>(parameterCount);
+            for (int i = 0; i < parameterCount; i++) {
+                parameterNames.add(in.readUTF());
+            }
+            int resourceCount = in.readInt();
+            List<Resource> resources = new ArrayList<>(resourceCount);
+            for (int i = 0; i < resourceCount; i++) {
+                String relativeTo = in.readBoolean() ? in.readUTF() : null;
+                resources.add(new Resource(relativeTo, in.readUTF(), in.readUTF()));
+            }
+            return new Entry(checkSum, parameterNames, parametersHash, resources);
+        }
+    }
+
+    private static class Resource {
+        private final String relativeTo;
+        private final String path;
+        private final String stamp;
+
+        private Resource(String relativeTo, String path, String stamp) {
+            this.relativeTo = relativeTo;
+            this.path = path;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * Remembers every resource opened by a thread while it computes a checksum.
+     */
+    private static class RecordingResourceAccessor implements ResourceAccessor {
+
+        private final ResourceAccessor delegate;
+
+        private RecordingResourceAccessor(ResourceAccessor delegate) {
+            this.delegate = delegate;
+        }
+
+        private void record(String relativeTo, String path) {
+            List<Resource> resources = recordedResources.get();
+            if (resources != null) {
+                resources.add(new Resource(relativeTo, path, null));
+            }
+        }
+
+        @Override
+        public InputStreamList openStreams(String relativeTo, String streamPath) throws IOException {
+            record(relativeTo, streamPath);
+            return delegate.openStreams(relativeTo, streamPath);
+        }
+
+        @Override
+        public InputStream openStream(String relativeTo, String streamPath) throws IOException {
+            record(relativeTo, streamPath);
+            return delegate.openStream(relativeTo, streamPath);
+        }
+
+        @Override
+        public SortedSet<String> list(String relativeTo, String path, boolean recursive, boolean includeFiles, boolean includeDirectories) throws IOException {
+            record(relativeTo, path);
+            return delegate.list(relativeTo, path, recursive, includeFiles, includeDirectories);
+        }
+
+        @Override
+        public SortedSet<String> describeLocations() {
+            return delegate.describeLocations();
+        }
+    }
+}
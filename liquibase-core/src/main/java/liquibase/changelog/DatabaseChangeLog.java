@@ -1,16 +1,20 @@
 package liquibase.changelog;
 
 import liquibase.*;
+import liquibase.changelog.filter.ChangeSetFilter;
 import liquibase.changelog.filter.ContextChangeSetFilter;
 import liquibase.changelog.filter.DbmsChangeSetFilter;
 import liquibase.changelog.filter.LabelChangeSetFilter;
 import liquibase.changelog.visitor.ValidatingVisitor;
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
 import liquibase.database.Database;
 import liquibase.database.DatabaseList;
 import liquibase.database.ObjectQuotingStrategy;
 import liquibase.exception.*;
 import liquibase.logging.Logger;
 import liquibase.parser.ChangeLogParser;
+import liquibase.parser.ChangeLogParserCofiguration;
 import liquibase.parser.ChangeLogParserFactory;
 import liquibase.parser.core.ParsedNode;
 import liquibase.parser.core.ParsedNodeException;
@@ -39,6 +43,8 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
     private ObjectQuotingStrategy objectQuotingStrategy;
 
     private List<ChangeSet> changeSets = new ArrayList<>();
+    private Map<String, List<ChangeSet>> changeSetIndex;
+    private int changeSetIndexSize;
     private ChangeLogParameters changeLogParameters;
 
     private RuntimeEnvironment runtimeEnvironment;
@@ -54,6 +60,8 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
     private LabelExpression includeLabels;
     private boolean includeIgnore;
 
+    private volatile boolean frozen;
+
     public DatabaseChangeLog() {
     }
 
@@ -77,14 +85,55 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         return parentChangeLog;
     }
 
+    /**
+     * Returns the environment of the current run. For a {@link #freeze() frozen} changelog it is taken from the current
+     * {@link ChangeLogRunState}.
+     */
     public RuntimeEnvironment getRuntimeEnvironment() {
+        if (frozen) {
+            ChangeLogRunState runState = ChangeLogRunState.getCurrent();
+            return (runState == null) ? null : runState.getRuntimeEnvironment();
+        }
         return runtimeEnvironment;
     }
 
     public void setRuntimeEnvironment(RuntimeEnvironment runtimeEnvironment) {
+        if (frozen) {
+            ChangeLogRunState runState = ChangeLogRunState.getCurrent();
+            if (runState != null) {
+                runState.setRuntimeEnvironment(runtimeEnvironment);
+            }
+            return;
+        }
         this.runtimeEnvironment = runtimeEnvironment;
     }
 
+    /**
+     * Prepares the changelog to be shared by runs against several databases, possibly at the same time. The changes of
+     * every change set are loaded and their checksums computed, no change sets can be added any more, and the runtime
+     * environment and the checksums and file paths stored in the database are kept in the {@link ChangeLogRunState} of
+     * each run instead of in the changelog.
+     * <p>
+     * The changelog must not be modified in any other way once it is frozen. Since changelog parameters are substituted
+     * while parsing, it should only be shared between databases of the same type for which all parameters the
+     * changelog uses have the same value.
+     */
+    public void freeze() {
+        if (frozen) {
+            return;
+        }
+        for (ChangeSet changeSet : getChangeSets()) {
+            changeSet.freeze();
+        }
+        getChangeSetIndex();
+        changeSets = Collections.unmodifiableList(changeSets);
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
     @Override
     public PreconditionContainer getPreconditions() {
         return preconditionContainer;
@@ -190,11 +239,14 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
 
 
     public ChangeSet getChangeSet(String path, String author, String id) {
-        for (ChangeSet changeSet : changeSets) {
-            if (normalizePath(changeSet.getFilePath()).equalsIgnoreCase(normalizePath(path))
-                    && changeSet.getAuthor().equalsIgnoreCase(author)
-                    && changeSet.getId().equalsIgnoreCase(id)
-                    && isDbmsMatch(changeSet.getDbmsSet())) {
+        List<ChangeSet> candidates = getChangeSetIndex().get(createChangeSetKey(normalizePath(path), author, id));
+        if (candidates == null) {
+            return null;
+        }
+
+        //the dbms check depends on the current parameters and runtime environment so it cannot be part of the index
+        for (ChangeSet changeSet : candidates) {
+            if (isDbmsMatch(changeSet.getDbmsSet())) {
                 return changeSet;
             }
         }
@@ -202,11 +254,45 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         return null;
     }
 
+    /**
+     * Returns the lookup index used by {@link #getChangeSet(String, String, String)}, building it if it was invalidated by
+     * {@link #addChangeSet(ChangeSet)} or the change set list has been modified directly.
+     * Each key maps to all the matching change sets in changelog order.
+     */
+    private Map<String, List<ChangeSet>> getChangeSetIndex() {
+        List<ChangeSet> changeSets = getChangeSets();
+        if ((changeSetIndex == null) || (changeSetIndexSize != changeSets.size())) {
+            Map<String, List<ChangeSet>> index = new HashMap<>();
+            for (ChangeSet changeSet : changeSets) {
+                String key = createChangeSetKey(normalizePath(changeSet.getFilePath()), changeSet.getAuthor(), changeSet.getId());
+                List<ChangeSet> candidates = index.get(key);
+                if (candidates == null) {
+                    candidates = new ArrayList<>(1);
+                    index.put(key, candidates);
+                }
+                candidates.add(changeSet);
+            }
+            changeSetIndex = index;
+            changeSetIndexSize = changeSets.size();
+        }
+        return changeSetIndex;
+    }
+
+    private String createChangeSetKey(String normalizedPath, String author, String id) {
+        return ((normalizedPath == null) ? null : normalizedPath.toLowerCase(Locale.US))
+                + "::" + ((author == null) ? null : author.toLowerCase(Locale.US))
+                + "::" + ((id == null) ? null : id.toLowerCase(Locale.US));
+    }
+
     public List<ChangeSet> getChangeSets() {
         return changeSets;
     }
 
     public void addChangeSet(ChangeSet changeSet) {
+        if (frozen) {
+            throw new UnexpectedLiquibaseException("Cannot add " + changeSet + " to frozen changelog " + getFilePath());
+        }
+        this.changeSetIndex = null;
         if (changeSet.getRunOrder() == null) {
             ListIterator<ChangeSet> it = this.changeSets.listIterator(this.changeSets.size());
             boolean added = false;
@@ -270,15 +356,26 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
 
         database.setObjectQuotingStrategy(objectQuotingStrategy);
 
-        ChangeLogIterator logIterator = new ChangeLogIterator(
-                this,
+        ChangeSetFilter[] filters = new ChangeSetFilter[]{
                 new DbmsChangeSetFilter(database),
                 new ContextChangeSetFilter(contexts),
                 new LabelChangeSetFilter(labelExpression)
-        );
+        };
+        ChangeLogIterator logIterator = new ChangeLogIterator(this, filters);
 
         ValidatingVisitor validatingVisitor = new ValidatingVisitor(database.getRanChangeSetList());
         validatingVisitor.validate(database, this);
+
+        int checksumThreads = LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getChecksumThreads();
+        if (checksumThreads > 1) {
+            List<ChangeSet> changeSetsToValidate = new ArrayList<>();
+            for (ChangeSet changeSet : getChangeSets()) {
+                if (isAccepted(changeSet, filters)) {
+                    changeSetsToValidate.add(changeSet);
+                }
+            }
+            validatingVisitor.precomputeCheckSums(changeSetsToValidate, checksumThreads);
+        }
         logIterator.run(validatingVisitor, new RuntimeEnvironment(database, contexts, labelExpression));
 
         for (String message : validatingVisitor.getWarnings().getMessages()) {
@@ -290,6 +387,15 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         }
     }
 
+    private boolean isAccepted(ChangeSet changeSet, ChangeSetFilter[] filters) {
+        for (ChangeSetFilter filter : filters) {
+            if (!filter.accepts(changeSet).isAccepted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public ChangeSet getChangeSet(RanChangeSet ranChangeSet) {
         final ChangeSet changeSet = getChangeSet(ranChangeSet.getChangeLog(), ranChangeSet.getAuthor(), ranChangeSet.getId());
         if (changeSet != null) {
@@ -306,8 +412,29 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         if (objectQuotingStrategy != null) {
             setObjectQuotingStrategy(ObjectQuotingStrategy.valueOf(objectQuotingStrategy));
         }
-        for (ParsedNode childNode : parsedNode.getChildren()) {
-            handleChildNode(childNode, resourceAccessor);
+
+        ChangeLogPrefetcher prefetcher = ChangeLogPrefetcher.getCurrent();
+        boolean ownsPrefetcher = false;
+        if (prefetcher == null) {
+            int threads = LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration.class).getParseThreads();
+            if (threads > 1) {
+                prefetcher = new ChangeLogPrefetcher(threads, resourceAccessor, changeLogParameters);
+                ChangeLogPrefetcher.setCurrent(prefetcher);
+                ownsPrefetcher = true;
+            }
+        }
+        try {
+            if (prefetcher != null) {
+                prefetcher.prefetchIncludes(parsedNode, getPhysicalFilePath());
+            }
+            for (ParsedNode childNode : parsedNode.getChildren()) {
+                handleChildNode(childNode, resourceAccessor);
+            }
+        } finally {
+            if (ownsPrefetcher) {
+                ChangeLogPrefetcher.setCurrent(null);
+                prefetcher.close();
+            }
         }
     }
 
@@ -529,6 +656,13 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
                         "Could not find directory or directory was empty for includeAll '" + pathName + "'");
             }
 
+            ChangeLogPrefetcher prefetcher = ChangeLogPrefetcher.getCurrent();
+            if (prefetcher != null) {
+                for (String path : resources) {
+                    prefetcher.prefetch(resolveIncludePath(path, false, null));
+                }
+            }
+
             for (String path : resources) {
                 Scope.getCurrentScope().getLog(getClass()).info("Reading resource: " + path);
                 include(path, false, resourceAccessor, includeContexts, labelExpression, ignore, false);
@@ -552,17 +686,7 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         }
 
         String relativeBaseFileName = this.getPhysicalFilePath();
-        if (isRelativePath) {
-            // workaround for FilenameUtils.normalize() returning null for relative paths like ../conf/liquibase.xml
-            String tempFile = FilenameUtils.concat(FilenameUtils.getFullPath(relativeBaseFileName), fileName);
-            if (tempFile != null && new File(tempFile).exists() == true) {
-                fileName = tempFile;
-            } else {
-                fileName = FilenameUtils.getFullPath(relativeBaseFileName) + fileName;
-            }
-        }
-
-        fileName = fileName.replaceFirst("classpath:", "");
+        fileName = resolveIncludePath(fileName, isRelativePath, relativeBaseFileName);
         DatabaseChangeLog changeLog;
         try {
             DatabaseChangeLog rootChangeLog = ROOT_CHANGE_LOG.get();
@@ -611,6 +735,23 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         return true;
     }
 
+    /**
+     * Returns the path an included file is parsed from.
+     */
+    static String resolveIncludePath(String fileName, boolean isRelativePath, String relativeBaseFileName) {
+        if (isRelativePath) {
+            // workaround for FilenameUtils.normalize() returning null for relative paths like ../conf/liquibase.xml
+            String tempFile = FilenameUtils.concat(FilenameUtils.getFullPath(relativeBaseFileName), fileName);
+            if (tempFile != null && new File(tempFile).exists() == true) {
+                fileName = tempFile;
+            } else {
+                fileName = FilenameUtils.getFullPath(relativeBaseFileName) + fileName;
+            }
+        }
+
+        return fileName.replaceFirst("classpath:", "");
+    }
+
     protected ChangeSet createChangeSet(ParsedNode node, ResourceAccessor resourceAccessor) throws ParsedNodeException {
         ChangeSet changeSet = new ChangeSet(this);
         changeSet.setChangeLogParameters(this.getChangeLogParameters());
@@ -0,0 +1,178 @@
+package liquibase.changelog;
+
+import liquibase.change.Change;
+import liquibase.database.Database;
+import liquibase.sql.Sql;
+import liquibase.statement.SqlStatement;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The statements and SQL generated for changes during one run, so validating, warning about, logging and executing a
+ * change generates them only once for each database the run uses.
+ * <p>
+ * Only changes whose {@link Change#generateStatementsVolatile(Database)} is false are cached, and only the SQL of
+ * statements generated by this cache is remembered. Like the checksum of a {@link ChangeSet}, the cached statements
+ * are not recomputed when a change is modified: code that modifies a change during a run must call
+ * {@link ChangeSet#clearCheckSum()} or {@link #forget(Change)}. The cache is kept in the {@link ChangeLogRunState}
+ * unless {@link liquibase.configuration.GlobalConfiguration#CACHE_GENERATED_SQL} is false.
+ */
+public class GeneratedSqlCache {
+
+    private static final SqlStatement[] NO_STATEMENTS = new SqlStatement[0];
+    private static final Sql[] NO_SQL = new Sql[0];
+
+    private final Map<Key, Boolean> volatileChanges = new ConcurrentHashMap<>();
+    private final Map<Key, SqlStatement[]> statements = new ConcurrentHashMap<>();
+    private final Set<Key> generatedStatements = Collections.newSetFromMap(new ConcurrentHashMap<Key, Boolean>());
+    private final Map<Key, Sql[]> sql = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cache of the current run, or null if there is no run or caching is disabled.
+     */
+    public static GeneratedSqlCache getCurrent() {
+        ChangeLogRunState runState = ChangeLogRunState.getCurrent();
+        return (runState == null) ? null : runState.getGeneratedSqlCache();
+    }
+
+    /**
+     * Returns {@link Change#generateStatements(Database)}, generated once per run if there is a current cache.
+     */
+    public static SqlStatement[] generateStatements(Change change, Database database) {
+        GeneratedSqlCache cache = getCurrent();
+        if (cache == null) {
+            return change.generateStatements(database);
+        }
+        return cache.getStatements(change, database);
+    }
+
+    /**
+     * Returns {@link Change#generateStatementsVolatile(Database)}, computed once per run if there is a current cache.
+     */
+    public static boolean generateStatementsVolatile(Change change, Database database) {
+        GeneratedSqlCache cache = getCurrent();
+        if (cache == null) {
+            return change.generateStatementsVolatile(database);
+        }
+        return cache.isVolatile(change, database);
+    }
+
+    public boolean isVolatile(Change change, Database database) {
+        Key key = new Key(change, database);
+        Boolean isVolatile = volatileChanges.get(key);
+        if (isVolatile == null) {
+            isVolatile = change.generateStatementsVolatile(database);
+            volatileChanges.put(key, isVolatile);
+        }
+        return isVolatile;
+    }
+
+    public SqlStatement[] getStatements(Change change, Database database) {
+        if (isVolatile(change, database)) {
+            return change.generateStatements(database);
+        }
+
+        Key key = new Key(change, database);
+        SqlStatement[] cached = statements.get(key);
+        if (cached == null) {
+            SqlStatement[] generated = change.generateStatements(database);
+            if (generated == null) {
+                cached = NO_STATEMENTS;
+            } else {
+                cached = generated.clone();
+                for (SqlStatement statement : cached) {
+                    generatedStatements.add(new Key(statement, database));
+                }
+            }
+            statements.put(key, cached);
+        }
+        return (cached == NO_STATEMENTS) ? null : cached.clone();
+    }
+
+    /**
+     * Returns the SQL remembered for a statement generated by this cache, or null if there is none.
+     */
+    public Sql[] getSql(SqlStatement statement, Database database) {
+        Sql[] cached = sql.get(new Key(statement, database));
+        if (cached == null) {
+            return null;
+        }
+        return (cached == NO_SQL) ? null : cached.clone();
+    }
+
+    /**
+     * Remembers the SQL generated for a statement, if the statement was generated by this cache.
+     */
+    public void putSql(SqlStatement statement, Database database, Sql[] generatedSql) {
+        Key key = new Key(statement, database);
+        if (generatedStatements.contains(key)) {
+            sql.put(key, (generatedSql == null) ? NO_SQL : generatedSql.clone());
+        }
+    }
+
+    /**
+     * Drops everything generated for the change, for every database.
+     */
+    public void forget(Change change) {
+        for (Iterator<Key> keys = volatileChanges.keySet().iterator(); keys.hasNext(); ) {
+            if (keys.next().object == change) {
+                keys.remove();
+            }
+        }
+        for (Iterator<Map.Entry<Key, SqlStatement[]>> entries = statements.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<Key, SqlStatement[]> entry = entries.next();
+            if (entry.getKey().object == change) {
+                entries.remove();
+                for (SqlStatement statement : entry.getValue()) {
+                    Key statementKey = new Key(statement, entry.getKey().database);
+                    generatedStatements.remove(statementKey);
+                    sql.remove(statementKey);
+                }
+            }
+        }
+    }
+
+    public void forget(Collection<? extends Change> changes) {
+        for (Change change : changes) {
+            forget(change);
+        }
+    }
+
+    /**
+     * Compares a change or statement and a database by identity, since changes and statements are mutable and do not
+     * define equality.
+     */
+    private static final class Key {
+        private final Object object;
+        private final Database database;
+        private final int hashCode;
+
+        private Key(Object object, Database database) {
+            this.object = object;
+            this.database = database;
+            this.hashCode = (31 * System.identityHashCode(object)) + System.identityHashCode(database);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return (object == key.object) && (database == key.database);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package liquibase.changelog;
+
+import liquibase.RuntimeEnvironment;
+import liquibase.Scope;
+import liquibase.ThreadLocalScopeManager;
+import liquibase.changelog.filter.ChangeSetFilterResult;
+import liquibase.changelog.visitor.ChangeSetVisitor;
+import liquibase.changelog.visitor.UpdateVisitor;
+import liquibase.database.Database;
+import liquibase.exception.LiquibaseException;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs the change sets an update would run, overlapping the ones that do not depend on each other on a bounded set of
+ * extra connections to the same database.
+ * <p>
+ * The change sets to run are selected by the given {@link ChangeLogIterator} exactly as for a serial update. They are
+ * then ordered with a {@link ChangeSetDependencyGraph}: barrier change sets run on the main database once everything
+ * before them is done, other change sets run on one of the worker databases once the change sets they depend on are
+ * done. Ready change sets are started in changelog order.
+ * <p>
+ * History rows are always written on the main database, in changelog order: a change set is only recorded once every
+ * earlier change set has finished. If a change set fails, no more change sets are started, the ones already running
+ * are waited for, everything that ran is recorded and the failure of the earliest failed change set is thrown, with the
+ * failures of other change sets that were running at the time as suppressed exceptions.
+ * <p>
+ * Change sets run in the same scope as with {@link ChangeLogIterator}, with the change set in
+ * {@link Scope.Attr#changeSet}, also on the worker threads. A {@link ThreadLocalScopeManager} is used while the
+ * change sets run so each thread tracks its own scope; see {@link ThreadLocalScopeManager#acquire()}. {@link liquibase.changelog.visitor.ChangeExecListener}s passed to the
+ * {@link UpdateVisitor} are called from the worker threads and must be thread safe.
+ */
+public class ParallelUpdateRunner {
+
+    private final ChangeLogIterator changeLogIterator;
+    private final List<Database> workerDatabases;
+    private final ChangeSetGroups groups;
+
+    /**
+     * @param workerDatabases open connections to the same database as the update runs against, one per change set
+     *                        that may run at the same time. They should use the same default catalog and schema.
+     */
+    public ParallelUpdateRunner(ChangeLogIterator changeLogIterator, List<Database> workerDatabases) {
+        this(changeLogIterator, workerDatabases, null);
+    }
+
+    /**
+     * @param groups declares an order for the change sets on top of the one found from the objects each change set
+     *               affects. May be null.
+     */
+    public ParallelUpdateRunner(ChangeLogIterator changeLogIterator, List<Database> workerDatabases, ChangeSetGroups groups) {
+        this.changeLogIterator = changeLogIterator;
+        this.workerDatabases = workerDatabases;
+        this.groups = groups;
+    }
+
+    public void run(UpdateVisitor visitor, RuntimeEnvironment env) throws LiquibaseException {
+        CollectingVisitor collector = new CollectingVisitor();
+        changeLogIterator.run(collector, env);
+        if (collector.changeSets.isEmpty()) {
+            return;
+        }
+
+        Database database = env.getTargetDatabase();
+        ChangeSetDependencyGraph graph = new ChangeSetDependencyGraph(collector.changeSets, database, groups);
+        Scope.getCurrentScope().getLog(getClass()).info("Running " + graph.size() + " change sets on up to "
+                + workerDatabases.size() + " connections");
+
+        DatabaseChangeLog databaseChangeLog = changeLogIterator.getDatabaseChangeLog();
+        Map<String, Object> scopeValues = new HashMap<>();
+        scopeValues.put(Scope.Attr.databaseChangeLog.name(), databaseChangeLog);
+        if (ChangeLogRunState.getCurrent() == null) {
+            scopeValues.put(Scope.Attr.changeLogRunState.name(), new ChangeLogRunState());
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(workerDatabases.size());
+        ThreadLocalScopeManager.acquire();
+        try {
+            Scope.child(scopeValues, () -> {
+                databaseChangeLog.setRuntimeEnvironment(env);
+                try {
+                    new Run(graph, collector, visitor, database, pool).run();
+                } finally {
+                    databaseChangeLog.setRuntimeEnvironment(null);
+                }
+            });
+        } catch (LiquibaseException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new LiquibaseException(e);
+        } finally {
+            pool.shutdownNow();
+            ThreadLocalScopeManager.release();
+            changeLogIterator.flushChangeLogHistory(env);
+        }
+    }
+
+    /**
+     * The state of one update: which change sets are ready, running, finished and recorded.
+     */
+    private class Run {
+        private final ChangeSetDependencyGraph graph;
+        private final CollectingVisitor collected;
+        private final UpdateVisitor visitor;
+        private final Database database;
+        private final CompletionService<Finished> completionService;
+        private final Scope scope = Scope.getCurrentScope();
+
+        private final int[] remainingDependencies;
+        private final ChangeSet.ExecType[] execTypes;
+        private final boolean[] finished;
+        private final boolean[] recorded;
+        private final PriorityQueue<Integer> ready = new PriorityQueue<>();
+        private final Deque<Database> idleWorkers = new ArrayDeque<>(workerDatabases);
+        private final SortedMap<Integer, LiquibaseException> failures = new TreeMap<>();
+        private int running;
+        private int nextToRecord;
+
+        private Run(ChangeSetDependencyGraph graph, CollectingVisitor collected, UpdateVisitor visitor, Database database,
+                    ExecutorService pool) {
+            this.graph = graph;
+            this.collected = collected;
+            this.visitor = visitor;
+            this.database = database;
+            this.completionService = new ExecutorCompletionService<>(pool);
+            this.remainingDependencies = new int[graph.size()];
+            this.execTypes = new ChangeSet.ExecType[graph.size()];
+            this.finished = new boolean[graph.size()];
+            this.recorded = new boolean[graph.size()];
+
+            for (int i = 0; i < graph.size(); i++) {
+                remainingDependencies[i] = graph.getDependencyCount(i);
+                if (remainingDependencies[i] == 0) {
+                    ready.add(i);
+                }
+            }
+        }
+
+        private void run() throws LiquibaseException {
+            while (true) {
+                if (failures.isEmpty()) {
+                    startReadyChangeSets();
+                }
+                if (running == 0) {
+                    break;
+                }
+                waitForChangeSet();
+                recordFinishedChangeSets();
+            }
+
+            recordFinishedChangeSets();
+            if (!failures.isEmpty()) {
+                LiquibaseException first = failures.remove(failures.firstKey());
+                for (LiquibaseException other : failures.values()) {
+                    first.addSuppressed(other);
+                }
+                throw first;
+            }
+        }
+
+        private void startReadyChangeSets() throws LiquibaseException {
+            while (!ready.isEmpty() && failures.isEmpty()) {
+                int index = ready.peek();
+                ChangeSet changeSet = graph.getChangeSet(index);
+                DatabaseChangeLog changeLog = collected.changeLogs.get(index);
+                if (graph.isBarrier(index)) {
+                    //everything before a barrier is a dependency of it, so nothing else is running
+                    ready.poll();
+                    recordFinishedChangeSets();
+                    try {
+                        inChangeSetScope(changeSet, () -> {
+                            visitor.visit(changeSet, changeLog, database, collected.filterResults.get(index));
+                            return null;
+                        });
+                    } catch (LiquibaseException e) {
+                        failures.put(index, e);
+                        return;
+                    }
+                    finished[index] = true;
+                    recorded[index] = true;
+                    finished(index);
+                    continue;
+                }
+
+                Database worker = idleWorkers.poll();
+                if (worker == null) {
+                    return;
+                }
+                ready.poll();
+                ChangeSet.RunStatus runStatus;
+                try {
+                    runStatus = inChangeSetScope(changeSet, () -> visitor.prepareToRun(changeSet, changeLog, database));
+                } catch (LiquibaseException e) {
+                    idleWorkers.push(worker);
+                    failures.put(index, e);
+                    return;
+                }
+                completionService.submit(() -> {
+                    try {
+                        ChangeSet.ExecType execType = Scope.runIn(scope, () -> inChangeSetScope(changeSet,
+                                () -> visitor.executeChangeSet(changeSet, changeLog, database, worker, runStatus)));
+                        worker.commit();
+                        return new Finished(index, worker, execType, null);
+                    } catch (LiquibaseException | RuntimeException e) {
+                        return new Finished(index, worker, null, e);
+                    }
+                });
+                running++;
+            }
+        }
+
+        /**
+         * Runs the given code in a child scope of the run holding the change set, as {@link ChangeLogIterator} does.
+         */
+        private <T> T inChangeSetScope(ChangeSet changeSet, Scope.ScopedRunnerWithReturn<T> runner) throws LiquibaseException {
+            try {
+                return Scope.child(Collections.singletonMap(Scope.Attr.changeSet.name(), changeSet), runner);
+            } catch (LiquibaseException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new LiquibaseException(e);
+            }
+        }
+
+        private void waitForChangeSet() throws LiquibaseException {
+            Finished result;
+            try {
+                result = completionService.take().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LiquibaseException("Interrupted while waiting for change sets to finish", e);
+            } catch (ExecutionException e) {
+                throw new LiquibaseException(e.getCause());
+            }
+            running--;
+            idleWorkers.push(result.worker);
+
+            if (result.exception == null) {
+                execTypes[result.index] = result.execType;
+                finished[result.index] = true;
+                finished(result.index);
+            } else {
+                failures.put(result.index, (result.exception instanceof LiquibaseException)
+                        ? (LiquibaseException) result.exception : new LiquibaseException(result.exception));
+            }
+        }
+
+        private void finished(int index) {
+            for (int dependent : graph.getDependents(index)) {
+                if (--remainingDependencies[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        /**
+         * Writes the history rows of finished change sets in changelog order. Once a change set failed and nothing is
+         * running any more, change sets that did not run are skipped so the ones that did are still recorded.
+         */
+        private void recordFinishedChangeSets() throws LiquibaseException {
+            while (nextToRecord < graph.size()) {
+                if (finished[nextToRecord]) {
+                    if (!recorded[nextToRecord]) {
+                        ChangeSet changeSet = graph.getChangeSet(nextToRecord);
+                        ChangeSet.ExecType execType = execTypes[nextToRecord];
+                        inChangeSetScope(changeSet, () -> {
+                            visitor.markRan(changeSet, execType);
+                            return null;
+                        });
+                        recorded[nextToRecord] = true;
+                    }
+                } else if (failures.isEmpty() || (running > 0)) {
+                    return;
+                }
+                nextToRecord++;
+            }
+        }
+    }
+
+    private static class Finished {
+        private final int index;
+        private final Database worker;
+        private final ChangeSet.ExecType execType;
+        private final Exception exception;
+
+        private Finished(int index, Database worker, ChangeSet.ExecType execType, Exception exception) {
+            this.index = index;
+            this.worker = worker;
+            this.execType = execType;
+            this.exception = exception;
+        }
+    }
+
+    /**
+     * Collects the change sets accepted by the iterator's filters, in order.
+     */
+    private static class CollectingVisitor implements ChangeSetVisitor {
+        private final List<ChangeSet> changeSets = new ArrayList<>();
+        private final List<DatabaseChangeLog> changeLogs = new ArrayList<>();
+        private final List<Set<ChangeSetFilterResult>> filterResults = new ArrayList<>();
+
+        @Override
+        public Direction getDirection() {
+            return Direction.FORWARD;
+        }
+
+        @Override
+        public void visit(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog, Database database,
+                          Set<ChangeSetFilterResult> filterResults) throws LiquibaseException {
+            this.changeSets.add(changeSet);
+            this.changeLogs.add(databaseChangeLog);
+            this.filterResults.add(filterResults);
+        }
+    }
+}
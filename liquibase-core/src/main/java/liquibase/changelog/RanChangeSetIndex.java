@@ -0,0 +1,94 @@
+package liquibase.changelog;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Case-insensitive lookup of {@link RanChangeSet}s by path, author and id.
+ * Build one instance from {@link ChangeLogHistoryService#getRanChangeSets()} and share it between all the filters used
+ * in a {@link ChangeLogIterator} run so each lookup is a hash lookup rather than a scan of the whole history.
+ * <p>
+ * Paths are compared after {@link DatabaseChangeLog#normalizePath(String)}, and normalized paths are cached since the
+ * same few file names repeat across the entire history. The index is a snapshot: changes to the list after construction
+ * are not reflected. Instances are not thread-safe.
+ */
+public class RanChangeSetIndex {
+
+    private final List<RanChangeSet> ranChangeSets;
+    private final Map<String, RanChangeSet> ranChangeSetsByKey = new HashMap<>();
+    private final Map<String, String> normalizedPaths = new HashMap<>();
+
+    public RanChangeSetIndex(List<RanChangeSet> ranChangeSets) {
+        this.ranChangeSets = ranChangeSets;
+        for (RanChangeSet ranChangeSet : ranChangeSets) {
+            String key = createKey(ranChangeSet.getChangeLog(), ranChangeSet.getAuthor(), ranChangeSet.getId());
+
+            //keep the latest row, same as a scan over the whole history would end on
+            RanChangeSet existing = ranChangeSetsByKey.get(key);
+            if ((existing == null) || !isEarlier(ranChangeSet, existing)) {
+                ranChangeSetsByKey.put(key, ranChangeSet);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given row ran before the other one. Rows without an ORDEREXECUTED are treated as running
+     * in list order.
+     */
+    private static boolean isEarlier(RanChangeSet ranChangeSet, RanChangeSet other) {
+        Integer orderExecuted = ranChangeSet.getOrderExecuted();
+        Integer otherOrderExecuted = other.getOrderExecuted();
+        return (orderExecuted != null) && (otherOrderExecuted != null) && (orderExecuted < otherOrderExecuted);
+    }
+
+    /**
+     * Returns the ran change sets this index was built from, in their original order.
+     */
+    public List<RanChangeSet> getRanChangeSets() {
+        return ranChangeSets;
+    }
+
+    /**
+     * Returns the latest {@link RanChangeSet} matching the given change set, or null if it has not been run.
+     * When the history holds more than one row for the change set, the one with the highest ORDEREXECUTED is returned.
+     */
+    public RanChangeSet get(ChangeSet changeSet) {
+        return get(changeSet.getFilePath(), changeSet.getAuthor(), changeSet.getId());
+    }
+
+    public RanChangeSet get(String path, String author, String id) {
+        return ranChangeSetsByKey.get(createKey(path, author, id));
+    }
+
+    public boolean contains(ChangeSet changeSet) {
+        return get(changeSet) != null;
+    }
+
+    public int size() {
+        return ranChangeSets.size();
+    }
+
+    /**
+     * Returns {@link DatabaseChangeLog#normalizePath(String)} for the given path, caching the result.
+     */
+    public String normalizePath(String path) {
+        if (path == null) {
+            return null;
+        }
+        String normalizedPath = normalizedPaths.get(path);
+        if (normalizedPath == null) {
+            normalizedPath = DatabaseChangeLog.normalizePath(path);
+            normalizedPaths.put(path, normalizedPath);
+        }
+        return normalizedPath;
+    }
+
+    private String createKey(String path, String author, String id) {
+        String normalizedPath = normalizePath(path);
+        return ((normalizedPath == null) ? null : normalizedPath.toLowerCase(Locale.US))
+                + "::" + ((author == null) ? null : author.toLowerCase(Locale.US))
+                + "::" + ((id == null) ? null : id.toLowerCase(Locale.US));
+    }
+}
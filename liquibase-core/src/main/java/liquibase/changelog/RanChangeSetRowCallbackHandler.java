@@ -0,0 +1,201 @@
+package liquibase.changelog;
+
+import liquibase.ContextExpression;
+import liquibase.Labels;
+import liquibase.Scope;
+import liquibase.change.CheckSum;
+import liquibase.executor.jvm.RowCallbackHandler;
+import liquibase.util.JdbcUtils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Maps DATABASECHANGELOG rows directly to {@link RanChangeSet}s as they are read, without building a column map per row.
+ * <p>
+ * Column indexes are looked up once from the first row. FILENAME, AUTHOR, CONTEXTS, LABELS and DEPLOYMENT_ID values
+ * repeat across most of the history so a single instance of each distinct value is shared between the rows, as is the
+ * normalized path of each FILENAME and the parsed {@link ContextExpression} and {@link Labels} of each CONTEXTS and LABELS
+ * value. Instances are not thread-safe.
+ */
+class RanChangeSetRowCallbackHandler implements RowCallbackHandler {
+
+    private final boolean checksumsCompatible;
+    private final List<RanChangeSet> ranChangeSets = new ArrayList<>();
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, String> normalizedPaths = new HashMap<>();
+    private final Map<String, ContextExpression> contextExpressions = new HashMap<>();
+    private final Map<String, Labels> labelsByValue = new HashMap<>();
+    private DateFormat dateFormat;
+
+    private int filenameColumn;
+    private int authorColumn;
+    private int idColumn;
+    private int md5sumColumn;
+    private int descriptionColumn;
+    private int commentsColumn;
+    private int dateExecutedColumn;
+    private int orderExecutedColumn;
+    private int tagColumn;
+    private int execTypeColumn;
+    private int contextsColumn;
+    private int labelsColumn;
+    private int deploymentIdColumn;
+    private boolean columnsResolved;
+
+    RanChangeSetRowCallbackHandler(boolean checksumsCompatible) {
+        this.checksumsCompatible = checksumsCompatible;
+    }
+
+    public List<RanChangeSet> getRanChangeSets() {
+        return ranChangeSets;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        if (!columnsResolved) {
+            resolveColumns(rs.getMetaData());
+        }
+
+        String storedFileName = getSharedString(rs, filenameColumn);
+        String fileName = normalizePath(storedFileName);
+        String author = getSharedString(rs, authorColumn);
+        String id = getString(rs, idColumn);
+        String md5sum = checksumsCompatible ? getString(rs, md5sumColumn) : null;
+        String description = getString(rs, descriptionColumn);
+        String comments = getString(rs, commentsColumn);
+        Date dateExecuted = getDate(rs, dateExecutedColumn);
+        Integer orderExecuted = getInteger(rs, orderExecutedColumn);
+        String tag = getString(rs, tagColumn);
+        String execType = getString(rs, execTypeColumn);
+        ContextExpression contexts = getContextExpression(getString(rs, contextsColumn));
+        Labels labels = getLabels(getString(rs, labelsColumn));
+        String deploymentId = getSharedString(rs, deploymentIdColumn);
+
+        try {
+            RanChangeSet ranChangeSet = new RanChangeSet(fileName, id, author, CheckSum.parse(md5sum),
+                dateExecuted, tag, ChangeSet.ExecType.valueOf(execType), description, comments, contexts,
+                labels, deploymentId, storedFileName);
+            ranChangeSet.setOrderExecuted(orderExecuted);
+            ranChangeSets.add(ranChangeSet);
+        } catch (IllegalArgumentException e) {
+            Scope.getCurrentScope().getLog(getClass()).severe("Unknown EXECTYPE from database: " + execType);
+            throw e;
+        }
+    }
+
+    private void resolveColumns(ResultSetMetaData metaData) throws SQLException {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.put(metaData.getColumnLabel(i).toUpperCase(Locale.US), i);
+        }
+        filenameColumn = getColumnIndex(columns, "FILENAME");
+        authorColumn = getColumnIndex(columns, "AUTHOR");
+        idColumn = getColumnIndex(columns, "ID");
+        md5sumColumn = getColumnIndex(columns, "MD5SUM");
+        descriptionColumn = getColumnIndex(columns, "DESCRIPTION");
+        commentsColumn = getColumnIndex(columns, "COMMENTS");
+        dateExecutedColumn = getColumnIndex(columns, "DATEEXECUTED");
+        orderExecutedColumn = getColumnIndex(columns, "ORDEREXECUTED");
+        tagColumn = getColumnIndex(columns, "TAG");
+        execTypeColumn = getColumnIndex(columns, "EXECTYPE");
+        contextsColumn = getColumnIndex(columns, "CONTEXTS");
+        labelsColumn = getColumnIndex(columns, "LABELS");
+        deploymentIdColumn = getColumnIndex(columns, "DEPLOYMENT_ID");
+        columnsResolved = true;
+    }
+
+    /**
+     * Returns the 1-based index of the column, or 0 if the result does not contain it.
+     */
+    private int getColumnIndex(Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return (index == null) ? 0 : index;
+    }
+
+    private String getString(ResultSet rs, int column) throws SQLException {
+        if (column == 0) {
+            return null;
+        }
+        return rs.getString(column);
+    }
+
+    private String getSharedString(ResultSet rs, int column) throws SQLException {
+        String value = getString(rs, column);
+        if (value == null) {
+            return null;
+        }
+        String shared = strings.get(value);
+        if (shared == null) {
+            strings.put(value, value);
+            shared = value;
+        }
+        return shared;
+    }
+
+    private String normalizePath(String storedFileName) {
+        if (storedFileName == null) {
+            return null;
+        }
+        String normalizedPath = normalizedPaths.get(storedFileName);
+        if (normalizedPath == null) {
+            normalizedPath = DatabaseChangeLog.normalizePath(storedFileName);
+            normalizedPaths.put(storedFileName, normalizedPath);
+        }
+        return normalizedPath;
+    }
+
+    private ContextExpression getContextExpression(String value) {
+        ContextExpression contexts = contextExpressions.get(value);
+        if (contexts == null) {
+            contexts = new ContextExpression(value);
+            contextExpressions.put(value, contexts);
+        }
+        return contexts;
+    }
+
+    private Labels getLabels(String value) {
+        Labels labels = labelsByValue.get(value);
+        if (labels == null) {
+            labels = new Labels(value);
+            labelsByValue.put(value, labels);
+        }
+        return labels;
+    }
+
+    private Integer getInteger(ResultSet rs, int column) throws SQLException {
+        if (column == 0) {
+            return null;
+        }
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private Date getDate(ResultSet rs, int column) throws SQLException {
+        if (column == 0) {
+            return null;
+        }
+        Object value = JdbcUtils.getResultSetValue(rs, column);
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        if (value == null) {
+            return null;
+        }
+        if (dateFormat == null) {
+            dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        }
+        try {
+            return dateFormat.parse(value.toString());
+        } catch (ParseException e) {
+            // Ignore ParseException and assume dateExecuted == null instead of aborting.
+            return null;
+        }
+    }
+}
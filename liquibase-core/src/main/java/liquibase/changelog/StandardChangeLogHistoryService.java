@@ -5,20 +5,26 @@ import liquibase.change.Change;
 import liquibase.change.CheckSum;
 import liquibase.change.ColumnConfig;
 import liquibase.database.Database;
+import liquibase.database.OfflineConnection;
 import liquibase.database.core.DB2Database;
 import liquibase.database.core.MSSQLDatabase;
 import liquibase.database.core.SQLiteDatabase;
 import liquibase.diff.output.DiffOutputControl;
 import liquibase.diff.output.changelog.ChangeGeneratorFactory;
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
 import liquibase.exception.DatabaseException;
 import liquibase.exception.DatabaseHistoryException;
 import liquibase.exception.LiquibaseException;
 import liquibase.exception.UnexpectedLiquibaseException;
 import liquibase.executor.Executor;
 import liquibase.executor.ExecutorService;
+import liquibase.executor.jvm.JdbcExecutor;
+import liquibase.executor.jvm.RowCallbackHandler;
 import liquibase.snapshot.InvalidExampleException;
 import liquibase.snapshot.SnapshotControl;
 import liquibase.snapshot.SnapshotGeneratorFactory;
+import liquibase.sql.Sql;
 import liquibase.sqlgenerator.SqlGeneratorFactory;
 import liquibase.statement.SqlStatement;
 import liquibase.statement.core.*;
@@ -26,7 +32,11 @@ import liquibase.structure.DatabaseObject;
 import liquibase.structure.core.Column;
 import liquibase.structure.core.DataType;
 import liquibase.structure.core.Table;
+import liquibase.util.ObjectUtil;
 
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -40,6 +50,22 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
     private boolean databaseChecksumsCompatible = true;
     private Integer lastChangeSetSequenceValue;
 
+    /**
+     * History rows generated by {@link #setExecType(ChangeSet, ChangeSet.ExecType)} that have not been written yet. The
+     * change sets they belong to have not been committed either. Only used when
+     * {@link GlobalConfiguration#getDatabaseChangeLogCommitBatchSize()} is greater than 1.
+     */
+    private List<SqlStatement> pendingHistoryStatements = new ArrayList<>();
+    private long pendingHistorySince;
+
+    /**
+     * The change set {@link #deferCommit(ChangeSet, Database)} last returned true for, whose row is buffered.
+     */
+    private ChangeSet deferredChangeSet;
+
+    private final boolean queryDatabaseChangeLogTableOverridden = ObjectUtil.overridesMethod(getClass(),
+            StandardChangeLogHistoryService.class, "queryDatabaseChangeLogTable", Database.class);
+
     protected static final String LABELS_SIZE = "255";
     protected static final String CONTEXTS_SIZE = "255";
 
@@ -71,6 +97,11 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
 
     @Override
     public void reset() {
+        try {
+            flush();
+        } catch (DatabaseException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
         this.ranChangeSetList = null;
         this.serviceInitialized = false;
         this.hasDatabaseChangeLogTable = null;
@@ -298,52 +329,21 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
      */
     public List<RanChangeSet> getRanChangeSets() throws DatabaseException {
         if (this.ranChangeSetList == null) {
-            Database database = getDatabase();
+            flush();
             String databaseChangeLogTableName = getDatabase().escapeTableName(getLiquibaseCatalogName(),
                 getLiquibaseSchemaName(), getDatabaseChangeLogTableName());
             List<RanChangeSet> ranChangeSets = new ArrayList<>();
             if (hasDatabaseChangeLogTable()) {
                 Scope.getCurrentScope().getLog(getClass()).info("Reading from " + databaseChangeLogTableName);
-                List<Map<String, ?>> results = queryDatabaseChangeLogTable(database);
-                for (Map rs : results) {
-                    String storedFileName = rs.get("FILENAME").toString();
-                    String fileName = DatabaseChangeLog.normalizePath(storedFileName);
-                    String author = rs.get("AUTHOR").toString();
-                    String id = rs.get("ID").toString();
-                    String md5sum = ((rs.get("MD5SUM") == null) || !databaseChecksumsCompatible) ? null : rs.get
-                        ("MD5SUM").toString();
-                    String description = (rs.get("DESCRIPTION") == null) ? null : rs.get("DESCRIPTION").toString();
-                    String comments = (rs.get("COMMENTS") == null) ? null : rs.get("COMMENTS").toString();
-                    Object tmpDateExecuted = rs.get("DATEEXECUTED");
-                    Date dateExecuted = null;
-                    if (tmpDateExecuted instanceof Date) {
-                        dateExecuted = (Date) tmpDateExecuted;
+                if (queryDatabaseChangeLogTableOverridden) {
+                    //the cache reads rows with its own selects, which an overridden query cannot supply
+                    ranChangeSets = toRanChangeSets(queryDatabaseChangeLogTable(getDatabase()));
+                } else {
+                    ChangeLogHistoryCache historyCache = getHistoryCache();
+                    if (historyCache == null) {
+                        ranChangeSets = readRanChangeSets(createSelectRanChangeSetsStatement());
                     } else {
-                        DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                        try {
-                            dateExecuted = df.parse((String) tmpDateExecuted);
-                        } catch (ParseException e) {
-                            // Ignore ParseException and assume dateExecuted == null instead of aborting.
-                        }
-                    }
-                    String tmpOrderExecuted = rs.get("ORDEREXECUTED").toString();
-                    Integer orderExecuted = ((tmpOrderExecuted == null) ? null : Integer.valueOf(tmpOrderExecuted));
-                    String tag = (rs.get("TAG") == null) ? null : rs.get("TAG").toString();
-                    String execType = (rs.get("EXECTYPE") == null) ? null : rs.get("EXECTYPE").toString();
-                    ContextExpression contexts = new ContextExpression((String) rs.get("CONTEXTS"));
-                    Labels labels = new Labels((String) rs.get("LABELS"));
-                    String deploymentId = (String) rs.get("DEPLOYMENT_ID");
-
-                    try {
-                        RanChangeSet ranChangeSet = new RanChangeSet(fileName, id, author, CheckSum.parse(md5sum),
-                            dateExecuted, tag, ChangeSet.ExecType.valueOf(execType), description, comments, contexts,
-                            labels, deploymentId, storedFileName);
-                        ranChangeSet.setOrderExecuted(orderExecuted);
-                        ranChangeSets.add(ranChangeSet);
-                    } catch (IllegalArgumentException e) {
-                        Scope.getCurrentScope().getLog(getClass()).severe("Unknown EXECTYPE from database: " +
-                            execType);
-                        throw e;
+                        ranChangeSets = readThroughHistoryCache(historyCache);
                     }
                 }
             }
@@ -353,14 +353,178 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
         return Collections.unmodifiableList(ranChangeSetList);
     }
 
+    /**
+     * Converts rows from {@link #queryDatabaseChangeLogTable(Database)} to {@link RanChangeSet}s.
+     */
+    protected List<RanChangeSet> toRanChangeSets(List<Map<String, ?>> results) {
+        List<RanChangeSet> ranChangeSets = new ArrayList<>();
+        DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        for (Map rs : results) {
+            String storedFileName = rs.get("FILENAME").toString();
+            String fileName = DatabaseChangeLog.normalizePath(storedFileName);
+            String author = rs.get("AUTHOR").toString();
+            String id = rs.get("ID").toString();
+            String md5sum = ((rs.get("MD5SUM") == null) || !databaseChecksumsCompatible) ? null : rs.get
+                ("MD5SUM").toString();
+            String description = (rs.get("DESCRIPTION") == null) ? null : rs.get("DESCRIPTION").toString();
+            String comments = (rs.get("COMMENTS") == null) ? null : rs.get("COMMENTS").toString();
+            Object tmpDateExecuted = rs.get("DATEEXECUTED");
+            Date dateExecuted = null;
+            if (tmpDateExecuted instanceof Date) {
+                dateExecuted = (Date) tmpDateExecuted;
+            } else {
+                try {
+                    dateExecuted = df.parse((String) tmpDateExecuted);
+                } catch (ParseException e) {
+                    // Ignore ParseException and assume dateExecuted == null instead of aborting.
+                }
+            }
+            String tmpOrderExecuted = rs.get("ORDEREXECUTED").toString();
+            Integer orderExecuted = ((tmpOrderExecuted == null) ? null : Integer.valueOf(tmpOrderExecuted));
+            String tag = (rs.get("TAG") == null) ? null : rs.get("TAG").toString();
+            String execType = (rs.get("EXECTYPE") == null) ? null : rs.get("EXECTYPE").toString();
+            ContextExpression contexts = new ContextExpression((String) rs.get("CONTEXTS"));
+            Labels labels = new Labels((String) rs.get("LABELS"));
+            String deploymentId = (String) rs.get("DEPLOYMENT_ID");
+
+            try {
+                RanChangeSet ranChangeSet = new RanChangeSet(fileName, id, author, CheckSum.parse(md5sum),
+                    dateExecuted, tag, ChangeSet.ExecType.valueOf(execType), description, comments, contexts,
+                    labels, deploymentId, storedFileName);
+                ranChangeSet.setOrderExecuted(orderExecuted);
+                ranChangeSets.add(ranChangeSet);
+            } catch (IllegalArgumentException e) {
+                Scope.getCurrentScope().getLog(getClass()).severe("Unknown EXECTYPE from database: " +
+                    execType);
+                throw e;
+            }
+        }
+        return ranChangeSets;
+    }
+
+    /**
+     * Returns the cache to read the history through, or null if {@link GlobalConfiguration#getDatabaseChangeLogCacheDirectory()} is not set
+     * or the cache cannot be used for the current database.
+     */
+    protected ChangeLogHistoryCache getHistoryCache() {
+        String cacheDirectory = LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getDatabaseChangeLogCacheDirectory();
+        Database database = getDatabase();
+        if ((cacheDirectory == null) || !databaseChecksumsCompatible || (database.getConnection() == null)
+                || (database.getConnection() instanceof OfflineConnection)) {
+            return null;
+        }
+        return new ChangeLogHistoryCache(new File(cacheDirectory), database.getConnection().getURL(),
+                getLiquibaseCatalogName(), getLiquibaseSchemaName(), getDatabaseChangeLogTableName());
+    }
+
+    /**
+     * Returns the history using the cached rows if they still match the table, reading only the rows with a higher
+     * ORDEREXECUTED than the cache if possible and falling back to reading the whole table.
+     */
+    protected List<RanChangeSet> readThroughHistoryCache(ChangeLogHistoryCache historyCache) throws DatabaseException {
+        Database database = getDatabase();
+        Executor executor = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+        ChangeLogHistoryCache.Summary summary = queryHistorySummary(executor);
+
+        List<RanChangeSet> cached = historyCache.read();
+        if (cached != null) {
+            ChangeLogHistoryCache.Summary cachedSummary = ChangeLogHistoryCache.Summary.of(cached);
+            if (cachedSummary.equals(summary)) {
+                Scope.getCurrentScope().getLog(getClass()).fine("Using cached history from " + historyCache.getFile().getAbsolutePath());
+                return cached;
+            }
+            if (cachedSummary.getMaxOrderExecuted() < summary.getMaxOrderExecuted()) {
+                SelectFromDatabaseChangeLogStatement select = new SelectFromDatabaseChangeLogStatement(
+                        new SelectFromDatabaseChangeLogStatement.ByOrderExecutedGreaterThan((int) cachedSummary.getMaxOrderExecuted()),
+                        new ColumnConfig().setName("*").setComputed(true)).setOrderBy("DATEEXECUTED ASC", "ORDEREXECUTED ASC");
+                List<RanChangeSet> merged = ChangeLogHistoryCache.merge(cached, readRanChangeSets(select));
+                if (ChangeLogHistoryCache.Summary.of(merged).equals(summary)) {
+                    Scope.getCurrentScope().getLog(getClass()).fine("Read " + (merged.size() - cached.size()) + " new history row(s) not in " + historyCache.getFile().getAbsolutePath());
+                    historyCache.write(merged);
+                    return merged;
+                }
+            }
+        }
+
+        List<RanChangeSet> ranChangeSets = readRanChangeSets(createSelectRanChangeSetsStatement());
+        historyCache.write(ranChangeSets);
+        return ranChangeSets;
+    }
+
+    /**
+     * Computes the {@link ChangeLogHistoryCache.Summary} of the table from the columns that Liquibase updates in place,
+     * which is much less to read than the full rows.
+     */
+    protected ChangeLogHistoryCache.Summary queryHistorySummary(Executor executor) throws DatabaseException {
+        SelectFromDatabaseChangeLogStatement select = new SelectFromDatabaseChangeLogStatement(
+                new ColumnConfig().setName("ORDEREXECUTED"),
+                new ColumnConfig().setName("MD5SUM"),
+                new ColumnConfig().setName("TAG"),
+                new ColumnConfig().setName("EXECTYPE"));
+        final ChangeLogHistoryCache.Summary summary = new ChangeLogHistoryCache.Summary();
+        if (executor instanceof JdbcExecutor) {
+            ((JdbcExecutor) executor).query(select, new RowCallbackHandler() {
+                @Override
+                public void processRow(ResultSet rs) throws SQLException {
+                    int orderExecuted = rs.getInt(1);
+                    addToSummary(summary, rs.wasNull() ? null : orderExecuted, rs.getString(2), rs.getString(3), rs.getString(4));
+                }
+            });
+        } else {
+            for (Map<String, ?> row : executor.queryForList(select)) {
+                Object orderExecuted = getValue(row, "ORDEREXECUTED");
+                addToSummary(summary, (orderExecuted == null) ? null : ((Number) orderExecuted).intValue(),
+                        (String) getValue(row, "MD5SUM"), (String) getValue(row, "TAG"), (String) getValue(row, "EXECTYPE"));
+            }
+        }
+        return summary;
+    }
+
+    private void addToSummary(ChangeLogHistoryCache.Summary summary, Integer orderExecuted, String md5sum, String tag, String execType) {
+        //stored the same way as the cached rows
+        summary.add(orderExecuted, (md5sum == null) ? null : CheckSum.parse(md5sum).toString(), tag, execType);
+    }
+
+    private Object getValue(Map<String, ?> row, String column) {
+        for (Map.Entry<String, ?> entry : row.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns all rows of the table. If a subclass overrides this, {@link #getRanChangeSets()} reads the rows returned
+     * by it through {@link #toRanChangeSets(List)} instead of streaming them and does not use the history cache.
+     */
     public List<Map<String, ?>> queryDatabaseChangeLogTable(Database database) throws DatabaseException {
-        SelectFromDatabaseChangeLogStatement select = new SelectFromDatabaseChangeLogStatement(new ColumnConfig()
-            .setName("*").setComputed(true)).setOrderBy("DATEEXECUTED ASC", "ORDEREXECUTED ASC");
-        return Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).queryForList(select);
+        return Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).queryForList(createSelectRanChangeSetsStatement());
+    }
+
+    /**
+     * Reads the rows returned by the given select as {@link RanChangeSet}s. A {@link JdbcExecutor} maps each row as it is
+     * read, other executors go through {@link #toRanChangeSets(List)}.
+     */
+    protected List<RanChangeSet> readRanChangeSets(SelectFromDatabaseChangeLogStatement select) throws DatabaseException {
+        Executor executor = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", getDatabase());
+        if (executor instanceof JdbcExecutor) {
+            RanChangeSetRowCallbackHandler rowCallbackHandler = new RanChangeSetRowCallbackHandler(databaseChecksumsCompatible);
+            ((JdbcExecutor) executor).query(select, rowCallbackHandler);
+            return rowCallbackHandler.getRanChangeSets();
+        }
+        return toRanChangeSets(executor.queryForList(select));
+    }
+
+    private SelectFromDatabaseChangeLogStatement createSelectRanChangeSetsStatement() {
+        return new SelectFromDatabaseChangeLogStatement(new ColumnConfig().setName("*").setComputed(true))
+            .setOrderBy("DATEEXECUTED ASC", "ORDEREXECUTED ASC");
     }
 
     @Override
     protected void replaceChecksum(ChangeSet changeSet) throws DatabaseException {
+        flush();
+        clearHistoryCache();
         Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", getDatabase()).execute(new UpdateChangeSetChecksumStatement
             (changeSet));
 
@@ -381,16 +545,113 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
     public void setExecType(ChangeSet changeSet, ChangeSet.ExecType execType) throws DatabaseException {
         Database database = getDatabase();
 
-        Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).execute(new MarkChangeSetRanStatement(changeSet, execType));
-        getDatabase().commit();
+        Executor executor = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+        boolean deferred = (changeSet == deferredChangeSet);
+        deferredChangeSet = null;
+        if (deferred) {
+            if (pendingHistoryStatements.isEmpty()) {
+                pendingHistorySince = System.currentTimeMillis();
+            }
+            //generate the SQL now so the row reflects the change set as it is at this point in the run
+            for (Sql sql : SqlGeneratorFactory.getInstance().generateSql(new MarkChangeSetRanStatement(changeSet, execType), database)) {
+                pendingHistoryStatements.add(new RawSqlStatement(sql.toSql()));
+            }
+
+            flushIfDue();
+        } else {
+            flush();
+            executor.execute(new MarkChangeSetRanStatement(changeSet, execType));
+            getDatabase().commit();
+        }
         if (this.ranChangeSetList != null) {
             this.ranChangeSetList.add(new RanChangeSet(changeSet, execType, null, null));
         }
 
     }
 
+    /**
+     * Defers the commit of change sets that run in a transaction on this service's database, so each change set is
+     * committed together with its buffered history row. See {@link #shouldBufferHistory(ChangeSet, Executor)}.
+     */
+    @Override
+    public boolean deferCommit(ChangeSet changeSet, Database executionDatabase) throws DatabaseException {
+        deferredChangeSet = null;
+        if ((executionDatabase != getDatabase()) || !shouldBufferHistory(changeSet,
+                Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", executionDatabase))) {
+            return false;
+        }
+        deferredChangeSet = changeSet;
+        return true;
+    }
+
+    /**
+     * Buffered history rows are only written at flush points, and the change sets they belong to are committed with
+     * them. So buffering is limited to change sets that run in a transaction, on databases that can run DDL in a
+     * transaction, and to the jdbc executor. Anything else, such as updateSql output, is written immediately so the
+     * output order does not change.
+     */
+    protected boolean shouldBufferHistory(ChangeSet changeSet, Executor executor) {
+        return changeSet.isRunInTransaction()
+                && getDatabase().supportsDDLInTransaction()
+                && (executor instanceof JdbcExecutor)
+                && (LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getDatabaseChangeLogCommitBatchSize() > 1);
+    }
+
+    /**
+     * The change sets whose rows are buffered were rolled back with the failed change set, so their rows are dropped
+     * and the history is read again.
+     */
+    @Override
+    public void discardUncommitted() {
+        deferredChangeSet = null;
+        if (!pendingHistoryStatements.isEmpty()) {
+            pendingHistoryStatements.clear();
+            this.ranChangeSetList = null;
+        }
+    }
+
+    /**
+     * Writes the buffered history rows once there are {@link GlobalConfiguration#getDatabaseChangeLogCommitBatchSize()}
+     * of them or the oldest has waited for {@link GlobalConfiguration#getDatabaseChangeLogCommitInterval()}.
+     */
+    @Override
+    public void flushIfDue() throws DatabaseException {
+        if (pendingHistoryStatements.isEmpty()) {
+            return;
+        }
+        GlobalConfiguration configuration = LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class);
+        if ((pendingHistoryStatements.size() >= configuration.getDatabaseChangeLogCommitBatchSize())
+                || ((System.currentTimeMillis() - pendingHistorySince) >= configuration.getDatabaseChangeLogCommitInterval())) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all buffered history rows as one batch and commits them together with the change sets they belong to.
+     */
+    @Override
+    public void flush() throws DatabaseException {
+        if (pendingHistoryStatements.isEmpty()) {
+            return;
+        }
+        List<SqlStatement> statements = pendingHistoryStatements;
+        pendingHistoryStatements = new ArrayList<>();
+
+        Executor executor = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", getDatabase());
+        if (executor instanceof JdbcExecutor) {
+            ((JdbcExecutor) executor).executeBatch(statements);
+        } else {
+            for (SqlStatement statement : statements) {
+                executor.execute(statement);
+            }
+        }
+        getDatabase().commit();
+    }
+
     @Override
     public void removeFromHistory(final ChangeSet changeSet) throws DatabaseException {
+        flush();
+        clearHistoryCache();
         Database database = getDatabase();
         Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).execute(new RemoveChangeSetRanStatusStatement(changeSet));
         getDatabase().commit();
@@ -419,6 +680,8 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
      */
     @Override
     public void tag(final String tagString) throws DatabaseException {
+        flush();
+        clearHistoryCache();
         Database database = getDatabase();
         Executor executor = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
         int totalRows = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).queryForInt(new
@@ -440,6 +703,7 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
 
     @Override
     public boolean tagExists(final String tag) throws DatabaseException {
+        flush();
         int count = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", getDatabase()).queryForInt(new
             SelectFromDatabaseChangeLogStatement(new SelectFromDatabaseChangeLogStatement.ByTag(tag), new
             ColumnConfig().setName("COUNT(*)", true)));
@@ -448,6 +712,8 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
 
     @Override
     public void clearAllCheckSums() throws LiquibaseException {
+        flush();
+        clearHistoryCache();
         Database database = getDatabase();
         UpdateStatement updateStatement = new UpdateStatement(database.getLiquibaseCatalogName(), database
             .getLiquibaseSchemaName(), database.getDatabaseChangeLogTableName());
@@ -458,6 +724,8 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
 
     @Override
     public void destroy() throws DatabaseException {
+        pendingHistoryStatements.clear();
+        clearHistoryCache();
         Database database = getDatabase();
         try {
             //
@@ -487,6 +755,16 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
         }
     }
 
+    /**
+     * Removes the local history cache after changes that the cached {@link ChangeLogHistoryCache.Summary} may not detect.
+     */
+    protected void clearHistoryCache() {
+        ChangeLogHistoryCache historyCache = getHistoryCache();
+        if (historyCache != null) {
+            historyCache.clear();
+        }
+    }
+
     protected String getLabelsSize() {
         return LABELS_SIZE;
     }
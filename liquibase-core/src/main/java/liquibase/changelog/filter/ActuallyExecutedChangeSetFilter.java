@@ -2,6 +2,7 @@ package liquibase.changelog.filter;
 
 import liquibase.changelog.ChangeSet;
 import liquibase.changelog.RanChangeSet;
+import liquibase.changelog.RanChangeSetIndex;
 
 import java.util.List;
 
@@ -11,6 +12,10 @@ public class ActuallyExecutedChangeSetFilter extends RanChangeSetFilter {
         super(ranChangeSets);
     }
 
+    public ActuallyExecutedChangeSetFilter(RanChangeSetIndex ranChangeSetIndex) {
+        super(ranChangeSetIndex);
+    }
+
     @Override
     public ChangeSetFilterResult accepts(ChangeSet changeSet) {
         RanChangeSet ranChangeSet = getRanChangeSet(changeSet);
@@ -2,10 +2,14 @@ package liquibase.changelog.filter;
 
 import liquibase.changelog.ChangeSet;
 import liquibase.changelog.RanChangeSet;
+import liquibase.changelog.RanChangeSetIndex;
 import liquibase.exception.RollbackFailedException;
 import liquibase.util.StringUtil;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -13,19 +17,39 @@ public class AfterTagChangeSetFilter implements ChangeSetFilter {
 
     private final String tag;
     private Set<String> changeLogsAfterTag = new HashSet<>();
+    private RanChangeSetIndex ranChangeSetIndex;
+    private Set<RanChangeSet> ranChangeSetsAfterTag;
 
     public AfterTagChangeSetFilter(String tag, List<RanChangeSet> ranChangeSets) throws RollbackFailedException {
         this.tag = tag;
+        for (RanChangeSet ranChangeSet : getRanChangeSetsAfterTag(tag, ranChangeSets)) {
+            changeLogsAfterTag.add(changeLogToString(ranChangeSet.getId(), ranChangeSet.getAuthor(), ranChangeSet.getChangeLog()));
+        }
+    }
+
+    /**
+     * Use this constructor to share a single {@link RanChangeSetIndex} between all the filters of a {@link liquibase.changelog.ChangeLogIterator}.
+     * Change sets are then matched the same way as by {@link RanChangeSetFilter}.
+     */
+    public AfterTagChangeSetFilter(String tag, RanChangeSetIndex ranChangeSetIndex) throws RollbackFailedException {
+        this.tag = tag;
+        this.ranChangeSetIndex = ranChangeSetIndex;
+        this.ranChangeSetsAfterTag = Collections.newSetFromMap(new IdentityHashMap<RanChangeSet, Boolean>());
+        this.ranChangeSetsAfterTag.addAll(getRanChangeSetsAfterTag(tag, ranChangeSetIndex.getRanChangeSets()));
+    }
+
+    private List<RanChangeSet> getRanChangeSetsAfterTag(String tag, List<RanChangeSet> ranChangeSets) throws RollbackFailedException {
+        List<RanChangeSet> ranChangeSetsAfterTag = new ArrayList<>();
         boolean seenTag = false;
         for (RanChangeSet ranChangeSet : ranChangeSets) {
             if (seenTag && !tag.equalsIgnoreCase(ranChangeSet.getTag())) {
-                changeLogsAfterTag.add(changeLogToString(ranChangeSet.getId(), ranChangeSet.getAuthor(), ranChangeSet.getChangeLog()));
+                ranChangeSetsAfterTag.add(ranChangeSet);
             }
 
             if (!seenTag && tag.equalsIgnoreCase(ranChangeSet.getTag())) {
                 seenTag = true;
                 if ("tagDatabase".equals(StringUtil.trimToEmpty(ranChangeSet.getDescription()))) { //changeSet is just tagging the database. Also remove it.
-                    changeLogsAfterTag.add(changeLogToString(ranChangeSet.getId(), ranChangeSet.getAuthor(), ranChangeSet.getChangeLog()));
+                    ranChangeSetsAfterTag.add(ranChangeSet);
                 }
             }
         }
@@ -33,6 +57,7 @@ public class AfterTagChangeSetFilter implements ChangeSetFilter {
         if (!seenTag) {
             throw new RollbackFailedException("Could not find tag '"+tag+"' in the database");
         }
+        return ranChangeSetsAfterTag;
     }
 
     private String changeLogToString(String id, String author, String changeLog) {
@@ -41,7 +66,13 @@ public class AfterTagChangeSetFilter implements ChangeSetFilter {
 
     @Override
     public ChangeSetFilterResult accepts(ChangeSet changeSet) {
-        if (changeLogsAfterTag.contains(changeLogToString(changeSet.getId(), changeSet.getAuthor(), changeSet.getFilePath()))) {
+        boolean afterTag;
+        if (ranChangeSetIndex == null) {
+            afterTag = changeLogsAfterTag.contains(changeLogToString(changeSet.getId(), changeSet.getAuthor(), changeSet.getFilePath()));
+        } else {
+            afterTag = ranChangeSetsAfterTag.contains(ranChangeSetIndex.get(changeSet));
+        }
+        if (afterTag) {
             return new ChangeSetFilterResult(true, "Change set is before tag '"+tag+"'", this.getClass());
         } else {
             return new ChangeSetFilterResult(false, "Change set after tag '"+tag+"'", this.getClass());
@@ -2,10 +2,13 @@ package liquibase.changelog.filter;
 
 import liquibase.changelog.ChangeSet;
 import liquibase.changelog.RanChangeSet;
+import liquibase.changelog.RanChangeSetIndex;
 import liquibase.util.ISODateFormat;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -13,23 +16,50 @@ public class ExecutedAfterChangeSetFilter implements ChangeSetFilter {
 
     private final Date date;
     private Set<String> changeLogsAfterDate = new HashSet<>();
+    private RanChangeSetIndex ranChangeSetIndex;
+    private Set<RanChangeSet> ranChangeSetsAfterDate;
 
     public ExecutedAfterChangeSetFilter(Date date, List<RanChangeSet> ranChangeSets) {
         this.date = date;
         for (RanChangeSet ranChangeSet : ranChangeSets) {
-            if ((ranChangeSet.getDateExecuted() != null) && (ranChangeSet.getDateExecuted().getTime() > date.getTime())) {
+            if (executedAfter(ranChangeSet, date)) {
                 changeLogsAfterDate.add(changeLogToString(ranChangeSet.getId(), ranChangeSet.getAuthor(), ranChangeSet.getChangeLog()));
             }
         }
     }
 
+    /**
+     * Use this constructor to share a single {@link RanChangeSetIndex} between all the filters of a {@link liquibase.changelog.ChangeLogIterator}.
+     * Change sets are then matched the same way as by {@link RanChangeSetFilter}.
+     */
+    public ExecutedAfterChangeSetFilter(Date date, RanChangeSetIndex ranChangeSetIndex) {
+        this.date = date;
+        this.ranChangeSetIndex = ranChangeSetIndex;
+        this.ranChangeSetsAfterDate = Collections.newSetFromMap(new IdentityHashMap<RanChangeSet, Boolean>());
+        for (RanChangeSet ranChangeSet : ranChangeSetIndex.getRanChangeSets()) {
+            if (executedAfter(ranChangeSet, date)) {
+                ranChangeSetsAfterDate.add(ranChangeSet);
+            }
+        }
+    }
+
+    private boolean executedAfter(RanChangeSet ranChangeSet, Date date) {
+        return (ranChangeSet.getDateExecuted() != null) && (ranChangeSet.getDateExecuted().getTime() > date.getTime());
+    }
+
     private String changeLogToString(String id, String author, String changeLog) {
         return id+":"+author+":"+changeLog;
     }
 
     @Override
     public ChangeSetFilterResult accepts(ChangeSet changeSet) {
-        if (changeLogsAfterDate.contains(changeLogToString(changeSet.getId(), changeSet.getAuthor(), changeSet.getFilePath()))) {
+        boolean afterDate;
+        if (ranChangeSetIndex == null) {
+            afterDate = changeLogsAfterDate.contains(changeLogToString(changeSet.getId(), changeSet.getAuthor(), changeSet.getFilePath()));
+        } else {
+            afterDate = ranChangeSetsAfterDate.contains(ranChangeSetIndex.get(changeSet));
+        }
+        if (afterDate) {
             return new ChangeSetFilterResult(true, "Change set ran after "+ new ISODateFormat().format(new java.sql.Timestamp(date.getTime())), this.getClass());
         } else {
             return new ChangeSetFilterResult(false, "Change set ran before "+ new ISODateFormat().format(new java.sql.Timestamp(date.getTime())), this.getClass());
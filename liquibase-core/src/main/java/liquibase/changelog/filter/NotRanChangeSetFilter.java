@@ -1,28 +1,30 @@
 package liquibase.changelog.filter;
 
 import liquibase.changelog.ChangeSet;
-import liquibase.changelog.DatabaseChangeLog;
 import liquibase.changelog.RanChangeSet;
+import liquibase.changelog.RanChangeSetIndex;
 
 import java.util.List;
 
 public class NotRanChangeSetFilter implements ChangeSetFilter {
 
     public List<RanChangeSet> ranChangeSets;
+    private final RanChangeSetIndex ranChangeSetIndex;
 
     public NotRanChangeSetFilter(List<RanChangeSet> ranChangeSets) {
-        this.ranChangeSets = ranChangeSets;
+        this(new RanChangeSetIndex(ranChangeSets));
+    }
+
+    public NotRanChangeSetFilter(RanChangeSetIndex ranChangeSetIndex) {
+        this.ranChangeSetIndex = ranChangeSetIndex;
+        this.ranChangeSets = ranChangeSetIndex.getRanChangeSets();
     }
 
     @Override
     @SuppressWarnings({"RedundantIfStatement"})
     public ChangeSetFilterResult accepts(ChangeSet changeSet) {
-        for (RanChangeSet ranChangeSet : ranChangeSets) {
-            if (ranChangeSet.getId().equalsIgnoreCase(changeSet.getId())
-                    && ranChangeSet.getAuthor().equalsIgnoreCase(changeSet.getAuthor())
-                    && DatabaseChangeLog.normalizePath(ranChangeSet.getChangeLog()).equalsIgnoreCase(DatabaseChangeLog.normalizePath(changeSet.getFilePath()))) {
-                return new ChangeSetFilterResult(false, "Change set already ran", this.getClass());
-            }
+        if (ranChangeSetIndex.contains(changeSet)) {
+            return new ChangeSetFilterResult(false, "Change set already ran", this.getClass());
         }
         return new ChangeSetFilterResult(true, "Change set not yet ran", this.getClass());
     }
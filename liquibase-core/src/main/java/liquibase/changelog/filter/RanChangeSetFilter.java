@@ -1,27 +1,28 @@
 package liquibase.changelog.filter;
 
 import liquibase.changelog.ChangeSet;
-import liquibase.changelog.DatabaseChangeLog;
 import liquibase.changelog.RanChangeSet;
+import liquibase.changelog.RanChangeSetIndex;
 
 import java.util.List;
 
 public abstract class RanChangeSetFilter implements ChangeSetFilter {
     public List<RanChangeSet> ranChangeSets;
+    private final RanChangeSetIndex ranChangeSetIndex;
 
     public RanChangeSetFilter(List<RanChangeSet> ranChangeSets) {
-        this.ranChangeSets = ranChangeSets;
+        this(new RanChangeSetIndex(ranChangeSets));
     }
 
-    public RanChangeSet getRanChangeSet(ChangeSet changeSet) {
-        for (RanChangeSet ranChangeSet : ranChangeSets) {
-            if (ranChangeSet.getId().equalsIgnoreCase(changeSet.getId())
-                    && ranChangeSet.getAuthor().equalsIgnoreCase(changeSet.getAuthor())
-                    && DatabaseChangeLog.normalizePath(ranChangeSet.getChangeLog()).equalsIgnoreCase(DatabaseChangeLog.normalizePath(changeSet.getFilePath()))) {
-                return ranChangeSet;
-            }
-        }
-        return null;
+    /**
+     * Use this constructor to share a single {@link RanChangeSetIndex} between all the filters of a {@link liquibase.changelog.ChangeLogIterator}
+     */
+    public RanChangeSetFilter(RanChangeSetIndex ranChangeSetIndex) {
+        this.ranChangeSetIndex = ranChangeSetIndex;
+        this.ranChangeSets = ranChangeSetIndex.getRanChangeSets();
+    }
 
+    public RanChangeSet getRanChangeSet(ChangeSet changeSet) {
+        return ranChangeSetIndex.get(changeSet);
     }
 }
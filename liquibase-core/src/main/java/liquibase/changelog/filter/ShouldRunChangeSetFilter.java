@@ -5,23 +5,37 @@ import liquibase.changelog.DatabaseChangeLog;
 import liquibase.changelog.RanChangeSet;
 import liquibase.database.Database;
 import liquibase.exception.DatabaseException;
+import liquibase.util.ObjectUtil;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 public class ShouldRunChangeSetFilter implements ChangeSetFilter {
 
+    /**
+     * Ran change sets indexed by {@link #createKey(String, String, String)} so {@link #accepts(ChangeSet)} is a single hash lookup
+     * instead of a scan over the whole DATABASECHANGELOG history.
+     */
     private final Map<String, RanChangeSet> ranChangeSets;
     private final boolean ignoreClasspathPrefix;
 
+    /**
+     * True if a subclass compares ids or authors differently than the key does, so every ran change set must be checked.
+     */
+    private final boolean customMatching = ObjectUtil.overridesMethod(getClass(), ShouldRunChangeSetFilter.class, "changeSetsMatch", ChangeSet.class, RanChangeSet.class)
+            || ObjectUtil.overridesMethod(getClass(), ShouldRunChangeSetFilter.class, "idsAreEqual", ChangeSet.class, RanChangeSet.class)
+            || ObjectUtil.overridesMethod(getClass(), ShouldRunChangeSetFilter.class, "authorsAreEqual", ChangeSet.class, RanChangeSet.class);
+
     public ShouldRunChangeSetFilter(Database database, boolean ignoreClasspathPrefix) throws DatabaseException {
         this.ignoreClasspathPrefix = ignoreClasspathPrefix;
         this.ranChangeSets = new HashMap<>();
 
         //ensure we have only the latest version of each ranChangeset in case multiple versions ended up in the databasechangelog table
         for (RanChangeSet ranChangeSet : database.getRanChangeSetList()) {
-            RanChangeSet existingChangeSet = ranChangeSets.get(ranChangeSet.toString());
+            String key = createKey(ranChangeSet.getId(), ranChangeSet.getAuthor(), getPath(ranChangeSet));
+            RanChangeSet existingChangeSet = ranChangeSets.get(key);
             boolean addToSet = false;
             if (existingChangeSet == null) {
                 addToSet = true;
@@ -43,7 +57,7 @@ public class ShouldRunChangeSetFilter implements ChangeSetFilter {
                 }
             }
             if (addToSet) {
-                this.ranChangeSets.put(ranChangeSet.toString(), ranChangeSet);
+                this.ranChangeSets.put(key, ranChangeSet);
             }
         }
     }
@@ -55,20 +69,35 @@ public class ShouldRunChangeSetFilter implements ChangeSetFilter {
     @Override
     @SuppressWarnings({"RedundantIfStatement"})
     public ChangeSetFilterResult accepts(ChangeSet changeSet) {
-        for (RanChangeSet ranChangeSet : this.ranChangeSets.values()) {
-            if (changeSetsMatch(changeSet, ranChangeSet)) {
-                if (changeSet.shouldAlwaysRun()) {
-                    return new ChangeSetFilterResult(true, "Change set always runs", this.getClass());
-                }
-                if (changeSet.shouldRunOnChange() && checksumChanged(changeSet, ranChangeSet)) {
-                    return new ChangeSetFilterResult(true, "Change set checksum changed", this.getClass());
-                }
-                return new ChangeSetFilterResult(false, "Change set already ran", this.getClass());
+        RanChangeSet ranChangeSet = findRanChangeSet(changeSet);
+        if (ranChangeSet != null) {
+            if (changeSet.shouldAlwaysRun()) {
+                return new ChangeSetFilterResult(true, "Change set always runs", this.getClass());
             }
+            if (changeSet.shouldRunOnChange() && checksumChanged(changeSet, ranChangeSet)) {
+                return new ChangeSetFilterResult(true, "Change set checksum changed", this.getClass());
+            }
+            return new ChangeSetFilterResult(false, "Change set already ran", this.getClass());
         }
         return new ChangeSetFilterResult(true, "Change set has not ran yet", this.getClass());
     }
 
+    private RanChangeSet findRanChangeSet(ChangeSet changeSet) {
+        if (customMatching) {
+            for (RanChangeSet ranChangeSet : this.ranChangeSets.values()) {
+                if (changeSetsMatch(changeSet, ranChangeSet)) {
+                    return ranChangeSet;
+                }
+            }
+            return null;
+        }
+        RanChangeSet ranChangeSet = this.ranChangeSets.get(createKey(changeSet.getId(), changeSet.getAuthor(), getPath(changeSet)));
+        if ((ranChangeSet != null) && changeSetsMatch(changeSet, ranChangeSet)) {
+            return ranChangeSet;
+        }
+        return null;
+    }
+
     protected boolean changeSetsMatch(ChangeSet changeSet, RanChangeSet ranChangeSet) {
         return idsAreEqual(changeSet, ranChangeSet)
                 && authorsAreEqual(changeSet, ranChangeSet)
@@ -97,6 +126,14 @@ public class ShouldRunChangeSetFilter implements ChangeSetFilter {
         return !changeSet.generateCheckSum().equals(ranChangeSet.getLastCheckSum());
     }
 
+    /**
+     * Builds the lookup key for a change set. Ids and authors are compared exactly while paths are compared
+     * case-insensitively after normalization, matching {@link #changeSetsMatch(ChangeSet, RanChangeSet)}. Subclasses
+     * overriding how change sets match are not looked up by key.
+     */
+    private String createKey(String id, String author, String normalizedPath) {
+        return id + "::" + author + "::" + ((normalizedPath == null) ? null : normalizedPath.toLowerCase(Locale.US));
+    }
 
     private String getPath(RanChangeSet ranChangeSet) {
         return DatabaseChangeLog.normalizePath(ranChangeSet.getChangeLog());
@@ -1,6 +1,8 @@
 package liquibase.changelog.visitor;
 
 import liquibase.Scope;
+import liquibase.changelog.ChangeLogHistoryService;
+import liquibase.changelog.ChangeLogHistoryServiceFactory;
 import liquibase.changelog.ChangeSet;
 import liquibase.changelog.ChangeSet.ExecType;
 import liquibase.changelog.ChangeSet.RunStatus;
@@ -19,6 +21,11 @@ public class UpdateVisitor implements ChangeSetVisitor {
 
     private ChangeExecListener execListener;
 
+    /**
+     * The change set last run on this visitor's database whose commit is left to the change log history service.
+     */
+    private ChangeSet deferredCommitChangeSet;
+
     /**
      * @deprecated - please use the constructor with ChangeExecListener, which can be null.
      */
@@ -40,26 +47,78 @@ public class UpdateVisitor implements ChangeSetVisitor {
     @Override
     public void visit(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog, Database database,
                       Set<ChangeSetFilterResult> filterResults) throws LiquibaseException {
+        ChangeSet.RunStatus runStatus = prepareToRun(changeSet, databaseChangeLog, database);
+        ExecType execType = executeChangeSet(changeSet, databaseChangeLog, database, this.database, runStatus);
+        markRan(changeSet, execType);
+    }
+
+    /**
+     * Looks up the run status of the change set and fires {@link ChangeExecListener#willRun}. Must be called on the
+     * thread using this visitor's database.
+     */
+    public ChangeSet.RunStatus prepareToRun(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog, Database database)
+            throws LiquibaseException {
         ChangeSet.RunStatus runStatus = this.database.getRunStatus(changeSet);
         Scope.getCurrentScope().getLog(getClass()).fine("Running Changeset:" + changeSet);
         fireWillRun(changeSet, databaseChangeLog, database, runStatus);
+        ChangeLogHistoryService historyService = ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(this.database);
+        if (changeSet.isRunInTransaction() && (changeSet.getPreconditions() == null)) {
+            historyService.flushIfDue();
+        } else {
+            //changes outside a transaction cannot be rolled back, and checking preconditions rolls back, so the change
+            //sets whose commit was deferred must be committed first
+            historyService.flush();
+        }
+        return runStatus;
+    }
+
+    /**
+     * Runs the change set against executionDatabase, which is this visitor's database unless the change set is run
+     * on another connection by {@link liquibase.changelog.ParallelUpdateRunner}. Listeners are passed database.
+     */
+    public ExecType executeChangeSet(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog, Database database,
+                                     Database executionDatabase, ChangeSet.RunStatus runStatus) throws LiquibaseException {
         ExecType execType = null;
-        ObjectQuotingStrategy previousStr = this.database.getObjectQuotingStrategy();
+        ObjectQuotingStrategy previousStr = executionDatabase.getObjectQuotingStrategy();
+        ChangeLogHistoryService historyService = ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(this.database);
+        boolean deferCommit = (executionDatabase == this.database) && historyService.deferCommit(changeSet, executionDatabase);
         try {
-            execType = changeSet.execute(databaseChangeLog, execListener, this.database);
+            execType = changeSet.execute(databaseChangeLog, execListener, executionDatabase, !deferCommit);
         } catch (MigrationFailedException e) {
+            if (deferCommit) {
+                //the change sets whose commit was deferred were rolled back with this one
+                historyService.discardUncommitted();
+            }
             fireRunFailed(changeSet, databaseChangeLog, database, e);
             throw e;
         }
+        if (deferCommit) {
+            if (execType == ExecType.FAILED) {
+                historyService.discardUncommitted();
+            } else {
+                deferredCommitChangeSet = changeSet;
+            }
+        }
         if (!runStatus.equals(ChangeSet.RunStatus.NOT_RAN)) {
             execType = ChangeSet.ExecType.RERAN;
         }
         fireRan(changeSet, databaseChangeLog, database, execType);
         // reset object quoting strategy after running changeset
-        this.database.setObjectQuotingStrategy(previousStr);
+        executionDatabase.setObjectQuotingStrategy(previousStr);
+        return execType;
+    }
+
+    /**
+     * Records the change set in the changelog history. Must be called on the thread using this visitor's database.
+     */
+    public void markRan(ChangeSet changeSet, ExecType execType) throws LiquibaseException {
+        boolean commitDeferred = (changeSet == deferredCommitChangeSet);
+        deferredCommitChangeSet = null;
         this.database.markChangeSetExecStatus(changeSet, execType);
 
-        this.database.commit();
+        if (!commitDeferred) {
+            this.database.commit();
+        }
     }
 
     protected void fireRunFailed(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog, Database database, MigrationFailedException e) {
@@ -3,6 +3,7 @@ package liquibase.changelog.visitor;
 import liquibase.Scope;
 import liquibase.change.Change;
 import liquibase.changelog.ChangeSet;
+import liquibase.changelog.CheckSumCache;
 import liquibase.changelog.DatabaseChangeLog;
 import liquibase.changelog.RanChangeSet;
 import liquibase.changelog.filter.ChangeSetFilterResult;
@@ -14,6 +15,8 @@ import liquibase.precondition.core.PreconditionContainer;
 import liquibase.util.StringUtil;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 
 public class ValidatingVisitor implements ChangeSetVisitor {
 
@@ -63,6 +66,52 @@ public class ValidatingVisitor implements ChangeSetVisitor {
         }
     }
 
+    /**
+     * Computes the checksums {@link #visit} needs for the given change sets on a pool of up to the given number of threads,
+     * so the comparisons done while iterating the changelog use already computed values.
+     * The checksums are computed in the caller's scope. Errors are logged and otherwise ignored here: nothing is cached
+     * for a change set that fails, so its checksum is computed again when it is visited and errors are still
+     * reported in changelog order.
+     */
+    public void precomputeCheckSums(List<ChangeSet> changeSets, int threads) {
+        final List<ChangeSet> toCompute = new ArrayList<>();
+        for (ChangeSet changeSet : changeSets) {
+            if (findChangeSet(changeSet) != null) {
+                toCompute.add(changeSet);
+            }
+        }
+        if (toCompute.size() < 2) {
+            return;
+        }
+
+        CheckSumCache checkSumCache = CheckSumCache.getInstance();
+        ForkJoinPool pool = new ForkJoinPool(Math.min(threads, toCompute.size()));
+        try {
+            if (checkSumCache == null) {
+                pool.invokeAll(createCheckSumTasks(toCompute, Scope.getCurrentScope()));
+            } else {
+                checkSumCache.runConcurrently(() -> pool.invokeAll(createCheckSumTasks(toCompute, Scope.getCurrentScope())));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private List<Callable<Void>> createCheckSumTasks(List<ChangeSet> changeSets, final Scope scope) {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (final ChangeSet changeSet : changeSets) {
+            tasks.add(() -> {
+                try {
+                    Scope.runIn(scope, changeSet::generateCheckSum);
+                } catch (Exception e) {
+                    scope.getLog(getClass()).info("Cannot compute checksum for change set " + changeSet.toString(false) + " ahead of validation, it is computed again when validated: " + e.getMessage(), e);
+                }
+                return null;
+            });
+        }
+        return tasks;
+    }
+
     @Override
     public Direction getDirection() {
         return ChangeSetVisitor.Direction.FORWARD;
@@ -93,9 +142,11 @@ public class ValidatingVisitor implements ChangeSetVisitor {
         boolean ran = ranChangeSet != null;
         changeSet.setStoredCheckSum(ran?ranChangeSet.getLastCheckSum():null);
         boolean shouldValidate = !ran || changeSet.shouldRunOnChange() || changeSet.shouldAlwaysRun();
-        for (Change change : changeSet.getChanges()) {
+        //changes of ran change sets are only checked if they are already loaded, the checksum is enough otherwise
+        List<Change> changes = (shouldValidate || !changeSet.hasDeferredChanges()) ? changeSet.getChanges() : Collections.<Change>emptyList();
+        for (Change change : changes) {
             try {
-                change.finishInitialization();
+                changeSet.finishInitialization(change);
             } catch (SetupException se) {
                 setupExceptions.add(se);
             }
@@ -23,6 +23,14 @@ public class GlobalConfiguration extends AbstractConfigurationContainer {
     public static final String GENERATED_CHANGESET_IDS_INCLUDE_DESCRIPTION = "generatedChangeSetIdsContainsDescription";
     public static final String INCLUDE_CATALOG_IN_SPECIFICATION = "includeCatalogInSpecification";
     public static final String SHOULD_SNAPSHOT_DATA = "shouldSnapshotData";
+    public static final String DATABASECHANGELOG_COMMIT_BATCH_SIZE = "databaseChangeLogCommitBatchSize";
+    public static final String DATABASECHANGELOG_COMMIT_INTERVAL = "databaseChangeLogCommitInterval";
+    public static final String DATABASECHANGELOG_CACHE_DIRECTORY = "databaseChangeLogCacheDirectory";
+    public static final String CHECKSUM_CACHE_DIRECTORY = "checksumCacheDirectory";
+    public static final String CHECKSUM_THREADS = "checksumThreads";
+    public static final String CACHE_GENERATED_SQL = "cacheGeneratedSql";
+    public static final String PIPELINE_CHANGESET_STATEMENTS = "pipelineChangeSetStatements";
+    public static final String PREPARED_STATEMENT_CACHE_SIZE = "preparedStatementCacheSize";
 
     public GlobalConfiguration() {
         super("liquibase");
@@ -100,6 +108,49 @@ public class GlobalConfiguration extends AbstractConfigurationContainer {
         getContainer().addProperty(SHOULD_SNAPSHOT_DATA, Boolean.class)
                 .setDescription("Should Liquibase snapshot data by default?")
                 .setDefaultValue(false);
+
+        getContainer().addProperty(DATABASECHANGELOG_COMMIT_BATCH_SIZE, Integer.class)
+                .setDescription("Number of change sets run in a transaction to commit together with their " +
+                        "DATABASECHANGELOG rows, which are written as a single batch. The default of 1 commits each " +
+                        "change set and its row as it completes. With a larger value a failing change set rolls back " +
+                        "the uncommitted change sets before it, which run again on the next update. Only used on " +
+                        "databases that can run DDL in a transaction")
+                .setDefaultValue(1);
+
+        getContainer().addProperty(DATABASECHANGELOG_COMMIT_INTERVAL, Long.class)
+                .setDescription("Number of milliseconds after which buffered DATABASECHANGELOG rows are written. It is " +
+                        "checked before and after each change set, so a long running change set can hold rows back for " +
+                        "its duration. Only used when " + DATABASECHANGELOG_COMMIT_BATCH_SIZE + " is greater than 1")
+                .setDefaultValue(1000);
+
+        getContainer().addProperty(DATABASECHANGELOG_CACHE_DIRECTORY, String.class)
+                .setDescription("Local directory to cache DATABASECHANGELOG rows in so only new rows are read on startup. " +
+                        "Caching is disabled if not set");
+
+        getContainer().addProperty(CHECKSUM_CACHE_DIRECTORY, String.class)
+                .setDescription("Local directory to cache change set checksums in so change sets with unchanged sources " +
+                        "are not re-serialized. Caching is disabled if not set");
+
+        getContainer().addProperty(CHECKSUM_THREADS, Integer.class)
+                .setDescription("Number of threads used to compute change set checksums before validation. " +
+                        "1 computes them one at a time while validating")
+                .setDefaultValue(1);
+
+        getContainer().addProperty(CACHE_GENERATED_SQL, Boolean.class)
+                .setDescription("Should the statements and SQL generated for a change be reused for the rest of the run " +
+                        "instead of being generated again for validation, logging and execution")
+                .setDefaultValue(true);
+
+        getContainer().addProperty(PIPELINE_CHANGESET_STATEMENTS, Boolean.class)
+                .setDescription("Should consecutive insert, update and delete changes of a change set be sent to the " +
+                        "database as JDBC batches. Errors are reported when the batch runs rather than per statement")
+                .setDefaultValue(false);
+
+        getContainer().addProperty(PREPARED_STATEMENT_CACHE_SIZE, Integer.class)
+                .setDescription("Number of prepared statements for inserts and updates with parameters to keep open " +
+                        "for reuse within a change set. 0 prepares each statement again. Not used when the JDBC " +
+                        "driver caches statements itself, which includes PostgreSQL unless prepareThreshold=0")
+                .setDefaultValue(20);
     }
 
     /**
@@ -264,4 +315,94 @@ public class GlobalConfiguration extends AbstractConfigurationContainer {
         getContainer().setValue(GENERATED_CHANGESET_IDS_INCLUDE_DESCRIPTION, containDescription);
         return this;
     }
+
+    /**
+     * Number of change sets to commit together with their DATABASECHANGELOG rows.
+     * <p>
+     * With values above 1, change sets that run in a transaction leave it open and their rows are buffered. The
+     * change sets and their rows are then committed together, so a change set is never committed without its row. If a
+     * change set fails or the process dies, the uncommitted change sets before it are rolled back and run again on the
+     * next update. Only databases that can run DDL in a transaction buffer rows. Pending change sets are committed
+     * before a change set that does not run in a transaction or has preconditions, and when the update ends. Change
+     * sets run on worker connections by {@link liquibase.changelog.ParallelUpdateRunner} are committed on their own
+     * and their rows are written immediately.
+     */
+    public Integer getDatabaseChangeLogCommitBatchSize() {
+        return getContainer().getValue(DATABASECHANGELOG_COMMIT_BATCH_SIZE, Integer.class);
+    }
+
+    public GlobalConfiguration setDatabaseChangeLogCommitBatchSize(Integer batchSize) {
+        getContainer().setValue(DATABASECHANGELOG_COMMIT_BATCH_SIZE, batchSize);
+        return this;
+    }
+
+    /**
+     * Time (in milliseconds) after which buffered DATABASECHANGELOG rows are written. The interval is checked before
+     * and after each change set, not while one runs, so rows can be buffered for longer while a slow change set runs.
+     */
+    public Long getDatabaseChangeLogCommitInterval() {
+        return getContainer().getValue(DATABASECHANGELOG_COMMIT_INTERVAL, Long.class);
+    }
+
+    public GlobalConfiguration setDatabaseChangeLogCommitInterval(Long milliseconds) {
+        getContainer().setValue(DATABASECHANGELOG_COMMIT_INTERVAL, milliseconds);
+        return this;
+    }
+
+    /**
+     * Local directory used to cache DATABASECHANGELOG contents. Returns null if caching is disabled.
+     */
+    public String getDatabaseChangeLogCacheDirectory() {
+        return getContainer().getValue(DATABASECHANGELOG_CACHE_DIRECTORY, String.class);
+    }
+
+    public GlobalConfiguration setDatabaseChangeLogCacheDirectory(String directory) {
+        getContainer().setValue(DATABASECHANGELOG_CACHE_DIRECTORY, directory);
+        return this;
+    }
+
+    public String getChecksumCacheDirectory() {
+        return getContainer().getValue(CHECKSUM_CACHE_DIRECTORY, String.class);
+    }
+
+    public GlobalConfiguration setChecksumCacheDirectory(String directory) {
+        getContainer().setValue(CHECKSUM_CACHE_DIRECTORY, directory);
+        return this;
+    }
+
+    public Integer getChecksumThreads() {
+        return getContainer().getValue(CHECKSUM_THREADS, Integer.class);
+    }
+
+    public GlobalConfiguration setChecksumThreads(Integer threads) {
+        getContainer().setValue(CHECKSUM_THREADS, threads);
+        return this;
+    }
+
+    public boolean getCacheGeneratedSql() {
+        return getContainer().getValue(CACHE_GENERATED_SQL, Boolean.class);
+    }
+
+    public GlobalConfiguration setCacheGeneratedSql(boolean cacheGeneratedSql) {
+        getContainer().setValue(CACHE_GENERATED_SQL, cacheGeneratedSql);
+        return this;
+    }
+
+    public boolean getPipelineChangeSetStatements() {
+        return getContainer().getValue(PIPELINE_CHANGESET_STATEMENTS, Boolean.class);
+    }
+
+    public GlobalConfiguration setPipelineChangeSetStatements(boolean pipelineChangeSetStatements) {
+        getContainer().setValue(PIPELINE_CHANGESET_STATEMENTS, pipelineChangeSetStatements);
+        return this;
+    }
+
+    public Integer getPreparedStatementCacheSize() {
+        return getContainer().getValue(PREPARED_STATEMENT_CACHE_SIZE, Integer.class);
+    }
+
+    public GlobalConfiguration setPreparedStatementCacheSize(Integer preparedStatementCacheSize) {
+        getContainer().setValue(PREPARED_STATEMENT_CACHE_SIZE, preparedStatementCacheSize);
+        return this;
+    }
 }
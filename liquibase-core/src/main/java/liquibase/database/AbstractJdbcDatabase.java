@@ -7,6 +7,7 @@ import liquibase.change.core.DropTableChange;
 import liquibase.changelog.ChangeLogHistoryServiceFactory;
 import liquibase.changelog.ChangeSet;
 import liquibase.changelog.DatabaseChangeLog;
+import liquibase.changelog.GeneratedSqlCache;
 import liquibase.changelog.RanChangeSet;
 import liquibase.changelog.StandardChangeLogHistoryService;
 import liquibase.configuration.ConfigurationProperty;
@@ -30,7 +31,9 @@ import liquibase.exception.DateParseException;
 import liquibase.exception.LiquibaseException;
 import liquibase.exception.UnexpectedLiquibaseException;
 import liquibase.exception.ValidationErrors;
+import liquibase.executor.Executor;
 import liquibase.executor.ExecutorService;
+import liquibase.executor.jvm.JdbcExecutor;
 import liquibase.lockservice.LockServiceFactory;
 import liquibase.snapshot.DatabaseSnapshot;
 import liquibase.snapshot.EmptyDatabaseSnapshot;
@@ -1189,7 +1192,14 @@ public abstract class AbstractJdbcDatabase implements Database {
 
     @Override
     public void close() throws DatabaseException {
-        Scope.getCurrentScope().getSingleton(ExecutorService.class).clearExecutor("jdbc", this);
+        ExecutorService executorService = Scope.getCurrentScope().getSingleton(ExecutorService.class);
+        if (executorService.executorExists("jdbc", this)) {
+            Executor executor = executorService.getExecutor("jdbc", this);
+            if (executor instanceof JdbcExecutor) {
+                ((JdbcExecutor) executor).closePreparedStatements();
+            }
+        }
+        executorService.clearExecutor("jdbc", this);
         DatabaseConnection connection = getConnection();
         if (connection != null) {
             if (previousAutoCommit != null) {
@@ -1249,7 +1259,7 @@ public abstract class AbstractJdbcDatabase implements Database {
 
     @Override
     public void executeStatements(final Change change, final DatabaseChangeLog changeLog, final List<SqlVisitor> sqlVisitors) throws LiquibaseException {
-        SqlStatement[] statements = change.generateStatements(this);
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(change, this);
 
         execute(statements, sqlVisitors);
     }
@@ -1283,7 +1293,7 @@ public abstract class AbstractJdbcDatabase implements Database {
     @Override
     public void saveStatements(final Change change, final List<SqlVisitor> sqlVisitors, final Writer writer) throws
         IOException {
-        SqlStatement[] statements = change.generateStatements(this);
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(change, this);
         for (SqlStatement statement : statements) {
             for (Sql sql : SqlGeneratorFactory.getInstance().generateSql(statement, this)) {
                 writer.append(sql.toSql()).append(sql.getEndDelimiter()).append(StreamUtil.getLineSeparator()).append(StreamUtil.getLineSeparator());
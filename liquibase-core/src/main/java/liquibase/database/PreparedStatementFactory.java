@@ -1,25 +1,71 @@
 package liquibase.database;
 
+import liquibase.Scope;
 import liquibase.database.jvm.JdbcConnection;
 import liquibase.exception.DatabaseException;
+import liquibase.util.JdbcUtils;
 
+import java.lang.reflect.Method;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Factory for PreparedStatements
+ * <p>
+ * If created with a cache size, statements from {@link #createReusable(String)} are kept open and returned again for
+ * the same SQL, evicting the least recently used statement once the cache is full. The cache is not used when the
+ * driver already caches statements per connection, since keeping them open then saves nothing. This is the case with
+ * the default settings of the PostgreSQL driver, see {@link #driverCachesStatements()}.
  */
 public final class PreparedStatementFactory {
 
+    /**
+     * Embedded databases that cache compiled statements in the engine and have no round trip to save.
+     */
+    private static final Set<String> SELF_CACHING_PRODUCTS = new HashSet<>(Arrays.asList("Apache Derby", "H2", "HSQL Database Engine"));
+
     private final JdbcConnection con;
+    private final Map<String, PreparedStatement> cache;
+    private final Set<PreparedStatement> cachedStatements = Collections.newSetFromMap(new IdentityHashMap<PreparedStatement, Boolean>());
 
     public PreparedStatementFactory(JdbcConnection con) {
+        this(con, 0);
+    }
+
+    /**
+     * @param cacheSize the number of statements to keep open for reuse, 0 to not cache them
+     */
+    public PreparedStatementFactory(JdbcConnection con, final int cacheSize) {
         if(con == null) throw new IllegalArgumentException("connection must not be null");
         this.con = con;
+        this.cache = ((cacheSize > 0) && !driverCachesStatements()) ? new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > cacheSize) {
+                    cachedStatements.remove(eldest.getValue());
+                    JdbcUtils.closeStatement(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        } : null;
+    }
+
+    public JdbcConnection getConnection() {
+        return con;
     }
 
     /**
      * Create a <code>PreparedStatement</code> object,
-     * sql pre-compilation might take place, depending on driver support. 
+     * sql pre-compilation might take place, depending on driver support.
      * @param sql to execute
      * @return a <code>PreparedStatement</code> object
      * @throws DatabaseException
@@ -28,6 +74,101 @@ public final class PreparedStatementFactory {
         return con.prepareStatement(sql);
     }
 
+    /**
+     * Like {@link #create(String)}, but returns the cached statement for the same SQL if there is one, with its
+     * parameters cleared. The statement must be passed to {@link #release(PreparedStatement)} instead of being closed.
+     */
+    public PreparedStatement createReusable(String sql) throws DatabaseException {
+        if (cache == null) {
+            return create(sql);
+        }
+        PreparedStatement stmt = cache.get(sql);
+        try {
+            if ((stmt != null) && !stmt.isClosed()) {
+                stmt.clearParameters();
+                return stmt;
+            }
+        } catch (SQLException e) {
+            JdbcUtils.closeStatement(stmt);
+        }
+        if (stmt != null) {
+            cachedStatements.remove(stmt);
+            cache.remove(sql);
+        }
+
+        stmt = create(sql);
+        cache.put(sql, stmt);
+        cachedStatements.add(stmt);
+        return stmt;
+    }
+
+    /**
+     * Closes the statement, unless it is kept in the cache.
+     */
+    public void release(PreparedStatement stmt) {
+        if (!cachedStatements.contains(stmt)) {
+            JdbcUtils.closeStatement(stmt);
+        }
+    }
+
+    /**
+     * Closes all cached statements.
+     */
+    public void close() {
+        if (cache == null) {
+            return;
+        }
+        for (PreparedStatement stmt : cache.values()) {
+            JdbcUtils.closeStatement(stmt);
+        }
+        cache.clear();
+        cachedStatements.clear();
+    }
+
+    /**
+     * Returns true for embedded databases that cache compiled statements themselves and for drivers configured to
+     * keep statements for reuse: Oracle implicit statement caching, MySQL Connector/J "cachePrepStmts", Microsoft
+     * statement pooling and PostgreSQL server-side prepared statements.
+     * <p>
+     * The PostgreSQL driver prepares statements on the server once they have run "prepareThreshold" times, 5 by
+     * default, and keeps them in a per-connection cache keyed by SQL. So the cache is only used with PostgreSQL when
+     * the connection sets prepareThreshold=0, which disables server-side prepared statements.
+     */
+    private boolean driverCachesStatements() {
+        try {
+            if (SELF_CACHING_PRODUCTS.contains(con.getDatabaseProductName())) {
+                return true;
+            }
+        } catch (DatabaseException e) {
+            return true;
+        }
+
+        Connection connection = con.getUnderlyingConnection();
+        if (connection == null) {
+            return true;
+        }
+        for (String methodName : new String[] {"getImplicitCachingEnabled", "getCachePreparedStatements", "isStatementPoolingEnabled"}) {
+            Object value = invoke(connection, methodName);
+            if (Boolean.TRUE.equals(value)) {
+                return true;
+            }
+        }
+        Object prepareThreshold = invoke(connection, "getPrepareThreshold");
+        return (prepareThreshold instanceof Integer) && ((Integer) prepareThreshold > 0);
+    }
+
+    private Object invoke(Connection connection, String methodName) {
+        try {
+            Method method = connection.getClass().getMethod(methodName);
+            return method.invoke(connection);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            Scope.getCurrentScope().getLog(getClass()).fine("Cannot call " + methodName + " on " + connection.getClass().getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     public String toString() {
         return "[con: " + con.toString() + "]";
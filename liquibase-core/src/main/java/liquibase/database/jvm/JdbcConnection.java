@@ -10,14 +10,30 @@ import java.sql.*;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A ConnectionWrapper implementation which delegates completely to an
  * underlying java.sql.connection.
+ * <p>
+ * The product name and version, URL, user name, catalog and batch update support are read from the connection once
+ * and cached until {@link #clearMetaDataCache()} is called, since some drivers make a round trip to the server for
+ * each of them.
+ * The catalog is also read again after {@link #setCatalog(String)}.
  */
 public class JdbcConnection implements DatabaseConnection {
     private java.sql.Connection con;
 
+    private final AtomicLong avoidedMetaDataCalls = new AtomicLong();
+    private final CachedValue<String> databaseProductName = new CachedValue<>(() -> con.getMetaData().getDatabaseProductName());
+    private final CachedValue<String> databaseProductVersion = new CachedValue<>(() -> con.getMetaData().getDatabaseProductVersion());
+    private final CachedValue<Integer> databaseMajorVersion = new CachedValue<>(() -> con.getMetaData().getDatabaseMajorVersion());
+    private final CachedValue<Integer> databaseMinorVersion = new CachedValue<>(() -> con.getMetaData().getDatabaseMinorVersion());
+    private final CachedValue<String> url = new CachedValue<>(() -> con.getMetaData().getURL());
+    private final CachedValue<String> connectionUserName = new CachedValue<>(() -> con.getMetaData().getUserName());
+    private final CachedValue<String> catalog = new CachedValue<>(() -> con.getCatalog());
+    private final CachedValue<Boolean> supportsBatchUpdates = new CachedValue<>(() -> con.getMetaData().supportsBatchUpdates());
+
     public JdbcConnection() {
 
     }
@@ -35,6 +51,7 @@ public class JdbcConnection implements DatabaseConnection {
     public void open(String url, Driver driverObject, Properties driverProperties) throws DatabaseException {
         try {
             this.con = driverObject.connect(url, driverProperties);
+            clearMetaDataCache();
             if (this.con == null) {
                 throw new DatabaseException("Connection could not be created to " + url + " with driver " + driverObject.getClass().getName() + ".  Possibly the wrong driver for the given database URL");
             }
@@ -58,7 +75,7 @@ public class JdbcConnection implements DatabaseConnection {
     @Override
     public String getDatabaseProductName() throws DatabaseException {
         try {
-            return con.getMetaData().getDatabaseProductName();
+            return databaseProductName.get();
         } catch (SQLException e) {
             throw new DatabaseException(e);
         }
@@ -67,7 +84,7 @@ public class JdbcConnection implements DatabaseConnection {
     @Override
     public String getDatabaseProductVersion() throws DatabaseException {
         try {
-            return con.getMetaData().getDatabaseProductVersion();
+            return databaseProductVersion.get();
         } catch (SQLException e) {
             throw new DatabaseException(e);
         }
@@ -76,7 +93,7 @@ public class JdbcConnection implements DatabaseConnection {
     @Override
     public int getDatabaseMajorVersion() throws DatabaseException {
         try {
-            return con.getMetaData().getDatabaseMajorVersion();
+            return databaseMajorVersion.get();
         } catch (SQLException e) {
             throw new DatabaseException(e);
         }
@@ -85,7 +102,7 @@ public class JdbcConnection implements DatabaseConnection {
     @Override
     public int getDatabaseMinorVersion() throws DatabaseException {
         try {
-            return con.getMetaData().getDatabaseMinorVersion();
+            return databaseMinorVersion.get();
         } catch (SQLException e) {
             throw new DatabaseException(e);
         }
@@ -94,7 +111,7 @@ public class JdbcConnection implements DatabaseConnection {
     @Override
     public String getURL() {
         try {
-            return con.getMetaData().getURL();
+            return url.get();
         } catch (SQLException e) {
             throw new UnexpectedLiquibaseException(e);
         }
@@ -103,12 +120,33 @@ public class JdbcConnection implements DatabaseConnection {
     @Override
     public String getConnectionUserName() {
         try {
-            return con.getMetaData().getUserName();
+            return connectionUserName.get();
         } catch (SQLException e) {
             throw new UnexpectedLiquibaseException(e);
         }
     }
 
+    /**
+     * Forgets the cached metadata, so it is read from the connection again the next time it is needed.
+     */
+    public void clearMetaDataCache() {
+        databaseProductName.clear();
+        databaseProductVersion.clear();
+        databaseMajorVersion.clear();
+        databaseMinorVersion.clear();
+        url.clear();
+        connectionUserName.clear();
+        catalog.clear();
+        supportsBatchUpdates.clear();
+    }
+
+    /**
+     * Returns the number of times cached metadata was returned instead of asking the connection.
+     */
+    public long getAvoidedMetaDataCalls() {
+        return avoidedMetaDataCalls.get();
+    }
+
     /**
      * Returns the connection that this Delegate is using.
      *
@@ -128,6 +166,7 @@ public class JdbcConnection implements DatabaseConnection {
 
     @Override
     public void close() throws DatabaseException {
+        Scope.getCurrentScope().getLog(getClass()).fine("Avoided " + avoidedMetaDataCalls.get() + " metadata calls on the connection");
         rollback();
         try {
             con.close();
@@ -187,7 +226,7 @@ public class JdbcConnection implements DatabaseConnection {
     @Override
     public String getCatalog() throws DatabaseException {
         try {
-            return con.getCatalog();
+            return catalog.get();
         } catch (SQLException e) {
             throw new DatabaseException(e);
         }
@@ -388,6 +427,7 @@ public class JdbcConnection implements DatabaseConnection {
     public void setCatalog(String catalog) throws DatabaseException {
         try {
             con.setCatalog(catalog);
+            this.catalog.clear();
         } catch (SQLException e) {
             throw new DatabaseException(e);
         }
@@ -474,9 +514,41 @@ public class JdbcConnection implements DatabaseConnection {
 
     public boolean supportsBatchUpdates() throws DatabaseException {
         try {
-            return getUnderlyingConnection().getMetaData().supportsBatchUpdates();
+            return supportsBatchUpdates.get();
         } catch (SQLException e) {
             throw new DatabaseException("Asking the JDBC driver if it supports batched updates has failed.", e);
         }
     }
+
+    private interface MetaDataCall<T> {
+        T call() throws SQLException;
+    }
+
+    /**
+     * A value read from the connection on first use. A null value is cached as well.
+     */
+    private final class CachedValue<T> {
+        private final MetaDataCall<T> call;
+        private volatile boolean loaded;
+        private volatile T value;
+
+        private CachedValue(MetaDataCall<T> call) {
+            this.call = call;
+        }
+
+        private T get() throws SQLException {
+            if (loaded) {
+                avoidedMetaDataCalls.incrementAndGet();
+                return value;
+            }
+            T value = call.call();
+            this.value = value;
+            this.loaded = true;
+            return value;
+        }
+
+        private void clear() {
+            loaded = false;
+        }
+    }
 }
@@ -20,7 +20,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class DataTypeFactory {
 
-    private static DataTypeFactory instance;
+    private static volatile DataTypeFactory instance;
 
     private Map<String, List<Class<? extends LiquibaseDataType>>> registry = new ConcurrentHashMap<>();
 
@@ -45,11 +45,18 @@ public class DataTypeFactory {
      * Get this factory singleton
      * @return a reference to this factory
      */
-    public static synchronized DataTypeFactory getInstance() {
-        if (instance == null) {
-            instance = new DataTypeFactory();
+    public static DataTypeFactory getInstance() {
+        DataTypeFactory factory = instance;
+        if (factory == null) {
+            synchronized (DataTypeFactory.class) {
+                factory = instance;
+                if (factory == null) {
+                    factory = new DataTypeFactory();
+                    instance = factory;
+                }
+            }
         }
-        return instance;
+        return factory;
     }
 
     /**
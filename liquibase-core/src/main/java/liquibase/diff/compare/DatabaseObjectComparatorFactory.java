@@ -10,15 +10,17 @@ import liquibase.structure.core.Schema;
 import liquibase.util.StringUtil;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DatabaseObjectComparatorFactory {
 
-    private static DatabaseObjectComparatorFactory instance;
+    private static volatile DatabaseObjectComparatorFactory instance;
 
-    private List<DatabaseObjectComparator> comparators = new ArrayList<>();
+    private List<DatabaseObjectComparator> comparators = new CopyOnWriteArrayList<>();
 
-    private Map<String, List<DatabaseObjectComparator>> validComparatorsByClassAndDatabase = new HashMap<>();
-    private Map<String, DatabaseObjectComparatorChain> comparatorChainsByClassAndDatabase = new HashMap<>();
+    private Map<String, List<DatabaseObjectComparator>> validComparatorsByClassAndDatabase = new ConcurrentHashMap<>();
+    private Map<String, DatabaseObjectComparatorChain> comparatorChainsByClassAndDatabase = new ConcurrentHashMap<>();
 
     private DatabaseObjectComparatorFactory() {
         try {
@@ -35,11 +37,18 @@ public class DatabaseObjectComparatorFactory {
     /**
      * Return singleton DatabaseObjectComparatorFactory
      */
-    public static synchronized DatabaseObjectComparatorFactory getInstance() {
-        if (instance == null) {
-            instance = new DatabaseObjectComparatorFactory();
+    public static DatabaseObjectComparatorFactory getInstance() {
+        DatabaseObjectComparatorFactory factory = instance;
+        if (factory == null) {
+            synchronized (DatabaseObjectComparatorFactory.class) {
+                factory = instance;
+                if (factory == null) {
+                    factory = new DatabaseObjectComparatorFactory();
+                    instance = factory;
+                }
+            }
         }
-        return instance;
+        return factory;
     }
 
     public static synchronized void reset() {
@@ -71,8 +80,9 @@ public class DatabaseObjectComparatorFactory {
 
     protected List<DatabaseObjectComparator> getComparators(Class<? extends DatabaseObject> comparatorClass, Database database) {
         String key = comparatorClass.getName()+":"+database.getShortName();
-        if (validComparatorsByClassAndDatabase.containsKey(key)) {
-            return validComparatorsByClassAndDatabase.get(key);
+        List<DatabaseObjectComparator> cached = validComparatorsByClassAndDatabase.get(key);
+        if (cached != null) {
+            return cached;
         }
 
         List<DatabaseObjectComparator> validComparators = new ArrayList<>();
@@ -170,8 +180,9 @@ public class DatabaseObjectComparatorFactory {
     private DatabaseObjectComparatorChain createComparatorChain(Class<? extends DatabaseObject> databaseObjectType, CompareControl.SchemaComparison[] schemaComparisons, Database database) {
         String key = databaseObjectType.getName()+":"+database.getShortName();
 
-        if (comparatorChainsByClassAndDatabase.containsKey(key)) {
-            DatabaseObjectComparatorChain copy = comparatorChainsByClassAndDatabase.get(key).copy();
+        DatabaseObjectComparatorChain cached = comparatorChainsByClassAndDatabase.get(key);
+        if (cached != null) {
+            DatabaseObjectComparatorChain copy = cached.copy();
             copy.setSchemaComparisons(schemaComparisons);
             return copy;
         }
@@ -3,6 +3,7 @@ package liquibase.executor;
 import liquibase.change.AbstractSQLChange;
 import liquibase.change.Change;
 import liquibase.changelog.ChangeSet;
+import liquibase.changelog.GeneratedSqlCache;
 import liquibase.database.Database;
 import liquibase.exception.DatabaseException;
 import liquibase.exception.ValidationErrors;
@@ -130,7 +131,7 @@ public abstract class AbstractExecutor implements Executor {
 
     @Override
     public void execute(Change change, List<SqlVisitor> sqlVisitors) throws DatabaseException {
-        SqlStatement[] sqlStatements = change.generateStatements(database);
+        SqlStatement[] sqlStatements = GeneratedSqlCache.generateStatements(change, database);
         if (sqlStatements != null) {
             for (SqlStatement statement : sqlStatements) {
                 execute(statement, sqlVisitors);
@@ -9,10 +9,11 @@ import liquibase.plugin.Plugin;
 import liquibase.servicelocator.ServiceLocator;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ExecutorService extends AbstractPluginFactory<Executor>  {
 
-    private Map<String, Executor> executors = new HashMap<>();
+    private Map<String, Executor> executors = new ConcurrentHashMap<>();
 
     private ExecutorService() {
     }
@@ -122,6 +123,14 @@ public class ExecutorService extends AbstractPluginFactory<Executor>  {
         executors.remove(createKey(name, database));
     }
 
+    /**
+     * Removes the executors of the given database, leaving the executors of other databases alone.
+     */
+    public void clearExecutors(Database database) {
+        String suffix = "#" + System.identityHashCode(database);
+        executors.keySet().removeIf(key -> key.endsWith(suffix));
+    }
+
     public void reset() {
         executors.clear();
     }
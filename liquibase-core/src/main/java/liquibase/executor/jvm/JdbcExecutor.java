@@ -1,6 +1,9 @@
 package liquibase.executor.jvm;
 
 import liquibase.Scope;
+import liquibase.change.Change;
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
 import liquibase.database.DatabaseConnection;
 import liquibase.database.OfflineConnection;
 import liquibase.database.PreparedStatementFactory;
@@ -20,10 +23,15 @@ import liquibase.statement.CallableSqlStatement;
 import liquibase.statement.CompoundStatement;
 import liquibase.statement.ExecutablePreparedStatement;
 import liquibase.statement.SqlStatement;
+import liquibase.statement.core.DeleteStatement;
 import liquibase.statement.core.DropTableStatement;
+import liquibase.statement.core.InsertSetStatement;
+import liquibase.statement.core.InsertStatement;
+import liquibase.statement.core.UpdateStatement;
 import liquibase.util.JdbcUtils;
 import liquibase.util.StringUtil;
 
+import java.sql.BatchUpdateException;
 import java.sql.CallableStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -39,6 +47,12 @@ import java.util.Map;
  */
 public class JdbcExecutor extends AbstractExecutor {
 
+    private static final int MAX_PIPELINED_STATEMENTS = 1000;
+
+    private List<PipelinedSql> pipeline;
+    private Change pipelinedChange;
+    private PreparedStatementFactory preparedStatementFactory;
+
     /**
      *
      * Return the name of the Executor
@@ -69,6 +83,7 @@ public class JdbcExecutor extends AbstractExecutor {
     }
 
     public Object execute(StatementCallback action, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        flushPipeline();
         Scope.getCurrentScope().getLog(getClass()).fine("Executing with the '" + getName() + "' executor");
         DatabaseConnection con = database.getConnection();
         Statement stmt = null;
@@ -104,6 +119,7 @@ public class JdbcExecutor extends AbstractExecutor {
     // the query is composed.
     @SuppressWarnings("squid:S2077")
     public Object execute(CallableStatementCallback action, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        flushPipeline();
         DatabaseConnection con = database.getConnection();
 
         if (con instanceof OfflineConnection) {
@@ -136,8 +152,14 @@ public class JdbcExecutor extends AbstractExecutor {
 
     @Override
     public void execute(final SqlStatement sql, final List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        if (pipeline != null) {
+            if (addToPipeline(sql, sqlVisitors)) {
+                return;
+            }
+            flushPipeline();
+        }
         if(sql instanceof ExecutablePreparedStatement) {
-            ((ExecutablePreparedStatement) sql).execute(new PreparedStatementFactory((JdbcConnection)database.getConnection()));
+            ((ExecutablePreparedStatement) sql).execute(getPreparedStatementFactory());
             return;
         }
         if (sql instanceof CompoundStatement) {
@@ -155,6 +177,140 @@ public class JdbcExecutor extends AbstractExecutor {
         }
     }
 
+    /**
+     * Executes the given non-query statements as a single JDBC batch.
+     * Falls back to executing them one at a time if the database does not support batch updates. Statements containing
+     * a question mark are run on their own with escape processing turned off, as {@link #execute(SqlStatement)} does,
+     * splitting the batch around them.
+     */
+    public void executeBatch(final List<? extends SqlStatement> statements) throws DatabaseException {
+        if (statements.isEmpty()) {
+            return;
+        }
+        if (!database.supportsBatchUpdates()) {
+            for (SqlStatement statement : statements) {
+                execute(statement);
+            }
+            return;
+        }
+        execute(new BatchStatementCallback(statements), new ArrayList<SqlVisitor>());
+    }
+
+    /**
+     * Returns the factory for the current connection, which keeps prepared statements open for reuse until
+     * {@link #closePreparedStatements()} is called.
+     */
+    private PreparedStatementFactory getPreparedStatementFactory() {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        if ((preparedStatementFactory == null) || (preparedStatementFactory.getConnection() != connection)) {
+            closePreparedStatements();
+            Integer cacheSize = LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getPreparedStatementCacheSize();
+            preparedStatementFactory = new PreparedStatementFactory(connection, (cacheSize == null) ? 0 : cacheSize);
+        }
+        return preparedStatementFactory;
+    }
+
+    /**
+     * Closes the prepared statements kept open for reuse.
+     */
+    public void closePreparedStatements() {
+        if (preparedStatementFactory != null) {
+            preparedStatementFactory.close();
+            preparedStatementFactory = null;
+        }
+    }
+
+    /**
+     * Starts collecting the SQL of consecutive inserts, updates and deletes passed to
+     * {@link #execute(SqlStatement, List)} and executing it as JDBC batches, if the database supports batch updates.
+     * Any other statement, query or update first executes the collected SQL, so statements still run in order.
+     * The caller must call {@link #flushPipeline()} before committing and {@link #endPipeline()} when done.
+     */
+    public void startPipeline() throws DatabaseException {
+        if (database.supportsBatchUpdates()) {
+            pipeline = new ArrayList<>();
+        }
+    }
+
+    public boolean isPipelining() {
+        return pipeline != null;
+    }
+
+    /**
+     * Returns true if statements have been collected that {@link #flushPipeline()} has not executed yet.
+     */
+    public boolean hasPipelinedStatements() {
+        return (pipeline != null) && !pipeline.isEmpty();
+    }
+
+    /**
+     * Sets the change the statements executed next belong to, so a failed batch is reported against it.
+     */
+    public void setPipelinedChange(Change change) {
+        this.pipelinedChange = change;
+    }
+
+    /**
+     * Executes the SQL collected since the last flush as one batch.
+     */
+    public void flushPipeline() throws DatabaseException {
+        if ((pipeline == null) || pipeline.isEmpty()) {
+            return;
+        }
+        List<PipelinedSql> pipelined = new ArrayList<>(pipeline);
+        pipeline.clear();
+        execute(new PipelineStatementCallback(pipelined), new ArrayList<SqlVisitor>());
+    }
+
+    /**
+     * Stops collecting statements. SQL collected since the last flush is discarded, as after a failure the
+     * transaction is rolled back anyway.
+     */
+    public void endPipeline() {
+        pipeline = null;
+        pipelinedChange = null;
+    }
+
+    /**
+     * Adds the SQL of the statement to the pipeline, unless the statement cannot be batched.
+     */
+    private boolean addToPipeline(SqlStatement sql, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        if (!((sql instanceof InsertStatement) || (sql instanceof InsertSetStatement)
+                || (sql instanceof UpdateStatement) || (sql instanceof DeleteStatement)) || sql.continueOnError()) {
+            return false;
+        }
+        String[] sqlToExecute = applyVisitors(sql, sqlVisitors);
+        for (int i = 0; i < sqlToExecute.length; i++) {
+            if (sqlToExecute[i] == null) {
+                continue;
+            }
+            sqlToExecute[i] = removeTrailingSlashes(sqlToExecute[i]);
+            //the escape processing turned off for such statements applies to the whole batch
+            if (sqlToExecute[i].contains("?")) {
+                return false;
+            }
+        }
+
+        for (String statement : sqlToExecute) {
+            if (statement == null) {
+                continue;
+            }
+            pipeline.add(new PipelinedSql(statement, sql, pipelinedChange));
+        }
+        if (pipeline.size() >= MAX_PIPELINED_STATEMENTS) {
+            flushPipeline();
+        }
+        return true;
+    }
+
+    private String removeTrailingSlashes(String statement) {
+        if (database instanceof OracleDatabase) {
+            while (statement.matches("(?s).*[\\s\\r\\n]*[^*]/[\\s\\r\\n]*$")) { //all trailing /'s
+                statement = statement.replaceFirst("[\\s\\r\\n]*[^*]/[\\s\\r\\n]*$", "");
+            }
+        }
+        return statement;
+    }
 
     public Object query(final SqlStatement sql, final ResultSetExtractor rse) throws DatabaseException {
         return query(sql, rse, new ArrayList<SqlVisitor>());
@@ -176,6 +332,17 @@ public class JdbcExecutor extends AbstractExecutor {
         return (List) query(sql, new RowMapperResultSetExtractor(rowMapper), sqlVisitors);
     }
 
+    /**
+     * Passes each row of the result to the given {@link RowCallbackHandler} rather than collecting the rows in a list.
+     */
+    public void query(SqlStatement sql, RowCallbackHandler rch) throws DatabaseException {
+        query(sql, rch, new ArrayList<SqlVisitor>());
+    }
+
+    public void query(SqlStatement sql, RowCallbackHandler rch, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        query(sql, new RowCallbackHandlerResultSetExtractor(rch), sqlVisitors);
+    }
+
     public Object queryForObject(SqlStatement sql, RowMapper rowMapper) throws DatabaseException {
         return queryForObject(sql, rowMapper, new ArrayList());
     }
@@ -375,11 +542,7 @@ public class JdbcExecutor extends AbstractExecutor {
             Logger log = Scope.getCurrentScope().getLog(getClass());
 
             for (String statement : applyVisitors(sql, sqlVisitors)) {
-                if (database instanceof OracleDatabase) {
-                    while (statement.matches("(?s).*[\\s\\r\\n]*[^*]/[\\s\\r\\n]*$")) { //all trailing /'s
-                        statement = statement.replaceFirst("[\\s\\r\\n]*[^*]/[\\s\\r\\n]*$", "");
-                    }
-                }
+                statement = removeTrailingSlashes(statement);
 
                 for (SqlListener listener : Scope.getCurrentScope().getListeners(SqlListener.class)) {
                     listener.writeSqlWillRun(String.format("%s", statement));
@@ -421,6 +584,144 @@ public class JdbcExecutor extends AbstractExecutor {
         }
     }
 
+    private class BatchStatementCallback implements StatementCallback {
+
+        private final List<? extends SqlStatement> statements;
+
+        private BatchStatementCallback(List<? extends SqlStatement> statements) {
+            this.statements = statements;
+        }
+
+        @Override
+        public Object doInStatement(Statement stmt) throws SQLException, DatabaseException {
+            List<String> batch = new ArrayList<>();
+            for (SqlStatement sql : statements) {
+                for (String statement : applyVisitors(sql, null)) {
+                    if (statement == null) {
+                        continue;
+                    }
+                    statement = removeTrailingSlashes(statement);
+                    for (SqlListener listener : Scope.getCurrentScope().getListeners(SqlListener.class)) {
+                        listener.writeSqlWillRun(String.format("%s", statement));
+                    }
+                    if (statement.contains("?")) {
+                        //escape processing is set per statement object, so it cannot be turned off for part of a batch
+                        executeBatch(stmt, batch);
+                        stmt.setEscapeProcessing(false);
+                        try {
+                            stmt.execute(statement);
+                        } catch (Throwable e) {
+                            throw new DatabaseException(e.getMessage() + " [Failed SQL: " + getErrorCode(e) + statement + "]", e);
+                        } finally {
+                            stmt.setEscapeProcessing(true);
+                        }
+                        continue;
+                    }
+                    stmt.addBatch(statement);
+                    batch.add(statement);
+                }
+            }
+            executeBatch(stmt, batch);
+            return null;
+        }
+
+        private void executeBatch(Statement stmt, List<String> batch) throws DatabaseException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                int[] updateCounts = stmt.executeBatch();
+                Scope.getCurrentScope().getLog(getClass()).fine("Executed batch of " + updateCounts.length + " statement(s)");
+            } catch (Throwable e) {
+                throw new DatabaseException(e.getMessage() + " [Failed SQL: " + getErrorCode(e) + StringUtil.join(batch, "; ") + "]", e);
+            }
+            batch.clear();
+        }
+
+        @Override
+        public SqlStatement getStatement() {
+            return statements.get(0);
+        }
+    }
+
+    private class PipelineStatementCallback implements StatementCallback {
+
+        private final List<PipelinedSql> pipelined;
+
+        private PipelineStatementCallback(List<PipelinedSql> pipelined) {
+            this.pipelined = pipelined;
+        }
+
+        @Override
+        public Object doInStatement(Statement stmt) throws SQLException, DatabaseException {
+            for (PipelinedSql sql : pipelined) {
+                for (SqlListener listener : Scope.getCurrentScope().getListeners(SqlListener.class)) {
+                    listener.writeSqlWillRun(String.format("%s", sql.sql));
+                }
+                stmt.addBatch(sql.sql);
+            }
+            try {
+                int[] updateCounts = stmt.executeBatch();
+                Scope.getCurrentScope().getLog(getClass()).fine("Executed batch of " + updateCounts.length + " statement(s)");
+            } catch (BatchUpdateException e) {
+                PipelinedSql failed = getFailedSql(e);
+                if (failed == null) {
+                    throw new DatabaseException(e.getMessage() + " [Failed SQL: " + getErrorCode(e) + joinSql() + "]", e);
+                }
+                throw new DatabaseException(e.getMessage() + " [Failed SQL: " + getErrorCode(e) + failed.sql + "]"
+                        + ((failed.change == null) ? "" : (" in change " + failed.change.getDescription())), e);
+            } catch (Throwable e) {
+                throw new DatabaseException(e.getMessage() + " [Failed SQL: " + getErrorCode(e) + joinSql() + "]", e);
+            }
+            return null;
+        }
+
+        /**
+         * Drivers either stop at the first failure, returning the counts of the statements before it, or run the whole
+         * batch and mark the failed statements.
+         */
+        private PipelinedSql getFailedSql(BatchUpdateException e) {
+            int[] updateCounts = e.getUpdateCounts();
+            if (updateCounts == null) {
+                return null;
+            }
+            if (updateCounts.length < pipelined.size()) {
+                return pipelined.get(updateCounts.length);
+            }
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                    return pipelined.get(i);
+                }
+            }
+            return null;
+        }
+
+        private String joinSql() {
+            List<String> sql = new ArrayList<>();
+            for (PipelinedSql pipelinedSql : pipelined) {
+                sql.add(pipelinedSql.sql);
+            }
+            return StringUtil.join(sql, "; ");
+        }
+
+        @Override
+        public SqlStatement getStatement() {
+            return pipelined.get(0).statement;
+        }
+    }
+
+    private static class PipelinedSql {
+        private final String sql;
+        private final SqlStatement statement;
+        private final Change change;
+
+        private PipelinedSql(String sql, SqlStatement statement, Change change) {
+            this.sql = sql;
+            this.statement = statement;
+            this.change = change;
+        }
+    }
+
     private class QueryStatementCallback implements StatementCallback {
 
         private final SqlStatement sql;
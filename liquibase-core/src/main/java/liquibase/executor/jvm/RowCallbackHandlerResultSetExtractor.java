@@ -0,0 +1,27 @@
+package liquibase.executor.jvm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Adapter implementation of the ResultSetExtractor interface that delegates
+ * to a RowCallbackHandler for each row, without collecting any results.
+ *
+ * @see RowCallbackHandler
+ */
+class RowCallbackHandlerResultSetExtractor implements ResultSetExtractor {
+
+    private final RowCallbackHandler rowCallbackHandler;
+
+    RowCallbackHandlerResultSetExtractor(RowCallbackHandler rowCallbackHandler) {
+        this.rowCallbackHandler = rowCallbackHandler;
+    }
+
+    @Override
+    public Object extractData(ResultSet rs) throws SQLException {
+        while (rs.next()) {
+            this.rowCallbackHandler.processRow(rs);
+        }
+        return null;
+    }
+}
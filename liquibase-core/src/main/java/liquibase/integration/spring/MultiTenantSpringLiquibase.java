@@ -4,6 +4,8 @@
 package liquibase.integration.spring;
 
 import liquibase.Scope;
+import liquibase.ThreadLocalScopeManager;
+import liquibase.changelog.DatabaseChangeLog;
 import liquibase.exception.LiquibaseException;
 import liquibase.logging.Logger;
 import org.springframework.beans.factory.InitializingBean;
@@ -14,8 +16,14 @@ import javax.naming.*;
 import javax.sql.DataSource;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A wrapper of Liquibase suitable in multi-tenant environments where multiple
@@ -36,6 +44,11 @@ import java.util.Map;
  * &lt;/bean&gt;
  * </pre>
  * 
+ * Tenants are migrated one after the other unless {@link #setParallelism(int)} allows several at once. By default the
+ * first failure stops the migration, see {@link #setFailFast(boolean)}. The outcome and duration of every tenant is
+ * logged and available from {@link #getTenantResults()}. With {@link #setShareChangeLog(boolean)} the changelog is
+ * parsed once for all tenants.
+ * 
  * @see SpringLiquibase
  * 
  * @author ladislav.gazo
@@ -76,6 +89,14 @@ public class MultiTenantSpringLiquibase implements InitializingBean, ResourceLoa
     private boolean shouldRun = true;
 
     private File rollbackFile;
+
+	private int parallelism = 1;
+
+	private boolean failFast = true;
+
+	private boolean shareChangeLog;
+
+	private List<TenantResult> tenantResults = Collections.emptyList();
 	
 
 	@Override
@@ -131,33 +152,167 @@ public class MultiTenantSpringLiquibase implements InitializingBean, ResourceLoa
 	}
 
 	private void runOnAllDataSources() throws LiquibaseException {
-		Logger log = Scope.getCurrentScope().getLog(getClass());
-
+		List<Tenant> tenants = new ArrayList<>();
 		for(DataSource aDataSource : dataSources) {
-            log.info("Initializing Liquibase for data source " + aDataSource);
-            SpringLiquibase liquibase = getSpringLiquibase(aDataSource);
-			liquibase.afterPropertiesSet();
-            log.info("Liquibase ran for data source " + aDataSource);
-        }
+			tenants.add(new Tenant("data source " + aDataSource, getSpringLiquibase(aDataSource)));
+		}
+		runOnAllTenants(tenants);
 	}
 	
 	private void runOnAllSchemas() throws LiquibaseException {
-		Logger log = Scope.getCurrentScope().getLog(getClass());
-
+		List<Tenant> tenants = new ArrayList<>();
 		for(String schema : schemas) {
 			if("default".equals(schema)) {
 				schema = null;
 			}
-            log.info("Initializing Liquibase for schema " + schema);
-            SpringLiquibase liquibase = getSpringLiquibase(dataSource);
+			SpringLiquibase liquibase = getSpringLiquibase(dataSource);
 			liquibase.setDefaultSchema(schema);
-			liquibase.afterPropertiesSet();
-            log.info("Liquibase ran for schema " + schema);
-        }
+			tenants.add(new Tenant("schema " + schema, liquibase));
+		}
+		runOnAllTenants(tenants);
+	}
+
+	private void runOnAllTenants(List<Tenant> tenants) throws LiquibaseException {
+		Logger log = Scope.getCurrentScope().getLog(getClass());
+
+		int threads = Math.min(parallelism, tenants.size());
+		if ((threads > 1) && (rollbackFile != null)) {
+			log.warning("Running tenants one after the other since they all write the same rollback file");
+			threads = 1;
+		}
+
+		List<TenantResult> results = new ArrayList<>();
+		boolean runTenants = true;
+		if (shareChangeLog && shouldRun && !tenants.isEmpty()) {
+			long start = System.currentTimeMillis();
+			try {
+				DatabaseChangeLog sharedChangeLog = tenants.get(0).liquibase.parseChangeLog(true);
+				log.info("Parsed " + changeLog + " once for " + tenants.size() + " tenants");
+				for (Tenant tenant : tenants) {
+					tenant.liquibase.setDatabaseChangeLog(sharedChangeLog);
+				}
+			} catch (LiquibaseException | RuntimeException e) {
+				long duration = System.currentTimeMillis() - start;
+				log.severe("Parsing " + changeLog + " for all tenants failed after " + duration + " ms", e);
+				LiquibaseException failure = (e instanceof LiquibaseException) ? (LiquibaseException) e : new LiquibaseException(e);
+				for (Tenant tenant : tenants) {
+					results.add(new TenantResult(tenant.name, duration, failure));
+				}
+				runTenants = false;
+			}
+		}
+
+		if (!runTenants) {
+			log.info("No tenant is run since the shared changelog could not be parsed");
+		} else if (threads <= 1) {
+			for (Tenant tenant : tenants) {
+				TenantResult result = runTenant(tenant);
+				results.add(result);
+				if (!result.isSuccessful() && failFast) {
+					break;
+				}
+			}
+		} else {
+			results = runTenantsInParallel(tenants, threads);
+		}
+		this.tenantResults = Collections.unmodifiableList(results);
+
+		List<TenantResult> failed = new ArrayList<>();
+		for (TenantResult result : results) {
+			if (!result.isSuccessful()) {
+				failed.add(result);
+			}
+		}
+		if (failed.isEmpty()) {
+			return;
+		}
+		if (failFast) {
+			throw failed.get(0).getFailure();
+		}
+		LiquibaseException exception = new LiquibaseException("Liquibase failed for " + failed.size() + " of "
+				+ tenants.size() + " tenants, first for " + failed.get(0).getTenant(), failed.get(0).getFailure());
+		for (TenantResult result : failed.subList(1, failed.size())) {
+			exception.addSuppressed(result.getFailure());
+		}
+		throw exception;
+	}
+
+	/**
+	 * Runs the tenants on a pool of the given number of threads. When failing fast, tenants not started yet when a
+	 * failure happens are skipped and have no result.
+	 */
+	private List<TenantResult> runTenantsInParallel(List<Tenant> tenants, int threads) throws LiquibaseException {
+		Scope.getCurrentScope().getLog(getClass()).info("Running Liquibase for " + tenants.size() + " tenants on "
+				+ threads + " threads");
+
+		Scope scope = Scope.getCurrentScope();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		//each thread enters its own scopes, which a single scope shared by all threads cannot track
+		ThreadLocalScopeManager.acquire();
+		try {
+			AtomicBoolean stop = new AtomicBoolean();
+			List<Future<TenantResult>> futures = new ArrayList<>();
+			for (Tenant tenant : tenants) {
+				futures.add(executor.submit(() -> {
+					if (stop.get()) {
+						return null;
+					}
+					TenantResult result = Scope.runIn(scope, () -> runTenant(tenant));
+					if (!result.isSuccessful() && failFast) {
+						stop.set(true);
+					}
+					return result;
+				}));
+			}
+
+			List<TenantResult> results = new ArrayList<>();
+			for (Future<TenantResult> future : futures) {
+				TenantResult result = future.get();
+				if (result != null) {
+					results.add(result);
+				}
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LiquibaseException("Interrupted while waiting for tenants to be migrated", e);
+		} catch (ExecutionException e) {
+			throw new LiquibaseException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+			ThreadLocalScopeManager.release();
+		}
+	}
+
+	private TenantResult runTenant(Tenant tenant) {
+		Logger log = Scope.getCurrentScope().getLog(getClass());
+
+		log.info("Initializing Liquibase for " + tenant.name);
+		long start = System.currentTimeMillis();
+		try {
+			tenant.liquibase.afterPropertiesSet();
+		} catch (LiquibaseException | RuntimeException e) {
+			long duration = System.currentTimeMillis() - start;
+			log.severe("Liquibase failed for " + tenant.name + " after " + duration + " ms", e);
+			return new TenantResult(tenant.name, duration, (e instanceof LiquibaseException)
+					? (LiquibaseException) e : new LiquibaseException(e));
+		}
+		long duration = System.currentTimeMillis() - start;
+		log.info("Liquibase ran for " + tenant.name + " in " + duration + " ms");
+		return new TenantResult(tenant.name, duration, null);
+	}
+
+	/**
+	 * Subclasses may override this method to customize the {@link SpringLiquibase} used for each tenant. All the
+	 * settings of this bean are applied to it afterwards.
+	 */
+	protected SpringLiquibase createSpringLiquibase() {
+		return new SpringLiquibase();
 	}
 
 	private SpringLiquibase getSpringLiquibase(DataSource dataSource) {
-		SpringLiquibase liquibase = new SpringLiquibase();
+		SpringLiquibase liquibase = createSpringLiquibase();
 		liquibase.setChangeLog(changeLog);
 		liquibase.setChangeLogParameters(parameters);
 		liquibase.setContexts(contexts);
@@ -309,5 +464,99 @@ public class MultiTenantSpringLiquibase implements InitializingBean, ResourceLoa
 		this.dataSource = dataSource;
 	}
 
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets how many tenants are migrated at the same time, each on its own thread and connection. Defaults to 1, which
+	 * migrates them one after the other. Ignored when a {@link #setRollbackFile(File) rollback file} is set.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public boolean isFailFast() {
+		return failFast;
+	}
+
+	/**
+	 * If true, the default, no more tenants are started after one fails and the failure is thrown as is. If false,
+	 * every tenant is migrated and the failures are thrown together once all are done.
+	 */
+	public void setFailFast(boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	public boolean isShareChangeLog() {
+		return shareChangeLog;
+	}
+
+	/**
+	 * If true, the changelog is parsed once, with the parameters and database of the first tenant, and the
+	 * {@link DatabaseChangeLog#freeze() frozen} result is run for every tenant. Only use it when the changelog does not
+	 * depend on per-tenant values, like a <code>${database.defaultSchemaName}</code> parameter. Defaults to false.
+	 */
+	public void setShareChangeLog(boolean shareChangeLog) {
+		this.shareChangeLog = shareChangeLog;
+	}
+
+	/**
+	 * Returns the outcome of every tenant Liquibase ran for in the last {@link #afterPropertiesSet()}, in tenant order.
+	 */
+	public List<TenantResult> getTenantResults() {
+		return tenantResults;
+	}
+
+	private static class Tenant {
+		private final String name;
+		private final SpringLiquibase liquibase;
+
+		private Tenant(String name, SpringLiquibase liquibase) {
+			this.name = name;
+			this.liquibase = liquibase;
+		}
+	}
+
+	/**
+	 * The outcome of running Liquibase for one tenant.
+	 */
+	public static class TenantResult {
+		private final String tenant;
+		private final long duration;
+		private final LiquibaseException failure;
+
+		public TenantResult(String tenant, long duration, LiquibaseException failure) {
+			this.tenant = tenant;
+			this.duration = duration;
+			this.failure = failure;
+		}
+
+		/**
+		 * Returns a description of the tenant, like "schema tenant1".
+		 */
+		public String getTenant() {
+			return tenant;
+		}
+
+		/**
+		 * Returns how long Liquibase ran for the tenant, in milliseconds.
+		 */
+		public long getDuration() {
+			return duration;
+		}
+
+		public boolean isSuccessful() {
+			return failure == null;
+		}
+
+		/**
+		 * Returns why Liquibase failed for the tenant, or null if it succeeded.
+		 */
+		public LiquibaseException getFailure() {
+			return failure;
+		}
+	}
+
 	
 }
@@ -4,6 +4,7 @@ import liquibase.Contexts;
 import liquibase.LabelExpression;
 import liquibase.Liquibase;
 import liquibase.Scope;
+import liquibase.changelog.DatabaseChangeLog;
 import liquibase.configuration.ConfigurationProperty;
 import liquibase.configuration.GlobalConfiguration;
 import liquibase.configuration.LiquibaseConfiguration;
@@ -27,6 +28,7 @@ import javax.sql.DataSource;
 import java.io.*;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -65,6 +67,7 @@ public class SpringLiquibase implements InitializingBean, BeanNameAware, Resourc
 
 	protected DataSource dataSource;
 	protected String changeLog;
+	protected DatabaseChangeLog databaseChangeLog;
 	protected String contexts;
     protected String labels;
     protected String tag;
@@ -162,6 +165,72 @@ public class SpringLiquibase implements InitializingBean, BeanNameAware, Resourc
 		this.changeLog = dataModel;
 	}
 
+	public DatabaseChangeLog getDatabaseChangeLog() {
+		return databaseChangeLog;
+	}
+
+	/**
+	 * Sets an already parsed changelog to run instead of parsing {@link #setChangeLog(String) changeLog}, see
+	 * {@link #parseChangeLog()}. A changelog shared by several beans should be {@link DatabaseChangeLog#freeze() frozen}.
+	 */
+	public void setDatabaseChangeLog(DatabaseChangeLog databaseChangeLog) {
+		this.databaseChangeLog = databaseChangeLog;
+	}
+
+	/**
+	 * Parses {@link #setChangeLog(String) changeLog} with the parameters and database this bean would run it with,
+	 * without running it.
+	 */
+	public DatabaseChangeLog parseChangeLog() throws LiquibaseException {
+		return parseChangeLog(false);
+	}
+
+	/**
+	 * Like {@link #parseChangeLog()}, optionally {@link DatabaseChangeLog#freeze() freezing} the changelog. Both run in
+	 * a scope with this bean's resource accessor, which changes such as loadData and sqlFile read their files through
+	 * when computing checksums.
+	 */
+	public DatabaseChangeLog parseChangeLog(final boolean freeze) throws LiquibaseException {
+		Connection c = null;
+		Database database = null;
+		try {
+			c = getDataSource().getConnection();
+			SpringResourceAccessor resourceAccessor = createResourceOpener();
+			database = createDatabase(c, resourceAccessor);
+			final Liquibase liquibase = new Liquibase(getChangeLog(), resourceAccessor, database);
+			setChangeLogParameters(liquibase);
+			Map<String, Object> scopeValues = new HashMap<>();
+			scopeValues.put(Scope.Attr.database.name(), database);
+			scopeValues.put(Scope.Attr.resourceAccessor.name(), resourceAccessor);
+			return Scope.child(scopeValues, new Scope.ScopedRunnerWithReturn<DatabaseChangeLog>() {
+				@Override
+				public DatabaseChangeLog run() throws Exception {
+					DatabaseChangeLog changeLog = liquibase.getDatabaseChangeLog();
+					if (freeze) {
+						changeLog.freeze();
+					}
+					return changeLog;
+				}
+			});
+		} catch (SQLException e) {
+			throw new DatabaseException(e);
+		} catch (LiquibaseException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new LiquibaseException(e);
+		} finally {
+			if (database != null) {
+				database.close();
+			} else if (c != null) {
+				try {
+					c.close();
+				} catch (SQLException e) {
+					log.warning("problem closing connection", e);
+				}
+			}
+		}
+	}
+
 	public String getContexts() {
 		return contexts;
 	}
@@ -326,12 +395,11 @@ public class SpringLiquibase implements InitializingBean, BeanNameAware, Resourc
 
 	protected Liquibase createLiquibase(Connection c) throws LiquibaseException {
 		SpringResourceAccessor resourceAccessor = createResourceOpener();
-		Liquibase liquibase = new Liquibase(getChangeLog(), resourceAccessor, createDatabase(c, resourceAccessor));
-		if (parameters != null) {
-			for (Map.Entry<String, String> entry : parameters.entrySet()) {
-				liquibase.setChangeLogParameter(entry.getKey(), entry.getValue());
-			}
-		}
+		Database database = createDatabase(c, resourceAccessor);
+		Liquibase liquibase = (databaseChangeLog == null)
+				? new Liquibase(getChangeLog(), resourceAccessor, database)
+				: new Liquibase(databaseChangeLog, resourceAccessor, database);
+		setChangeLogParameters(liquibase);
 
 		if (isDropFirst()) {
 			liquibase.dropAll();
@@ -340,6 +408,14 @@ public class SpringLiquibase implements InitializingBean, BeanNameAware, Resourc
 		return liquibase;
 	}
 
+	private void setChangeLogParameters(Liquibase liquibase) {
+		if (parameters != null) {
+			for (Map.Entry<String, String> entry : parameters.entrySet()) {
+				liquibase.setChangeLogParameter(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
 	/**
 	 * Subclasses may override this method add change some database settings such as
 	 * default schema before returning the database object.
@@ -35,6 +35,25 @@ public class EmptyLineAndCommentSkippingInputStream extends BufferedInputStream
         return read(this.lastRead, false);
     }
 
+    /**
+     * Reads through {@link #read()} so bulk reads skip the same lines and line endings.
+     */
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < len) {
+            int read = read();
+            if (read < 0) {
+                break;
+            }
+            b[off + count++] = (byte) read;
+        }
+        return (count == 0) ? -1 : count;
+    }
+
     private int read(final int lastRead, final boolean lookAhead) throws IOException {
         int read = super.read();
 
@@ -7,23 +7,31 @@ import liquibase.servicelocator.ServiceLocator;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author John Sanda
  */
 public class LockServiceFactory {
 
-	private static LockServiceFactory instance;
+	private static volatile LockServiceFactory instance;
 
-	private List<LockService> registry = new ArrayList<>();
+	private List<LockService> registry = new CopyOnWriteArrayList<>();
 
 	private Map<Database, LockService> openLockServices = new ConcurrentHashMap<>();
 
-	public static synchronized LockServiceFactory getInstance() {
-		if (instance == null) {
-			instance = new LockServiceFactory();
+	public static LockServiceFactory getInstance() {
+		LockServiceFactory factory = instance;
+		if (factory == null) {
+			synchronized (LockServiceFactory.class) {
+				factory = instance;
+				if (factory == null) {
+					factory = new LockServiceFactory();
+					instance = factory;
+				}
+			}
 		}
-		return instance;
+		return factory;
 	}
 
     /**
@@ -54,34 +62,47 @@ public class LockServiceFactory {
 	}
 
 	public LockService getLockService(Database database) {
-		if (!openLockServices.containsKey(database)) {
-			SortedSet<LockService> foundServices = new TreeSet<>(new Comparator<LockService>() {
+		LockService lockService = openLockServices.get(database);
+		if (lockService == null) {
+			//threads asking for the lock service of the same database at the same time must get the same one
+			lockService = openLockServices.computeIfAbsent(database, this::createLockService);
+		}
+		return lockService;
+	}
+
+	private LockService createLockService(Database database) {
+		SortedSet<LockService> foundServices = new TreeSet<>(new Comparator<LockService>() {
                 @Override
                 public int compare(LockService o1, LockService o2) {
                     return -1 * Integer.valueOf(o1.getPriority()).compareTo(o2.getPriority());
                 }
             });
 
-			for (LockService lockService : registry) {
-				if (lockService.supports(database)) {
-					foundServices.add(lockService);
-				}
+		for (LockService lockService : registry) {
+			if (lockService.supports(database)) {
+				foundServices.add(lockService);
 			}
+		}
 
-			if (foundServices.isEmpty()) {
-				throw new UnexpectedLiquibaseException("Cannot find LockService for " + database.getShortName());
-			}
+		if (foundServices.isEmpty()) {
+			throw new UnexpectedLiquibaseException("Cannot find LockService for " + database.getShortName());
+		}
 
-			try {
-				LockService lockService = foundServices.iterator().next().getClass().getConstructor().newInstance();
-				lockService.setDatabase(database);
-				openLockServices.put(database, lockService);
-			} catch (Exception e) {
-				throw new UnexpectedLiquibaseException(e);
-			}
+		try {
+			LockService lockService = foundServices.iterator().next().getClass().getConstructor().newInstance();
+			lockService.setDatabase(database);
+			return lockService;
+		} catch (Exception e) {
+			throw new UnexpectedLiquibaseException(e);
 		}
-		return openLockServices.get(database);
+	}
 
+	/**
+	 * Forgets the lock service of the given database, so the next {@link #getLockService(Database)} creates a new one.
+	 * Unlike {@link #resetAll()}, the lock services of other databases are left alone.
+	 */
+	public void resetLockService(Database database) {
+		openLockServices.remove(database);
 	}
 
 	public synchronized void resetAll() {
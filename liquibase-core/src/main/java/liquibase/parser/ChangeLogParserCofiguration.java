@@ -9,6 +9,9 @@ public class ChangeLogParserCofiguration extends AbstractConfigurationContainer
 
     public static final String SUPPORT_PROPERTY_ESCAPING = "supportPropertyEscaping";
     public static final String USE_PROCEDURE_SCHEMA = "useProcedureSchema";
+    public static final String PARSE_THREADS = "changeLogParseThreads";
+    public static final String PARSED_CHANGELOG_CACHE_DIRECTORY = "parsedChangeLogCacheDirectory";
+    public static final String LAZY_CHANGE_SET_LOADING = "lazyChangeSetLoading";
 
     public ChangeLogParserCofiguration() {
         super("liquibase");
@@ -21,6 +24,20 @@ public class ChangeLogParserCofiguration extends AbstractConfigurationContainer
         getContainer().addProperty(USE_PROCEDURE_SCHEMA, Boolean.class)
                 .setDescription("If set to true (default value), createProcedure tags with a set schemaName will modify the procedure body with the given schema name.")
                 .setDefaultValue(true);
+
+        getContainer().addProperty(PARSE_THREADS, Integer.class)
+                .setDescription("Number of threads used to read and parse included changelog files ahead of time. " +
+                        "1 parses each file when it is included")
+                .setDefaultValue(1);
+
+        getContainer().addProperty(PARSED_CHANGELOG_CACHE_DIRECTORY, String.class)
+                .setDescription("Local directory to store parsed changelog files in, so files with unchanged content are " +
+                        "not parsed again. Not set by default");
+
+        getContainer().addProperty(LAZY_CHANGE_SET_LOADING, Boolean.class)
+                .setDescription("If set to true, the changes and rollback changes of a change set are only built when they are " +
+                        "first used, e.g. when the change set is executed, rolled back or its checksum is computed")
+                .setDefaultValue(false);
     }
 
     public boolean getSupportPropertyEscaping() {
@@ -41,5 +58,30 @@ public class ChangeLogParserCofiguration extends AbstractConfigurationContainer
         return this;
     }
 
+    public Integer getParseThreads() {
+        return getContainer().getValue(PARSE_THREADS, Integer.class);
+    }
+
+    public ChangeLogParserCofiguration setParseThreads(Integer threads) {
+        getContainer().setValue(PARSE_THREADS, threads);
+        return this;
+    }
+
+    public String getParsedChangeLogCacheDirectory() {
+        return getContainer().getValue(PARSED_CHANGELOG_CACHE_DIRECTORY, String.class);
+    }
+
+    public ChangeLogParserCofiguration setParsedChangeLogCacheDirectory(String directory) {
+        getContainer().setValue(PARSED_CHANGELOG_CACHE_DIRECTORY, directory);
+        return this;
+    }
 
+    public boolean getLazyChangeSetLoading() {
+        return getContainer().getValue(LAZY_CHANGE_SET_LOADING, Boolean.class);
+    }
+
+    public ChangeLogParserCofiguration setLazyChangeSetLoading(boolean lazy) {
+        getContainer().setValue(LAZY_CHANGE_SET_LOADING, lazy);
+        return this;
+    }
 }
@@ -0,0 +1,275 @@
+package liquibase.parser;
+
+import liquibase.Scope;
+import liquibase.configuration.LiquibaseConfiguration;
+import liquibase.exception.ChangeLogParseException;
+import liquibase.parser.core.ParsedNode;
+import liquibase.parser.core.ParsedNodeException;
+import liquibase.resource.ResourceAccessor;
+import liquibase.util.LiquibaseUtil;
+import liquibase.util.MD5Util;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Local binary copies of what {@link ChangeLogParser}s read from changelog files, stored in
+ * {@link ChangeLogParserCofiguration#getParsedChangeLogCacheDirectory()} so unchanged files are not parsed again on
+ * every run.
+ * <p>
+ * Entries are keyed by the Liquibase version, the parser class and the MD5 of the file content, so an entry is never
+ * stale. Only the result of reading the file is cached: changelog parameters are expanded afterwards as usual, so the
+ * same entry is used whatever the parameter values are. Every lookup returns a new copy since loading a changelog
+ * modifies the tree.
+ * <p>
+ * Supported values are {@link ParsedNode}s, maps, lists, strings, numbers, booleans and dates. Results containing
+ * anything else are not cached.
+ */
+public class ParsedChangeLogCache {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BIG_INTEGER = 6;
+    private static final byte BIG_DECIMAL = 7;
+    private static final byte DATE = 8;
+    private static final byte MAP = 9;
+    private static final byte LIST = 10;
+    private static final byte NODE = 11;
+
+    private final File directory;
+
+    public ParsedChangeLogCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the cache to use, or null if {@link ChangeLogParserCofiguration#PARSED_CHANGELOG_CACHE_DIRECTORY} is not set.
+     */
+    public static ParsedChangeLogCache getInstance() {
+        String directory = LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration.class).getParsedChangeLogCacheDirectory();
+        if (directory == null) {
+            return null;
+        }
+        return new ParsedChangeLogCache(new File(directory));
+    }
+
+    /**
+     * Returns a copy of the cached result of reading the given file with the given parser, or reads it with the reader and
+     * caches the result.
+     */
+    public <T> T get(ChangeLogParser parser, String physicalChangeLogLocation, ResourceAccessor resourceAccessor, Reader<T> reader)
+            throws ChangeLogParseException {
+        String contentHash;
+        try (InputStream stream = resourceAccessor.openStream(null, physicalChangeLogLocation)) {
+            if (stream == null) {
+                //let the parser report it
+                return reader.read();
+            }
+            contentHash = MD5Util.computeMD5(stream);
+        } catch (IOException e) {
+            return reader.read();
+        }
+
+        String key = LiquibaseUtil.getBuildVersion() + ":" + parser.getClass().getName() + ":" + contentHash;
+        File file = new File(directory, MD5Util.computeMD5(key) + ".parsed");
+
+        Object cached = read(file, key);
+        if (cached != null) {
+            return (T) cached;
+        }
+
+        T result = reader.read();
+        if (result != null) {
+            write(file, key, result, physicalChangeLogLocation);
+        }
+        return result;
+    }
+
+    private Object read(File file, String key) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if ((in.readInt() != FORMAT_VERSION) || !key.equals(in.readUTF())) {
+                return null;
+            }
+            return readValue(in);
+        } catch (IOException | ParsedNodeException | RuntimeException e) {
+            Scope.getCurrentScope().getLog(getClass()).info("Ignoring unreadable parsed changelog cache " + file.getAbsolutePath() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(File file, String key, Object value, String physicalChangeLogLocation) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            Scope.getCurrentScope().getLog(getClass()).info("Cannot create parsed changelog cache directory " + directory.getAbsolutePath());
+            return;
+        }
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(key);
+                writeValue(value, out);
+            }
+            //replace in one step so concurrent readers never see a partial file
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (UnsupportedValueException e) {
+            Scope.getCurrentScope().getLog(getClass()).fine("Not caching " + physicalChangeLogLocation + ": " + e.getMessage());
+            tempFile.delete();
+        } catch (IOException e) {
+            Scope.getCurrentScope().getLog(getClass()).info("Cannot write parsed changelog cache " + file.getAbsolutePath() + ": " + e.getMessage());
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private void writeValue(Object value, DataOutputStream out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value, out);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeString(value.toString(), out);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(BIG_DECIMAL);
+            writeString(value.toString(), out);
+        } else if (value.getClass() == Date.class) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            out.writeInt(((Map) value).size());
+            for (Map.Entry entry : ((Map<?, ?>) value).entrySet()) {
+                writeValue(entry.getKey(), out);
+                writeValue(entry.getValue(), out);
+            }
+        } else if (value instanceof List) {
+            out.writeByte(LIST);
+            out.writeInt(((List) value).size());
+            for (Object item : (List) value) {
+                writeValue(item, out);
+            }
+        } else if (value.getClass() == ParsedNode.class) {
+            ParsedNode node = (ParsedNode) value;
+            out.writeByte(NODE);
+            writeValue(node.getNamespace(), out);
+            writeValue(node.getName(), out);
+            writeValue(node.getValue(), out);
+            out.writeInt(node.getChildren().size());
+            for (ParsedNode child : node.getChildren()) {
+                writeValue(child, out);
+            }
+        } else {
+            throw new UnsupportedValueException(value.getClass().getName());
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException, ParsedNodeException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case BIG_INTEGER:
+                return new BigInteger(readString(in));
+            case BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case DATE:
+                return new Date(in.readLong());
+            case MAP: {
+                int size = in.readInt();
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case NODE: {
+                ParsedNode node = new ParsedNode((String) readValue(in), (String) readValue(in));
+                node.setValue(readValue(in));
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    node.addChild((ParsedNode) readValue(in));
+                }
+                return node;
+            }
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    /**
+     * Unlike {@link DataOutputStream#writeUTF(String)}, not limited to 64k so large SQL blocks can be stored.
+     */
+    private void writeString(String value, DataOutputStream out) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a changelog file when there is no cached copy.
+     */
+    public interface Reader<T> {
+        T read() throws ChangeLogParseException;
+    }
+
+    private static class UnsupportedValueException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private UnsupportedValueException(String type) {
+            super("Unsupported value type " + type);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package liquibase.parser.core.xml;
 
 import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.ChangeLogPrefetcher;
 import liquibase.changelog.DatabaseChangeLog;
 import liquibase.exception.ChangeLogParseException;
 import liquibase.parser.ChangeLogParser;
+import liquibase.parser.ParsedChangeLogCache;
 import liquibase.parser.core.ParsedNode;
 import liquibase.resource.ResourceAccessor;
 
@@ -12,7 +14,14 @@ public abstract class AbstractChangeLogParser implements ChangeLogParser {
     @Override
     public DatabaseChangeLog parse(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters,
                                    ResourceAccessor resourceAccessor) throws ChangeLogParseException {
-        ParsedNode parsedNode = parseToNode(physicalChangeLogLocation, changeLogParameters, resourceAccessor);
+        ParsedNode parsedNode = null;
+        ChangeLogPrefetcher prefetcher = ChangeLogPrefetcher.getCurrent();
+        if (prefetcher != null) {
+            parsedNode = prefetcher.take(this, physicalChangeLogLocation, resourceAccessor);
+        }
+        if (parsedNode == null) {
+            parsedNode = parseNode(physicalChangeLogLocation, changeLogParameters, resourceAccessor);
+        }
         if (parsedNode == null) {
             return null;
         }
@@ -28,6 +37,21 @@ public abstract class AbstractChangeLogParser implements ChangeLogParser {
         return changeLog;
     }
 
+    /**
+     * Reads the given file into a {@link ParsedNode} tree without loading it into a {@link DatabaseChangeLog}, using the
+     * {@link ParsedChangeLogCache} if it is configured.
+     * Used by {@link ChangeLogPrefetcher} from its own threads, so the changeLogParameters must not be modified.
+     */
+    public ParsedNode parseNode(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters,
+                                ResourceAccessor resourceAccessor) throws ChangeLogParseException {
+        ParsedChangeLogCache cache = ParsedChangeLogCache.getInstance();
+        if (cache == null) {
+            return parseToNode(physicalChangeLogLocation, changeLogParameters, resourceAccessor);
+        }
+        return cache.get(this, physicalChangeLogLocation, resourceAccessor,
+                () -> parseToNode(physicalChangeLogLocation, changeLogParameters, resourceAccessor));
+    }
+
     protected abstract ParsedNode parseToNode(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters,
                                               ResourceAccessor resourceAccessor) throws ChangeLogParseException;
 }
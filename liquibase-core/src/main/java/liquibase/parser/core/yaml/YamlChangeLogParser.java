@@ -7,6 +7,7 @@ import liquibase.changelog.DatabaseChangeLog;
 import liquibase.exception.ChangeLogParseException;
 import liquibase.exception.LiquibaseException;
 import liquibase.parser.ChangeLogParser;
+import liquibase.parser.ParsedChangeLogCache;
 import liquibase.parser.core.ParsedNode;
 import liquibase.resource.ResourceAccessor;
 import org.yaml.snakeyaml.Yaml;
@@ -20,14 +21,15 @@ public class YamlChangeLogParser extends YamlParser implements ChangeLogParser {
 
     @Override
     public DatabaseChangeLog parse(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor) throws ChangeLogParseException {
-        Yaml yaml = new Yaml(new SafeConstructor());
-
-        try (InputStream changeLogStream = resourceAccessor.openStream(null, physicalChangeLogLocation)) {
-            if (changeLogStream == null) {
-                throw new ChangeLogParseException(physicalChangeLogLocation + " does not exist");
+        try {
+            Map parsedYaml;
+            ParsedChangeLogCache cache = ParsedChangeLogCache.getInstance();
+            if (cache == null) {
+                parsedYaml = readYaml(physicalChangeLogLocation, resourceAccessor);
+            } else {
+                parsedYaml = cache.get(this, physicalChangeLogLocation, resourceAccessor,
+                        () -> readYaml(physicalChangeLogLocation, resourceAccessor));
             }
-    
-            Map parsedYaml = parseYamlStream(physicalChangeLogLocation, yaml, changeLogStream);
 
             if ((parsedYaml == null) || parsedYaml.isEmpty()) {
                 throw new ChangeLogParseException("Empty file " + physicalChangeLogLocation);
@@ -83,6 +85,20 @@ public class YamlChangeLogParser extends YamlParser implements ChangeLogParser {
         }
     }
     
+    private Map readYaml(String physicalChangeLogLocation, ResourceAccessor resourceAccessor) throws ChangeLogParseException {
+        Yaml yaml = new Yaml(new SafeConstructor());
+
+        try (InputStream changeLogStream = resourceAccessor.openStream(null, physicalChangeLogLocation)) {
+            if (changeLogStream == null) {
+                throw new ChangeLogParseException(physicalChangeLogLocation + " does not exist");
+            }
+
+            return parseYamlStream(physicalChangeLogLocation, yaml, changeLogStream);
+        } catch (IOException e) {
+            throw new ChangeLogParseException("Error parsing " + physicalChangeLogLocation, e);
+        }
+    }
+
     private Map parseYamlStream(String physicalChangeLogLocation, Yaml yaml, InputStream changeLogStream) throws ChangeLogParseException {
         Map parsedYaml;
         try {
@@ -1,5 +1,6 @@
 package liquibase.serializer.core.string;
 
+import liquibase.change.CheckSumWriter;
 import liquibase.changelog.ChangeLogChild;
 import liquibase.changelog.ChangeSet;
 import liquibase.exception.UnexpectedLiquibaseException;
@@ -10,6 +11,7 @@ import liquibase.util.StringUtil;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -40,11 +42,48 @@ public class StringChangeLogSerializer implements ChangeLogSerializer {
         return object.getSerializedObjectName() + ":" + serializeObject(object, 1);
     }
 
+    /**
+     * Writes the text returned by {@link #serialize(LiquibaseSerializable, boolean)} to the given writer without building the
+     * complete string first. Line endings of the top-level values are written as they are, which makes no difference
+     * when writing to a {@link CheckSumWriter}.
+     */
+    public void serialize(LiquibaseSerializable object, Writer writer) throws IOException {
+        writer.write(object.getSerializedObjectName());
+        writer.write(":");
+        writer.write("[");
+        SortedSet<String> values = serializeValues(object, 1);
+        if (!values.isEmpty()) {
+            writer.write("\n");
+            boolean first = true;
+            for (String value : values) {
+                if (!first) {
+                    writer.write("\n");
+                }
+                writer.write(value);
+                first = false;
+            }
+            writer.write("\n");
+        }
+        writer.write("]");
+    }
+
     private String serializeObject(LiquibaseSerializable objectToSerialize, int indent) {
-        try {
-            StringBuilder buffer = new StringBuilder();
-            buffer.append("[");
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("[");
+
+        SortedSet<String> values = serializeValues(objectToSerialize, indent);
 
+        if (!values.isEmpty()) {
+            buffer.append("\n");
+            buffer.append(StringUtil.join(values, "\n"));
+            buffer.append("\n");
+        }
+        buffer.append(indent(indent - 1)).append("]");
+        return buffer.toString().replace("\r\n", "\n").replace("\r", "\n"); //standardize all newline chars
+    }
+
+    private SortedSet<String> serializeValues(LiquibaseSerializable objectToSerialize, int indent) {
+        try {
             SortedSet<String> values = new TreeSet<>();
             for (String field : objectToSerialize.getSerializableFields()) {
                 Object value = objectToSerialize.getSerializableFieldValue(field);
@@ -75,15 +114,7 @@ public class StringChangeLogSerializer implements ChangeLogSerializer {
                         }
                 }
             }
-
-            if (!values.isEmpty()) {
-                buffer.append("\n");
-                buffer.append(StringUtil.join(values, "\n"));
-                buffer.append("\n");
-            }
-            buffer.append(indent(indent - 1)).append("]");
-            return buffer.toString().replace("\r\n", "\n").replace("\r", "\n"); //standardize all newline chars
-
+            return values;
         } catch (Exception e) {
             throw new UnexpectedLiquibaseException(e);
         }
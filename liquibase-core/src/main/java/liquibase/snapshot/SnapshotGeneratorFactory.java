@@ -17,12 +17,13 @@ import liquibase.structure.core.Schema;
 import liquibase.structure.core.Table;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class SnapshotGeneratorFactory {
 
-    private static SnapshotGeneratorFactory instance;
+    private static volatile SnapshotGeneratorFactory instance;
 
-    private List<SnapshotGenerator> generators = new ArrayList<>();
+    private List<SnapshotGenerator> generators = new CopyOnWriteArrayList<>();
 
     protected SnapshotGeneratorFactory() {
         try {
@@ -39,11 +40,18 @@ public class SnapshotGeneratorFactory {
     /**
      * Return singleton SnapshotGeneratorFactory
      */
-    public static synchronized SnapshotGeneratorFactory getInstance() {
-        if (instance == null) {
-            instance = new SnapshotGeneratorFactory();
+    public static SnapshotGeneratorFactory getInstance() {
+        SnapshotGeneratorFactory factory = instance;
+        if (factory == null) {
+            synchronized (SnapshotGeneratorFactory.class) {
+                factory = instance;
+                if (factory == null) {
+                    factory = new SnapshotGeneratorFactory();
+                    instance = factory;
+                }
+            }
         }
-        return instance;
+        return factory;
     }
 
     public static synchronized void reset() {
@@ -6,43 +6,63 @@ import liquibase.exception.Warnings;
 import liquibase.sql.Sql;
 import liquibase.statement.SqlStatement;
 
-import java.util.Iterator;
 import java.util.SortedSet;
 
 public class SqlGeneratorChain<T extends SqlStatement> {
-    private Iterator<SqlGenerator<T>> sqlGenerators;
+    private SqlGenerator<T>[] sqlGenerators;
+    private int next;
 
     public SqlGeneratorChain(SortedSet<SqlGenerator<T>> sqlGenerators) {
         if (sqlGenerators != null) {
-            this.sqlGenerators = sqlGenerators.iterator();
+            this.sqlGenerators = sqlGenerators.toArray(new SqlGenerator[sqlGenerators.size()]);
         }
     }
 
+    private SqlGeneratorChain(SqlGenerator<T>[] sqlGenerators) {
+        this.sqlGenerators = sqlGenerators;
+    }
+
+    /**
+     * Creates a chain over the given generators, highest priority first, without copying them. The array is not
+     * modified.
+     */
+    static <T extends SqlStatement> SqlGeneratorChain<T> of(SqlGenerator<T>[] sqlGenerators) {
+        return new SqlGeneratorChain<>(sqlGenerators);
+    }
+
+    private boolean hasNext() {
+        return next < sqlGenerators.length;
+    }
+
+    private SqlGenerator<T> next() {
+        return sqlGenerators[next++];
+    }
+
     public Sql[] generateSql(T statement, Database database) {
         if (sqlGenerators == null) {
             return null;
         }
 
-        if (!sqlGenerators.hasNext()) {
+        if (!hasNext()) {
             return new Sql[0];
         }
 
-        return sqlGenerators.next().generateSql(statement, database, this);
+        return next().generateSql(statement, database, this);
     }
 
     public Warnings warn(T statement, Database database) {
-        if ((sqlGenerators == null) || !sqlGenerators.hasNext()) {
+        if ((sqlGenerators == null) || !hasNext()) {
             return new Warnings();
         }
 
-        return sqlGenerators.next().warn(statement, database, this);
+        return next().warn(statement, database, this);
     }
 
     public ValidationErrors validate(T statement, Database database) {
-        if ((sqlGenerators == null) || !sqlGenerators.hasNext()) {
+        if ((sqlGenerators == null) || !hasNext()) {
             return new ValidationErrors();
         }
 
-        return sqlGenerators.next().validate(statement, database, this);
+        return next().validate(statement, database, this);
     }
 }
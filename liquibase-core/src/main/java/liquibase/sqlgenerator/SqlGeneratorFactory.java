@@ -2,6 +2,7 @@ package liquibase.sqlgenerator;
 
 import liquibase.Scope;
 import liquibase.change.Change;
+import liquibase.changelog.GeneratedSqlCache;
 import liquibase.database.Database;
 import liquibase.exception.UnexpectedLiquibaseException;
 import liquibase.exception.ValidationErrors;
@@ -15,6 +16,8 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * SqlGeneratorFactory is a singleton registry of SqlGenerators.
@@ -23,12 +26,16 @@ import java.util.*;
  */
 public class SqlGeneratorFactory {
 
-    private static SqlGeneratorFactory instance;
+    private static volatile SqlGeneratorFactory instance;
     //caches for expensive reflection based calls that slow down Liquibase initialization: CORE-1207
-    private final Map<Class<?>, Type[]> genericInterfacesCache = new HashMap<>();
-    private final Map<Class<?>, Type> genericSuperClassCache = new HashMap<>();
-    private List<SqlGenerator> generators = new ArrayList<>();
-    private Map<String, SortedSet<SqlGenerator>> generatorsByKey = new HashMap<>();
+    //concurrent since several Liquibase instances may be generating SQL on different threads
+    private final Map<Class<?>, Type[]> genericInterfacesCache = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Type> genericSuperClassCache = new ConcurrentHashMap<>();
+    //generators are rarely registered but looked up for every statement, so lookups iterate a snapshot without locking
+    private List<SqlGenerator> generators = new CopyOnWriteArrayList<>();
+    //sorted generators by statement class, database class and major version. Replaced rather than cleared when the
+    //generators change, so a lookup that started before the change cannot store its result in the new map
+    private volatile Map<GeneratorKey, SqlGenerator[]> generatorsByKey = new ConcurrentHashMap<>();
 
     private SqlGeneratorFactory() {
         try {
@@ -43,11 +50,18 @@ public class SqlGeneratorFactory {
     /**
      * Return singleton SqlGeneratorFactory
      */
-    public static synchronized SqlGeneratorFactory getInstance() {
-        if (instance == null) {
-            instance = new SqlGeneratorFactory();
+    public static SqlGeneratorFactory getInstance() {
+        SqlGeneratorFactory factory = instance;
+        if (factory == null) {
+            synchronized (SqlGeneratorFactory.class) {
+                factory = instance;
+                if (factory == null) {
+                    factory = new SqlGeneratorFactory();
+                    instance = factory;
+                }
+            }
         }
-        return instance;
+        return factory;
     }
 
     public static synchronized void reset() {
@@ -56,15 +70,13 @@ public class SqlGeneratorFactory {
 
 
     public void register(SqlGenerator generator) {
-        if (this.generators.size() == 0) {
-            //handle case in tests wher we clear out the generators
-            this.generatorsByKey.clear();
-        }
         generators.add(generator);
+        generatorsByKey = new ConcurrentHashMap<>();
     }
 
     public void unregister(SqlGenerator generator) {
         generators.remove(generator);
+        generatorsByKey = new ConcurrentHashMap<>();
     }
 
     public void unregister(Class generatorClass) {
@@ -78,18 +90,26 @@ public class SqlGeneratorFactory {
     }
 
 
+    /**
+     * Returns the registered generators. The collection may be modified, so the generators found for each statement
+     * are looked up again afterwards.
+     */
     protected Collection<SqlGenerator> getGenerators() {
+        generatorsByKey = new ConcurrentHashMap<>();
         return generators;
     }
 
     public SortedSet<SqlGenerator> getGenerators(SqlStatement statement, Database database) {
-        String databaseName = null;
-        if (database == null) {
-            databaseName = "NULL";
-        } else {
-            databaseName = database.getShortName();
-        }
+        SortedSet<SqlGenerator> result = new TreeSet<>(new SqlGeneratorComparator());
+        result.addAll(Arrays.asList(getSortedGenerators(statement, database)));
+        return result;
+    }
 
+    /**
+     * Returns the generators supporting the statement, highest priority first. Whether a generator supports a statement
+     * is only checked for the first statement of each class, so the returned array is shared and must not be modified.
+     */
+    private SqlGenerator[] getSortedGenerators(SqlStatement statement, Database database) {
         int version;
         if (database == null) {
             version = 0;
@@ -101,18 +121,18 @@ public class SqlGeneratorFactory {
             }
         }
 
-        String key = statement.getClass().getName()+":"+ databaseName+":"+ version;
+        GeneratorKey key = new GeneratorKey(statement.getClass(), (database == null) ? null : database.getClass(), version);
 
-        if (generatorsByKey.containsKey(key) && !generatorsByKey.get(key).isEmpty()) {
-            SortedSet<SqlGenerator> result = new TreeSet<>(new SqlGeneratorComparator());
-            result.addAll(generatorsByKey.get(key));
-            result.retainAll(getGenerators());
-            return result;
+        //read the map before the generators, see generatorsByKey
+        Map<GeneratorKey, SqlGenerator[]> generatorsByKey = this.generatorsByKey;
+        SqlGenerator[] cached = generatorsByKey.get(key);
+        if (cached != null) {
+            return cached;
         }
 
         SortedSet<SqlGenerator> validGenerators = new TreeSet<>(new SqlGeneratorComparator());
 
-        for (SqlGenerator generator : getGenerators()) {
+        for (SqlGenerator generator : generators) {
             Class clazz = generator.getClass();
             Type classType = null;
             while (clazz != null) {
@@ -134,26 +154,18 @@ public class SqlGeneratorFactory {
                 clazz = clazz.getSuperclass();
             }
         }
-        generatorsByKey.put(key, validGenerators);
-        return validGenerators;
+        SqlGenerator[] sorted = validGenerators.toArray(new SqlGenerator[validGenerators.size()]);
+        generatorsByKey.put(key, sorted);
+        return sorted;
     }
 
     private Type[] getGenericInterfaces(Class<?> clazz) {
-        if(genericInterfacesCache.containsKey(clazz)) {
-            return genericInterfacesCache.get(clazz);
-        }
-        Type[] genericInterfaces = clazz.getGenericInterfaces();
-        genericInterfacesCache.put(clazz, genericInterfaces);
-        return genericInterfaces;
+        return genericInterfacesCache.computeIfAbsent(clazz, Class::getGenericInterfaces);
     }
 
     private Type getGenericSuperclass(Class<?> clazz) {
-        if(genericSuperClassCache.containsKey(clazz)) {
-            return genericSuperClassCache.get(clazz);
-        }
-        Type genericSuperclass = clazz.getGenericSuperclass();
-        genericSuperClassCache.put(clazz, genericSuperclass);
-        return genericSuperclass;
+        //computeIfAbsent does not store the null superclass of Object and interfaces, which is cheap to look up anyway
+        return genericSuperClassCache.computeIfAbsent(clazz, Class::getGenericSuperclass);
     }
 
     private boolean isTypeEqual(Type aType, Class aClass) {
@@ -182,16 +194,16 @@ public class SqlGeneratorFactory {
     }
 
     private SqlGeneratorChain createGeneratorChain(SqlStatement statement, Database database) {
-        SortedSet<SqlGenerator> sqlGenerators = getGenerators(statement, database);
-        if ((sqlGenerators == null) || sqlGenerators.isEmpty()) {
+        SqlGenerator[] sqlGenerators = getSortedGenerators(statement, database);
+        if (sqlGenerators.length == 0) {
             return null;
         }
         //noinspection unchecked
-        return new SqlGeneratorChain(sqlGenerators);
+        return SqlGeneratorChain.of(sqlGenerators);
     }
 
     public Sql[] generateSql(Change change, Database database) {
-        SqlStatement[] sqlStatements = change.generateStatements(database);
+        SqlStatement[] sqlStatements = GeneratedSqlCache.generateStatements(change, database);
         if (sqlStatements == null) {
             return new Sql[0];
         } else {
@@ -213,11 +225,22 @@ public class SqlGeneratorFactory {
     }
 
     public Sql[] generateSql(SqlStatement statement, Database database) {
+        GeneratedSqlCache cache = GeneratedSqlCache.getCurrent();
+        if (cache != null) {
+            Sql[] cached = cache.getSql(statement, database);
+            if (cached != null) {
+                return cached;
+            }
+        }
         SqlGeneratorChain generatorChain = createGeneratorChain(statement, database);
         if (generatorChain == null) {
             throw new IllegalStateException("Cannot find generators for database " + database.getClass() + ", statement: " + statement);
         }
-        return generatorChain.generateSql(statement, database);
+        Sql[] sql = generatorChain.generateSql(statement, database);
+        if (cache != null) {
+            cache.putSql(statement, database, sql);
+        }
+        return sql;
     }
 
     /**
@@ -225,7 +248,7 @@ public class SqlGeneratorFactory {
      * If the statement queries the database, it cannot be used in updateSql type operations
      */
     public boolean generateStatementsVolatile(SqlStatement statement, Database database) {
-        for (SqlGenerator generator : getGenerators(statement, database)) {
+        for (SqlGenerator generator : getSortedGenerators(statement, database)) {
             if (generator.generateStatementsIsVolatile(database)) {
                 return true;
             }
@@ -234,7 +257,7 @@ public class SqlGeneratorFactory {
     }
 
     public boolean generateRollbackStatementsVolatile(SqlStatement statement, Database database) {
-        for (SqlGenerator generator : getGenerators(statement, database)) {
+        for (SqlGenerator generator : getSortedGenerators(statement, database)) {
             if (generator.generateRollbackStatementsIsVolatile(database)) {
                 return true;
             }
@@ -243,7 +266,7 @@ public class SqlGeneratorFactory {
     }
 
     public boolean supports(SqlStatement statement, Database database) {
-        return !getGenerators(statement, database).isEmpty();
+        return getSortedGenerators(statement, database).length > 0;
     }
 
     public ValidationErrors validate(SqlStatement statement, Database database) {
@@ -275,4 +298,32 @@ public class SqlGeneratorFactory {
         }
         return affectedObjects;
     }
+
+    private static final class GeneratorKey {
+        private final Class<? extends SqlStatement> statementClass;
+        private final Class<? extends Database> databaseClass;
+        private final int version;
+        private final int hashCode;
+
+        private GeneratorKey(Class<? extends SqlStatement> statementClass, Class<? extends Database> databaseClass, int version) {
+            this.statementClass = statementClass;
+            this.databaseClass = databaseClass;
+            this.version = version;
+            this.hashCode = (31 * ((31 * statementClass.hashCode()) + Objects.hashCode(databaseClass))) + version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GeneratorKey)) {
+                return false;
+            }
+            GeneratorKey that = (GeneratorKey) o;
+            return (statementClass == that.statementClass) && (databaseClass == that.databaseClass) && (version == that.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
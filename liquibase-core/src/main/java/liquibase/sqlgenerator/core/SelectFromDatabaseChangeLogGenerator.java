@@ -55,6 +55,8 @@ public class SelectFromDatabaseChangeLogGenerator extends AbstractSqlGenerator<S
                     sql += " WHERE "+database.escapeColumnName(null, null, null, "TAG")+"='" + ((SelectFromDatabaseChangeLogStatement.ByTag) whereClause).getTagName() + "'";
                 } else if (whereClause instanceof SelectFromDatabaseChangeLogStatement.ByNotNullCheckSum) {
                     sql += " WHERE "+database.escapeColumnName(null, null, null, "MD5SUM")+" IS NOT NULL";
+                } else if (whereClause instanceof SelectFromDatabaseChangeLogStatement.ByOrderExecutedGreaterThan) {
+                    sql += " WHERE "+database.escapeColumnName(null, null, null, "ORDEREXECUTED")+" > " + ((SelectFromDatabaseChangeLogStatement.ByOrderExecutedGreaterThan) whereClause).getOrderExecuted();
                 } else {
                     throw new UnexpectedLiquibaseException("Unknown where clause type: " + whereClause.getClass().getName());
                 }
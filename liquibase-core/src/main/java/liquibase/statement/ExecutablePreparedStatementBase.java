@@ -14,7 +14,6 @@ import liquibase.listener.SqlListener;
 import liquibase.logging.Logger;
 import liquibase.resource.InputStreamList;
 import liquibase.resource.ResourceAccessor;
-import liquibase.util.JdbcUtils;
 import liquibase.util.StreamUtil;
 import liquibase.util.file.FilenameUtils;
 
@@ -72,7 +71,7 @@ public abstract class ExecutablePreparedStatementBase implements ExecutablePrepa
         Scope.getCurrentScope().getLog(getClass()).fine("Number of columns = " + cols.size());
 
         // create prepared statement
-        PreparedStatement stmt = factory.create(sql);
+        PreparedStatement stmt = factory.createReusable(sql);
 
         try {
             attachParams(cols, stmt);
@@ -87,7 +86,7 @@ public abstract class ExecutablePreparedStatementBase implements ExecutablePrepa
                 } catch (IOException ignore) {
                 }
             }
-            JdbcUtils.closeStatement(stmt);
+            factory.release(stmt);
         }
     }
 
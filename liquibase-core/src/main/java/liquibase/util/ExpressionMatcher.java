@@ -2,7 +2,13 @@ package liquibase.util;
 
 import liquibase.exception.UnexpectedLiquibaseException;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -18,6 +24,9 @@ import java.util.regex.Pattern;
  * "(a and b) or (c and d)"
  * "!a and b"
  *
+ * Each distinct expression string is parsed once into a tree that is shared by every caller, and the result of
+ * evaluating a tree with operators is remembered for each set of items it was evaluated against.
+ *
  * Usage:
  * @see liquibase.LabelExpression
  * @see liquibase.ContextExpression
@@ -27,6 +36,18 @@ public final class ExpressionMatcher {
     /** find "(nested_expression)" in "left and (nested_expression) or right" expression */
     private static final Pattern NESTED_EXPRESSION_PATTERN = Pattern.compile("\\([^()]+\\)");
 
+    /**
+     * Stands for the value of an already parsed "(nested_expression)" while parsing the rest of the expression. Like
+     * the ":TRUE" or ":FALSE" that replaces a nested expression when it is evaluated, the placeholder is preceded by ":"
+     * and contains no whitespace or other characters removed by {@link String#trim()}.
+     */
+    private static final char PLACEHOLDER_DELIMITER = '\uFFFF';
+
+    private static final int MAX_COMPILED_EXPRESSIONS = 10000;
+    private static final int MAX_REMEMBERED_RESULTS = 256;
+
+    private static final Map<String, CompiledExpression> COMPILED_EXPRESSIONS = new ConcurrentHashMap<>();
+
     private ExpressionMatcher() {
         throw new AssertionError("Utility class. Not designed for instantiation");
     }
@@ -40,49 +61,64 @@ public final class ExpressionMatcher {
      * @return {@code true} if provided list of items satisfy expression criteria. {@code false} otherwise.
      */
     public static boolean matches(String expression, Collection<String> items) {
-        expression = StringUtil.trimToEmpty(expression);
         if (items.isEmpty()) {
             return true;
         }
+        if (expression == null) {
+            expression = "";
+        }
+
+        CompiledExpression compiled = COMPILED_EXPRESSIONS.get(expression);
+        if (compiled == null) {
+            compiled = new CompiledExpression(compile(expression, new ArrayList<Node>()));
+            if (COMPILED_EXPRESSIONS.size() >= MAX_COMPILED_EXPRESSIONS) {
+                COMPILED_EXPRESSIONS.clear();
+            }
+            COMPILED_EXPRESSIONS.put(expression, compiled);
+        }
+        return compiled.matches(items);
+    }
+
+    /**
+     * Parses the expression the same way it used to be evaluated: nested expressions are replaced from the innermost
+     * out, then the rest is split on "or", then on "and", then checked for negation.
+     */
+    private static Node compile(String expression, List<Node> nested) {
+        expression = StringUtil.trimToEmpty(expression);
 
         if (expression.equals(":TRUE")) {
-            return true;
+            return Constant.TRUE;
         }
         if (expression.equals(":FALSE")) {
-            return false;
+            return Constant.FALSE;
+        }
+        Node placeholder = getPlaceholder(expression, nested);
+        if (placeholder != null) {
+            return placeholder;
         }
 
         while (expression.contains("(")) {
             Matcher matcher = NESTED_EXPRESSION_PATTERN.matcher(expression);
             if (!matcher.find()) {
-                throw new UnexpectedLiquibaseException("Cannot parse expression " + expression);
+                return new Unparseable(new Text(expression, nested));
             }
 
             String left = expression.substring(0, matcher.start());
             String right = expression.substring(matcher.end());
             String nestedExpression = expression.substring(matcher.start() + 1, matcher.end() - 1); // +1/-1 -- exclude captured parenthesis
 
-            expression = left + " :" + String.valueOf(matches(nestedExpression, items)).toUpperCase() + " " + right;
+            nested.add(compile(nestedExpression, nested));
+            expression = left + " :" + PLACEHOLDER_DELIMITER + (nested.size() - 1) + PLACEHOLDER_DELIMITER + " " + right;
         }
 
         String[] orSplit = expression.split("\\s+or\\s+");
         if (orSplit.length > 1) {
-            for (String split : orSplit) {
-                if (matches(split, items)) {
-                    return true;
-                }
-            }
-            return false;
+            return new Or(compileAll(orSplit, nested));
         }
 
         String[] andSplit = expression.split("\\s+and\\s+");
         if (andSplit.length > 1) {
-            for (String split : andSplit) {
-                if (!matches(split, items)) {
-                    return false;
-                }
-            }
-            return true;
+            return new And(compileAll(andSplit, nested));
         }
 
         boolean notExpression = false;
@@ -95,17 +131,202 @@ public final class ExpressionMatcher {
         }
 
         if (expression.trim().equals(":TRUE")) {
-            return !notExpression;
+            return notExpression ? Constant.FALSE : Constant.TRUE;
         }
         if (expression.trim().equals(":FALSE")) {
+            return notExpression ? Constant.TRUE : Constant.FALSE;
+        }
+        placeholder = getPlaceholder(expression.trim(), nested);
+        if (placeholder != null) {
+            return notExpression ? new Not(placeholder) : placeholder;
+        }
+
+        return new Item(new Text(expression, nested), notExpression);
+    }
+
+    private static Node[] compileAll(String[] expressions, List<Node> nested) {
+        Node[] nodes = new Node[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            nodes[i] = compile(expressions[i], nested);
+        }
+        return nodes;
+    }
+
+    private static Node getPlaceholder(String expression, List<Node> nested) {
+        if ((expression.length() < 4) || (expression.charAt(0) != ':') || (expression.charAt(1) != PLACEHOLDER_DELIMITER)
+                || (expression.indexOf(PLACEHOLDER_DELIMITER, 2) != (expression.length() - 1))) {
+            return null;
+        }
+        return nested.get(Integer.parseInt(expression.substring(2, expression.length() - 1)));
+    }
+
+    private static class CompiledExpression {
+        private final Node root;
+        private final Map<Set<String>, Boolean> results;
+
+        private CompiledExpression(Node root) {
+            this.root = root;
+            //single items are as cheap to check as to look up
+            this.results = ((root instanceof Item) || (root instanceof Constant)) ? null : new ConcurrentHashMap<Set<String>, Boolean>();
+        }
+
+        private boolean matches(Collection<String> items) {
+            if (results == null) {
+                return root.matches(items);
+            }
+            Set<String> key = (items instanceof Set) ? (Set<String>) items : new HashSet<>(items);
+            Boolean result = results.get(key);
+            if (result == null) {
+                result = root.matches(items);
+                if (results.size() >= MAX_REMEMBERED_RESULTS) {
+                    results.clear();
+                }
+                results.put(new HashSet<>(key), result);
+            }
+            return result;
+        }
+    }
+
+    private interface Node {
+        boolean matches(Collection<String> items);
+    }
+
+    private static class Constant implements Node {
+        private static final Constant TRUE = new Constant(true);
+        private static final Constant FALSE = new Constant(false);
+
+        private final boolean value;
+
+        private Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean matches(Collection<String> items) {
+            return value;
+        }
+    }
+
+    private static class Not implements Node {
+        private final Node node;
+
+        private Not(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean matches(Collection<String> items) {
+            return !node.matches(items);
+        }
+    }
+
+    private static class Or implements Node {
+        private final Node[] nodes;
+
+        private Or(Node[] nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public boolean matches(Collection<String> items) {
+            for (Node node : nodes) {
+                if (node.matches(items)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class And implements Node {
+        private final Node[] nodes;
+
+        private And(Node[] nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public boolean matches(Collection<String> items) {
+            for (Node node : nodes) {
+                if (!node.matches(items)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Compares the text with each item. The text may still contain nested expressions when it was not a valid
+     * expression, like "a(b)", in which case it is compared with their ":TRUE" or ":FALSE" value filled in.
+     */
+    private static class Item implements Node {
+        private final Text text;
+        private final boolean notExpression;
+
+        private Item(Text text, boolean notExpression) {
+            this.text = text;
+            this.notExpression = notExpression;
+        }
+
+        @Override
+        public boolean matches(Collection<String> items) {
+            String expression = text.toString(items);
+            for (String item : items) {
+                if (item.equalsIgnoreCase(expression)) {
+                    return !notExpression;
+                }
+            }
             return notExpression;
         }
+    }
+
+    private static class Unparseable implements Node {
+        private final Text text;
 
-        for (String item : items) {
-            if (item.equalsIgnoreCase(expression)) {
-                return !notExpression;
+        private Unparseable(Text text) {
+            this.text = text;
+        }
+
+        @Override
+        public boolean matches(Collection<String> items) {
+            throw new UnexpectedLiquibaseException("Cannot parse expression " + text.toString(items));
+        }
+    }
+
+    /**
+     * Expression text which may contain placeholders for nested expressions.
+     */
+    private static class Text {
+        private final String[] parts;
+        private final Node[] nested;
+
+        private Text(String text, List<Node> allNested) {
+            List<String> parts = new ArrayList<>();
+            List<Node> nested = new ArrayList<>();
+            int start = 0;
+            int delimiter = text.indexOf(PLACEHOLDER_DELIMITER);
+            while (delimiter >= 0) {
+                int end = text.indexOf(PLACEHOLDER_DELIMITER, delimiter + 1);
+                parts.add(text.substring(start, delimiter));
+                nested.add(allNested.get(Integer.parseInt(text.substring(delimiter + 1, end))));
+                start = end + 1;
+                delimiter = text.indexOf(PLACEHOLDER_DELIMITER, start);
+            }
+            parts.add(text.substring(start));
+            this.parts = parts.toArray(new String[parts.size()]);
+            this.nested = nested.toArray(new Node[nested.size()]);
+        }
+
+        private String toString(Collection<String> items) {
+            if (nested.length == 0) {
+                return parts[0];
+            }
+            StringBuilder text = new StringBuilder(parts[0]);
+            for (int i = 0; i < nested.length; i++) {
+                text.append(String.valueOf(nested[i].matches(items)).toUpperCase()).append(parts[i + 1]);
             }
+            return text.toString();
         }
-        return notExpression;
     }
 }
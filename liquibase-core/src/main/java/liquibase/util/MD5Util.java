@@ -6,8 +6,8 @@ import liquibase.configuration.LiquibaseConfiguration;
 import liquibase.exception.UnexpectedLiquibaseException;
 
 import java.io.InputStream;
-import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * Generates md5-sums based on a string.
@@ -22,18 +22,49 @@ public class MD5Util {
            '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
     };
 
+    /**
+     * Digests released by {@link #releaseDigest(MessageDigest)}, so each thread creates one rather than one per call
+     */
+    private static final ThreadLocal<MessageDigest> RELEASED_DIGEST = new ThreadLocal<>();
+
+    /**
+     * Returns a reset MD5 {@link MessageDigest} for the calling thread.
+     * Pass it to {@link #releaseDigest(MessageDigest)} when done with it so later calls can reuse it.
+     */
+    public static MessageDigest getDigest() {
+        MessageDigest digest = RELEASED_DIGEST.get();
+        if (digest != null) {
+            RELEASED_DIGEST.remove();
+            return digest;
+        }
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+    }
+
+    public static void releaseDigest(MessageDigest digest) {
+        digest.reset();
+        RELEASED_DIGEST.set(digest);
+    }
+
+    public static String toHexString(byte[] digestBytes) {
+        return new String(encodeHex(digestBytes));
+    }
+
     public static String computeMD5(String input) {
         if (input == null) {
             return null;
         }
-        MessageDigest digest;
+        MessageDigest digest = getDigest();
         try {
-            digest = MessageDigest.getInstance("MD5");
             digest.update(input.getBytes(LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getOutputEncoding()));
         } catch (Exception e) {
             throw new UnexpectedLiquibaseException(e);
         }
         byte[] digestBytes = digest.digest();
+        releaseDigest(digest);
 
         String returnString = new String(encodeHex(digestBytes));
 
@@ -47,19 +78,18 @@ public class MD5Util {
     }
 
     public static String computeMD5(InputStream stream) {
-        MessageDigest digest;
+        MessageDigest digest = getDigest();
         try {
-            digest = MessageDigest.getInstance("MD5");
-
-            DigestInputStream digestStream = new DigestInputStream(stream, digest);
             byte[] buf = new byte[20480];
-            while (digestStream.read(buf) != -1) {
-                ; //digest is updating
+            int read;
+            while ((read = stream.read(buf)) != -1) {
+                digest.update(buf, 0, read);
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         byte[] digestBytes = digest.digest();
+        releaseDigest(digest);
 
         String returnString = new String(encodeHex(digestBytes));
 
@@ -367,4 +367,20 @@ public class ObjectUtil {
             return value;
         }
     }
+
+    /**
+     * Returns true if the class, or one of its superclasses below baseClass, declares the given method and so
+     * overrides the one declared by baseClass.
+     */
+    public static boolean overridesMethod(Class<?> type, Class<?> baseClass, String methodName, Class<?>... parameterTypes) {
+        for (Class<?> current = type; (current != null) && (current != baseClass); current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod(methodName, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                //check the superclass
+            }
+        }
+        return false;
+    }
 }
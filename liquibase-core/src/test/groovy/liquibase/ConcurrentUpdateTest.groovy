@@ -0,0 +1,122 @@
+package liquibase
+
+import liquibase.changelog.ChangeLogHistoryServiceFactory
+import liquibase.database.Database
+import liquibase.database.DatabaseFactory
+import liquibase.database.core.DerbyDatabase
+import liquibase.database.jvm.JdbcConnection
+import liquibase.lockservice.LockServiceFactory
+import liquibase.sdk.resource.MockResourceAccessor
+import liquibase.snapshot.SnapshotGeneratorFactory
+import liquibase.structure.core.Table
+import spock.lang.Specification
+
+import java.sql.DriverManager
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
+class ConcurrentUpdateTest extends Specification {
+
+    def changeLog = '''<databaseChangeLog
+        xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.4.xsd">
+    <changeSet id="1" author="test">
+        <createTable tableName="person">
+            <column name="id" type="int"><constraints primaryKey="true"/></column>
+            <column name="name" type="varchar(50)"/>
+        </createTable>
+    </changeSet>
+    <changeSet id="2" author="test">
+        <addColumn tableName="person"><column name="address" type="varchar(100)"/></addColumn>
+        <createIndex tableName="person" indexName="idx_person_name"><column name="name"/></createIndex>
+    </changeSet>
+    <changeSet id="3" author="test">
+        <insert tableName="person">
+            <column name="id" valueNumeric="1"/>
+            <column name="name" value="first"/>
+        </insert>
+    </changeSet>
+</databaseChangeLog>'''
+
+    ScopeManager originalScopeManager
+
+    def setup() {
+        originalScopeManager = Scope.getScopeManager()
+        Scope.setScopeManager(new ThreadLocalScopeManager())
+    }
+
+    def cleanup() {
+        Scope.setScopeManager(originalScopeManager)
+    }
+
+    private static Database open(String url) {
+        def database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(DriverManager.getConnection(url)))
+        ((DerbyDatabase) database).shutdownEmbeddedDerby = false
+        return database
+    }
+
+    def "separate databases are migrated and snapshotted at the same time"() {
+        given:
+        def threads = 8
+        def runs = 16
+        def pool = Executors.newFixedThreadPool(threads)
+        def start = new CountDownLatch(1)
+        def prefix = "jdbc:derby:memory:concurrentUpdate" + System.nanoTime() + "_"
+
+        when:
+        def futures = (1..runs).collect { run ->
+            pool.submit({
+                start.await()
+                def database = open(prefix + run + ";create=true")
+                try {
+                    new Liquibase("changelog.xml", new MockResourceAccessor(["changelog.xml": changeLog]), database).update("")
+                    def rows = ((JdbcConnection) database.connection).createStatement().executeQuery("select count(*) from databasechangelog")
+                    rows.next()
+                    def table = new Table(name: "PERSON")
+                    return [rows.getInt(1), SnapshotGeneratorFactory.getInstance().has(table, database)]
+                } finally {
+                    LockServiceFactory.getInstance().resetLockService(database)
+                    ChangeLogHistoryServiceFactory.getInstance().resetChangeLogService(database)
+                    database.connection.close()
+                }
+            } as Callable)
+        }
+        start.countDown()
+        def results = futures*.get()
+        pool.shutdown()
+
+        then:
+        results.every { it == [3, true] }
+    }
+
+    def "threads asking for the services of the same database get the same ones"() {
+        given:
+        def threads = 16
+        def pool = Executors.newFixedThreadPool(threads)
+        def start = new CountDownLatch(1)
+        def database = open("jdbc:derby:memory:concurrentServices" + System.nanoTime() + ";create=true")
+
+        when:
+        def futures = (1..threads).collect {
+            pool.submit({
+                start.await()
+                return [LockServiceFactory.getInstance().getLockService(database),
+                        ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(database)]
+            } as Callable)
+        }
+        start.countDown()
+        def results = futures*.get()
+        pool.shutdown()
+
+        then:
+        results*.get(0).unique(false) { System.identityHashCode(it) }.size() == 1
+        results*.get(1).unique(false) { System.identityHashCode(it) }.size() == 1
+
+        cleanup:
+        LockServiceFactory.getInstance().resetLockService(database)
+        ChangeLogHistoryServiceFactory.getInstance().resetChangeLogService(database)
+        database.connection.close()
+    }
+}
@@ -1,5 +1,6 @@
 package liquibase
 
+import liquibase.exception.UnexpectedLiquibaseException
 import spock.lang.Specification
 import spock.lang.Unroll
 
@@ -170,6 +171,31 @@ class ContextExpressionTest extends Specification {
         "a and b or c, d" | "e"             | false
     }
 
+    @Unroll("#featureName: testContexts #testContexts currentContexts: #currentContexts")
+    def "nested and malformed contexts"() {
+        expect:
+        new ContextExpression(testContexts).matches(new Contexts(currentContexts)) == expectedResult
+
+        where:
+        testContexts             | currentContexts | expectedResult
+        "((a or b) and !(c))"    | "a"             | true
+        "((a or b) and !(c))"    | "a,c"           | false
+        "((a or b) and !(c))"    | "c"             | false
+        "not (a and (b or c))"   | "a,b"           | false
+        "not (a and (b or c))"   | "b"             | true
+        "(a)(b)"                 | "a"             | false
+        "a)"                     | "a)"            | true
+    }
+
+    def "malformed nested contexts cannot be parsed"() {
+        when:
+        new ContextExpression("(a) and (b").matches(new Contexts("a"))
+
+        then:
+        def e = thrown(UnexpectedLiquibaseException)
+        e.message == "Cannot parse expression  :TRUE  and (b"
+    }
+
     @Unroll("#featureName: testContexts '#testContexts' against: '#controlContexts'")
     def "trim extra spaces"() {
         expect:
@@ -46,4 +46,46 @@ class ScopeTest extends Specification {
         } as Scope.ScopedRunner)
     }
 
+    def "Single value scopes mask and inherit values"() {
+        expect:
+        Scope.child([test1: "Level 1 A", test2: "2"], {
+            Scope.child("test1", "Level 2 A", {
+                assert Scope.currentScope.get("test1", String) == "Level 2 A"
+                assert Scope.currentScope.get("test2", Integer) == 2
+                assert Scope.currentScope.get("test3", "default") == "default"
+
+                Scope.child("test2", null, {
+                    assert Scope.currentScope.get("test1", String) == "Level 2 A"
+                    assert Scope.currentScope.get("test2", String) == "2"
+                } as Scope.ScopedRunner)
+            } as Scope.ScopedRunner)
+
+            assert Scope.currentScope.get("test1", String) == "Level 1 A"
+        } as Scope.ScopedRunner)
+    }
+
+    def "acquiring a ThreadLocalScopeManager restores the previous manager after the last release"() {
+        given:
+        def original = Scope.getScopeManager()
+        def singleton = new SingletonScopeManager()
+        Scope.setScopeManager(singleton)
+
+        when:
+        ThreadLocalScopeManager.acquire()
+        def acquired = Scope.getScopeManager()
+        ThreadLocalScopeManager.acquire()
+        def nested = Scope.getScopeManager()
+        ThreadLocalScopeManager.release()
+        def afterNestedRelease = Scope.getScopeManager()
+        ThreadLocalScopeManager.release()
+
+        then:
+        acquired instanceof ThreadLocalScopeManager
+        nested.is(acquired)
+        afterNestedRelease.is(acquired)
+        Scope.getScopeManager().is(singleton)
+
+        cleanup:
+        Scope.setScopeManager(original)
+    }
 }
@@ -0,0 +1,76 @@
+package liquibase.changelog
+
+import liquibase.ContextExpression
+import liquibase.Labels
+import liquibase.change.CheckSum
+import spock.lang.Specification
+
+class ChangeLogHistoryCacheTest extends Specification {
+
+    private static RanChangeSet ranChangeSet(String id, Integer orderExecuted, String tag = null,
+                                             String checkSum = "8:d41d8cd98f00b204e9800998ecf8427e",
+                                             ChangeSet.ExecType execType = ChangeSet.ExecType.EXECUTED) {
+        def ranChangeSet = new RanChangeSet("com/example/changelog.xml", id, "nvoxland", CheckSum.parse(checkSum),
+                new Date(1000L * orderExecuted), tag, execType, "createTable", null,
+                new ContextExpression("test"), new Labels("a, b"), "1234", "classpath:com/example/changelog.xml")
+        ranChangeSet.setOrderExecuted(orderExecuted)
+        return ranChangeSet
+    }
+
+    def "write and read round trip"() {
+        when:
+        def directory = File.createTempDir()
+        def cache = new ChangeLogHistoryCache(directory, "jdbc:h2:mem:test", null, "PUBLIC", "DATABASECHANGELOG")
+        cache.write([ranChangeSet("1", 1), ranChangeSet("2", 2, "v1")])
+        def read = new ChangeLogHistoryCache(directory, "jdbc:h2:mem:test", null, "PUBLIC", "DATABASECHANGELOG").read()
+
+        then:
+        read*.id == ["1", "2"]
+        read[1].changeLog == "com/example/changelog.xml"
+        read[1].storedChangeLog == "classpath:com/example/changelog.xml"
+        read[1].lastCheckSum.toString() == "8:d41d8cd98f00b204e9800998ecf8427e"
+        read[1].dateExecuted == new Date(2000)
+        read[1].tag == "v1"
+        read[1].execType == ChangeSet.ExecType.EXECUTED
+        read[1].contextExpression.toString() == "test"
+        read[1].labels.toString() == "a,b"
+        read[1].deploymentId == "1234"
+        read[1].orderExecuted == 2
+        ChangeLogHistoryCache.Summary.of(read) == ChangeLogHistoryCache.Summary.of([ranChangeSet("1", 1), ranChangeSet("2", 2, "v1")])
+
+        and: "a different table uses a different file"
+        new ChangeLogHistoryCache(directory, "jdbc:h2:mem:test", null, "OTHER", "DATABASECHANGELOG").read() == null
+
+        when:
+        cache.clear()
+
+        then:
+        cache.read() == null
+
+        cleanup:
+        directory.deleteDir()
+    }
+
+    def "merge appends newer rows and replaces re-ran ones"() {
+        when:
+        def merged = ChangeLogHistoryCache.merge([ranChangeSet("1", 1), ranChangeSet("2", 2), ranChangeSet("3", 3)],
+                [ranChangeSet("2", 4), ranChangeSet("4", 5)])
+
+        then:
+        merged*.id == ["1", "3", "2", "4"]
+        merged*.orderExecuted == [1, 3, 4, 5]
+    }
+
+    def "summary does not depend on row order and changes with every in-place update"() {
+        when:
+        def summary = ChangeLogHistoryCache.Summary.of([ranChangeSet("1", 1), ranChangeSet("2", 2, "v1")])
+
+        then:
+        ChangeLogHistoryCache.Summary.of([ranChangeSet("2", 2, "v1"), ranChangeSet("1", 1)]) == summary
+        summary.toString().startsWith("2 rows, max orderExecuted 2, 2 checksums, 1 tags")
+        ChangeLogHistoryCache.Summary.of([ranChangeSet("1", 1, null, "8:0123"), ranChangeSet("2", 2, "v1")]) != summary
+        ChangeLogHistoryCache.Summary.of([ranChangeSet("1", 1), ranChangeSet("2", 2, "v2")]) != summary
+        ChangeLogHistoryCache.Summary.of([ranChangeSet("1", 1, null, "8:d41d8cd98f00b204e9800998ecf8427e", ChangeSet.ExecType.MARK_RAN), ranChangeSet("2", 2, "v1")]) != summary
+        ChangeLogHistoryCache.Summary.of([ranChangeSet("1", 1, "v1"), ranChangeSet("2", 2)]) != summary
+    }
+}
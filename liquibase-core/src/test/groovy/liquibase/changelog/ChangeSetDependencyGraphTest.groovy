@@ -0,0 +1,235 @@
+package liquibase.changelog
+
+import liquibase.change.ColumnConfig
+import liquibase.change.ConstraintsConfig
+import liquibase.change.core.AddColumnChange
+import liquibase.change.core.AddForeignKeyConstraintChange
+import liquibase.change.core.CreateIndexChange
+import liquibase.change.core.CreateSequenceChange
+import liquibase.change.core.CreateTableChange
+import liquibase.change.core.DropSequenceChange
+import liquibase.change.core.InsertDataChange
+import liquibase.change.core.RawSQLChange
+import liquibase.change.core.UpdateDataChange
+import liquibase.database.DatabaseFactory
+import liquibase.database.core.DerbyDatabase
+import liquibase.database.core.H2Database
+import liquibase.database.jvm.JdbcConnection
+import liquibase.statement.DatabaseFunction
+import liquibase.statement.SequenceNextValueFunction
+import liquibase.change.AddColumnConfig
+import liquibase.change.Change
+import spock.lang.Specification
+
+import java.sql.DriverManager
+
+class ChangeSetDependencyGraphTest extends Specification {
+
+    private static ChangeSet changeSet(String id, Change change) {
+        def changeSet = new ChangeSet(id, "test", false, false, "changelog.xml", null, null, null)
+        changeSet.addChange(change)
+        return changeSet
+    }
+
+    private static CreateTableChange createTable(String tableName) {
+        def change = new CreateTableChange()
+        change.tableName = tableName
+        change.addColumn(new ColumnConfig().setName("id").setType("int"))
+        return change
+    }
+
+    private static CreateIndexChange createIndex(String tableName, String indexName) {
+        def change = new CreateIndexChange()
+        change.tableName = tableName
+        change.indexName = indexName
+        change.addColumn(new AddColumnConfig().setName("id"))
+        return change
+    }
+
+    private static List<Integer> dependencies(ChangeSetDependencyGraph graph, int index) {
+        return (0..<graph.size()).findAll { graph.getDependents(it).contains(index) }
+    }
+
+    def "change sets on different tables are independent"() {
+        when:
+        def graph = new ChangeSetDependencyGraph([
+                changeSet("1", createTable("a")),
+                changeSet("2", createTable("b")),
+                changeSet("3", createIndex("a", "idx_a")),
+                changeSet("4", createIndex("B", "idx_b")),
+                changeSet("5", new AddColumnChange(tableName: "a", columns: [new AddColumnConfig().setName("x").setType("int")])),
+        ], new H2Database())
+
+        then:
+        (0..4).every { !graph.isBarrier(it) }
+        dependencies(graph, 1) == []
+        dependencies(graph, 2) == [0]
+        dependencies(graph, 3) == [1]
+        dependencies(graph, 4) == [2]
+        graph.getDependencyCount(4) == 1
+    }
+
+    def "change sets with unknown effects are barriers"() {
+        when:
+        def update = new UpdateDataChange(tableName: "a", where: "id = 1")
+        update.addColumn(new ColumnConfig().setName("id").setValueNumeric(2))
+        def graph = new ChangeSetDependencyGraph([
+                changeSet("1", createTable("a")),
+                changeSet("2", createTable("b")),
+                changeSet("3", new RawSQLChange("insert into a values (1)")),
+                changeSet("4", createTable("c")),
+                changeSet("5", update),
+                changeSet("6", createTable("d")),
+        ], new H2Database())
+
+        then:
+        graph.isBarrier(2)
+        graph.isBarrier(4)
+        !graph.isBarrier(5)
+        dependencies(graph, 2) == [0, 1]
+        dependencies(graph, 3) == [2]
+        dependencies(graph, 4) == [2, 3]
+        dependencies(graph, 5) == [4]
+    }
+
+    def "grouped change sets depend on their group and on lower levels"() {
+        when:
+        def groups = ["1": "a", "2": "b", "3": "c", "4": "a", "5": "d", "6": "c", "8": "a"]
+        def levels = [a: 0, b: 1, c: 1, d: 0]
+        def graph = new ChangeSetDependencyGraph((1..8).collect { changeSet(it.toString(), createTable("t" + it)) }, new H2Database(), [
+                getGroup: { ChangeSet changeSet -> groups[changeSet.id] },
+                getLevel: { String group -> levels[group] }
+        ] as ChangeSetGroups)
+
+        then:
+        (0..7).collect { graph.isBarrier(it) } == [false, false, false, false, false, false, true, false]
+        dependencies(graph, 0) == []
+        dependencies(graph, 1) == [3, 4]
+        dependencies(graph, 2) == [3, 4]
+        dependencies(graph, 3) == [0]
+        dependencies(graph, 4) == []
+        dependencies(graph, 5) == [2]
+        dependencies(graph, 6) == [0, 1, 2, 3, 4, 5]
+        dependencies(graph, 7) == [6]
+    }
+
+    def "groups are added to the order found from the affected objects"() {
+        when:
+        def graph = new ChangeSetDependencyGraph([
+                changeSet("1", createTable("a")),
+                changeSet("2", createIndex("a", "idx_a")),
+                changeSet("3", new RawSQLChange("select 1")),
+                changeSet("4", createTable("b")),
+        ], new H2Database(), [
+                getGroup: { ChangeSet changeSet -> (changeSet.id == "1") ? "first" : "second" },
+                getLevel: { String group -> 0 }
+        ] as ChangeSetGroups)
+
+        then:
+        (0..3).collect { graph.isBarrier(it) } == [false, false, true, false]
+        dependencies(graph, 1) == [0]
+        dependencies(graph, 2) == [0, 1]
+        dependencies(graph, 3) == [2]
+    }
+
+    def "foreign keys depend on both of their tables"() {
+        when:
+        def child = createTable("c")
+        child.addColumn(new ColumnConfig().setName("a_id").setType("int")
+                .setConstraints(new ConstraintsConfig().setForeignKeyName("fk_c_a").setReferences("a(id)")))
+        def graph = new ChangeSetDependencyGraph([
+                changeSet("1", createTable("a")),
+                changeSet("2", createTable("b")),
+                changeSet("3", new AddForeignKeyConstraintChange(constraintName: "fk_a_b", baseTableName: "a",
+                        baseColumnNames: "id", referencedTableName: "b", referencedColumnNames: "id")),
+                changeSet("4", child),
+                changeSet("5", createTable("d")),
+        ], new H2Database())
+
+        then:
+        (0..4).every { !graph.isBarrier(it) }
+        dependencies(graph, 2) == [0, 1]
+        dependencies(graph, 3) == [2]
+        dependencies(graph, 4) == []
+    }
+
+    def "rows are written in changelog order"() {
+        when:
+        def graph = new ChangeSetDependencyGraph([
+                changeSet("1", createTable("a")),
+                changeSet("2", createTable("b")),
+                changeSet("3", insert("a")),
+                changeSet("4", insert("b")),
+                changeSet("5", createTable("c")),
+        ], new H2Database())
+
+        then:
+        dependencies(graph, 2) == [0]
+        dependencies(graph, 3) == [1, 2]
+        dependencies(graph, 4) == []
+    }
+
+    def "columns using a sequence are ordered against the changes to the sequence"() {
+        when:
+        def usesSequence = createTable("a")
+        usesSequence.addColumn(new ColumnConfig().setName("seq_id").setType("int").setDefaultValueSequenceNext(new SequenceNextValueFunction("S1")))
+        def computed = createTable("b")
+        computed.addColumn(new ColumnConfig().setName("created").setType("int").setDefaultValueComputed(new DatabaseFunction("next_id()")))
+        def graph = new ChangeSetDependencyGraph([
+                changeSet("1", new CreateSequenceChange(sequenceName: "s1")),
+                changeSet("2", new CreateSequenceChange(sequenceName: "s2")),
+                changeSet("3", usesSequence),
+                changeSet("4", computed),
+                changeSet("5", createTable("c")),
+                changeSet("6", new DropSequenceChange(sequenceName: "s1")),
+                changeSet("7", new DropSequenceChange(sequenceName: "s2")),
+        ], new H2Database())
+
+        then:
+        (0..6).every { !graph.isBarrier(it) }
+        dependencies(graph, 2) == [0]
+        dependencies(graph, 3) == [0, 1]
+        dependencies(graph, 4) == []
+        dependencies(graph, 5) == [0, 2, 3]
+        dependencies(graph, 6) == [1, 3]
+    }
+
+    def "rows are ordered per table and across tables linked by foreign keys"() {
+        when:
+        def connection = DriverManager.getConnection("jdbc:derby:memory:graph" + System.nanoTime() + ";create=true")
+        def database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection))
+        ((DerbyDatabase) database).shutdownEmbeddedDerby = false
+        connection.createStatement().execute("create table parent (id int primary key)")
+        connection.createStatement().execute("create table child (id int, parent_id int references parent(id))")
+        def graph = new ChangeSetDependencyGraph([
+                changeSet("1", createTable("a")),
+                changeSet("2", createTable("b")),
+                changeSet("3", new AddForeignKeyConstraintChange(constraintName: "fk_b_a", baseTableName: "b",
+                        baseColumnNames: "id", referencedTableName: "a", referencedColumnNames: "id")),
+                changeSet("4", createTable("c")),
+                changeSet("5", insert("a")),
+                changeSet("6", insert("c")),
+                changeSet("7", insert("b")),
+                changeSet("8", insert("parent")),
+                changeSet("9", insert("child")),
+                changeSet("10", insert("c")),
+        ], database)
+
+        then:
+        dependencies(graph, 4) == [2]
+        dependencies(graph, 5) == [3]
+        dependencies(graph, 6) == [2, 4]
+        dependencies(graph, 7) == []
+        dependencies(graph, 8) == [7]
+        dependencies(graph, 9) == [5]
+
+        cleanup:
+        database?.close()
+    }
+
+    private static InsertDataChange insert(String tableName) {
+        def change = new InsertDataChange(tableName: tableName)
+        change.addColumn(new ColumnConfig().setName("id").setValueNumeric(1))
+        return change
+    }
+}
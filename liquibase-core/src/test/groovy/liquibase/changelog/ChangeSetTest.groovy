@@ -2,6 +2,8 @@ package liquibase.changelog
 
 import liquibase.change.CheckSum
 import liquibase.change.core.*
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.parser.ChangeLogParserCofiguration
 import liquibase.parser.core.ParsedNode
 import liquibase.parser.core.ParsedNodeException
 import liquibase.precondition.core.RunningAsPrecondition
@@ -483,6 +485,61 @@ public class ChangeSetTest extends Specification {
         changeSet.changes[1].tableName == "table_2"
     }
 
+    def "lazy loading builds the same changes on first use"() {
+        when:
+        def createNode = {
+            new ParsedNode(null, "changeSet")
+                    .addChildren([id: "1", author: "nvoxland", runOnChange: "true", validCheckSum: "8:a3d6a29ce3a75940858cd093501151d1"])
+                    .addChild(new ParsedNode(null, "createTable").addChild(null, "tableName", "table_1"))
+                    .addChildren([changes: [new ParsedNode(null, "createTable").addChild(null, "tableName", "table_2")]])
+                    .addChild(new ParsedNode(null, "rollback").setValue("drop table table_1"))
+                    .addChild(new ParsedNode(null, "dropTable").addChild(null, "tableName", "table_3"))
+        }
+        def eager = new ChangeSet(new DatabaseChangeLog("com/example/test.xml"))
+        eager.load(createNode(), resourceSupplier.simpleResourceAccessor)
+
+        LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration).setLazyChangeSetLoading(true)
+        def lazy = new ChangeSet(new DatabaseChangeLog("com/example/test.xml"))
+        lazy.load(createNode(), resourceSupplier.simpleResourceAccessor)
+
+        then:
+        !eager.hasDeferredChanges()
+        lazy.hasDeferredChanges()
+        lazy.toString(false) == "com/example/test.xml::1::nvoxland"
+        lazy.shouldRunOnChange()
+        lazy.validCheckSums*.toString() == ["8:a3d6a29ce3a75940858cd093501151d1"]
+
+        lazy.generateCheckSum() == eager.generateCheckSum()
+        !lazy.hasDeferredChanges()
+        lazy.changes*.class == [CreateTableChange, CreateTableChange, DropTableChange]
+        lazy.changes*.tableName == eager.changes*.tableName
+        lazy.changes.every { it.changeSet.is(lazy) }
+        ((RawSQLChange) lazy.rollback.changes[0]).sql == "drop table table_1"
+
+        cleanup:
+        LiquibaseConfiguration.getInstance().reset()
+    }
+
+    def "lazy loading keeps rollbacks referencing other change sets eager"() {
+        def path = "com/example/test.xml"
+        when:
+        LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration).setLazyChangeSetLoading(true)
+        def changeLog = new DatabaseChangeLog(path)
+        changeLog.load(new ParsedNode(null, "databaseChangeLog")
+                .addChildren([changeSet: [id: "1", author: "nvoxland", createTable: [tableName: "table1"]]])
+                .addChildren([changeSet: [id: "2", author: "nvoxland", dropTable: [tableName: "tableX"], rollback: [changeSetId: "1", changeSetAuthor: "nvoxland"]]])
+                .addChildren([changeSet: [id: "3", author: "nvoxland", createTable: [tableName: "table3"]]])
+                , resourceSupplier.simpleResourceAccessor)
+
+        then:
+        changeLog.getChangeSet(path, "nvoxland", "3").hasDeferredChanges()
+        !changeLog.getChangeSet(path, "nvoxland", "2").hasDeferredChanges()
+        ((CreateTableChange) changeLog.getChangeSet(path, "nvoxland", "2").rollback.changes[0]).tableName == "table1"
+
+        cleanup:
+        LiquibaseConfiguration.getInstance().reset()
+    }
+
     @Unroll("#featureName: #param=#value")
     def "load handles alwaysRun or runAlways"() {
         when:
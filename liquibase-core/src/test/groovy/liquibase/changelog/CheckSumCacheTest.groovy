@@ -0,0 +1,98 @@
+package liquibase.changelog
+
+import liquibase.Scope
+import liquibase.change.core.SQLFileChange
+import liquibase.configuration.GlobalConfiguration
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.resource.FileSystemResourceAccessor
+import spock.lang.Specification
+
+class CheckSumCacheTest extends Specification {
+
+    File directory
+
+    def setup() {
+        directory = File.createTempDir()
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration).setChecksumCacheDirectory(new File(directory, "cache").absolutePath)
+    }
+
+    def cleanup() {
+        CheckSumCache.getInstance().flush()
+        LiquibaseConfiguration.getInstance().reset()
+        directory.deleteDir()
+    }
+
+    private ChangeSet createChangeSet() {
+        def changeLog = new DatabaseChangeLog("changelog.xml")
+        def changeSet = new ChangeSet("1", "test", false, false, "changelog.xml", null, null, changeLog)
+        def change = new SQLFileChange()
+        change.path = "data.sql"
+        changeSet.addChange(change)
+        changeSet.changeLogParameters = new ChangeLogParameters()
+        return changeSet
+    }
+
+    private String checkSum() {
+        String checkSum = null
+        Scope.child(Scope.Attr.resourceAccessor, new FileSystemResourceAccessor(directory), {
+            checkSum = createChangeSet().generateCheckSum().toString()
+            CheckSumCache.getInstance().flush()
+        } as Scope.ScopedRunner)
+        return checkSum
+    }
+
+    def "cached checksum is used until a source file changes"() {
+        when:
+        new File(directory, "changelog.xml").text = "<databaseChangeLog/>"
+        def sqlFile = new File(directory, "data.sql")
+        sqlFile.text = "select 1"
+        def lastModified = sqlFile.lastModified()
+        def original = checkSum()
+
+        then:
+        new File(directory, "cache/checksums.cache").exists()
+
+        when: "content changes but modification time and size do not"
+        sqlFile.text = "select 2"
+        sqlFile.setLastModified(lastModified)
+
+        then:
+        checkSum() == original
+
+        when: "size changes"
+        sqlFile.text = "select 22"
+
+        then:
+        checkSum() != original
+    }
+
+    def "referenced parameters are part of the key"() {
+        when:
+        new File(directory, "changelog.xml").text = '<databaseChangeLog>${table.name}</databaseChangeLog>'
+        new File(directory, "data.sql").text = "select 1"
+        def changeSet = createChangeSet()
+        changeSet.changeLogParameters.set("table.name", "a")
+        def cache = CheckSumCache.getInstance()
+        def original = null
+        def sameParameters = null
+        def changedParameters = null
+        def computed = null
+        Scope.child(Scope.Attr.resourceAccessor, new FileSystemResourceAccessor(directory), {
+            original = cache.getCheckSum(changeSet)
+
+            //stands in for a change set parsed with a different value
+            changeSet.addChange(new SQLFileChange(path: "data.sql", sql: "select 2"))
+            sameParameters = cache.getCheckSum(changeSet)
+
+            changeSet.changeLogParameters = new ChangeLogParameters()
+            changeSet.changeLogParameters.set("table.name", "b")
+            changedParameters = cache.getCheckSum(changeSet)
+            computed = changeSet.computeCheckSum()
+        } as Scope.ScopedRunner)
+
+        then:
+        sameParameters == original
+        changedParameters != original
+        changedParameters == computed
+    }
+}
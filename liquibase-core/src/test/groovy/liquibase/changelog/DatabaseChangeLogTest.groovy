@@ -2,13 +2,20 @@ package liquibase.changelog
 
 import liquibase.ContextExpression
 import liquibase.LabelExpression
+import liquibase.Scope
+import liquibase.ThreadLocalScopeManager
+import liquibase.change.CheckSum
 import liquibase.change.core.CreateTableChange
 import liquibase.change.core.RawSQLChange
+import liquibase.configuration.LiquibaseConfiguration
 import liquibase.exception.SetupException
+import liquibase.exception.UnexpectedLiquibaseException
+import liquibase.parser.ChangeLogParserCofiguration
 import liquibase.parser.core.ParsedNode
 import liquibase.precondition.core.OrPrecondition
 import liquibase.precondition.core.PreconditionContainer
 import liquibase.precondition.core.RunningAsPrecondition
+import liquibase.resource.InputStreamList
 import liquibase.sdk.resource.MockResourceAccessor
 import liquibase.sdk.supplier.resource.ResourceSupplier
 import spock.lang.Shared
@@ -89,6 +96,32 @@ create view sql_view as select * from sql_table;'''
         changeLog.getChangeSet(path, "auth", "with-dbms-and-context") == null
     }
 
+    def "getChangeSet is case insensitive and sees change sets added after a lookup"() {
+        def path = "com/example/path.xml"
+        when:
+        def changeLog = new DatabaseChangeLog(path)
+        changeLog.addChangeSet(new ChangeSet("1", "auth", false, false, path, null, null, changeLog))
+
+        then:
+        changeLog.getChangeSet("classpath:COM/example/path.xml", "AUTH", "1").id == "1"
+        changeLog.getChangeSet(path, "auth", "2") == null
+
+        when:
+        changeLog.addChangeSet(new ChangeSet("2", "auth", false, false, path, null, null, changeLog))
+
+        then:
+        changeLog.getChangeSet(path, "auth", "2").id == "2"
+
+        when: "the first change set for a dbms does not match, the next one is returned"
+        changeLog.addChangeSet(new ChangeSet("3", "auth", false, false, path, null, "oracle", changeLog))
+        changeLog.addChangeSet(new ChangeSet("3", "auth", false, false, path, null, "mock", changeLog))
+        changeLog.setChangeLogParameters(new ChangeLogParameters())
+        changeLog.getChangeLogParameters().set("database.typeName", "mock")
+
+        then:
+        changeLog.getChangeSet(path, "auth", "3").getDbmsSet() == ["mock"] as Set
+    }
+
     def "load handles both changes and preconditions"() {
         when:
         def children = [
@@ -279,6 +312,98 @@ create view sql_view as select * from sql_table;'''
                                                              "com/example/children/file3.sql"]
     }
 
+    @Unroll("#featureName: #threads threads")
+    def "prefetched includes load the same change sets and parameters as sequential includes"() {
+        when:
+        def changeLogXml = { String body ->
+            """<databaseChangeLog
+        xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.4.xsd">
+    ${body}
+</databaseChangeLog>""".toString()
+        }
+        def createTable = { String name -> "<changeSet id=\"1\" author=\"test\"><createTable tableName=\"${name}\"><column name=\"id\" type=\"int\"/></createTable></changeSet>" }
+        def resourceAccessor = new MockResourceAccessor([
+                "com/example/a.xml"       : changeLogXml("""<property name="localSuffix" value="_a" global="false"/>
+                                                             <property name="shared" value="fromA"/>
+                                                             ${createTable('a${localSuffix}')}
+                                                             <include file="nested/b.xml" relativeToChangelogFile="true"/>"""),
+                "com/example/nested/b.xml": changeLogXml(createTable('b_${shared}_${localSuffix}')),
+                "com/example/all/c2.xml"  : changeLogXml(createTable('c2_${shared}')),
+                "com/example/all/c1.xml"  : changeLogXml(createTable('c1_${shared}')),
+                "com/example/d.xml"       : changeLogXml(createTable('d')),
+        ])
+        LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration).setParseThreads(threads)
+
+        def rootChangeLog = new DatabaseChangeLog("com/example/root.xml")
+        rootChangeLog.setChangeLogParameters(new ChangeLogParameters())
+        rootChangeLog.getChangeLogParameters().set("dynamicFile", "d.xml")
+        rootChangeLog.load(new ParsedNode(null, "databaseChangeLog")
+                .addChildren([include: [file: "com/example/a.xml"]])
+                .addChildren([includeAll: [path: "com/example/all"]])
+                .addChildren([include: [file: "com/example/\${dynamicFile}"]])
+                .addChildren([include: [file: "com/example/d.xml"]])
+                , resourceAccessor)
+
+        then:
+        rootChangeLog.changeSets.collect { it.filePath + ":" + ((CreateTableChange) it.changes[0]).tableName } == [
+                "com/example/a.xml:a_a",
+                "com/example/nested/b.xml:b_fromA__a",
+                "com/example/all/c1.xml:c1_fromA",
+                "com/example/all/c2.xml:c2_fromA",
+                "com/example/d.xml:d",
+                "com/example/d.xml:d",
+        ]
+        ChangeLogPrefetcher.getCurrent() == null
+
+        cleanup:
+        LiquibaseConfiguration.getInstance().reset()
+
+        where:
+        threads << [1, 4]
+    }
+
+    def "prefetched includes are parsed in the scope of the changelog being loaded"() {
+        when:
+        def changeLogXml = """<databaseChangeLog
+        xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.4.xsd">
+    <changeSet id="1" author="test"><createTable tableName="a"><column name="id" type="int"/></createTable></changeSet>
+</databaseChangeLog>"""
+        def resourceAccessor = new MockResourceAccessor(["com/example/a.xml": changeLogXml, "com/example/b.xml": changeLogXml])
+        def scopeThreads = Collections.synchronizedSet(new HashSet<Thread>())
+        def scopeResourceAccessor = new MockResourceAccessor() {
+            @Override
+            InputStreamList openStreams(String relativeTo, String streamPath) throws IOException {
+                scopeThreads.add(Thread.currentThread())
+                return super.openStreams(relativeTo, streamPath)
+            }
+        }
+        LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration).setParseThreads(2)
+
+        def rootChangeLog = new DatabaseChangeLog("com/example/root.xml")
+        ThreadLocalScopeManager.acquire()
+        try {
+            Scope.child([(Scope.Attr.resourceAccessor.name()): scopeResourceAccessor], {
+                rootChangeLog.load(new ParsedNode(null, "databaseChangeLog")
+                        .addChildren([include: [file: "com/example/a.xml"]])
+                        .addChildren([include: [file: "com/example/b.xml"]])
+                        , resourceAccessor)
+            } as Scope.ScopedRunner)
+        } finally {
+            ThreadLocalScopeManager.release()
+        }
+
+        then: "the schemas were looked up through the scope's resource accessor on the pool threads too"
+        rootChangeLog.changeSets.size() == 2
+        scopeThreads.any { it != Thread.currentThread() }
+
+        cleanup:
+        LiquibaseConfiguration.getInstance().reset()
+    }
+
     @Unroll("#featureName: #changeSets")
     def "addChangeSet works with first/last combinations"() {
         when:
@@ -341,6 +466,89 @@ create view sql_view as select * from sql_table;'''
 
     }
 
+    def "a frozen changelog keeps the state of each run in the run state"() {
+        def path = "com/example/path.xml"
+        when:
+        def changeLog = new DatabaseChangeLog(path)
+        def changeSet = new ChangeSet("1", "auth", false, false, path, null, null, changeLog)
+        changeLog.addChangeSet(changeSet)
+        changeLog.freeze()
+        def first = new ChangeLogRunState()
+        def second = new ChangeLogRunState()
+        Scope.child(Scope.Attr.changeLogRunState, first, {
+            changeSet.storedCheckSum = CheckSum.compute("first")
+            changeSet.storedFilePath = "first.xml"
+        } as Scope.ScopedRunner)
+        Scope.child(Scope.Attr.changeLogRunState, second, {
+            changeSet.storedCheckSum = CheckSum.compute("second")
+        } as Scope.ScopedRunner)
+
+        then:
+        changeSet.frozen
+        changeSet.storedCheckSum == null
+        changeSet.storedFilePath == path
+        first.getStoredCheckSum(changeSet) == CheckSum.compute("first")
+        first.getStoredFilePath(changeSet) == "first.xml"
+        second.getStoredCheckSum(changeSet) == CheckSum.compute("second")
+        second.getStoredFilePath(changeSet) == null
+
+        when:
+        changeLog.addChangeSet(new ChangeSet("2", "auth", false, false, path, null, null, changeLog))
+
+        then:
+        thrown(UnexpectedLiquibaseException)
+        changeLog.changeSets.size() == 1
+    }
+
+    def "a frozen changelog initializes its changes once and keeps validation failures per run"() {
+        def path = "com/example/path.xml"
+        when:
+        def initialized = 0
+        def change = new RawSQLChange("select 1") {
+            @Override
+            void finishInitialization() throws SetupException {
+                initialized++
+            }
+        }
+        def invalidChange = new RawSQLChange("select 2") {
+            @Override
+            void finishInitialization() throws SetupException {
+                throw new SetupException("invalid")
+            }
+        }
+        def changeLog = new DatabaseChangeLog(path)
+        def changeSet = new ChangeSet("1", "auth", false, false, path, null, null, changeLog)
+        changeSet.addChange(change)
+        changeSet.addChange(invalidChange)
+        changeLog.addChangeSet(changeSet)
+        changeLog.freeze()
+        def first = new ChangeLogRunState()
+        def second = new ChangeLogRunState()
+        def failedInSecond = null
+        def setupException = null
+        Scope.child(Scope.Attr.changeLogRunState, first, {
+            changeSet.finishInitialization(change)
+            changeSet.validationFailed = true
+        } as Scope.ScopedRunner)
+        Scope.child(Scope.Attr.changeLogRunState, second, {
+            changeSet.finishInitialization(change)
+            failedInSecond = changeSet.validationFailed
+            try {
+                changeSet.finishInitialization(invalidChange)
+            } catch (SetupException e) {
+                setupException = e
+            }
+        } as Scope.ScopedRunner)
+
+        then:
+        initialized == 1
+        first.isValidationFailed(changeSet)
+        !second.isValidationFailed(changeSet)
+        failedInSecond == false
+        !changeSet.validationFailed
+        setupException.message == "invalid"
+    }
+
     @Unroll
     def "normalizePath"() {
         expect:
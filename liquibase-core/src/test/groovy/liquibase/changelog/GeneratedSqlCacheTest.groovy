@@ -0,0 +1,129 @@
+package liquibase.changelog
+
+import liquibase.Scope
+import liquibase.change.ColumnConfig
+import liquibase.change.core.CreateTableChange
+import liquibase.configuration.GlobalConfiguration
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.database.Database
+import liquibase.database.core.H2Database
+import liquibase.database.core.PostgresDatabase
+import liquibase.sqlgenerator.SqlGeneratorFactory
+import liquibase.statement.SqlStatement
+import liquibase.statement.core.DropTableStatement
+import spock.lang.Specification
+
+class GeneratedSqlCacheTest extends Specification {
+
+    def cleanup() {
+        LiquibaseConfiguration.getInstance().reset()
+    }
+
+    private static class CountingCreateTableChange extends CreateTableChange {
+        int generated
+        boolean isVolatile
+
+        @Override
+        SqlStatement[] generateStatements(Database database) {
+            generated++
+            return super.generateStatements(database)
+        }
+
+        @Override
+        boolean generateStatementsVolatile(Database database) {
+            return isVolatile
+        }
+    }
+
+    private static CountingCreateTableChange createChange() {
+        def change = new CountingCreateTableChange()
+        change.tableName = "person"
+        change.addColumn(new ColumnConfig(name: "id", type: "int"))
+        return change
+    }
+
+    private static void inRun(Closure closure) {
+        Scope.child(Scope.Attr.changeLogRunState, new ChangeLogRunState(), closure as Scope.ScopedRunner)
+    }
+
+    def "statements and sql are generated once per change and database in a run"() {
+        when:
+        def change = createChange()
+        def postgres = new PostgresDatabase()
+        def h2 = new H2Database()
+        def sql = []
+        inRun {
+            change.validate(postgres)
+            change.warn(postgres)
+            change.getAffectedDatabaseObjects(postgres)
+            sql.add(SqlGeneratorFactory.getInstance().generateSql(change, postgres)*.toSql())
+            sql.add(SqlGeneratorFactory.getInstance().generateSql(change, postgres)*.toSql())
+            change.validate(h2)
+        }
+
+        then:
+        change.generated == 2
+        sql[0] == sql[1]
+        sql[0] == ["CREATE TABLE person (id INTEGER)"]
+    }
+
+    def "sql is only remembered for statements generated by the cache"() {
+        when:
+        def database = new PostgresDatabase()
+        def statement = new DropTableStatement(null, null, "person", false)
+        def cache = new GeneratedSqlCache()
+        cache.putSql(statement, database, SqlGeneratorFactory.getInstance().generateSql(statement, database))
+
+        then:
+        cache.getSql(statement, database) == null
+    }
+
+    def "changes are generated again after they are forgotten, when volatile or outside of a run"() {
+        when:
+        def change = createChange()
+        def database = new PostgresDatabase()
+        def changeSet = new ChangeSet("1", "test", false, false, "changelog.xml", null, null, null)
+        changeSet.addChange(change)
+        inRun {
+            change.validate(database)
+            changeSet.clearCheckSum()
+            change.validate(database)
+        }
+
+        then:
+        change.generated == 2
+
+        when:
+        change.generated = 0
+        change.validate(database)
+        change.validate(database)
+
+        then:
+        change.generated == 2
+
+        when:
+        change.generated = 0
+        change.isVolatile = true
+        inRun {
+            GeneratedSqlCache.generateStatements(change, database)
+            GeneratedSqlCache.generateStatements(change, database)
+        }
+
+        then:
+        change.generated == 2
+    }
+
+    def "nothing is cached when caching is disabled"() {
+        when:
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration).setCacheGeneratedSql(false)
+        def change = createChange()
+        def database = new PostgresDatabase()
+        inRun {
+            change.validate(database)
+            change.validate(database)
+        }
+
+        then:
+        change.generated == 2
+    }
+}
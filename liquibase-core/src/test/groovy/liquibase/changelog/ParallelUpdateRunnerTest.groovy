@@ -0,0 +1,117 @@
+package liquibase.changelog
+
+import liquibase.Contexts
+import liquibase.LabelExpression
+import liquibase.Liquibase
+import liquibase.RuntimeEnvironment
+import liquibase.Scope
+import liquibase.changelog.visitor.UpdateVisitor
+import liquibase.database.Database
+import liquibase.database.DatabaseFactory
+import liquibase.database.jvm.JdbcConnection
+import liquibase.exception.LiquibaseException
+import liquibase.sdk.resource.MockResourceAccessor
+import spock.lang.Specification
+
+import java.sql.DriverManager
+import java.util.concurrent.ConcurrentHashMap
+
+class ParallelUpdateRunnerTest extends Specification {
+
+    def changeLog = '''<databaseChangeLog
+        xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.4.xsd">
+    <changeSet id="1" author="test">
+        <createTable tableName="a"><column name="id" type="int"/></createTable>
+    </changeSet>
+    <changeSet id="2" author="test">
+        <createTable tableName="b"><column name="id" type="int"/></createTable>
+    </changeSet>
+    <changeSet id="3" author="test">
+        <createIndex tableName="a" indexName="idx_a"><column name="id"/></createIndex>
+    </changeSet>
+    <changeSet id="4" author="test">
+        <createTable tableName="c"><column name="id" type="int"/></createTable>
+    </changeSet>
+    <changeSet id="5" author="test">
+        <sql>insert into b values (1)</sql>
+    </changeSet>
+    <changeSet id="6" author="test">
+        <insert tableName="a"><column name="id" valueNumeric="2"/></insert>
+    </changeSet>
+    <changeSet id="7" author="test">
+        <insert tableName="c"><column name="id" valueNumeric="3"/></insert>
+    </changeSet>
+</databaseChangeLog>'''
+
+    private static Database open(String url) {
+        return DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(DriverManager.getConnection(url)))
+    }
+
+    def "independent change sets run on worker connections and are recorded in changelog order"() {
+        given:
+        def url = "jdbc:derby:memory:parallelUpdate;create=true"
+        def database = open(url)
+        def workers = [open(url), open(url)]
+        def liquibase = new Liquibase("changelog.xml", new MockResourceAccessor(["changelog.xml": changeLog]), database)
+        liquibase.setUpdateWorkerDatabases(workers)
+
+        when:
+        liquibase.update("")
+        def statement = ((JdbcConnection) database.connection).createStatement()
+        def ids = []
+        def rows = statement.executeQuery("select id from databasechangelog order by orderexecuted")
+        while (rows.next()) {
+            ids << rows.getString(1)
+        }
+        def values = []
+        rows = statement.executeQuery("select id from a union all select id from b union all select id from c")
+        while (rows.next()) {
+            values << rows.getInt(1)
+        }
+
+        then:
+        ids == ["1", "2", "3", "4", "5", "6", "7"]
+        values.sort() == [1, 2, 3]
+        liquibase.listUnrunChangeSets(null, null).isEmpty()
+
+        cleanup:
+        workers.each { ((JdbcConnection) it.connection).underlyingConnection.close() }
+        database?.close()
+    }
+
+    def "change sets run in the scope of their run and change set on the worker threads"() {
+        given:
+        def url = "jdbc:derby:memory:parallelUpdateScope;create=true"
+        def database = open(url)
+        def workers = [open(url), open(url)]
+        def databaseChangeLog = new Liquibase("changelog.xml", new MockResourceAccessor(["changelog.xml": changeLog]), database).getDatabaseChangeLog()
+        ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(database).init()
+        def scopes = new ConcurrentHashMap<String, List>()
+        def visitor = new UpdateVisitor(database) {
+            @Override
+            ChangeSet.ExecType executeChangeSet(ChangeSet changeSet, DatabaseChangeLog changeLog, Database db,
+                                                Database executionDatabase, ChangeSet.RunStatus runStatus) throws LiquibaseException {
+                def scope = Scope.getCurrentScope()
+                scopes.put(changeSet.id, [scope.get(Scope.Attr.changeSet, ChangeSet)?.id,
+                                          scope.get(Scope.Attr.databaseChangeLog, DatabaseChangeLog).is(databaseChangeLog),
+                                          ChangeLogRunState.getCurrent() != null])
+                return super.executeChangeSet(changeSet, changeLog, db, executionDatabase, runStatus)
+            }
+        }
+
+        when:
+        new ParallelUpdateRunner(new ChangeLogIterator(databaseChangeLog), workers)
+                .run(visitor, new RuntimeEnvironment(database, new Contexts(), new LabelExpression()))
+
+        then:
+        scopes.keySet().sort() == ["1", "2", "3", "4", "5", "6", "7"]
+        scopes.every { id, scope -> scope == [id, true, true] }
+        Scope.getCurrentScope().get(Scope.Attr.changeSet, ChangeSet) == null
+
+        cleanup:
+        workers.each { ((JdbcConnection) it.connection).underlyingConnection.close() }
+        database?.close()
+    }
+}
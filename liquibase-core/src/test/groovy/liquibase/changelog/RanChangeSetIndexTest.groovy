@@ -0,0 +1,64 @@
+package liquibase.changelog
+
+import liquibase.change.CheckSum
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class RanChangeSetIndexTest extends Specification {
+
+    private static RanChangeSet ranChangeSet(String path, String id, String author) {
+        return ranChangeSet(path, id, author, null)
+    }
+
+    private static RanChangeSet ranChangeSet(String path, String id, String author, Integer orderExecuted) {
+        def ranChangeSet = new RanChangeSet(path, id, author, CheckSum.parse("12345"), new Date(), null, null, null, null, null, null, null)
+        ranChangeSet.setOrderExecuted(orderExecuted)
+        return ranChangeSet
+    }
+
+    @Unroll
+    def "get matches #path::#id::#author"() {
+        when:
+        def index = new RanChangeSetIndex([
+                ranChangeSet("classpath:com/example/changelog.xml", "1", "nvoxland"),
+                ranChangeSet("com\\example\\other.xml", "2", "nvoxland"),
+        ])
+
+        then:
+        index.get(new ChangeSet(id, author, false, false, path, null, null, null))?.getId() == expected
+
+        where:
+        path                             | id  | author     | expected
+        "com/example/changelog.xml"      | "1" | "nvoxland" | "1"
+        "classpath:com/example/changelog.xml" | "1" | "nvoxland" | "1"
+        "COM/EXAMPLE/changelog.xml"      | "1" | "NVOXLAND" | "1"
+        "/com//example/other.xml"        | "2" | "nvoxland" | "2"
+        "com/example/changelog.xml"      | "2" | "nvoxland" | null
+        "com/example/changelog.xml"      | "1" | "other"    | null
+        "com/example/missing.xml"        | "1" | "nvoxland" | null
+    }
+
+    def "get returns the last matching row when rows have no order executed"() {
+        when:
+        def last = ranChangeSet("classpath:com/example/changelog.xml", "1", "nvoxland")
+        def index = new RanChangeSetIndex([ranChangeSet("com/example/changelog.xml", "1", "nvoxland"), last])
+
+        then:
+        index.get("com/example/changelog.xml", "nvoxland", "1").is(last)
+        index.size() == 2
+    }
+
+    def "get returns the matching row with the highest order executed"() {
+        when:
+        def latest = ranChangeSet("com/example/changelog.xml", "1", "nvoxland", 3)
+        def index = new RanChangeSetIndex([
+                ranChangeSet("com/example/changelog.xml", "1", "nvoxland", 1),
+                latest,
+                ranChangeSet("classpath:com/example/changelog.xml", "1", "nvoxland", 2),
+        ])
+
+        then:
+        index.get("com/example/changelog.xml", "nvoxland", "1").is(latest)
+        index.size() == 3
+    }
+}
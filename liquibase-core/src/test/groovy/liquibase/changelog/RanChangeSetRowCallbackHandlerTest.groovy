@@ -0,0 +1,112 @@
+package liquibase.changelog
+
+import spock.lang.Specification
+
+import java.sql.ResultSet
+import java.sql.ResultSetMetaData
+import java.sql.Timestamp
+
+class RanChangeSetRowCallbackHandlerTest extends Specification {
+
+    private ResultSet resultSet(List<String> columns, List<List<Object>> rows) {
+        def metaData = Mock(ResultSetMetaData)
+        metaData.getColumnCount() >> columns.size()
+        metaData.getColumnLabel(_ as Integer) >> { int i -> columns[i - 1] }
+        metaData.getColumnClassName(_ as Integer) >> { int i -> "java.lang.String" }
+
+        def row = -1
+        def lastValue = null
+        def resultSet = Mock(ResultSet)
+        resultSet.next() >> { ++row < rows.size() }
+        resultSet.getMetaData() >> metaData
+        resultSet.getString(_ as Integer) >> { int i -> lastValue = rows[row][i - 1]; lastValue == null ? null : new String(lastValue.toString()) }
+        resultSet.getObject(_ as Integer) >> { int i -> lastValue = rows[row][i - 1] }
+        resultSet.getInt(_ as Integer) >> { int i -> lastValue = rows[row][i - 1]; lastValue == null ? 0 : lastValue as int }
+        resultSet.wasNull() >> { lastValue == null }
+        return resultSet
+    }
+
+    def "maps rows by column label"() {
+        when:
+        def rs = resultSet(["id", "author", "filename", "dateexecuted", "orderexecuted", "exectype", "md5sum", "description", "comments", "tag", "liquibase", "contexts", "labels", "deployment_id"], [
+                ["1", "nvoxland", "com/example/changelog.xml", new Timestamp(1000), 1, "EXECUTED", "8:d41d8cd98f00b204e9800998ecf8427e", "createTable", "", null, "4.0", "test", "a,b", "1234"],
+                ["2", "nvoxland", "com/example/changelog.xml", "2020-01-02 03:04:05", 2, "RERAN", null, "addColumn", "", "v1", "4.0", null, null, "1234"],
+        ])
+        def handler = new RanChangeSetRowCallbackHandler(true)
+        while (rs.next()) {
+            handler.processRow(rs)
+        }
+        def ranChangeSets = handler.getRanChangeSets()
+
+        then:
+        ranChangeSets*.id == ["1", "2"]
+        ranChangeSets*.orderExecuted == [1, 2]
+        ranChangeSets*.execType == [ChangeSet.ExecType.EXECUTED, ChangeSet.ExecType.RERAN]
+        ranChangeSets*.tag == [null, "v1"]
+        ranChangeSets[0].lastCheckSum.toString() == "8:d41d8cd98f00b204e9800998ecf8427e"
+        ranChangeSets[1].lastCheckSum == null
+        ranChangeSets[0].dateExecuted == new Timestamp(1000)
+        ranChangeSets[1].dateExecuted.format("yyyy-MM-dd HH:mm:ss") == "2020-01-02 03:04:05"
+        ranChangeSets[0].contextExpression.toString() == "test"
+        ranChangeSets[0].labels.toString() == "a,b"
+        ranChangeSets[1].contextExpression.isEmpty()
+
+        and: "repeated values are shared"
+        ranChangeSets[0].storedChangeLog.is(ranChangeSets[1].storedChangeLog)
+        ranChangeSets[0].author.is(ranChangeSets[1].author)
+        ranChangeSets[0].deploymentId.is(ranChangeSets[1].deploymentId)
+    }
+
+    def "contexts and labels are parsed once per distinct value"() {
+        when:
+        def rs = resultSet(["ID", "AUTHOR", "FILENAME", "DATEEXECUTED", "ORDEREXECUTED", "EXECTYPE", "CONTEXTS", "LABELS"], [
+                ["1", "nvoxland", "com/example/changelog.xml", new Timestamp(1000), 1, "EXECUTED", "test", "a,b"],
+                ["2", "nvoxland", "com/example/changelog.xml", new Timestamp(1000), 2, "EXECUTED", "test", "a,b"],
+                ["3", "nvoxland", "com/example/changelog.xml", new Timestamp(1000), 3, "EXECUTED", "prod", null],
+                ["4", "nvoxland", "com/example/changelog.xml", new Timestamp(1000), 4, "EXECUTED", null, null],
+        ])
+        def handler = new RanChangeSetRowCallbackHandler(true)
+        while (rs.next()) {
+            handler.processRow(rs)
+        }
+        def ranChangeSets = handler.getRanChangeSets()
+
+        then:
+        ranChangeSets[0].contextExpression.is(ranChangeSets[1].contextExpression)
+        ranChangeSets[0].labels.is(ranChangeSets[1].labels)
+        !ranChangeSets[2].contextExpression.is(ranChangeSets[0].contextExpression)
+        ranChangeSets[2].contextExpression.toString() == "prod"
+        ranChangeSets[2].labels.is(ranChangeSets[3].labels)
+        ranChangeSets[2].labels.isEmpty()
+        ranChangeSets[3].contextExpression.isEmpty()
+    }
+
+    def "missing optional columns and incompatible checksums map to null"() {
+        when:
+        def rs = resultSet(["ID", "AUTHOR", "FILENAME", "DATEEXECUTED", "ORDEREXECUTED", "EXECTYPE", "MD5SUM"], [
+                ["1", "nvoxland", "com/example/changelog.xml", new Timestamp(1000), 1, "EXECUTED", "7:d41d8cd98f00b204e9800998ecf8427e"],
+        ])
+        def handler = new RanChangeSetRowCallbackHandler(false)
+        rs.next()
+        handler.processRow(rs)
+        def ranChangeSet = handler.getRanChangeSets()[0]
+
+        then:
+        ranChangeSet.lastCheckSum == null
+        ranChangeSet.description == null
+        ranChangeSet.deploymentId == null
+        ranChangeSet.labels.isEmpty()
+    }
+
+    def "unknown exec type fails"() {
+        when:
+        def rs = resultSet(["ID", "AUTHOR", "FILENAME", "DATEEXECUTED", "ORDEREXECUTED", "EXECTYPE"], [
+                ["1", "nvoxland", "com/example/changelog.xml", new Timestamp(1000), 1, "INVALID"],
+        ])
+        rs.next()
+        new RanChangeSetRowCallbackHandler(true).processRow(rs)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,273 @@
+package liquibase.changelog
+
+import liquibase.Liquibase
+import liquibase.configuration.GlobalConfiguration
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.database.Database
+import liquibase.database.DatabaseFactory
+import liquibase.database.core.DerbyDatabase
+import liquibase.database.jvm.JdbcConnection
+import liquibase.exception.DatabaseException
+import liquibase.exception.LiquibaseException
+import liquibase.sdk.resource.MockResourceAccessor
+import liquibase.statement.core.SelectFromDatabaseChangeLogStatement
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.sql.DriverManager
+
+class StandardChangeLogHistoryServiceTest extends Specification {
+
+    Database database
+    File cacheDirectory
+
+    def setup() {
+        def connection = DriverManager.getConnection("jdbc:derby:memory:history" + System.nanoTime() + ";create=true")
+        database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection))
+        ((DerbyDatabase) database).shutdownEmbeddedDerby = false
+        cacheDirectory = File.createTempDir()
+        configuration().setDatabaseChangeLogCacheDirectory(cacheDirectory.absolutePath)
+    }
+
+    def cleanup() {
+        LiquibaseConfiguration.getInstance().reset()
+        cacheDirectory.deleteDir()
+        database.close()
+    }
+
+    private static GlobalConfiguration configuration() {
+        return LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration)
+    }
+
+    /**
+     * Records the selects rows are read with.
+     */
+    private static class RecordingHistoryService extends StandardChangeLogHistoryService {
+        List<SelectFromDatabaseChangeLogStatement> selects = []
+
+        @Override
+        protected List<RanChangeSet> readRanChangeSets(SelectFromDatabaseChangeLogStatement select) throws DatabaseException {
+            selects.add(select)
+            return super.readRanChangeSets(select)
+        }
+    }
+
+    private RecordingHistoryService service() {
+        def service = new RecordingHistoryService()
+        service.setDatabase(database)
+        service.init()
+        return service
+    }
+
+    private static ChangeSet changeSet(String id) {
+        return new ChangeSet(id, "test", false, false, "changelog.xml", null, null, null)
+    }
+
+    /**
+     * Changes the table as another process would, without going through the service.
+     */
+    private void updateTable(String sql) {
+        def connection = ((JdbcConnection) database.connection).underlyingConnection
+        connection.createStatement().execute(sql)
+        connection.commit()
+    }
+
+    /**
+     * Records the change set as the update does for a change set whose commit is deferred.
+     */
+    private void markRanDeferred(StandardChangeLogHistoryService service, String id) {
+        def changeSet = changeSet(id)
+        assert service.deferCommit(changeSet, database)
+        service.setExecType(changeSet, ChangeSet.ExecType.EXECUTED)
+    }
+
+    /**
+     * Counts the rows written to the table, as seen by another connection.
+     */
+    private int countHistoryRows() {
+        def connection = DriverManager.getConnection(((JdbcConnection) database.connection).getURL())
+        try {
+            def rows = connection.createStatement().executeQuery("select count(*) from databasechangelog")
+            rows.next()
+            return rows.getInt(1)
+        } finally {
+            connection.close()
+        }
+    }
+
+    def "cached history is used while the table is unchanged"() {
+        when:
+        def writer = service()
+        ["1", "2", "3"].each { writer.setExecType(changeSet(it), ChangeSet.ExecType.EXECUTED) }
+        def first = service()
+        first.getRanChangeSets()
+        def second = service()
+
+        then:
+        second.getRanChangeSets()*.id == ["1", "2", "3"]
+        first.selects.size() == 1
+        second.selects.isEmpty()
+    }
+
+    def "only rows appended since the cache was written are read"() {
+        when:
+        def writer = service()
+        ["1", "2"].each { writer.setExecType(changeSet(it), ChangeSet.ExecType.EXECUTED) }
+        service().getRanChangeSets()
+        ["3", "4"].each { writer.setExecType(changeSet(it), ChangeSet.ExecType.EXECUTED) }
+        def reader = service()
+
+        then:
+        reader.getRanChangeSets()*.id == ["1", "2", "3", "4"]
+        reader.selects.size() == 1
+        reader.selects[0].whereClause instanceof SelectFromDatabaseChangeLogStatement.ByOrderExecutedGreaterThan
+        ((SelectFromDatabaseChangeLogStatement.ByOrderExecutedGreaterThan) reader.selects[0].whereClause).orderExecuted == 2
+
+        and: "the merged rows are cached"
+        service().selects.isEmpty()
+    }
+
+    @Unroll
+    def "the whole table is read again after #description by another process"() {
+        when:
+        def writer = service()
+        ["1", "2", "3"].each { writer.setExecType(changeSet(it), ChangeSet.ExecType.EXECUTED) }
+        writer.tag("v1")
+        service().getRanChangeSets()
+        updateTable(sql)
+        if (appendRow) {
+            writer.setExecType(changeSet("4"), ChangeSet.ExecType.EXECUTED)
+        }
+        def reader = service()
+        def ranChangeSets = reader.getRanChangeSets()
+
+        then:
+        reader.selects.size() == (appendRow ? 2 : 1)
+        reader.selects.last().whereClause == null
+        check(ranChangeSets.find { it.id == id })
+
+        where:
+        description                     | appendRow | id  | sql                                                              | check
+        "a checksum upgrade"            | false     | "2" | "update databasechangelog set md5sum = '8:0123' where id = '2'"  | { it.lastCheckSum.toString() == "8:0123" }
+        "re-tagging a tagged row"       | false     | "3" | "update databasechangelog set tag = 'v2' where id = '3'"         | { it.tag == "v2" }
+        "an exec type change"           | false     | "2" | "update databasechangelog set exectype = 'MARK_RAN' where id = '2'" | { it.execType == ChangeSet.ExecType.MARK_RAN }
+        "an update and an appended row" | true      | "2" | "update databasechangelog set md5sum = '8:0123' where id = '2'"  | { it.lastCheckSum.toString() == "8:0123" }
+    }
+
+    def "rows are read through an overridden queryDatabaseChangeLogTable"() {
+        when:
+        def writer = service()
+        ["1", "2", "3"].each { writer.setExecType(changeSet(it), ChangeSet.ExecType.EXECUTED) }
+        def reader = new RecordingHistoryService() {
+            @Override
+            List<Map<String, ?>> queryDatabaseChangeLogTable(Database database) throws DatabaseException {
+                return super.queryDatabaseChangeLogTable(database).findAll { it.ID != "2" }
+            }
+        }
+        reader.setDatabase(database)
+        reader.init()
+
+        then:
+        reader.getRanChangeSets()*.id == ["1", "3"]
+        reader.selects.isEmpty()
+    }
+
+    def "buffered history rows are written once the batch is full"() {
+        when:
+        configuration().setDatabaseChangeLogCommitBatchSize(3).setDatabaseChangeLogCommitInterval(60000L)
+        def service = service()
+        ["1", "2"].each { markRanDeferred(service, it) }
+
+        then:
+        countHistoryRows() == 0
+
+        when:
+        markRanDeferred(service, "3")
+
+        then:
+        countHistoryRows() == 3
+    }
+
+    def "rows of change sets whose commit was not deferred are written immediately"() {
+        when:
+        configuration().setDatabaseChangeLogCommitBatchSize(3).setDatabaseChangeLogCommitInterval(60000L)
+        def service = service()
+        markRanDeferred(service, "1")
+        service.setExecType(changeSet("2"), ChangeSet.ExecType.EXECUTED)
+
+        then:
+        countHistoryRows() == 2
+    }
+
+    def "buffered history rows are written once the interval has passed"() {
+        when:
+        configuration().setDatabaseChangeLogCommitBatchSize(100).setDatabaseChangeLogCommitInterval(200L)
+        def service = service()
+        markRanDeferred(service, "1")
+        service.flushIfDue()
+
+        then:
+        countHistoryRows() == 0
+
+        when: "checked before the next change set runs"
+        Thread.sleep(250)
+        service.flushIfDue()
+
+        then:
+        countHistoryRows() == 1
+
+        when: "checked when the next row is added"
+        markRanDeferred(service, "2")
+        Thread.sleep(250)
+        markRanDeferred(service, "3")
+
+        then:
+        countHistoryRows() == 3
+    }
+
+    def "change sets whose commit was deferred are rolled back with a failing change set"() {
+        given:
+        configuration().setDatabaseChangeLogCommitBatchSize(100).setDatabaseChangeLogCommitInterval(60000L)
+        def changeLog = '''<databaseChangeLog
+        xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.4.xsd">
+    <changeSet id="1" author="test">
+        <createTable tableName="a"><column name="id" type="int"/></createTable>
+    </changeSet>
+    <changeSet id="2" author="test">
+        <insert tableName="a"><column name="id" valueNumeric="1"/></insert>
+    </changeSet>
+    <changeSet id="3" author="test">
+        <insert tableName="missing"><column name="id" valueNumeric="1"/></insert>
+    </changeSet>
+</databaseChangeLog>'''
+
+        when:
+        new Liquibase("changelog.xml", new MockResourceAccessor(["changelog.xml": changeLog]), database).update("")
+
+        then: "nothing was committed without its row"
+        thrown(LiquibaseException)
+        countHistoryRows() == 0
+        !tableExists("A")
+
+        when: "the update is run again without the failing change set"
+        new Liquibase("changelog.xml", new MockResourceAccessor(["changelog.xml": changeLog.replaceFirst('(?s)<changeSet id="3".*?</changeSet>', '')]), database).update("")
+
+        then:
+        countHistoryRows() == 2
+        tableExists("A")
+    }
+
+    /**
+     * Checks for a committed table, as seen by another connection.
+     */
+    private boolean tableExists(String tableName) {
+        def connection = DriverManager.getConnection(((JdbcConnection) database.connection).getURL())
+        try {
+            return connection.metaData.getTables(null, null, tableName, null).next()
+        } finally {
+            connection.close()
+        }
+    }
+}
@@ -10,6 +10,7 @@ import liquibase.exception.DatabaseException
 import liquibase.executor.Executor
 import liquibase.executor.ExecutorService
 import spock.lang.Specification
+import spock.lang.Unroll
 
 import static org.junit.Assert.assertFalse
 import static org.junit.Assert.assertTrue
@@ -136,4 +137,47 @@ public class ShouldRunChangeSetFilterTest extends Specification {
         ChangeSet changeSet = new ChangeSet("1", "testAuthor", false, true, "path/changelog", null, null, null)
         assertFalse("RunOnChange not changed changeset should NOT be accepted", filter.accepts(changeSet).isAccepted())
     }
+
+    @Unroll
+    def "accepts finds ran changesets in a history of #historySize rows"() {
+        when:
+        def ranChanges = new ArrayList<RanChangeSet>()
+        for (int i = 0; i < historySize; i++) {
+            def ranChangeSet = new RanChangeSet("classpath:path/changelog-" + (i % 100) + ".xml", "id-" + i, "testAuthor", CheckSum.parse("12345"), new Date(), null, null, null, null, null, null, null)
+            ranChangeSet.setOrderExecuted(i + 1)
+            ranChanges.add(ranChangeSet)
+        }
+        mock_database(ranChanges)
+        def filter = new ShouldRunChangeSetFilter(database)
+
+        then:
+        !filter.accepts(new ChangeSet("id-0", "testAuthor", false, false, "path/changelog-0.xml", null, null, null)).isAccepted()
+        !filter.accepts(new ChangeSet("id-" + (historySize - 1), "testAuthor", false, false, "PATH/changelog-" + ((historySize - 1) % 100) + ".xml", null, null, null)).isAccepted()
+        filter.accepts(new ChangeSet("id-" + (historySize - 1), "testAuthor", false, false, "path/changelog-0.xml", null, null, null)).isAccepted()
+        filter.accepts(new ChangeSet("id-" + historySize, "testAuthor", false, false, "path/changelog-0.xml", null, null, null)).isAccepted()
+        filter.accepts(new ChangeSet("ID-0", "testAuthor", false, false, "path/changelog-0.xml", null, null, null)).isAccepted()
+
+        where:
+        historySize << [10000, 50000, 100000]
+    }
+
+    def "subclasses comparing ids and authors differently are still used"() {
+        when:
+        given_a_database_with_two_executed_changesets()
+        def filter = new ShouldRunChangeSetFilter(database) {
+            @Override
+            protected boolean idsAreEqual(ChangeSet changeSet, RanChangeSet ranChangeSet) {
+                return ranChangeSet.getId().equalsIgnoreCase(changeSet.getId())
+            }
+
+            @Override
+            protected boolean authorsAreEqual(ChangeSet changeSet, RanChangeSet ranChangeSet) {
+                return ranChangeSet.getAuthor().equalsIgnoreCase(changeSet.getAuthor())
+            }
+        }
+
+        then:
+        !filter.accepts(new ChangeSet("1", "TESTAUTHOR", false, false, "path/changelog", null, null, null)).isAccepted()
+        filter.accepts(new ChangeSet("3", "testAuthor", false, false, "path/changelog", null, null, null)).isAccepted()
+    }
 }
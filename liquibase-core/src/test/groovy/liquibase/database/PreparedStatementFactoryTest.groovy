@@ -0,0 +1,87 @@
+package liquibase.database
+
+import liquibase.Scope
+import liquibase.database.core.H2Database
+import liquibase.database.jvm.JdbcConnection
+import liquibase.executor.ExecutorService
+import liquibase.executor.jvm.JdbcExecutor
+import spock.lang.Specification
+
+import java.sql.Connection
+import java.sql.DatabaseMetaData
+import java.sql.PreparedStatement
+
+class PreparedStatementFactoryTest extends Specification {
+
+    private Connection createConnection(String productName) {
+        def metaData = Mock(DatabaseMetaData)
+        metaData.getDatabaseProductName() >> productName
+        def connection = Mock(Connection)
+        connection.getMetaData() >> metaData
+        return connection
+    }
+
+    def "statements are reused for the same sql until evicted or closed"() {
+        given:
+        def connection = createConnection("Test")
+        def first = Mock(PreparedStatement)
+        def second = Mock(PreparedStatement)
+        def factory = new PreparedStatementFactory(new JdbcConnection(connection), 1)
+
+        when:
+        def statement = factory.createReusable("insert into a values (?)")
+        factory.release(statement)
+        def reused = factory.createReusable("insert into a values (?)")
+        factory.release(reused)
+
+        then:
+        1 * connection.prepareStatement("insert into a values (?)") >> first
+        1 * first.clearParameters()
+        0 * first.close()
+        statement.is(first)
+        reused.is(first)
+
+        when:
+        factory.release(factory.createReusable("insert into b values (?)"))
+        factory.close()
+
+        then:
+        1 * connection.prepareStatement("insert into b values (?)") >> second
+        1 * first.close()
+        1 * second.close()
+    }
+
+    def "statements are not cached when the driver caches them or no cache size is given"() {
+        given:
+        def connection = createConnection(productName)
+        def statement = Mock(PreparedStatement)
+        def factory = new PreparedStatementFactory(new JdbcConnection(connection), cacheSize)
+
+        when:
+        2.times { factory.release(factory.createReusable("insert into a values (?)")) }
+
+        then:
+        2 * connection.prepareStatement("insert into a values (?)") >> statement
+        2 * statement.close()
+
+        where:
+        productName    | cacheSize
+        "Apache Derby" | 20
+        "Test"         | 0
+    }
+
+    def "cached statements are closed with the database"() {
+        given:
+        def database = new H2Database()
+        database.setConnection(Mock(DatabaseConnection))
+        def executor = Mock(JdbcExecutor)
+        Scope.getCurrentScope().getSingleton(ExecutorService).setExecutor("jdbc", database, executor)
+
+        when:
+        database.close()
+
+        then:
+        1 * executor.closePreparedStatements()
+        !Scope.getCurrentScope().getSingleton(ExecutorService).executorExists("jdbc", database)
+    }
+}
@@ -0,0 +1,42 @@
+package liquibase.database.jvm
+
+import spock.lang.Specification
+
+import java.sql.Connection
+import java.sql.DatabaseMetaData
+
+class JdbcConnectionTest extends Specification {
+
+    def "metadata is read from the connection once until the cache is cleared"() {
+        given:
+        def metaData = Mock(DatabaseMetaData)
+        def connection = Mock(Connection)
+        connection.getMetaData() >> metaData
+        def jdbcConnection = new JdbcConnection(connection)
+
+        when:
+        def first = [jdbcConnection.databaseProductName, jdbcConnection.databaseMajorVersion, jdbcConnection.connectionUserName, jdbcConnection.catalog]
+        def second = [jdbcConnection.databaseProductName, jdbcConnection.databaseMajorVersion, jdbcConnection.connectionUserName, jdbcConnection.catalog]
+
+        then:
+        1 * metaData.getDatabaseProductName() >> "Derby"
+        1 * metaData.getDatabaseMajorVersion() >> 10
+        1 * metaData.getUserName() >> null
+        1 * connection.getCatalog() >> "one"
+        first == ["Derby", 10, null, "one"]
+        second == first
+        jdbcConnection.avoidedMetaDataCalls == 4
+
+        when:
+        jdbcConnection.setCatalog("two")
+        def catalog = jdbcConnection.catalog
+        jdbcConnection.clearMetaDataCache()
+        def productName = jdbcConnection.databaseProductName
+
+        then:
+        1 * connection.getCatalog() >> "two"
+        1 * metaData.getDatabaseProductName() >> "Apache Derby"
+        catalog == "two"
+        productName == "Apache Derby"
+    }
+}
@@ -0,0 +1,225 @@
+package liquibase.executor.jvm
+
+import liquibase.Liquibase
+import liquibase.Scope
+import liquibase.change.Change
+import liquibase.changelog.ChangeLogHistoryServiceFactory
+import liquibase.changelog.ChangeSet
+import liquibase.changelog.DatabaseChangeLog
+import liquibase.changelog.visitor.AbstractChangeExecListener
+import liquibase.configuration.GlobalConfiguration
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.database.Database
+import liquibase.database.DatabaseFactory
+import liquibase.database.core.DerbyDatabase
+import liquibase.database.jvm.JdbcConnection
+import liquibase.exception.LiquibaseException
+import liquibase.executor.ExecutorService
+import liquibase.listener.SqlListener
+import liquibase.lockservice.LockServiceFactory
+import liquibase.sdk.resource.MockResourceAccessor
+import liquibase.statement.core.InsertStatement
+import liquibase.statement.core.RawSqlStatement
+import liquibase.statement.core.UpdateStatement
+import spock.lang.Specification
+
+import java.lang.reflect.InvocationHandler
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Proxy
+import java.sql.Connection
+import java.sql.DriverManager
+import java.sql.Statement
+
+class JdbcExecutorPipelineTest extends Specification {
+
+    Connection connection
+    Database database
+    int createdStatements
+    List<String> statementCalls = []
+
+    def setup() {
+        connection = DriverManager.getConnection("jdbc:derby:memory:pipeline" + System.nanoTime() + ";create=true")
+        def countingConnection = Proxy.newProxyInstance(getClass().classLoader, [Connection] as Class[], { proxy, method, args ->
+            if (method.name == "createStatement") {
+                createdStatements++
+                return recording((Statement) method.invoke(connection, args))
+            }
+            return method.invoke(connection, args)
+        } as InvocationHandler) as Connection
+        database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(countingConnection))
+        ((DerbyDatabase) database).shutdownEmbeddedDerby = false
+    }
+
+    def cleanup() {
+        LiquibaseConfiguration.getInstance().reset()
+        LockServiceFactory.getInstance().resetLockService(database)
+        ChangeLogHistoryServiceFactory.getInstance().resetChangeLogService(database)
+        connection.rollback()
+        connection.close()
+    }
+
+    /**
+     * Records the batch related calls made on the given statement.
+     */
+    private Statement recording(Statement statement) {
+        return Proxy.newProxyInstance(getClass().classLoader, [Statement] as Class[], { proxy, method, args ->
+            if (method.name in ["addBatch", "executeBatch", "execute", "setEscapeProcessing"]) {
+                statementCalls.add(method.name + ((args == null) ? "" : (":" + args[0])))
+            }
+            try {
+                return method.invoke(statement, args)
+            } catch (InvocationTargetException e) {
+                throw e.targetException
+            }
+        } as InvocationHandler) as Statement
+    }
+
+    private int countRows() {
+        def rows = connection.createStatement().executeQuery("select count(*) from person where name is not null")
+        rows.next()
+        return rows.getInt(1)
+    }
+
+    def "pipelined statements run as one batch when flushed or before any other statement"() {
+        given:
+        def executor = (JdbcExecutor) Scope.getCurrentScope().getSingleton(ExecutorService).getExecutor("jdbc", database)
+        executor.execute(new RawSqlStatement("create table person (id int primary key, name varchar(50))"))
+        database.getDefaultSchemaName()
+        executor.startPipeline()
+        def created = createdStatements
+
+        when:
+        (1..3).each { executor.execute(new InsertStatement(null, null, "person").addColumnValue("id", it).addColumnValue("name", "p" + it)) }
+
+        then:
+        executor.pipelining
+        createdStatements == created
+        countRows() == 0
+
+        when:
+        executor.flushPipeline()
+
+        then:
+        createdStatements == created + 1
+        countRows() == 3
+
+        when:
+        executor.execute(new UpdateStatement(null, null, "person").addNewColumnValue("name", null).setWhereClause("id = 1"))
+        def count = executor.queryForInt(new RawSqlStatement("select count(*) from person where name is not null"))
+        executor.endPipeline()
+
+        then:
+        count == 2
+        createdStatements == created + 3
+    }
+
+    def "change sets are pipelined and a failed batch is reported against its change"() {
+        given:
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration).setPipelineChangeSetStatements(true)
+        def changeLog = '''<databaseChangeLog
+        xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.4.xsd">
+    <changeSet id="1" author="test">
+        <createTable tableName="person">
+            <column name="id" type="int"><constraints primaryKey="true"/></column>
+            <column name="name" type="varchar(50)"/>
+        </createTable>
+        <insert tableName="person"><column name="id" valueNumeric="1"/><column name="name" value="a"/></insert>
+        <insert tableName="person"><column name="id" valueNumeric="2"/><column name="name" value="b"/></insert>
+        <update tableName="person"><column name="name" value="c"/><where>id = 2</where></update>
+    </changeSet>
+    <changeSet id="2" author="test">
+        <insert tableName="person"><column name="id" valueNumeric="3"/><column name="name" value="d"/></insert>
+        <insert tableName="address"><column name="id" valueNumeric="1"/></insert>
+    </changeSet>
+</databaseChangeLog>'''
+
+        when:
+        new Liquibase("changelog.xml", new MockResourceAccessor(["changelog.xml": changeLog]), database).update("")
+
+        then:
+        def e = thrown(LiquibaseException)
+        e.message.contains("in change insert tableName=address")
+        def rows = connection.createStatement().executeQuery("select name from person order by id")
+        rows.next()
+        rows.getString(1) == "a"
+        rows.next()
+        rows.getString(1) == "c"
+        !rows.next()
+    }
+
+    def "pipelined changes are reported when their batch runs"() {
+        given:
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration).setPipelineChangeSetStatements(true)
+        def changeLog = '''<databaseChangeLog
+        xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.4.xsd">
+    <changeSet id="1" author="test">
+        <createTable tableName="person"><column name="id" type="int"/></createTable>
+    </changeSet>
+    <changeSet id="2" author="test">
+        <insert tableName="person"><column name="id" valueNumeric="1"/></insert>
+        <insert tableName="person"><column name="id" valueNumeric="2"/></insert>
+    </changeSet>
+</databaseChangeLog>'''
+        def events = []
+        def liquibase = new Liquibase("changelog.xml", new MockResourceAccessor(["changelog.xml": changeLog]), database)
+        liquibase.setChangeExecListener(new AbstractChangeExecListener() {
+            @Override
+            void willRun(Change change, ChangeSet changeSet, DatabaseChangeLog databaseChangeLog, Database database) {
+                if (changeSet.id == "2") {
+                    events.add("willRun")
+                }
+            }
+
+            @Override
+            void ran(Change change, ChangeSet changeSet, DatabaseChangeLog databaseChangeLog, Database database) {
+                if (changeSet.id == "2") {
+                    events.add("ran")
+                }
+            }
+        })
+        def sqlListener = new SqlListener() {
+            @Override
+            void writeSqlWillRun(String sql) {
+                if (sql.toUpperCase().startsWith("INSERT INTO") && !sql.toUpperCase().contains("DATABASECHANGELOG")) {
+                    events.add("sql")
+                }
+            }
+        }
+
+        when:
+        Scope.child(sqlListener, { liquibase.update("") } as Scope.ScopedRunner)
+
+        then:
+        events == ["willRun", "willRun", "sql", "sql", "ran", "ran"]
+    }
+
+    def "batched statements containing a question mark run on their own without escape processing"() {
+        given:
+        def executor = (JdbcExecutor) Scope.getCurrentScope().getSingleton(ExecutorService).getExecutor("jdbc", database)
+        executor.execute(new RawSqlStatement("create table person (id int primary key, name varchar(50))"))
+        statementCalls.clear()
+
+        when:
+        executor.executeBatch([
+                new RawSqlStatement("insert into person values (1, 'first')"),
+                new RawSqlStatement("insert into person values (2, 'why?')"),
+                new RawSqlStatement("insert into person values (3, 'third')"),
+        ])
+
+        then:
+        statementCalls == [
+                "addBatch:insert into person values (1, 'first')",
+                "executeBatch",
+                "setEscapeProcessing:false",
+                "execute:insert into person values (2, 'why?')",
+                "setEscapeProcessing:true",
+                "addBatch:insert into person values (3, 'third')",
+                "executeBatch",
+        ]
+        countRows() == 3
+    }
+}
@@ -0,0 +1,211 @@
+package liquibase.integration.spring
+
+import liquibase.Scope
+import liquibase.database.Database
+import liquibase.database.core.DerbyDatabase
+import liquibase.exception.DatabaseException
+import liquibase.exception.LiquibaseException
+import liquibase.resource.ResourceAccessor
+import org.springframework.core.io.DefaultResourceLoader
+import org.springframework.jdbc.datasource.DriverManagerDataSource
+import spock.lang.Specification
+
+import java.sql.Connection
+import java.sql.DriverManager
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class MultiTenantSpringLiquibaseTest extends Specification {
+
+    String url = "jdbc:derby:memory:multiTenant" + System.nanoTime() + ";create=true"
+
+    /**
+     * Called with the schema before each tenant runs.
+     */
+    Closure beforeTenant = {}
+
+    private MultiTenantSpringLiquibase multiTenant(List<String> schemas, int parallelism, boolean failFast) {
+        def test = this
+        def liquibase = new MultiTenantSpringLiquibase() {
+            @Override
+            protected SpringLiquibase createSpringLiquibase() {
+                return new SpringLiquibase() {
+                    @Override
+                    void afterPropertiesSet() throws LiquibaseException {
+                        test.beforeTenant.call(defaultSchema)
+                        super.afterPropertiesSet()
+                    }
+
+                    @Override
+                    protected Database createDatabase(Connection c, ResourceAccessor resourceAccessor) throws DatabaseException {
+                        def database = super.createDatabase(c, resourceAccessor)
+                        //shutting down the database when one tenant is done would break the others
+                        ((DerbyDatabase) database).shutdownEmbeddedDerby = false
+                        return database
+                    }
+                }
+            }
+        }
+        liquibase.dataSource = new DriverManagerDataSource(url)
+        liquibase.schemas = schemas
+        liquibase.changeLog = "classpath:liquibase/integration/spring/multi-tenant-changelog.xml"
+        liquibase.resourceLoader = new DefaultResourceLoader()
+        liquibase.parallelism = parallelism
+        liquibase.failFast = failFast
+        return liquibase
+    }
+
+    private int countRows(String schema) {
+        def connection = DriverManager.getConnection(url)
+        try {
+            def rows = connection.createStatement().executeQuery("select count(*) from " + schema + ".tenant_table")
+            rows.next()
+            return rows.getInt(1)
+        } finally {
+            connection.close()
+        }
+    }
+
+    def "schemas are migrated in parallel"() {
+        when:
+        def scopeManager = Scope.getScopeManager()
+        def liquibase = multiTenant(["T1", "T2", "T3", "T4", "T5"], 3, true)
+        liquibase.afterPropertiesSet()
+
+        then:
+        liquibase.tenantResults*.tenant == ["schema T1", "schema T2", "schema T3", "schema T4", "schema T5"]
+        liquibase.tenantResults.every { it.successful && it.duration >= 0 }
+        ["T1", "T2", "T3", "T4", "T5"].every { countRows(it) == 1 }
+        Scope.getScopeManager().is(scopeManager)
+    }
+
+    def "a shared changelog is parsed once and run for every tenant"() {
+        when:
+        def liquibase = multiTenant(["T1", "T2", "T3", "T4"], 2, true)
+        liquibase.shareChangeLog = true
+        liquibase.afterPropertiesSet()
+
+        then:
+        liquibase.tenantResults.every { it.successful }
+        ["T1", "T2", "T3", "T4"].every { countRows(it) == 1 }
+
+        when: "the change sets already ran"
+        liquibase.afterPropertiesSet()
+
+        then:
+        liquibase.tenantResults.every { it.successful }
+        ["T1", "T2", "T3", "T4"].every { countRows(it) == 1 }
+    }
+
+    def "a shared changelog reads its files through the resource accessor of the tenants"() {
+        given:
+        def directory = File.createTempDir()
+        new File(directory, "shared").mkdirs()
+        new File(directory, "shared/changelog.xml").text = '''<databaseChangeLog
+        xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.4.xsd">
+    <changeSet id="1" author="test">
+        <createTable tableName="tenant_table"><column name="id" type="int"/></createTable>
+    </changeSet>
+    <changeSet id="2" author="test">
+        <loadData tableName="tenant_table" file="rows.csv" relativeToChangelogFile="true"/>
+    </changeSet>
+</databaseChangeLog>'''
+        new File(directory, "shared/rows.csv").text = "id\n1\n"
+        def thread = Thread.currentThread()
+        def classLoader = thread.contextClassLoader
+        //only the class loader of the tenants, not the one of the root scope, sees the files
+        thread.contextClassLoader = new URLClassLoader([directory.toURI().toURL()] as URL[], classLoader)
+
+        when:
+        def liquibase = multiTenant(["T1", "T2"], 1, true)
+        liquibase.changeLog = "classpath:shared/changelog.xml"
+        liquibase.shareChangeLog = true
+        liquibase.afterPropertiesSet()
+
+        then:
+        liquibase.tenantResults.every { it.successful }
+        ["T1", "T2"].every { countRows(it) == 1 }
+
+        cleanup:
+        thread.contextClassLoader = classLoader
+        directory.deleteDir()
+    }
+
+    def "every tenant fails when the shared changelog cannot be parsed"() {
+        when:
+        def liquibase = multiTenant(["T1", "T2"], 2, false)
+        liquibase.changeLog = "classpath:liquibase/integration/spring/missing-changelog.xml"
+        liquibase.shareChangeLog = true
+        liquibase.afterPropertiesSet()
+
+        then:
+        def e = thrown(LiquibaseException)
+        e.message.startsWith("Liquibase failed for 2 of 2 tenants")
+        liquibase.tenantResults*.tenant == ["schema T1", "schema T2"]
+        liquibase.tenantResults.every { !it.successful }
+    }
+
+    def "failures of all tenants are reported together when not failing fast"() {
+        given:
+        def connection = DriverManager.getConnection(url)
+        connection.createStatement().execute("create table T2.tenant_table (name varchar(10))")
+        connection.close()
+
+        when:
+        def liquibase = multiTenant(["T1", "T2", "T3"], parallelism, false)
+        liquibase.afterPropertiesSet()
+
+        then:
+        def e = thrown(LiquibaseException)
+        e.message.startsWith("Liquibase failed for 1 of 3 tenants, first for schema T2")
+        liquibase.tenantResults*.successful == [true, false, true]
+        countRows("T1") == 1
+        countRows("T3") == 1
+
+        where:
+        parallelism << [1, 2]
+    }
+
+    def "failing fast stops at the first failure"() {
+        given:
+        def connection = DriverManager.getConnection(url)
+        connection.createStatement().execute("create table T1.tenant_table (name varchar(10))")
+        connection.close()
+
+        when:
+        def liquibase = multiTenant(["T1", "T2", "T3"], 1, true)
+        liquibase.afterPropertiesSet()
+
+        then:
+        thrown(LiquibaseException)
+        liquibase.tenantResults*.tenant == ["schema T1"]
+    }
+
+    def "failing fast stops starting tenants when one of the parallel tenants fails"() {
+        given:
+        def started = new CountDownLatch(1)
+        def failed = new CountDownLatch(1)
+        beforeTenant = { String schema ->
+            if (schema == "T1") {
+                assert started.await(10, TimeUnit.SECONDS)
+                failed.countDown()
+                throw new LiquibaseException("T1 failed")
+            }
+            //the other tenant running while T1 fails
+            started.countDown()
+            assert failed.await(10, TimeUnit.SECONDS)
+        }
+
+        when:
+        def liquibase = multiTenant(["T1", "T2", "T3", "T4", "T5", "T6"], 2, true)
+        liquibase.afterPropertiesSet()
+
+        then:
+        def e = thrown(LiquibaseException)
+        e.message == "T1 failed"
+        liquibase.tenantResults*.tenant == ["schema T1", "schema T2"]
+        liquibase.tenantResults*.successful == [false, true]
+    }
+}
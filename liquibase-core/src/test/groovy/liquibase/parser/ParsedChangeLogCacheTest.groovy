@@ -0,0 +1,106 @@
+package liquibase.parser
+
+import liquibase.change.core.CreateTableChange
+import liquibase.changelog.ChangeLogParameters
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.exception.ChangeLogParseException
+import liquibase.parser.core.ParsedNode
+import liquibase.parser.core.xml.XMLChangeLogSAXParser
+import liquibase.parser.core.yaml.YamlChangeLogParser
+import liquibase.sdk.resource.MockResourceAccessor
+import spock.lang.Shared
+import spock.lang.Specification
+
+class ParsedChangeLogCacheTest extends Specification {
+
+    File directory
+
+    @Shared
+    def xml = '''<databaseChangeLog
+        xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.4.xsd">
+    <changeSet id="1" author="test">
+        <createTable tableName="${prefix}_table">
+            <column name="id" type="int"/>
+        </createTable>
+    </changeSet>
+</databaseChangeLog>'''
+
+    @Shared
+    def yaml = '''databaseChangeLog:
+  - changeSet:
+      id: 1
+      author: test
+      changes:
+        - createTable:
+            tableName: ${prefix}_table
+            columns:
+              - column:
+                  name: id
+                  type: int
+'''
+
+    def setup() {
+        directory = File.createTempDir()
+        LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration).setParsedChangeLogCacheDirectory(directory.absolutePath)
+    }
+
+    def cleanup() {
+        LiquibaseConfiguration.getInstance().reset()
+        directory.deleteDir()
+    }
+
+    private String parseTableName(ChangeLogParser parser, String path, String content, String prefix) {
+        def parameters = new ChangeLogParameters()
+        parameters.set("prefix", prefix)
+        def changeLog = parser.parse(path, parameters, new MockResourceAccessor([(path): content]))
+        return ((CreateTableChange) changeLog.changeSets[0].changes[0]).tableName
+    }
+
+    def "cached files are parsed with the current parameter values"() {
+        expect:
+        parseTableName(parser, path, content, "first") == "first_table"
+        directory.listFiles().length == 1
+        parseTableName(parser, path, content, "second") == "second_table"
+        directory.listFiles().length == 1
+        parseTableName(parser, path, content.replace("_table", "_other"), "first") == "first_other"
+        directory.listFiles().length == 2
+
+        where:
+        parser                      | path            | content
+        new XMLChangeLogSAXParser() | "changelog.xml" | xml
+        new YamlChangeLogParser()   | "changelog.yml" | yaml
+    }
+
+    def "cached copies are equal to the original and not shared"() {
+        when:
+        def cache = ParsedChangeLogCache.getInstance()
+        def resourceAccessor = new MockResourceAccessor(["changelog.xml": xml])
+        def node = new ParsedNode(null, "databaseChangeLog")
+                .addChildren([changeSet: [id: "1", author: "test", createTable: [tableName: "table", remarks: "a\nb"]]])
+                .addChild(null, "values", [1, 2L, 3.5d, new BigDecimal("4.25"), new BigInteger("12345678901234567890"), true, new Date(1000)])
+                .addChild(null, "big", "x" * 70000)
+        def first = cache.get(new XMLChangeLogSAXParser(), "changelog.xml", resourceAccessor, { node } as ParsedChangeLogCache.Reader)
+        def second = cache.get(new XMLChangeLogSAXParser(), "changelog.xml", resourceAccessor, { throw new ChangeLogParseException("not cached") } as ParsedChangeLogCache.Reader)
+        def third = cache.get(new XMLChangeLogSAXParser(), "changelog.xml", resourceAccessor, { throw new ChangeLogParseException("not cached") } as ParsedChangeLogCache.Reader)
+
+        then:
+        first.is(node)
+        second.toString() == node.toString()
+        second.getChild(null, "values").value == [1, 2L, 3.5d, new BigDecimal("4.25"), new BigInteger("12345678901234567890"), true, new Date(1000)]
+        second.getChild(null, "big").value.length() == 70000
+        !second.is(third)
+    }
+
+    def "results with unsupported values are not cached"() {
+        when:
+        def cache = ParsedChangeLogCache.getInstance()
+        def resourceAccessor = new MockResourceAccessor(["changelog.yml": yaml])
+        def result = cache.get(new YamlChangeLogParser(), "changelog.yml", resourceAccessor, { [key: [1, 2] as Set] } as ParsedChangeLogCache.Reader)
+
+        then:
+        result == [key: [1, 2] as Set]
+        directory.listFiles().length == 0
+    }
+}
@@ -1,8 +1,15 @@
 package liquibase.change;
 
+import liquibase.change.core.CreateTableChange;
+import liquibase.serializer.core.string.StringChangeLogSerializer;
+import liquibase.util.MD5Util;
+import liquibase.util.StringUtil;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -99,4 +106,57 @@ public class CheckSumTest {
         assertEquals(checkSum, CheckSum.compute(new ByteArrayInputStream("a string\r\rwith\r\rlines".getBytes()), true).toString());
         assertEquals(checkSum, CheckSum.compute(new ByteArrayInputStream("a string\r\n\r\nwith\r\n\r\nlines".getBytes()), true).toString());
     }
+
+    @Test
+    public void compute_String_sameAsNormalizingWholeString() {
+        Random random = new Random(42);
+        String[] pieces = {"a", "text ", "\r", "\n", "\r\n", "\uFFFD", "e\u0301", "\u0301", "\u00e9", "\u1100\u1161\u11a8",
+                "\u4e2d\u6587", "\ud83d\ude00", "\ud83d", "\ude00", "\u212b", "\u0041\u030a", "\uf900"};
+        for (int length : new int[]{0, 10, 8191, 8192, 8193, 50000}) {
+            StringBuilder value = new StringBuilder();
+            while (value.length() < length) {
+                value.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String expected = MD5Util.computeMD5(Normalizer.normalize(StringUtil.standardizeLineEndings(value.toString())
+                    .replace("\uFFFD", ""), Normalizer.Form.NFC));
+
+            assertEquals("length " + length, "8:" + expected, CheckSum.compute(value.toString()).toString());
+
+            CheckSumWriter writer = new CheckSumWriter();
+            int written = 0;
+            while (written < value.length()) {
+                int end = Math.min(value.length(), written + random.nextInt(100));
+                writer.write(value.substring(written, end));
+                written = end;
+            }
+            assertEquals("length " + length, "8:" + expected, writer.getCheckSum().toString());
+        }
+    }
+
+    @Test
+    public void compute_Stream_largeInput() {
+        Random random = new Random(42);
+        byte[] bytes = new byte[100000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) "ab\r\n".charAt(random.nextInt(4));
+        }
+        String expected = MD5Util.computeMD5(new ByteArrayInputStream(new String(bytes, StandardCharsets.US_ASCII)
+                .replace("\r\n", "\n").replace("\r", "\n").getBytes(StandardCharsets.US_ASCII)));
+
+        assertEquals("8:" + expected, CheckSum.compute(new ByteArrayInputStream(bytes), true).toString());
+    }
+
+    @Test
+    public void compute_serializedChange() throws Exception {
+        CreateTableChange change = new CreateTableChange();
+        change.setTableName("table1");
+        change.setRemarks("line one\r\nline two\r");
+        change.addColumn(new ColumnConfig().setName("col1").setType("int").setRemarks("a \u00e9 b\r\n"));
+
+        CheckSumWriter writer = new CheckSumWriter();
+        new StringChangeLogSerializer().serialize(change, writer);
+
+        assertEquals(CheckSum.compute(new StringChangeLogSerializer().serialize(change, false)), writer.getCheckSum());
+        assertEquals(writer.getCheckSum(), change.generateCheckSum());
+    }
 }
@@ -2,6 +2,7 @@ package liquibase.changelog;
 
 import liquibase.Contexts;
 import liquibase.RuntimeEnvironment;
+import liquibase.change.core.RawSQLChange;
 import liquibase.changelog.filter.ChangeSetFilterResult;
 import liquibase.changelog.filter.ContextChangeSetFilter;
 import liquibase.changelog.filter.DbmsChangeSetFilter;
@@ -19,6 +20,7 @@ import java.util.Set;
 
 import static liquibase.util.Validate.fail;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class ChangeLogIteratorTest {
     private DatabaseChangeLog changeLog;
@@ -106,6 +108,37 @@ public class ChangeLogIteratorTest {
         assertEquals("1", testChangeLogVisitor.visitedChangeSets.get(2).getId());
     }
 
+    @Test
+    public void runChangeSet_duplicateChangeSetsVisitedOnce() throws Exception {
+        changeLog.addChangeSet(new ChangeSet("1", "nvoxland", false, false, "/path/to/changelog", "test1", "mysql", null));
+        changeLog.addChangeSet(new ChangeSet("1", "nvoxland", false, false, "/path/to/changelog", "test2", "mysql", null));
+        ChangeSet differentChanges = new ChangeSet("4", "nvoxland", false, false, "/path/to/changelog", null, null, null);
+        differentChanges.addChange(new RawSQLChange("select 1"));
+        changeLog.addChangeSet(differentChanges);
+        TestChangeSetVisitor testChangeLogVisitor = new TestChangeSetVisitor();
+
+        ChangeLogIterator iterator = new ChangeLogIterator(changeLog);
+        iterator.run(testChangeLogVisitor, new RuntimeEnvironment(null, null, null));
+        assertEquals(9, testChangeLogVisitor.visitedChangeSets.size());
+        assertEquals("test2", testChangeLogVisitor.visitedChangeSets.get(7).getContexts().toString());
+        assertSame(differentChanges, testChangeLogVisitor.visitedChangeSets.get(8));
+    }
+
+    @Test
+    public void runChangeSet_overriddenCreateKeyIsUsed() throws Exception {
+        TestChangeSetVisitor testChangeLogVisitor = new TestChangeSetVisitor();
+
+        ChangeLogIterator iterator = new ChangeLogIterator(changeLog) {
+            @Override
+            protected String createKey(ChangeSet changeSet) {
+                return changeSet.getAuthor();
+            }
+        };
+        iterator.run(testChangeLogVisitor, new RuntimeEnvironment(null, null, null));
+        assertEquals(1, testChangeLogVisitor.visitedChangeSets.size());
+        assertEquals("nvoxland", changeLog.getChangeSets().get(0).key);
+    }
+
     private static class TestChangeSetVisitor implements ChangeSetVisitor {
 
         public List<ChangeSet> visitedChangeSets = new ArrayList<ChangeSet>();
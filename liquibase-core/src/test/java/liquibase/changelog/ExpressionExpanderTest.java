@@ -118,4 +118,28 @@ public class ExpressionExpanderTest {
         		handler.expandExpressions("${a} is a variable, ${:a} and ${:b} are literals but this isn't: ${b}", null));
     }
 
+    @Test
+    public void expandExpressions_repeatedTextUsesCurrentValues() {
+        assertEquals("A ${later} value", handler.expandExpressions("A ${later} value", null));
+        changeLogParameters.set("LATER", "set");
+        assertEquals("A set value", handler.expandExpressions("A ${later} value", null));
+        assertEquals("A set value", handler.expandExpressions("A ${later} value", null));
+    }
+
+    @Test
+    public void expandExpressions_notAnExpression() {
+        changeLogParameters.set("a", "Value A");
+        assertEquals("${} ${a ${a}}", handler.expandExpressions("${} ${a ${a}}", null));
+        assertEquals("${a", handler.expandExpressions("${a", null));
+        assertEquals("Value A}", handler.expandExpressions("${a}}", null));
+    }
+
+    @Test
+    public void expandExpressions_valueContainingExpression() {
+        changeLogParameters.set("a", "${b}");
+        changeLogParameters.set("b", "Value B");
+        assertEquals("Value B and Value B", handler.expandExpressions("${a} and ${b}", null));
+        assertEquals("${b}", handler.expandExpressions("${a}", null));
+    }
+
 }
@@ -3,6 +3,7 @@ package liquibase.changelog.filter;
 import liquibase.change.CheckSum;
 import liquibase.changelog.ChangeSet;
 import liquibase.changelog.RanChangeSet;
+import liquibase.changelog.RanChangeSetIndex;
 import liquibase.exception.RollbackFailedException;
 import org.junit.Test;
 
@@ -36,4 +37,18 @@ public class AfterTagChangeSetFilterTest {
         assertTrue(filter.accepts(new ChangeSet("3", "testAuthor", false, false, "path/changelog", null, null, null)).isAccepted());
 
     }
+
+    @Test
+    public void accepts_sharedIndex() throws Exception {
+        ArrayList<RanChangeSet> ranChanges = new ArrayList<RanChangeSet>();
+        ranChanges.add(new RanChangeSet("path/changelog", "1", "testAuthor", CheckSum.parse("12345"), new Date(), null, null, null, null, null, null, null));
+        ranChanges.add(new RanChangeSet("path/changelog", "2", "testAuthor", CheckSum.parse("12345"), new Date(), "tag1", null, null, null, null, null, null));
+        ranChanges.add(new RanChangeSet("path/changelog", "3", "testAuthor", CheckSum.parse("12345"), new Date(), null, null, null, null, null, null, null));
+        AfterTagChangeSetFilter filter = new AfterTagChangeSetFilter("tag1", new RanChangeSetIndex(ranChanges));
+
+        assertFalse(filter.accepts(new ChangeSet("1", "testAuthor", false, false, "path/changelog", null, null, null)).isAccepted());
+        assertFalse(filter.accepts(new ChangeSet("2", "testAuthor", false, false, "path/changelog", null, null, null)).isAccepted());
+        assertTrue(filter.accepts(new ChangeSet("3", "testAuthor", false, false, "path/changelog", null, null, null)).isAccepted());
+        assertFalse(filter.accepts(new ChangeSet("4", "testAuthor", false, false, "path/changelog", null, null, null)).isAccepted());
+    }
 }
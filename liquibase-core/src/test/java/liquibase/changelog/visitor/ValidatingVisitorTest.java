@@ -1,5 +1,8 @@
 package liquibase.changelog.visitor;
 
+import liquibase.Scope;
+import liquibase.ThreadLocalScopeManager;
+import liquibase.change.CheckSum;
 import liquibase.change.ColumnConfig;
 import liquibase.change.core.CreateTableChange;
 import liquibase.changelog.ChangeSet;
@@ -13,7 +16,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.Assert.*;
 
@@ -129,4 +136,68 @@ public class ValidatingVisitorTest {
 
         assertTrue(handler.validationPassed());
     }
+
+    @Test
+    public void precomputeCheckSums_sameResultsAsSequential() throws Exception {
+        List<ChangeSet> changeSets = new ArrayList<ChangeSet>();
+        List<RanChangeSet> ran = new ArrayList<RanChangeSet>();
+        for (int i = 0; i < 50; i++) {
+            ChangeSet changeSet = new ChangeSet(String.valueOf(i), "testAuthor", false, false, "path/changelog", null, null, null);
+            CreateTableChange change = new CreateTableChange();
+            change.setTableName("table" + i);
+            change.addColumn(new ColumnConfig().setName("col" + i).setType("int"));
+            changeSet.addChange(change);
+            changeSets.add(changeSet);
+
+            CheckSum storedCheckSum = (i % 7 == 0) ? CheckSum.compute("modified " + i) : CheckSum.compute(change.generateCheckSum() + ":");
+            ran.add(new RanChangeSet("path/changelog", changeSet.getId(), changeSet.getAuthor(), storedCheckSum, new Date(), null, ChangeSet.ExecType.EXECUTED, null, null, null, null, null));
+        }
+
+        ValidatingVisitor handler = new ValidatingVisitor(ran);
+        handler.precomputeCheckSums(changeSets, 4);
+        for (ChangeSet changeSet : changeSets) {
+            handler.visit(changeSet, new DatabaseChangeLog(), null, null);
+        }
+
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 50; i += 7) {
+            expected.add("path/changelog::" + i + "::testAuthor was: " + CheckSum.compute("modified " + i) + " but is now: " + changeSets.get(i).generateCheckSum());
+        }
+        assertEquals(expected, handler.getInvalidMD5Sums());
+    }
+
+    @Test
+    public void precomputeCheckSums_runInCallerScope() throws Exception {
+        final Set<Object> seenValues = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+        final List<ChangeSet> changeSets = new ArrayList<ChangeSet>();
+        final List<RanChangeSet> ran = new ArrayList<RanChangeSet>();
+        for (int i = 0; i < 10; i++) {
+            ChangeSet changeSet = new ChangeSet(String.valueOf(i), "testAuthor", false, false, "path/changelog", null, null, null);
+            CreateTableChange change = new CreateTableChange() {
+                @Override
+                public CheckSum generateCheckSum() {
+                    seenValues.add(String.valueOf(Scope.getCurrentScope().get("precomputeTest", String.class)));
+                    return super.generateCheckSum();
+                }
+            };
+            change.setTableName("table" + i);
+            changeSet.addChange(change);
+            changeSets.add(changeSet);
+            ran.add(new RanChangeSet("path/changelog", changeSet.getId(), changeSet.getAuthor(), CheckSum.compute("stored " + i), new Date(), null, ChangeSet.ExecType.EXECUTED, null, null, null, null, null));
+        }
+
+        ThreadLocalScopeManager.acquire();
+        try {
+            Scope.child("precomputeTest", "caller", new Scope.ScopedRunner() {
+                @Override
+                public void run() throws Exception {
+                    new ValidatingVisitor(ran).precomputeCheckSums(changeSets, 4);
+                }
+            });
+        } finally {
+            ThreadLocalScopeManager.release();
+        }
+
+        assertEquals(Collections.singleton("caller"), seenValues);
+    }
 }